@@ -18,17 +18,26 @@
 
 package org.apache.atlas.hive.bridge;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.hive.model.HiveDataModelGenerator;
 import org.apache.atlas.hive.model.HiveDataTypes;
 import org.apache.atlas.typesystem.Referenceable;
 import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.TypesDef;
 import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.apache.atlas.typesystem.json.TypesSerialization;
 import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.AttributeDefinition;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.Index;
@@ -37,6 +46,7 @@ import org.apache.hadoop.hive.metastore.api.SerDeInfo;
 import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.hive_metastoreConstants;
 import org.apache.hadoop.hive.ql.metadata.Hive;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.Partition;
 import org.apache.hadoop.hive.ql.metadata.Table;
 import org.codehaus.jettison.json.JSONArray;
@@ -46,78 +56,401 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A Bridge Utility that imports metadata from the Hive Meta Store
  * and registers then in Atlas.
  */
 public class HiveMetaStoreBridge {
-    private static final String DEFAULT_DGI_URL = "http://localhost:21000/";
+    public static final String DEFAULT_DGI_URL = "http://localhost:21000/";
     public static final String HIVE_CLUSTER_NAME = "hive.cluster.name";
     public static final String DEFAULT_CLUSTER_NAME = "primary";
     private final String clusterName;
 
     public static final String DGI_URL_PROPERTY = "hive.hook.dgi.url";
 
+    /**
+     * Number of tables imported concurrently, and maximum number of partitions created per request, by
+     * {@link #importHiveMetadata()}.
+     */
+    public static final String IMPORT_THREADS = "hive.import.dgi.threads";
+    public static final String IMPORT_BATCH_SIZE = "hive.import.dgi.batchSize";
+    private static final int importThreadsDefault = 1;
+    private static final int importBatchSizeDefault = 100;
+
+    // number of imported tables between two progress reports
+    private static final int PROGRESS_INTERVAL = 100;
+
+    /**
+     * Maximum number of entity references cached by a bridge, and how long a reference stays cached. A size of 0
+     * disables the cache.
+     */
+    public static final String CACHE_SIZE = "hive.hook.dgi.cache.size";
+    public static final String CACHE_TTL = "hive.hook.dgi.cache.ttlSecs";
+    private static final int cacheSizeDefault = 10000;
+    private static final long cacheTtlDefault = 600;
+
+    /**
+     * Attributes identifying the hive entities, by which the entities of the events sent with
+     * {@link #ingest(IngestBatch)} are resolved on the server.
+     */
+    private static final Map<String, List<String>> IDENTIFIERS = new LinkedHashMap<>();
+
+    static {
+        IDENTIFIERS.put(HiveDataTypes.HIVE_DB.getName(),
+                Arrays.asList(HiveDataModelGenerator.NAME, HiveDataModelGenerator.CLUSTER_NAME));
+        IDENTIFIERS.put(HiveDataTypes.HIVE_TABLE.getName(), Collections.singletonList(HiveDataModelGenerator.NAME));
+        IDENTIFIERS.put(HiveDataTypes.HIVE_PROCESS.getName(), Collections.singletonList("queryText"));
+    }
+
+    private static final String METASTORE_URIS = HiveConf.ConfVars.METASTOREURIS.varname;
+    private static final String METASTORE_CONNECTION_URL = HiveConf.ConfVars.METASTORECONNECTURLKEY.varname;
+
+    // bridges by the values of the properties they depend on, see get(HiveConf)
+    private static final ConcurrentMap<List<String>, HiveMetaStoreBridge> bridges = new ConcurrentHashMap<>();
+
+    // the import threads close the hive clients they opened when they exit
+    private static final ThreadFactory IMPORT_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return Executors.defaultThreadFactory().newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } finally {
+                        Hive.closeCurrent();
+                    }
+                }
+            });
+        }
+    };
+
     private static final Logger LOG = LoggerFactory.getLogger(HiveMetaStoreBridge.class);
 
-    private final Hive hiveClient;
+    private final HiveConf hiveConf;
     private final AtlasClient atlasClient;
+    private final int importThreads;
+    private final int importBatchSize;
+
+    // qualified name -> reference of the registered entities, so that hook invocations sharing the bridge don't
+    // look the same entities up again
+    private final Cache<String, Referenceable> referenceCache;
+
+    // whether databases and tables can be looked up by their unique qualified name, rather than with DSL queries;
+    // null until the registered hive model has been checked
+    private volatile Boolean uniqueQualifiedNames;
 
     /**
      * Construct a HiveMetaStoreBridge.
      * @param hiveConf hive conf
      */
     public HiveMetaStoreBridge(HiveConf hiveConf) throws Exception {
+        this(hiveConf, new AtlasClient(hiveConf.get(DGI_URL_PROPERTY, DEFAULT_DGI_URL)));
+    }
+
+    HiveMetaStoreBridge(HiveConf hiveConf, AtlasClient atlasClient) {
+        this.hiveConf = hiveConf;
+        this.atlasClient = atlasClient;
         clusterName = hiveConf.get(HIVE_CLUSTER_NAME, DEFAULT_CLUSTER_NAME);
-        hiveClient = Hive.get(hiveConf);
-        atlasClient = new AtlasClient(hiveConf.get(DGI_URL_PROPERTY, DEFAULT_DGI_URL));
+        importThreads = hiveConf.getInt(IMPORT_THREADS, importThreadsDefault);
+        importBatchSize = hiveConf.getInt(IMPORT_BATCH_SIZE, importBatchSizeDefault);
+
+        int cacheSize = hiveConf.getInt(CACHE_SIZE, cacheSizeDefault);
+        long cacheTtl = hiveConf.getLong(CACHE_TTL, cacheTtlDefault);
+        LOG.info("Caching up to {} entity references for {} secs", cacheSize, cacheTtl);
+        referenceCache = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Returns the bridge for the atlas url, cluster name, meta store and reference cache settings of the given
+     * configuration, creating it the first time. The bridge, its atlas client and its cache are thread safe and meant
+     * to be shared, so that the connections, SSL set up and authentication of the client and the cached references
+     * are reused; a new bridge is only created when one of these properties differs. Creating the bridge doesn't
+     * connect to the meta store. The bridge connects on the threads that use it, with hive clients of its own per
+     * thread, so it shouldn't be used on the threads of hive sessions, whose clients it would replace.
+     *
+     * @param hiveConf hive conf
+     * @return bridge for the configuration
+     */
+    public static HiveMetaStoreBridge get(HiveConf hiveConf) throws Exception {
+        return get(hiveConf, hiveConf.get(DGI_URL_PROPERTY, DEFAULT_DGI_URL),
+                hiveConf.get(HIVE_CLUSTER_NAME, DEFAULT_CLUSTER_NAME));
+    }
+
+    /**
+     * Returns the bridge for the given atlas url and cluster name and the meta store of the given configuration,
+     * creating it from the configuration the first time.
+     *
+     * @param hiveConf hive conf, of which the bridge takes a copy with the given atlas url and cluster name
+     * @param atlasUrl atlas url
+     * @param clusterName cluster name
+     * @return bridge for the atlas url and cluster name
+     */
+    public static HiveMetaStoreBridge get(HiveConf hiveConf, String atlasUrl, String clusterName)
+    throws Exception {
+        List<String> key = Arrays.asList(atlasUrl, clusterName, hiveConf.get(METASTORE_URIS),
+                hiveConf.get(METASTORE_CONNECTION_URL), hiveConf.get(CACHE_SIZE), hiveConf.get(CACHE_TTL));
+        HiveMetaStoreBridge bridge = bridges.get(key);
+        if (bridge == null) {
+            synchronized (bridges) {
+                bridge = bridges.get(key);
+                if (bridge == null) {
+                    LOG.info("Creating the bridge for {}", key);
+                    // sessions change their configuration, so the bridge keeps its own copy
+                    HiveConf bridgeConf = new HiveConf(hiveConf);
+                    bridgeConf.set(DGI_URL_PROPERTY, atlasUrl);
+                    bridgeConf.set(HIVE_CLUSTER_NAME, clusterName);
+                    bridge = new HiveMetaStoreBridge(bridgeConf);
+                    bridges.put(key, bridge);
+                }
+            }
+        }
+        return bridge;
     }
 
     public AtlasClient getAtlasClient() {
         return atlasClient;
     }
 
+    private static String getCacheKey(HiveDataTypes type, String qualifiedName) {
+        return type.getName() + ":" + qualifiedName;
+    }
+
+    private Referenceable cache(String key, Referenceable reference) {
+        if (reference != null) {
+            referenceCache.put(key, reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Drops the cached references to a table and to its storage descriptor, after the table has been renamed or
+     * created again. The references to partitions are cached by the guid of their table, so the partitions of a
+     * table created again aren't mistaken for the ones of the table it replaces.
+     *
+     * @param dbName database name
+     * @param tableName table name
+     */
+    public void invalidateTable(String dbName, String tableName) {
+        String tableEntityName = getTableName(clusterName, dbName, tableName);
+        referenceCache.invalidate(getCacheKey(HiveDataTypes.HIVE_TABLE, tableEntityName));
+        referenceCache.invalidate(getCacheKey(HiveDataTypes.HIVE_STORAGEDESC, tableEntityName));
+    }
+
+    /**
+     * Hive clients can't be shared between threads, so each thread gets its own.
+     */
+    private Hive getHiveClient() throws HiveException {
+        return Hive.get(hiveConf);
+    }
+
+    /**
+     * Imports all the databases first, and then the tables of every database, along with their partitions
+     * and indexes. The tables are imported concurrently by the configured number of threads.
+     */
     public void importHiveMetadata() throws Exception {
-        LOG.info("Importing hive metadata");
-        importDatabases();
+        LOG.info("Importing hive metadata with {} threads", importThreads);
+        ImportProgress progress = new ImportProgress();
+
+        Map<String, Referenceable> dbReferences = importDatabases();
+        importTables(dbReferences, progress);
+
+        progress.report();
     }
 
-    private void importDatabases() throws Exception {
-        List<String> databases = hiveClient.getAllDatabases();
-        for (String databaseName : databases) {
-            Referenceable dbReference = registerDatabase(databaseName);
+    private Map<String, Referenceable> importDatabases() throws Exception {
+        Map<String, Referenceable> dbReferences = new LinkedHashMap<>();
+        for (String databaseName : getHiveClient().getAllDatabases()) {
+            dbReferences.put(databaseName, registerDatabase(databaseName));
+        }
+        return dbReferences;
+    }
 
-            importTables(databaseName, dbReference);
+    private void importTables(Map<String, Referenceable> dbReferences, final ImportProgress progress)
+    throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(importThreads, new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("Atlas Hive Import %d").setThreadFactory(IMPORT_THREAD_FACTORY)
+                .build());
+        try {
+            Map<String, Future<?>> tableImports = new LinkedHashMap<>();
+            for (Map.Entry<String, Referenceable> dbEntry : dbReferences.entrySet()) {
+                final String databaseName = dbEntry.getKey();
+                final Referenceable dbReference = dbEntry.getValue();
+
+                List<String> hiveTables = getHiveClient().getAllTables(databaseName);
+                progress.tablesFound(hiveTables.size());
+                for (final String tableName : hiveTables) {
+                    tableImports.put(databaseName + "." + tableName, executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            importTable(databaseName, dbReference, tableName, progress);
+                            return null;
+                        }
+                    }));
+                }
+            }
+
+            // a failed table doesn't stop the import of the others
+            int failures = 0;
+            for (Map.Entry<String, Future<?>> tableImport : tableImports.entrySet()) {
+                try {
+                    tableImport.getValue().get();
+                } catch (ExecutionException e) {
+                    LOG.error("Failed to import table {}", tableImport.getKey(), e.getCause());
+                    failures++;
+                }
+            }
+
+            if (failures > 0) {
+                throw new Exception(
+                        String.format("Failed to import %d of %d tables", failures, tableImports.size()));
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
     public Referenceable registerDatabase(String databaseName) throws Exception {
         Referenceable dbRef = getDatabaseReference(databaseName, clusterName);
         if (dbRef == null) {
-            LOG.info("Importing objects from databaseName : " + databaseName);
-            Database hiveDB = hiveClient.getDatabase(databaseName);
-
-            dbRef = new Referenceable(HiveDataTypes.HIVE_DB.getName());
-            dbRef.set(HiveDataModelGenerator.NAME, hiveDB.getName().toLowerCase());
-            dbRef.set(HiveDataModelGenerator.CLUSTER_NAME, clusterName);
-            dbRef.set("description", hiveDB.getDescription());
-            dbRef.set("locationUri", hiveDB.getLocationUri());
-            dbRef.set("parameters", hiveDB.getParameters());
-            dbRef.set("ownerName", hiveDB.getOwnerName());
-            if (hiveDB.getOwnerType() != null) {
-                dbRef.set("ownerType", hiveDB.getOwnerType().getValue());
-            }
-
-            dbRef = createInstance(dbRef);
+            dbRef = cache(getCacheKey(HiveDataTypes.HIVE_DB, getDBQualifiedName(clusterName, databaseName)),
+                    createInstance(createDatabaseDefinition(databaseName)));
         } else {
             LOG.info("Database {} is already registered with id {}", databaseName, dbRef.getId().id);
         }
         return dbRef;
     }
 
+    private Referenceable createDatabaseDefinition(String databaseName) throws Exception {
+        LOG.info("Importing objects from databaseName : " + databaseName);
+        Database hiveDB = getHiveClient().getDatabase(databaseName);
+
+        Referenceable dbRef = new Referenceable(HiveDataTypes.HIVE_DB.getName());
+        dbRef.set(HiveDataModelGenerator.NAME, hiveDB.getName().toLowerCase());
+        dbRef.set(HiveDataModelGenerator.CLUSTER_NAME, clusterName);
+        dbRef.set(HiveDataModelGenerator.QUALIFIED_NAME, getDBQualifiedName(clusterName, hiveDB.getName()));
+        dbRef.set("description", hiveDB.getDescription());
+        dbRef.set("locationUri", hiveDB.getLocationUri());
+        dbRef.set("parameters", hiveDB.getParameters());
+        dbRef.set("ownerName", hiveDB.getOwnerName());
+        if (hiveDB.getOwnerType() != null) {
+            dbRef.set("ownerType", hiveDB.getOwnerType().getValue());
+        }
+        return dbRef;
+    }
+
+    /**
+     * Returns the cached reference to the database, or else its definition, for an event of an
+     * {@link IngestBatch}. Unlike {@link #registerDatabase(String)}, the database isn't looked up in atlas.
+     */
+    public Referenceable getDatabaseDefinition(String databaseName) throws Exception {
+        Referenceable dbRef = referenceCache.getIfPresent(
+                getCacheKey(HiveDataTypes.HIVE_DB, getDBQualifiedName(clusterName, databaseName)));
+        return dbRef != null ? dbRef : createDatabaseDefinition(databaseName);
+    }
+
+    /**
+     * Returns the cached reference to the table, or else its definition along with the one of its database,
+     * for an event of an {@link IngestBatch}. Unlike {@link #registerTable(String, String)}, the table isn't
+     * looked up in atlas.
+     */
+    public Referenceable getTableDefinition(String dbName, String tableName) throws Exception {
+        Referenceable tableRef = referenceCache.getIfPresent(
+                getCacheKey(HiveDataTypes.HIVE_TABLE, getTableName(clusterName, dbName, tableName)));
+        return tableRef != null ? tableRef
+                : createTableDefinition(getDatabaseDefinition(dbName), dbName, tableName);
+    }
+
+    /**
+     * Adds the events renaming a table to the batch: the registered table is updated, or else the table is
+     * registered with its new name.
+     */
+    public void renameTable(IngestBatch batch, String dbName, String tableName, String newDbName,
+            String newTableName) throws Exception {
+        invalidateTable(dbName, tableName);
+        invalidateTable(newDbName, newTableName);
+
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put(HiveDataModelGenerator.TABLE_NAME, newTableName.toLowerCase());
+        attributes.put(HiveDataModelGenerator.NAME, getTableName(clusterName, newDbName, newTableName));
+        attributes.put(HiveDataModelGenerator.QUALIFIED_NAME, getTableName(clusterName, newDbName, newTableName));
+        batch.update(HiveDataTypes.HIVE_TABLE.getName(),
+                Collections.singletonMap(HiveDataModelGenerator.NAME, getTableName(clusterName, dbName, tableName)),
+                attributes);
+        batch.create(getTableDefinition(newDbName, newTableName));
+    }
+
+    /**
+     * Sends the events of the batch with a single request. The databases, tables and processes of the events
+     * are resolved by their qualified names on the server, and only created if they aren't registered yet.
+     *
+     * @return for each event, in order, why it was rejected, or null if it was applied
+     */
+    public List<String> ingest(IngestBatch batch) throws Exception {
+        List<String> errors = new ArrayList<>(batch.size());
+        if (batch.isEmpty()) {
+            return errors;
+        }
+
+        LOG.debug("Sending {} events", batch.size());
+        JSONArray results = atlasClient.ingest(batch.toJson(IDENTIFIERS));
+        for (int event = 0; event < results.length(); event++) {
+            JSONObject result = results.getJSONObject(event);
+            if (result.has(AtlasClient.ERROR)) {
+                errors.add(result.getString(AtlasClient.ERROR));
+                continue;
+            }
+
+            // guids of the entities of a create event, in order; update events have no entities to cache
+            JSONArray guids = result.getJSONArray(AtlasClient.GUID);
+            List<Referenceable> entities = batch.getEntities(event);
+            for (int index = 0; index < entities.size(); index++) {
+                Referenceable entity = entities.get(index);
+                String cacheKey = batch.getCacheKey(entity) != null ? batch.getCacheKey(entity) : getCacheKey(entity);
+                if (cacheKey != null) {
+                    cache(cacheKey, new Referenceable(guids.getString(index), entity.getTypeName(), null));
+                }
+            }
+            errors.add(null);
+        }
+        return errors;
+    }
+
+    private String getCacheKey(Referenceable entity) {
+        if (entity.getId().isAssigned()) {
+            return null;
+        }
+
+        String typeName = entity.getTypeName();
+        if (typeName.equals(HiveDataTypes.HIVE_DB.getName())) {
+            return getCacheKey(HiveDataTypes.HIVE_DB,
+                    getDBQualifiedName(clusterName, (String) entity.get(HiveDataModelGenerator.NAME)));
+        } else if (typeName.equals(HiveDataTypes.HIVE_TABLE.getName())) {
+            return getCacheKey(HiveDataTypes.HIVE_TABLE, (String) entity.get(HiveDataModelGenerator.NAME));
+        } else if (typeName.equals(HiveDataTypes.HIVE_PROCESS.getName())) {
+            return getCacheKey(HiveDataTypes.HIVE_PROCESS, (String) entity.get("queryText"));
+        }
+        return null;
+    }
+
     public Referenceable createInstance(Referenceable referenceable) throws Exception {
         String typeName = referenceable.getTypeName();
         LOG.debug("creating instance of type " + typeName);
@@ -131,19 +464,57 @@ public class HiveMetaStoreBridge {
         return new Referenceable(guid, referenceable.getTypeName(), null);
     }
 
-    private void importTables(String databaseName, Referenceable databaseReferenceable) throws Exception {
-        List<String> hiveTables = hiveClient.getAllTables(databaseName);
+    /**
+     * Creates the given instances with a single request.
+     *
+     * @return references to the created instances, in the same order
+     */
+    public List<Referenceable> createInstances(List<Referenceable> referenceables) throws Exception {
+        List<Referenceable> references = new ArrayList<>(referenceables.size());
+        if (referenceables.isEmpty()) {
+            return references;
+        }
 
-        for (String tableName : hiveTables) {
-            Referenceable tableReferenceable = registerTable(databaseReferenceable, databaseName, tableName);
+        LOG.debug("Creating {} instances", referenceables.size());
+        List<String> guids =
+                atlasClient.createEntities(referenceables.toArray(new Referenceable[referenceables.size()]));
+        for (int index = 0; index < guids.size(); index++) {
+            references.add(new Referenceable(guids.get(index), referenceables.get(index).getTypeName(), null));
+        }
+        return references;
+    }
 
-            // Import Partitions
-            Referenceable sdReferenceable = getSDForTable(databaseName, tableName);
-            registerPartitions(databaseName, tableName, tableReferenceable, sdReferenceable);
+    /**
+     * Creates the given processes with a single request, and caches them by their query.
+     */
+    public List<Referenceable> registerProcesses(List<Referenceable> processes) throws Exception {
+        List<Referenceable> references = createInstances(processes);
+        for (int index = 0; index < references.size(); index++) {
+            String queryStr = (String) processes.get(index).get("queryText");
+            cache(getCacheKey(HiveDataTypes.HIVE_PROCESS, queryStr), references.get(index));
+        }
+        return references;
+    }
 
-            // Import Indexes
-            importIndexes(databaseName, tableName, databaseReferenceable, tableReferenceable);
+    private void importTable(String databaseName, Referenceable databaseReferenceable, String tableName,
+            ImportProgress progress) throws Exception {
+        Referenceable tableReferenceable = getTableReference(databaseName, tableName);
+        boolean tableCreated = tableReferenceable == null;
+        if (tableCreated) {
+            tableReferenceable = createTable(databaseName, tableName,
+                    createTableDefinition(databaseReferenceable, databaseName, tableName));
+        } else {
+            LOG.info("Table {}.{} is already registered with id {}", databaseName, tableName,
+                    tableReferenceable.getId().id);
         }
+
+        // Import Partitions
+        int partitions = importPartitions(databaseName, tableName, tableReferenceable, tableCreated);
+
+        // Import Indexes
+        importIndexes(databaseName, tableName, databaseReferenceable, tableReferenceable);
+
+        progress.tableImported(partitions);
     }
 
     /**
@@ -158,15 +529,30 @@ public class HiveMetaStoreBridge {
     private Referenceable getDatabaseReference(String databaseName, String clusterName) throws Exception {
         LOG.debug("Getting reference for database {}", databaseName);
         String typeName = HiveDataTypes.HIVE_DB.getName();
+        String cacheKey = getCacheKey(HiveDataTypes.HIVE_DB, getDBQualifiedName(clusterName, databaseName));
+        Referenceable dbRef = referenceCache.getIfPresent(cacheKey);
+        if (dbRef != null) {
+            return dbRef;
+        }
+
+        if (hasUniqueQualifiedNames()) {
+            return cache(cacheKey, getEntityReferenceByQualifiedName(typeName,
+                    getDBQualifiedName(clusterName, databaseName)));
+        }
 
         String dslQuery = String.format("%s where %s = '%s' and %s = '%s'", typeName, HiveDataModelGenerator.NAME,
                 databaseName.toLowerCase(), HiveDataModelGenerator.CLUSTER_NAME, clusterName);
-        return getEntityReferenceFromDSL(typeName, dslQuery);
+        return cache(cacheKey, getEntityReferenceFromDSL(typeName, dslQuery));
     }
 
     public Referenceable getProcessReference(String queryStr) throws Exception {
         LOG.debug("Getting reference for process with query {}", queryStr);
         String typeName = HiveDataTypes.HIVE_PROCESS.getName();
+        String cacheKey = getCacheKey(HiveDataTypes.HIVE_PROCESS, queryStr);
+        Referenceable processRef = referenceCache.getIfPresent(cacheKey);
+        if (processRef != null) {
+            return processRef;
+        }
 
         //todo enable DSL
         //        String dslQuery = String.format("%s where queryText = \"%s\"", typeName, queryStr);
@@ -175,7 +561,7 @@ public class HiveMetaStoreBridge {
         String gremlinQuery =
                 String.format("g.V.has('__typeName', '%s').has('%s.queryText', \"%s\").toList()", typeName, typeName,
                         StringEscapeUtils.escapeJava(queryStr));
-        return getEntityReferenceFromGremlin(typeName, gremlinQuery);
+        return cache(cacheKey, getEntityReferenceFromGremlin(typeName, gremlinQuery));
     }
 
     private Referenceable getEntityReferenceFromDSL(String typeName, String dslQuery) throws Exception {
@@ -199,6 +585,59 @@ public class HiveMetaStoreBridge {
         return String.format("%s.%s@%s", dbName.toLowerCase(), tableName.toLowerCase(), clusterName);
     }
 
+    public static String getDBQualifiedName(String clusterName, String dbName) {
+        return String.format("%s@%s", dbName.toLowerCase(), clusterName);
+    }
+
+    /**
+     * Looks the guid of the entity up in the unique index of its qualified name.
+     *
+     * @return reference to the entity, or null if there is none
+     */
+    private Referenceable getEntityReferenceByQualifiedName(String typeName, String qualifiedName)
+    throws AtlasServiceException {
+        String guid = getAtlasClient().getEntityGuid(typeName, HiveDataModelGenerator.QUALIFIED_NAME, qualifiedName);
+        return guid == null ? null : new Referenceable(guid, typeName, null);
+    }
+
+    /**
+     * Checks once whether the registered hive_db and hive_table types declare unique qualified names. Models
+     * registered before qualified names were added don't, so databases and tables are looked up with DSL queries.
+     * The answer isn't remembered while the types aren't registered yet.
+     */
+    private boolean hasUniqueQualifiedNames() throws AtlasServiceException {
+        Boolean unique = uniqueQualifiedNames;
+        if (unique != null) {
+            return unique;
+        }
+
+        AtlasClient dgiClient = getAtlasClient();
+        String dbTypeJson = dgiClient.getType(HiveDataTypes.HIVE_DB.getName());
+        String tableTypeJson = dgiClient.getType(HiveDataTypes.HIVE_TABLE.getName());
+        if (dbTypeJson == null || tableTypeJson == null) {
+            return false;
+        }
+
+        unique = isQualifiedNameUnique(dbTypeJson) && isQualifiedNameUnique(tableTypeJson);
+        if (!unique) {
+            LOG.info("Qualified names aren't unique in atlas, looking databases and tables up with DSL queries");
+        }
+        uniqueQualifiedNames = unique;
+        return unique;
+    }
+
+    private static boolean isQualifiedNameUnique(String typesJson) {
+        TypesDef typesDef = TypesSerialization.fromJson(typesJson);
+        for (HierarchicalTypeDefinition<ClassType> classType : typesDef.classTypesAsJavaList()) {
+            for (AttributeDefinition attribute : classType.attributeDefinitions) {
+                if (HiveDataModelGenerator.QUALIFIED_NAME.equals(attribute.name)) {
+                    return attribute.isUnique;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets reference for the table
      *
@@ -212,8 +651,18 @@ public class HiveMetaStoreBridge {
 
         String typeName = HiveDataTypes.HIVE_TABLE.getName();
         String entityName = getTableName(clusterName, dbName, tableName);
+        String cacheKey = getCacheKey(HiveDataTypes.HIVE_TABLE, entityName);
+        Referenceable tableRef = referenceCache.getIfPresent(cacheKey);
+        if (tableRef != null) {
+            return tableRef;
+        }
+
+        if (hasUniqueQualifiedNames()) {
+            return cache(cacheKey, getEntityReferenceByQualifiedName(typeName, entityName));
+        }
+
         String dslQuery = String.format("%s as t where name = '%s'", typeName, entityName);
-        return getEntityReferenceFromDSL(typeName, dslQuery);
+        return cache(cacheKey, getEntityReferenceFromDSL(typeName, dslQuery));
     }
 
     private Referenceable getEntityReferenceFromGremlin(String typeName, String gremlinQuery)
@@ -229,6 +678,12 @@ public class HiveMetaStoreBridge {
     }
 
     private Referenceable getPartitionReference(String dbName, String tableName, List<String> values) throws Exception {
+        Referenceable tableRef = getTableReference(dbName, tableName);
+        return tableRef == null ? null : getPartitionReference(dbName, tableName, tableRef, values);
+    }
+
+    private Referenceable getPartitionReference(String dbName, String tableName, Referenceable tableRef,
+            List<String> values) throws Exception {
         String valuesStr = "['" + StringUtils.join(values, "', '") + "']";
         LOG.debug("Getting reference for partition for {}.{} with values {}", dbName, tableName, valuesStr);
         String typeName = HiveDataTypes.HIVE_PARTITION.getName();
@@ -241,12 +696,21 @@ public class HiveMetaStoreBridge {
 
         String datasetType = AtlasClient.DATA_SET_SUPER_TYPE;
         String tableEntityName = getTableName(clusterName, dbName, tableName);
+        String cacheKey = getPartitionCacheKey(tableRef, values);
+        Referenceable partRef = referenceCache.getIfPresent(cacheKey);
+        if (partRef != null) {
+            return partRef;
+        }
 
         String gremlinQuery = String.format("g.V.has('__typeName', '%s').has('%s.values', %s).as('p')."
                         + "out('__%s.table').has('%s.name', '%s').back('p').toList()", typeName, typeName, valuesStr,
                 typeName, datasetType, tableEntityName);
 
-        return getEntityReferenceFromGremlin(typeName, gremlinQuery);
+        return cache(cacheKey, getEntityReferenceFromGremlin(typeName, gremlinQuery));
+    }
+
+    private static String getPartitionCacheKey(Referenceable tableRef, List<String> values) {
+        return getCacheKey(HiveDataTypes.HIVE_PARTITION, tableRef.getId()._getId() + ":" + values);
     }
 
     private Referenceable getSDForTable(String dbName, String tableName) throws Exception {
@@ -255,10 +719,34 @@ public class HiveMetaStoreBridge {
             throw new IllegalArgumentException("Table " + dbName + "." + tableName + " doesn't exist");
         }
 
+        return getSDForTable(dbName, tableName, tableRef);
+    }
+
+    private Referenceable getSDForTable(String dbName, String tableName, Referenceable tableRef) throws Exception {
+        String cacheKey = getCacheKey(HiveDataTypes.HIVE_STORAGEDESC, getTableName(clusterName, dbName, tableName));
+        Referenceable sdRef = referenceCache.getIfPresent(cacheKey);
+        if (sdRef != null) {
+            return sdRef;
+        }
+
         AtlasClient dgiClient = getAtlasClient();
         Referenceable tableInstance = dgiClient.getEntity(tableRef.getId().id);
         Id sdId = (Id) tableInstance.get("sd");
-        return new Referenceable(sdId.id, sdId.getTypeName(), null);
+        return cache(cacheKey, new Referenceable(sdId.id, sdId.getTypeName(), null));
+    }
+
+    /**
+     * Creates the given table definition, along with its columns and storage descriptor, and caches the references
+     * to the table and its storage descriptor. The storage descriptor is only referred to by the table, so it is
+     * sent as an instance of its own to be created in the same request.
+     */
+    private Referenceable createTable(String dbName, String tableName, Referenceable tableDefinition)
+    throws Exception {
+        String tableEntityName = getTableName(clusterName, dbName, tableName);
+        Referenceable sdReferenceable = (Referenceable) tableDefinition.get("sd");
+        List<Referenceable> references = createInstances(Arrays.asList(sdReferenceable, tableDefinition));
+        cache(getCacheKey(HiveDataTypes.HIVE_STORAGEDESC, tableEntityName), references.get(0));
+        return cache(getCacheKey(HiveDataTypes.HIVE_TABLE, tableEntityName), references.get(1));
     }
 
     public Referenceable registerTable(String dbName, String tableName) throws Exception {
@@ -270,67 +758,155 @@ public class HiveMetaStoreBridge {
         LOG.info("Attempting to register table [" + tableName + "]");
         Referenceable tableRef = getTableReference(dbName, tableName);
         if (tableRef == null) {
-            LOG.info("Importing objects from " + dbName + "." + tableName);
+            tableRef = createTable(dbName, tableName, createTableDefinition(dbReference, dbName, tableName));
+        } else {
+            LOG.info("Table {}.{} is already registered with id {}", dbName, tableName, tableRef.getId().id);
+        }
+        return tableRef;
+    }
+
+    /**
+     * Builds the table entity, along with its columns and storage descriptor, which are created with the table.
+     */
+    private Referenceable createTableDefinition(Referenceable dbReference, String dbName, String tableName)
+    throws Exception {
+        LOG.info("Importing objects from " + dbName + "." + tableName);
+
+        Table hiveTable = getHiveClient().getTable(dbName, tableName);
 
-            Table hiveTable = hiveClient.getTable(dbName, tableName);
+        Referenceable tableRef = new Referenceable(HiveDataTypes.HIVE_TABLE.getName());
+        tableRef.set(HiveDataModelGenerator.NAME,
+                getTableName(clusterName, hiveTable.getDbName(), hiveTable.getTableName()));
+        tableRef.set(HiveDataModelGenerator.QUALIFIED_NAME,
+                getTableName(clusterName, hiveTable.getDbName(), hiveTable.getTableName()));
+        tableRef.set(HiveDataModelGenerator.TABLE_NAME, hiveTable.getTableName().toLowerCase());
+        tableRef.set("owner", hiveTable.getOwner());
 
-            tableRef = new Referenceable(HiveDataTypes.HIVE_TABLE.getName());
-            tableRef.set(HiveDataModelGenerator.NAME,
-                    getTableName(clusterName, hiveTable.getDbName(), hiveTable.getTableName()));
-            tableRef.set(HiveDataModelGenerator.TABLE_NAME, hiveTable.getTableName().toLowerCase());
-            tableRef.set("owner", hiveTable.getOwner());
+        tableRef.set("createTime", hiveTable.getMetadata().getProperty(hive_metastoreConstants.DDL_TIME));
+        tableRef.set("lastAccessTime", hiveTable.getLastAccessTime());
+        tableRef.set("retention", hiveTable.getRetention());
 
-            tableRef.set("createTime", hiveTable.getMetadata().getProperty(hive_metastoreConstants.DDL_TIME));
-            tableRef.set("lastAccessTime", hiveTable.getLastAccessTime());
-            tableRef.set("retention", hiveTable.getRetention());
+        tableRef.set(HiveDataModelGenerator.COMMENT, hiveTable.getParameters().get(HiveDataModelGenerator.COMMENT));
 
-            tableRef.set(HiveDataModelGenerator.COMMENT, hiveTable.getParameters().get(HiveDataModelGenerator.COMMENT));
+        // add reference to the database
+        tableRef.set(HiveDataModelGenerator.DB, dbReference);
 
-            // add reference to the database
-            tableRef.set(HiveDataModelGenerator.DB, dbReference);
+        List<Referenceable> colList = getColumns(hiveTable.getCols());
+        tableRef.set("columns", colList);
 
-            List<Referenceable> colList = getColumns(hiveTable.getCols());
-            tableRef.set("columns", colList);
+        // add reference to the StorageDescriptor
+        StorageDescriptor storageDesc = hiveTable.getSd();
+        Referenceable sdReferenceable = fillStorageDescStruct(storageDesc, colList);
+        tableRef.set("sd", sdReferenceable);
 
-            // add reference to the StorageDescriptor
-            StorageDescriptor storageDesc = hiveTable.getSd();
-            Referenceable sdReferenceable = fillStorageDescStruct(storageDesc, colList);
-            tableRef.set("sd", sdReferenceable);
+        // add reference to the Partition Keys
+        List<Referenceable> partKeys = getColumns(hiveTable.getPartitionKeys());
+        tableRef.set("partitionKeys", partKeys);
 
-            // add reference to the Partition Keys
-            List<Referenceable> partKeys = getColumns(hiveTable.getPartitionKeys());
-            tableRef.set("partitionKeys", partKeys);
+        tableRef.set("parameters", hiveTable.getParameters());
 
-            tableRef.set("parameters", hiveTable.getParameters());
+        if (hiveTable.getViewOriginalText() != null) {
+            tableRef.set("viewOriginalText", hiveTable.getViewOriginalText());
+        }
 
-            if (hiveTable.getViewOriginalText() != null) {
-                tableRef.set("viewOriginalText", hiveTable.getViewOriginalText());
+        if (hiveTable.getViewExpandedText() != null) {
+            tableRef.set("viewExpandedText", hiveTable.getViewExpandedText());
+        }
+
+        tableRef.set("tableType", hiveTable.getTableType().name());
+        tableRef.set("temporary", hiveTable.isTemporary());
+
+        return tableRef;
+    }
+
+    /**
+     * Registers the partitions of a table that aren't registered yet, in batches.
+     *
+     * @param tableCreated whether the table was just created, in which case none of its partitions can be
+     *                     registered and they aren't looked up
+     * @return number of partitions registered
+     */
+    private int importPartitions(String db, String tableName, Referenceable tableReferenceable,
+            boolean tableCreated) throws Exception {
+        Set<Partition> tableParts =
+                getHiveClient().getAllPartitionsOf(new Table(Table.getEmptyTable(db, tableName)));
+        if (tableParts.isEmpty()) {
+            return 0;
+        }
+
+        Referenceable sdReferenceable = getSDForTable(db, tableName, tableReferenceable);
+        int registered = 0;
+        List<Referenceable> batch = new ArrayList<>();
+        for (Partition hivePart : tableParts) {
+            if (!tableCreated) {
+                Referenceable partRef =
+                        getPartitionReference(db, tableName, tableReferenceable, hivePart.getValues());
+                if (partRef != null) {
+                    LOG.info("Partition {}.{} with values {} is already registered with id {}", db, tableName,
+                            StringUtils.join(hivePart.getValues(), ","), partRef.getId().id);
+                    continue;
+                }
             }
 
-            if (hiveTable.getViewExpandedText() != null) {
-                tableRef.set("viewExpandedText", hiveTable.getViewExpandedText());
+            batch.add(createPartitionDefinition(hivePart, tableReferenceable, sdReferenceable));
+            if (batch.size() >= importBatchSize) {
+                registered += createInstances(batch).size();
+                batch.clear();
             }
+        }
+        registered += createInstances(batch).size();
+
+        return registered;
+    }
 
-            tableRef.set("tableType", hiveTable.getTableType().name());
-            tableRef.set("temporary", hiveTable.isTemporary());
+    /**
+     * Adds the event creating the partition of the table with the given values to the batch, unless it is registered
+     * or already created by the batch. The partition refers to the storage descriptor of its table, which is only
+     * known once the table is registered, so the partition of a table that isn't registered yet is registered
+     * right away along with the table.
+     */
+    public void addPartition(IngestBatch batch, String dbName, String tableName, List<String> values)
+    throws Exception {
+        Referenceable tableRef = getTableReference(dbName, tableName);
+        if (tableRef == null) {
+            registerPartition(dbName, tableName, values);
+            return;
+        }
 
+        String cacheKey = getPartitionCacheKey(tableRef, values);
+        if (batch.creates(cacheKey) || getPartitionReference(dbName, tableName, tableRef, values) != null) {
+            return;
+        }
 
-            tableRef = createInstance(tableRef);
-        } else {
-            LOG.info("Table {}.{} is already registered with id {}", dbName, tableName, tableRef.getId().id);
+        Partition partition = getHivePartition(dbName, tableName, values);
+        if (partition != null) {
+            batch.create(cacheKey, createPartitionDefinition(partition, tableRef,
+                    getSDForTable(dbName, tableName, tableRef)));
         }
-        return tableRef;
     }
 
-    private void registerPartitions(String db, String tableName, Referenceable tableReferenceable,
-            Referenceable sdReferenceable) throws Exception {
-        Set<Partition> tableParts = hiveClient.getAllPartitionsOf(new Table(Table.getEmptyTable(db, tableName)));
+    private Partition getHivePartition(String dbName, String tableName, List<String> values) throws Exception {
+        Hive hiveClient = getHiveClient();
+        Table table = hiveClient.getTable(dbName, tableName);
+        Partition partition =
+                hiveClient.getPartition(table, Warehouse.makeSpecFromValues(table.getPartitionKeys(), values), false);
+        if (partition == null) {
+            LOG.warn("Partition {}.{} with values {} doesn't exist", dbName, tableName, StringUtils.join(values, ","));
+        }
+        return partition;
+    }
 
-        if (tableParts.size() > 0) {
-            for (Partition hivePart : tableParts) {
-                registerPartition(hivePart, tableReferenceable, sdReferenceable);
-            }
+    /**
+     * Registers the partition of the table with the given values, looking it up in hive only if it isn't registered.
+     */
+    public Referenceable registerPartition(String dbName, String tableName, List<String> values) throws Exception {
+        Referenceable partRef = getPartitionReference(dbName, tableName, values);
+        if (partRef != null) {
+            return partRef;
         }
+
+        Partition partition = getHivePartition(dbName, tableName, values);
+        return partition == null ? null : registerPartition(partition);
     }
 
     public Referenceable registerPartition(Partition partition) throws Exception {
@@ -348,24 +924,10 @@ public class HiveMetaStoreBridge {
         String dbName = hivePart.getTable().getDbName();
         String tableName = hivePart.getTable().getTableName();
 
-        Referenceable partRef = getPartitionReference(dbName, tableName, hivePart.getValues());
+        Referenceable partRef = getPartitionReference(dbName, tableName, tableReferenceable, hivePart.getValues());
         if (partRef == null) {
-            partRef = new Referenceable(HiveDataTypes.HIVE_PARTITION.getName());
-            partRef.set("values", hivePart.getValues());
-
-            partRef.set(HiveDataModelGenerator.TABLE, tableReferenceable);
-
-            //todo fix
-            partRef.set("createTime", hivePart.getLastAccessTime());
-            partRef.set("lastAccessTime", hivePart.getLastAccessTime());
-
-            // sdStruct = fillStorageDescStruct(hivePart.getSd());
-            // Instead of creating copies of the sdstruct for partitions we are reusing existing
-            // ones will fix to identify partitions with differing schema.
-            partRef.set("sd", sdReferenceable);
-
-            partRef.set("parameters", hivePart.getParameters());
-            partRef = createInstance(partRef);
+            partRef = cache(getPartitionCacheKey(tableReferenceable, hivePart.getValues()),
+                    createInstance(createPartitionDefinition(hivePart, tableReferenceable, sdReferenceable)));
         } else {
             LOG.info("Partition {}.{} with values {} is already registered with id {}", dbName, tableName,
                     StringUtils.join(hivePart.getValues(), ","), partRef.getId().id);
@@ -373,9 +935,29 @@ public class HiveMetaStoreBridge {
         return partRef;
     }
 
+    private Referenceable createPartitionDefinition(Partition hivePart, Referenceable tableReferenceable,
+            Referenceable sdReferenceable) {
+        Referenceable partRef = new Referenceable(HiveDataTypes.HIVE_PARTITION.getName());
+        partRef.set("values", hivePart.getValues());
+
+        partRef.set(HiveDataModelGenerator.TABLE, tableReferenceable);
+
+        //todo fix
+        partRef.set("createTime", hivePart.getLastAccessTime());
+        partRef.set("lastAccessTime", hivePart.getLastAccessTime());
+
+        // sdStruct = fillStorageDescStruct(hivePart.getSd());
+        // Instead of creating copies of the sdstruct for partitions we are reusing existing
+        // ones will fix to identify partitions with differing schema.
+        partRef.set("sd", sdReferenceable);
+
+        partRef.set("parameters", hivePart.getParameters());
+        return partRef;
+    }
+
     private void importIndexes(String db, String table, Referenceable dbReferenceable, Referenceable tableReferenceable)
     throws Exception {
-        List<Index> indexes = hiveClient.getIndexes(db, table, Short.MAX_VALUE);
+        List<Index> indexes = getHiveClient().getIndexes(db, table, Short.MAX_VALUE);
         if (indexes.size() > 0) {
             for (Index index : indexes) {
                 importIndex(index, dbReferenceable, tableReferenceable);
@@ -406,7 +988,7 @@ public class HiveMetaStoreBridge {
 
         tableReferenceable.set("deferredRebuild", index.isDeferredRebuild());
 
-        createInstance(indexRef);
+        createInstances(Arrays.asList(sdReferenceable, indexRef));
     }
 
     private Referenceable fillStorageDescStruct(StorageDescriptor storageDesc, List<Referenceable> colList)
@@ -466,7 +1048,7 @@ public class HiveMetaStoreBridge {
         sdReferenceable.set("parameters", storageDesc.getParameters());
         sdReferenceable.set("storedAsSubDirectories", storageDesc.isStoredAsSubDirectories());
 
-        return createInstance(sdReferenceable);
+        return sdReferenceable;
     }
 
     private List<Referenceable> getColumns(List<FieldSchema> schemaList) throws Exception {
@@ -478,7 +1060,7 @@ public class HiveMetaStoreBridge {
             colReferenceable.set("type", fs.getType());
             colReferenceable.set(HiveDataModelGenerator.COMMENT, fs.getComment());
 
-            colList.add(createInstance(colReferenceable));
+            colList.add(colReferenceable);
         }
         return colList;
     }
@@ -503,10 +1085,56 @@ public class HiveMetaStoreBridge {
     }
 
     public void updateTable(Referenceable tableReferenceable, Table newTable) throws AtlasServiceException {
+        updateTable(tableReferenceable, newTable.getDbName(), newTable.getTableName());
+    }
+
+    public void updateTable(Referenceable tableReferenceable, String newDbName, String newTableName)
+            throws AtlasServiceException {
         AtlasClient client = getAtlasClient();
         client.updateEntity(tableReferenceable.getId()._getId(), HiveDataModelGenerator.TABLE_NAME,
-                newTable.getTableName().toLowerCase());
+                newTableName.toLowerCase());
         client.updateEntity(tableReferenceable.getId()._getId(), HiveDataModelGenerator.NAME,
-                getTableName(clusterName, newTable.getDbName(), newTable.getTableName()));
+                getTableName(clusterName, newDbName, newTableName));
+    }
+
+    /**
+     * Counts the tables and partitions imported by {@link #importHiveMetadata()}, and periodically logs the
+     * progress and throughput of the import.
+     */
+    static final class ImportProgress {
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger tablesFound = new AtomicInteger();
+        private final AtomicInteger tablesImported = new AtomicInteger();
+        private final AtomicInteger partitionsImported = new AtomicInteger();
+
+        void tablesFound(int tables) {
+            tablesFound.addAndGet(tables);
+        }
+
+        void tableImported(int partitions) {
+            partitionsImported.addAndGet(partitions);
+            if (tablesImported.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+                report();
+            }
+        }
+
+        int getTablesFound() {
+            return tablesFound.get();
+        }
+
+        int getTablesImported() {
+            return tablesImported.get();
+        }
+
+        int getPartitionsImported() {
+            return partitionsImported.get();
+        }
+
+        void report() {
+            double secs = Math.max(System.currentTimeMillis() - startTime, 1) / 1000.0;
+            LOG.info(String.format("Imported %d of %d tables and %d new partitions in %.0f secs "
+                            + "(%.1f tables/sec, %.1f partitions/sec)", tablesImported.get(), tablesFound.get(),
+                    partitionsImported.get(), secs, tablesImported.get() / secs, partitionsImported.get() / secs));
+        }
     }
 }
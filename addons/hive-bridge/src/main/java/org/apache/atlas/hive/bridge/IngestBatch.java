@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of events sent with a single request by {@link HiveMetaStoreBridge#ingest(IngestBatch)}. The entities
+ * of the events are resolved by their qualified names on the server, so the events can refer to databases and
+ * tables by their full definition without looking them up first.
+ */
+public class IngestBatch {
+    private static final String CREATE = "CREATE";
+    private static final String UPDATE = "UPDATE";
+
+    private final JSONArray events = new JSONArray();
+
+    // entities created by each event, to cache their references once the batch is sent
+    private final List<List<Referenceable>> entities = new ArrayList<>();
+
+    // cache keys of the created entities that aren't identified by a qualified name, such as partitions
+    private final Map<Referenceable, String> cacheKeys = new IdentityHashMap<>();
+    private final Set<String> createdKeys = new HashSet<>();
+
+    /**
+     * Adds an event creating the given entities, and the entities they refer to, unless they are registered.
+     */
+    public void create(Referenceable... referenceables) throws JSONException {
+        JSONArray eventEntities = new JSONArray();
+        for (Referenceable referenceable : referenceables) {
+            eventEntities.put(new JSONObject(InstanceSerialization.toJson(referenceable, true)));
+        }
+
+        JSONObject event = new JSONObject();
+        event.put(AtlasClient.EVENT_TYPE, CREATE);
+        event.put(AtlasClient.EVENT_ENTITIES, eventEntities);
+        events.put(event);
+        entities.add(Arrays.asList(referenceables));
+    }
+
+    /**
+     * Adds an event creating the given entity, which isn't identified by a qualified name and isn't resolved on the
+     * server, so it is created once per batch by the given cache key.
+     */
+    public void create(String cacheKey, Referenceable referenceable) throws JSONException {
+        create(referenceable);
+        cacheKeys.put(referenceable, cacheKey);
+        createdKeys.add(cacheKey);
+    }
+
+    /**
+     * Returns whether the batch creates the entity with the given cache key.
+     */
+    public boolean creates(String cacheKey) {
+        return createdKeys.contains(cacheKey);
+    }
+
+    /**
+     * Adds an event setting attributes of the registered entity of the given type with the given identity.
+     */
+    public void update(String typeName, Map<String, ?> identity, Map<String, String> attributes)
+    throws JSONException {
+        JSONObject event = new JSONObject();
+        event.put(AtlasClient.EVENT_TYPE, UPDATE);
+        event.put(AtlasClient.TYPENAME, typeName);
+        event.put(AtlasClient.EVENT_IDENTITY, new JSONObject(identity));
+        event.put(AtlasClient.EVENT_ATTRIBUTES, new JSONObject(attributes));
+        events.put(event);
+        entities.add(Collections.<Referenceable>emptyList());
+    }
+
+    public int size() {
+        return events.length();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    List<Referenceable> getEntities(int event) {
+        return entities.get(event);
+    }
+
+    String getCacheKey(Referenceable entity) {
+        return cacheKeys.get(entity);
+    }
+
+    String toJson(Map<String, List<String>> identifiers) throws JSONException {
+        JSONObject batchIdentifiers = new JSONObject();
+        for (Map.Entry<String, List<String>> typeIdentifiers : identifiers.entrySet()) {
+            batchIdentifiers.put(typeIdentifiers.getKey(), new JSONArray(typeIdentifiers.getValue()));
+        }
+
+        JSONObject batch = new JSONObject();
+        batch.put(AtlasClient.INGEST_IDENTIFIERS, batchIdentifiers);
+        batch.put(AtlasClient.INGEST_EVENTS, events);
+        return batch.toString();
+    }
+}
@@ -15,29 +15,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-/**
- * Licensed to the Apache Software Foundation (ASF) under one
- * or more contributor license agreements.  See the NOTICE file
- * distributed with this work for additional information
- * regarding copyright ownership.  The ASF licenses this file
- * to you under the Apache License, Version 2.0 (the
- * "License"); you may not use this file except in compliance
- * with the License.  You may obtain a copy of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
 
 package org.apache.atlas.hive.hook;
 
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.hive.bridge.HiveMetaStoreBridge;
+import org.apache.atlas.hive.bridge.IngestBatch;
+import org.apache.atlas.hive.hook.HookEvent.HiveEntity;
 import org.apache.atlas.hive.model.HiveDataTypes;
 import org.apache.atlas.typesystem.Referenceable;
 import org.apache.commons.lang.StringUtils;
@@ -48,20 +36,23 @@ import org.apache.hadoop.hive.ql.exec.Task;
 import org.apache.hadoop.hive.ql.hooks.Entity;
 import org.apache.hadoop.hive.ql.hooks.ExecuteWithHookContext;
 import org.apache.hadoop.hive.ql.hooks.HookContext;
-import org.apache.hadoop.hive.ql.hooks.ReadEntity;
-import org.apache.hadoop.hive.ql.hooks.WriteEntity;
-import org.apache.hadoop.hive.ql.metadata.Table;
 import org.apache.hadoop.hive.ql.plan.HiveOperation;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -72,18 +63,34 @@ public class HiveHook implements ExecuteWithHookContext {
     private static final Logger LOG = LoggerFactory.getLogger(HiveHook.class);
 
     // wait time determines how long we wait before we exit the jvm on
-    // shutdown. Pending requests after that will not be sent.
+    // shutdown. Pending requests after that are spilled and sent by the next process.
     private static final int WAIT_TIME = 3;
-    private static ExecutorService executor;
+    private static HookEventQueue eventQueue;
+
+    // sends the events of synchronous hooks, so that the bridge doesn't replace the hive client of the session
+    private static final ExecutorService syncSender = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Atlas Hook Sender").build());
 
-    private static final String MIN_THREADS = "hive.hook.dgi.minThreads";
-    private static final String MAX_THREADS = "hive.hook.dgi.maxThreads";
-    private static final String KEEP_ALIVE_TIME = "hive.hook.dgi.keepAliveTime";
+    private static final String QUEUE_SIZE = "hive.hook.dgi.queueSize";
+    private static final String BATCH_SIZE = "hive.hook.dgi.batchSize";
+    private static final String SPILL_FILE = "hive.hook.dgi.spillFile";
+    private static final String RETRY_INTERVAL = "hive.hook.dgi.retryIntervalMs";
+    private static final String MAX_RETRIES = "hive.hook.dgi.maxRetries";
 
-    private static final int minThreadsDefault = 5;
-    private static final int maxThreadsDefault = 5;
-    private static final long keepAliveTimeDefault = 10;
-    private static boolean typesRegistered = false;
+    private static final int queueSizeDefault = 10000;
+    private static final int batchSizeDefault = 100;
+    private static final String spillFileDefault =
+            System.getProperty("java.io.tmpdir") + File.separator + "atlas-hive-hook-" + System.getProperty(
+                    "user.name") + ".spill";
+    private static final long retryIntervalDefault = 5000;
+    private static final int maxRetriesDefault = 10;
+
+    // the bridges the hive data model has been registered with
+    private static final Set<HiveMetaStoreBridge> typesRegistered =
+            Collections.newSetFromMap(new ConcurrentHashMap<HiveMetaStoreBridge, Boolean>());
+
+    // the conf the bridges are created from, with the atlas url and cluster name of each event
+    private static final HiveConf hookConf;
 
     static {
         // anything shared should be initialized here and destroyed in the
@@ -94,22 +101,32 @@ public class HiveHook implements ExecuteWithHookContext {
         // want to do this inline since it adds plenty of overhead for the
         // query.
         HiveConf hiveConf = new HiveConf();
-        int minThreads = hiveConf.getInt(MIN_THREADS, minThreadsDefault);
-        int maxThreads = hiveConf.getInt(MAX_THREADS, maxThreadsDefault);
-        long keepAliveTime = hiveConf.getLong(KEEP_ALIVE_TIME, keepAliveTimeDefault);
+        hookConf = hiveConf;
+        int queueSize = hiveConf.getInt(QUEUE_SIZE, queueSizeDefault);
+        int batchSize = hiveConf.getInt(BATCH_SIZE, batchSizeDefault);
+        String spillFile = hiveConf.get(SPILL_FILE, spillFileDefault);
+        long retryInterval = hiveConf.getLong(RETRY_INTERVAL, retryIntervalDefault);
+        int maxRetries = hiveConf.getInt(MAX_RETRIES, maxRetriesDefault);
+
+        eventQueue = new HookEventQueue(queueSize, batchSize, spillFile, retryInterval, maxRetries,
+                new HookEventQueue.EventProcessor() {
+                    @Override
+                    public void process(List<HookEvent> events) throws Exception {
+                        send(events);
+                    }
 
-        executor = new ThreadPoolExecutor(minThreads, maxThreads, keepAliveTime, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>(),
-                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("Atlas Logger %d").build());
+                    @Override
+                    public boolean isRejected(Exception e) {
+                        return !isUnreachable(e);
+                    }
+                });
 
         try {
             Runtime.getRuntime().addShutdownHook(new Thread() {
                 @Override
                 public void run() {
                     try {
-                        executor.shutdown();
-                        executor.awaitTermination(WAIT_TIME, TimeUnit.SECONDS);
-                        executor = null;
+                        eventQueue.close(WAIT_TIME, TimeUnit.SECONDS);
                     } catch (InterruptedException ie) {
                         LOG.info("Interrupt received in shutdown.");
                     }
@@ -123,76 +140,217 @@ public class HiveHook implements ExecuteWithHookContext {
         LOG.info("Created Atlas Hook");
     }
 
-    class HiveEvent {
-        public HiveConf conf;
-
-        public Set<ReadEntity> inputs;
-        public Set<WriteEntity> outputs;
-
-        public String user;
-        public HiveOperation operation;
-        public QueryPlan queryPlan;
-        public HookContext.HookType hookType;
-        public JSONObject jsonPlan;
-    }
-
     @Override
     public void run(final HookContext hookContext) throws Exception {
-        if (executor == null) {
-            LOG.info("No executor running. Bail.");
+        assert hookContext.getHookType() == HookContext.HookType.POST_EXEC_HOOK : "Non-POST_EXEC_HOOK not supported!";
+
+        HiveOperation operation = HiveOperation.valueOf(hookContext.getOperationName());
+        if (!isHandled(operation)) {
             return;
         }
 
         // clone to avoid concurrent access
-        final HiveEvent event = new HiveEvent();
         final HiveConf conf = new HiveConf(hookContext.getConf());
         boolean debug = conf.get("hive.hook.dgi.synchronous", "false").equals("true");
 
-        event.conf = conf;
-        event.inputs = hookContext.getInputs();
-        event.outputs = hookContext.getOutputs();
-
+        HookEvent event = new HookEvent();
+        event.atlasUrl = conf.get(HiveMetaStoreBridge.DGI_URL_PROPERTY, HiveMetaStoreBridge.DEFAULT_DGI_URL);
+        event.clusterName = conf.get(HiveMetaStoreBridge.HIVE_CLUSTER_NAME, HiveMetaStoreBridge.DEFAULT_CLUSTER_NAME);
+        event.operation = operation;
         event.user = hookContext.getUserName() == null ? hookContext.getUgi().getUserName() : hookContext.getUserName();
-        event.operation = HiveOperation.valueOf(hookContext.getOperationName());
-        event.queryPlan = hookContext.getQueryPlan();
-        event.hookType = hookContext.getHookType();
-
-        event.jsonPlan = getQueryPlan(event);
+        HookEvent.addEntities(event.inputs, hookContext.getInputs());
+        HookEvent.addEntities(event.outputs, hookContext.getOutputs());
+
+        QueryPlan queryPlan = hookContext.getQueryPlan();
+        if (queryPlan != null) {
+            event.queryId = queryPlan.getQueryId();
+            event.queryStr = normalize(queryPlan.getQueryStr());
+            event.queryStartTime = queryPlan.getQueryStartTime();
+            if (isProcess(operation)) {
+                event.queryPlan = getQueryPlan(conf, queryPlan).toString();
+            }
+        }
 
         if (debug) {
-            fireAndForget(event);
+            sendSynchronously(event);
         } else {
-            executor.submit(new Runnable() {
+            eventQueue.add(event);
+        }
+    }
+
+    private static void sendSynchronously(final HookEvent event) throws Exception {
+        try {
+            syncSender.submit(new Callable<Void>() {
                 @Override
-                public void run() {
-                    try {
-                        fireAndForget(event);
-                    } catch (Throwable e) {
-                        LOG.info("Atlas hook failed", e);
-                    }
+                public Void call() throws Exception {
+                    send(Collections.singletonList(event));
+                    return null;
                 }
-            });
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isHandled(HiveOperation operation) {
+        switch (operation) {
+        case CREATEDATABASE:
+        case CREATETABLE:
+        case ALTERTABLE_RENAME:
+        case ALTERVIEW_RENAME:
+            return true;
+
+        default:
+            return isProcess(operation);
+        }
+    }
+
+    private static boolean isProcess(HiveOperation operation) {
+        switch (operation) {
+        case CREATETABLE_AS_SELECT:
+        case CREATEVIEW:
+        case LOAD:
+        case EXPORT:
+        case IMPORT:
+        case QUERY:
+            return true;
+
+        default:
+            return false;
         }
     }
 
-    private void fireAndForget(HiveEvent event) throws Exception {
-        assert event.hookType == HookContext.HookType.POST_EXEC_HOOK : "Non-POST_EXEC_HOOK not supported!";
+    /**
+     * Sends a batch of events, each to the Atlas url and cluster of the session that ran its command. The events
+     * for the same Atlas url and cluster that follow each other are sent together.
+     */
+    private static void send(List<HookEvent> events) throws Exception {
+        int start = 0;
+        while (start < events.size()) {
+            HookEvent first = events.get(start);
+            int end = start + 1;
+            while (end < events.size() && isSameTarget(first, events.get(end))) {
+                end++;
+            }
+
+            String atlasUrl = first.atlasUrl == null
+                    ? hookConf.get(HiveMetaStoreBridge.DGI_URL_PROPERTY, HiveMetaStoreBridge.DEFAULT_DGI_URL)
+                    : first.atlasUrl;
+            String clusterName = first.clusterName == null
+                    ? hookConf.get(HiveMetaStoreBridge.HIVE_CLUSTER_NAME, HiveMetaStoreBridge.DEFAULT_CLUSTER_NAME)
+                    : first.clusterName;
+            send(HiveMetaStoreBridge.get(hookConf, atlasUrl, clusterName), events.subList(start, end));
+            start = end;
+        }
+    }
 
-        LOG.info("Entered Atlas hook for hook type {} operation {}", event.hookType, event.operation);
-        HiveMetaStoreBridge dgiBridge = new HiveMetaStoreBridge(event.conf);
+    private static boolean isSameTarget(HookEvent event, HookEvent other) {
+        return StringUtils.equals(event.atlasUrl, other.atlasUrl)
+                && StringUtils.equals(event.clusterName, other.clusterName);
+    }
 
-        if (!typesRegistered) {
+    /**
+     * Sends a batch of events with the given bridge. Events that fail because of Atlas being unreachable fail the
+     * batch, so that it is sent again later; other failures are logged and the event is skipped. The events are sent
+     * with a single ingest request, in which the databases, tables and processes they refer to are resolved by their
+     * qualified names on the server rather than looked up by the hook, and a query run more than once in the batch
+     * is registered once.
+     */
+    private static void send(HiveMetaStoreBridge dgiBridge, List<HookEvent> events) throws Exception {
+        if (!typesRegistered.contains(dgiBridge)) {
             dgiBridge.registerHiveDataModel();
-            typesRegistered = true;
+            typesRegistered.add(dgiBridge);
+        }
+
+        IngestBatch batch = new IngestBatch();
+        // hook event of each event of the batch
+        List<HookEvent> batchEvents = new ArrayList<>();
+        Set<String> queries = new HashSet<>();
+        for (HookEvent event : events) {
+            if (isProcess(event.operation) && !queries.add(event.queryStr)) {
+                LOG.debug("Query {} is already registered", event.queryStr);
+                continue;
+            }
+
+            try {
+                int size = batch.size();
+                fireAndForget(dgiBridge, batch, event);
+                for (int index = size; index < batch.size(); index++) {
+                    batchEvents.add(event);
+                }
+            } catch (Exception e) {
+                if (isRetriable(e)) {
+                    throw e;
+                }
+                LOG.error("Atlas hook failed for {} {}", event.operation, event.queryStr, e);
+            }
+        }
+
+        List<String> errors;
+        try {
+            errors = dgiBridge.ingest(batch);
+        } catch (Exception e) {
+            if (isRetriable(e)) {
+                throw e;
+            }
+            // the server rejected the whole batch, which would fail again
+            LOG.error("Atlas hook failed for a batch of {} events", batch.size(), e);
+            return;
+        }
+
+        for (int index = 0; index < errors.size(); index++) {
+            if (errors.get(index) != null) {
+                HookEvent event = batchEvents.get(index);
+                LOG.error("Atlas hook failed for {} {}: {}", event.operation, event.queryStr, errors.get(index));
+            }
+        }
+    }
+
+    /**
+     * Atlas being unreachable or unavailable, or a batch conflicting with a concurrent one, is worth retrying, any
+     * other failure would fail again.
+     */
+    private static boolean isRetriable(Throwable t) {
+        if (isUnreachable(t)) {
+            return true;
         }
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof AtlasServiceException) {
+                ClientResponse.Status status = ((AtlasServiceException) t).getStatus();
+                if (status == ClientResponse.Status.SERVICE_UNAVAILABLE || status == ClientResponse.Status.CONFLICT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUnreachable(Throwable t) {
+        for (; t != null; t = t.getCause()) {
+            if (t instanceof ClientHandlerException || t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the events registering the entities of the hook event to the batch.
+     */
+    private static void fireAndForget(HiveMetaStoreBridge dgiBridge, IngestBatch batch, HookEvent event)
+    throws Exception {
+        LOG.info("Entered Atlas hook for operation {}", event.operation);
 
         switch (event.operation) {
         case CREATEDATABASE:
-            handleCreateDB(dgiBridge, event);
+            handleCreateDB(dgiBridge, batch, event);
             break;
 
         case CREATETABLE:
-            handleCreateTable(dgiBridge, event);
+            handleCreateTable(dgiBridge, batch, event);
             break;
 
         case CREATETABLE_AS_SELECT:
@@ -201,153 +359,133 @@ public class HiveHook implements ExecuteWithHookContext {
         case EXPORT:
         case IMPORT:
         case QUERY:
-            registerProcess(dgiBridge, event);
+            registerProcess(dgiBridge, batch, event);
             break;
 
         case ALTERTABLE_RENAME:
         case ALTERVIEW_RENAME:
-            renameTable(dgiBridge, event);
-            break;
-
-        case ALTERVIEW_AS:
-            //update inputs/outputs?
-            break;
-
-        case ALTERTABLE_ADDCOLS:
-        case ALTERTABLE_REPLACECOLS:
-        case ALTERTABLE_RENAMECOL:
+            renameTable(dgiBridge, batch, event);
             break;
 
         default:
         }
     }
 
-    private void renameTable(HiveMetaStoreBridge dgiBridge, HiveEvent event) throws Exception {
+    private static void renameTable(HiveMetaStoreBridge dgiBridge, IngestBatch batch, HookEvent event)
+    throws Exception {
         //crappy, no easy of getting new name
         assert event.inputs != null && event.inputs.size() == 1;
         assert event.outputs != null && event.outputs.size() > 0;
 
-        Table oldTable = event.inputs.iterator().next().getTable();
-        Table newTable = null;
-        for (WriteEntity writeEntity : event.outputs) {
-            if (writeEntity.getType() == Entity.Type.TABLE) {
-                Table table = writeEntity.getTable();
-                if (table.getDbName().equals(oldTable.getDbName()) && !table.getTableName()
-                        .equals(oldTable.getTableName())) {
-                    newTable = table;
+        HiveEntity oldTable = event.inputs.get(0);
+        HiveEntity newTable = null;
+        for (HiveEntity writeEntity : event.outputs) {
+            if (writeEntity.type == Entity.Type.TABLE) {
+                if (writeEntity.dbName.equals(oldTable.dbName) && !writeEntity.tableName.equals(oldTable.tableName)) {
+                    newTable = writeEntity;
                     break;
                 }
             }
         }
         if (newTable == null) {
-            LOG.warn("Failed to deduct new name for " + event.queryPlan.getQueryStr());
+            LOG.warn("Failed to deduct new name for " + event.queryStr);
             return;
         }
 
-        Referenceable dbReferenceable = dgiBridge.registerDatabase(oldTable.getDbName());
-        Referenceable tableReferenceable =
-                dgiBridge.registerTable(dbReferenceable, oldTable.getDbName(), oldTable.getTableName());
-        LOG.info("Updating entity name {}.{} to {}", oldTable.getDbName(), oldTable.getTableName(),
-                newTable.getTableName());
-        dgiBridge.updateTable(tableReferenceable, newTable);
+        LOG.info("Updating entity name {}.{} to {}", oldTable.dbName, oldTable.tableName, newTable.tableName);
+        dgiBridge.renameTable(batch, oldTable.dbName, oldTable.tableName, newTable.dbName, newTable.tableName);
     }
 
-    private void handleCreateTable(HiveMetaStoreBridge dgiBridge, HiveEvent event) throws Exception {
-        for (WriteEntity entity : event.outputs) {
-            if (entity.getType() == Entity.Type.TABLE) {
-
-                Table table = entity.getTable();
-                Referenceable dbReferenceable = dgiBridge.registerDatabase(table.getDbName());
-                dgiBridge.registerTable(dbReferenceable, table.getDbName(), table.getTableName());
+    private static void handleCreateTable(HiveMetaStoreBridge dgiBridge, IngestBatch batch, HookEvent event)
+    throws Exception {
+        for (HiveEntity entity : event.outputs) {
+            if (entity.type == Entity.Type.TABLE) {
+                // the table may have been dropped and created again
+                dgiBridge.invalidateTable(entity.dbName, entity.tableName);
+                batch.create(dgiBridge.getTableDefinition(entity.dbName, entity.tableName));
             }
         }
     }
 
-    private void handleCreateDB(HiveMetaStoreBridge dgiBridge, HiveEvent event) throws Exception {
-        for (WriteEntity entity : event.outputs) {
-            if (entity.getType() == Entity.Type.DATABASE) {
-                dgiBridge.registerDatabase(entity.getDatabase().getName());
+    private static void handleCreateDB(HiveMetaStoreBridge dgiBridge, IngestBatch batch, HookEvent event)
+    throws Exception {
+        for (HiveEntity entity : event.outputs) {
+            if (entity.type == Entity.Type.DATABASE) {
+                batch.create(dgiBridge.getDatabaseDefinition(entity.dbName));
             }
         }
     }
 
-    private String normalize(String str) {
+    private static String normalize(String str) {
         if (StringUtils.isEmpty(str)) {
             return null;
         }
         return str.toLowerCase().trim();
     }
 
-    private void registerProcess(HiveMetaStoreBridge dgiBridge, HiveEvent event) throws Exception {
-        Set<ReadEntity> inputs = event.inputs;
-        Set<WriteEntity> outputs = event.outputs;
+    private static void registerProcess(HiveMetaStoreBridge dgiBridge, IngestBatch batch, HookEvent event)
+    throws Exception {
+        List<HiveEntity> inputs = event.inputs;
+        List<HiveEntity> outputs = event.outputs;
 
         //Even explain CTAS has operation name as CREATETABLE_AS_SELECT
         if (inputs.isEmpty() && outputs.isEmpty()) {
             LOG.info("Explain statement. Skipping...");
+            return;
         }
 
-        if (event.queryPlan == null) {
+        if (event.queryStr == null) {
             LOG.info("Query plan is missing. Skipping...");
+            return;
         }
 
-        String queryId = event.queryPlan.getQueryId();
-        String queryStr = normalize(event.queryPlan.getQueryStr());
-        long queryStartTime = event.queryPlan.getQueryStartTime();
+        String queryStr = event.queryStr;
 
         LOG.debug("Registering CTAS query: {}", queryStr);
-        Referenceable processReferenceable = dgiBridge.getProcessReference(queryStr);
-        if (processReferenceable == null) {
-            processReferenceable = new Referenceable(HiveDataTypes.HIVE_PROCESS.getName());
-            processReferenceable.set("name", event.operation.getOperationName());
-            processReferenceable.set("startTime", queryStartTime);
-            processReferenceable.set("userName", event.user);
-
-            List<Referenceable> source = new ArrayList<>();
-            for (ReadEntity readEntity : inputs) {
-                if (readEntity.getType() == Entity.Type.TABLE) {
-                    Table table = readEntity.getTable();
-                    String dbName = table.getDbName();
-                    source.add(dgiBridge.registerTable(dbName, table.getTableName()));
-                }
-                if (readEntity.getType() == Entity.Type.PARTITION) {
-                    dgiBridge.registerPartition(readEntity.getPartition());
-                }
+        Referenceable processReferenceable = new Referenceable(HiveDataTypes.HIVE_PROCESS.getName());
+        processReferenceable.set("name", event.operation.getOperationName());
+        processReferenceable.set("startTime", event.queryStartTime);
+        processReferenceable.set("userName", event.user);
+
+        List<Referenceable> source = new ArrayList<>();
+        for (HiveEntity readEntity : inputs) {
+            if (readEntity.type == Entity.Type.TABLE) {
+                source.add(dgiBridge.getTableDefinition(readEntity.dbName, readEntity.tableName));
             }
-            processReferenceable.set("inputs", source);
-
-            List<Referenceable> target = new ArrayList<>();
-            for (WriteEntity writeEntity : outputs) {
-                if (writeEntity.getType() == Entity.Type.TABLE || writeEntity.getType() == Entity.Type.PARTITION) {
-                    Table table = writeEntity.getTable();
-                    String dbName = table.getDbName();
-                    target.add(dgiBridge.registerTable(dbName, table.getTableName()));
-                }
-                if (writeEntity.getType() == Entity.Type.PARTITION) {
-                    dgiBridge.registerPartition(writeEntity.getPartition());
-                }
+            if (readEntity.type == Entity.Type.PARTITION) {
+                dgiBridge.addPartition(batch, readEntity.dbName, readEntity.tableName, readEntity.partitionValues);
             }
-            processReferenceable.set("outputs", target);
-            processReferenceable.set("queryText", queryStr);
-            processReferenceable.set("queryId", queryId);
-            processReferenceable.set("queryPlan", event.jsonPlan.toString());
-            processReferenceable.set("endTime", System.currentTimeMillis());
-
-            //TODO set
-            processReferenceable.set("queryGraph", "queryGraph");
-            dgiBridge.createInstance(processReferenceable);
-        } else {
-            LOG.debug("Query {} is already registered", queryStr);
         }
-    }
+        processReferenceable.set("inputs", source);
 
+        List<Referenceable> target = new ArrayList<>();
+        for (HiveEntity writeEntity : outputs) {
+            if (writeEntity.type == Entity.Type.TABLE || writeEntity.type == Entity.Type.PARTITION) {
+                target.add(dgiBridge.getTableDefinition(writeEntity.dbName, writeEntity.tableName));
+            }
+            if (writeEntity.type == Entity.Type.PARTITION) {
+                dgiBridge.addPartition(batch, writeEntity.dbName, writeEntity.tableName, writeEntity.partitionValues);
+            }
+        }
+        processReferenceable.set("outputs", target);
+        processReferenceable.set("queryText", queryStr);
+        processReferenceable.set("queryId", event.queryId);
+        processReferenceable.set("queryPlan", event.queryPlan == null ? "{}" : event.queryPlan);
+        processReferenceable.set("endTime", System.currentTimeMillis());
+
+        //TODO set
+        processReferenceable.set("queryGraph", "queryGraph");
+
+        // an already registered process is resolved by its query on the server
+        batch.create(processReferenceable);
+    }
 
-    private JSONObject getQueryPlan(HiveEvent event) throws Exception {
+    private static JSONObject getQueryPlan(HiveConf conf, QueryPlan queryPlan) throws Exception {
         try {
             ExplainTask explain = new ExplainTask();
-            explain.initialize(event.conf, event.queryPlan, null);
-            List<Task<?>> rootTasks = event.queryPlan.getRootTasks();
-            return explain.getJSONPlan(null, null, rootTasks, event.queryPlan.getFetchTask(), true, false, false);
+            explain.initialize(conf, queryPlan, null);
+            List<Task<?>> rootTasks = queryPlan.getRootTasks();
+            return explain.getJSONPlan(null, null, rootTasks, queryPlan.getFetchTask(), true, false, false);
         } catch (Exception e) {
             LOG.warn("Failed to get queryplan", e);
             return new JSONObject();
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.hook;
+
+import org.apache.hadoop.hive.ql.hooks.Entity;
+import org.apache.hadoop.hive.ql.plan.HiveOperation;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hive command seen by the hook, reduced to the names of the databases, tables and partitions it read and wrote
+ * so that it can be queued, written to the spill file and replayed without the hive objects of the command. The
+ * event also keeps the Atlas url and cluster name of the session that ran the command, which it is sent for.
+ */
+public class HookEvent {
+    private static final String ATLAS_URL = "atlasUrl";
+    private static final String CLUSTER_NAME = "clusterName";
+    private static final String OPERATION = "operation";
+    private static final String USER = "user";
+    private static final String QUERY_ID = "queryId";
+    private static final String QUERY_STR = "queryStr";
+    private static final String QUERY_START_TIME = "queryStartTime";
+    private static final String QUERY_PLAN = "queryPlan";
+    private static final String INPUTS = "inputs";
+    private static final String OUTPUTS = "outputs";
+    private static final String TYPE = "type";
+    private static final String DB_NAME = "dbName";
+    private static final String TABLE_NAME = "tableName";
+    private static final String VALUES = "values";
+
+    public String atlasUrl;
+    public String clusterName;
+    public HiveOperation operation;
+    public String user;
+    public String queryId;
+    public String queryStr;
+    public long queryStartTime;
+    public String queryPlan;
+
+    public List<HiveEntity> inputs = new ArrayList<>();
+    public List<HiveEntity> outputs = new ArrayList<>();
+
+    /**
+     * A database, table or partition read or written by the command.
+     */
+    public static class HiveEntity {
+        public final Entity.Type type;
+        public final String dbName;
+        public final String tableName;
+        public final List<String> partitionValues;
+
+        public HiveEntity(Entity.Type type, String dbName, String tableName, List<String> partitionValues) {
+            this.type = type;
+            this.dbName = dbName;
+            this.tableName = tableName;
+            this.partitionValues = partitionValues;
+        }
+
+        public static HiveEntity fromEntity(Entity entity) {
+            switch (entity.getType()) {
+            case DATABASE:
+                return new HiveEntity(entity.getType(), entity.getDatabase().getName(), null, null);
+
+            case TABLE:
+                return new HiveEntity(entity.getType(), entity.getTable().getDbName(),
+                        entity.getTable().getTableName(), null);
+
+            case PARTITION:
+                return new HiveEntity(entity.getType(), entity.getTable().getDbName(),
+                        entity.getTable().getTableName(), entity.getPartition().getValues());
+
+            default:
+                return null;
+            }
+        }
+
+        private JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put(TYPE, type.name());
+            json.put(DB_NAME, dbName);
+            json.putOpt(TABLE_NAME, tableName);
+            if (partitionValues != null) {
+                json.put(VALUES, new JSONArray(partitionValues));
+            }
+            return json;
+        }
+
+        private static HiveEntity fromJson(JSONObject json) throws JSONException {
+            List<String> values = null;
+            JSONArray jsonValues = json.optJSONArray(VALUES);
+            if (jsonValues != null) {
+                values = new ArrayList<>(jsonValues.length());
+                for (int i = 0; i < jsonValues.length(); i++) {
+                    values.add(jsonValues.getString(i));
+                }
+            }
+            return new HiveEntity(Entity.Type.valueOf(json.getString(TYPE)), json.getString(DB_NAME),
+                    json.optString(TABLE_NAME, null), values);
+        }
+    }
+
+    /**
+     * Adds the databases, tables and partitions among the given hive entities.
+     */
+    public static void addEntities(List<HiveEntity> to, Iterable<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            HiveEntity hiveEntity = HiveEntity.fromEntity(entity);
+            if (hiveEntity != null) {
+                to.add(hiveEntity);
+            }
+        }
+    }
+
+    public String toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.putOpt(ATLAS_URL, atlasUrl);
+        json.putOpt(CLUSTER_NAME, clusterName);
+        json.put(OPERATION, operation.name());
+        json.putOpt(USER, user);
+        json.putOpt(QUERY_ID, queryId);
+        json.putOpt(QUERY_STR, queryStr);
+        json.put(QUERY_START_TIME, queryStartTime);
+        json.putOpt(QUERY_PLAN, queryPlan);
+        json.put(INPUTS, toJson(inputs));
+        json.put(OUTPUTS, toJson(outputs));
+        return json.toString();
+    }
+
+    private static JSONArray toJson(List<HiveEntity> entities) throws JSONException {
+        JSONArray json = new JSONArray();
+        for (HiveEntity entity : entities) {
+            json.put(entity.toJson());
+        }
+        return json;
+    }
+
+    public static HookEvent fromJson(String jsonString) throws JSONException {
+        JSONObject json = new JSONObject(jsonString);
+        HookEvent event = new HookEvent();
+        event.atlasUrl = json.optString(ATLAS_URL, null);
+        event.clusterName = json.optString(CLUSTER_NAME, null);
+        event.operation = HiveOperation.valueOf(json.getString(OPERATION));
+        event.user = json.optString(USER, null);
+        event.queryId = json.optString(QUERY_ID, null);
+        event.queryStr = json.optString(QUERY_STR, null);
+        event.queryStartTime = json.optLong(QUERY_START_TIME);
+        event.queryPlan = json.optString(QUERY_PLAN, null);
+        event.inputs = fromJson(json.optJSONArray(INPUTS));
+        event.outputs = fromJson(json.optJSONArray(OUTPUTS));
+        return event;
+    }
+
+    private static List<HiveEntity> fromJson(JSONArray json) throws JSONException {
+        if (json == null) {
+            return Collections.emptyList();
+        }
+
+        List<HiveEntity> entities = new ArrayList<>(json.length());
+        for (int i = 0; i < json.length(); i++) {
+            entities.add(HiveEntity.fromJson(json.getJSONObject(i)));
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,577 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.hook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues the events of the hook and hands them to a processor in batches from a single background thread, so that
+ * hive commands don't wait for Atlas.
+ *
+ * The queue holds a bounded number of events in memory. Once it is full, or once a batch fails because Atlas is down,
+ * the events are appended to a spill file instead, and all the later events follow them there until the file has
+ * been sent, so that the events are sent in the order they were seen. A spill file left behind by a previous process
+ * is sent when the queue is created. Without a spill file the events that don't fit the queue are dropped.
+ *
+ * A spilled batch that Atlas keeps rejecting would hold up all the events behind it, so after the given number of
+ * retries it is moved to a dead letter file next to the spill file, from which it can be replayed by hand. Failures to
+ * reach Atlas don't count towards the retries.
+ *
+ * The events may be sent more than once if the process stops while a batch is being sent, which the processor must
+ * tolerate.
+ */
+public class HookEventQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(HookEventQueue.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long POLL_INTERVAL_MS = 1000;
+    private static final long REPORT_INTERVAL_MS = 60000;
+
+    /**
+     * Sends a batch of events to Atlas.
+     */
+    public interface EventProcessor {
+        /**
+         * Throws if the batch should be sent again later, e.g. because Atlas is unreachable.
+         */
+        void process(List<HookEvent> events) throws Exception;
+
+        /**
+         * Whether the failure of {@link #process} means that Atlas received the batch and failed it, rather than that
+         * Atlas couldn't be reached.
+         */
+        boolean isRejected(Exception e);
+    }
+
+    private final BlockingQueue<HookEvent> queue;
+    private final int batchSize;
+    private final long retryIntervalMs;
+    private final int maxRetries;
+    private final EventProcessor processor;
+    private final Thread worker;
+
+    // the spill file and the lock on it, null when the events that don't fit in memory are dropped
+    private File spillFile;
+    private File deadLetterFile;
+    private FileLock spillLock;
+
+    // guarded by this
+    private boolean spilling;
+    private long spillReadOffset;
+    private long spilledEvents;
+    private boolean closed;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong deadLetterEvents = new AtomicLong();
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong sendTimeMs = new AtomicLong();
+    private volatile long lastSendTimeMs;
+    private volatile long lastReportTime = System.currentTimeMillis();
+
+    // rejected attempts at sending the oldest events, only used by the worker
+    private int rejectedAttempts;
+
+    public HookEventQueue(int capacity, int batchSize, String spillFilePath, long retryIntervalMs, int maxRetries,
+            EventProcessor processor) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.retryIntervalMs = retryIntervalMs;
+        this.maxRetries = maxRetries;
+        this.processor = processor;
+
+        if (spillFilePath != null && !spillFilePath.isEmpty()) {
+            openSpillFile(new File(spillFilePath));
+        }
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sendEvents();
+            }
+        }, "Atlas Logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues the event without blocking, spilling it to the file if the queue is full.
+     */
+    public void add(HookEvent event) {
+        synchronized (this) {
+            if (!spilling && !closed && queue.offer(event)) {
+                return;
+            }
+
+            if (spillFile != null) {
+                try {
+                    appendToSpillFile(event);
+                    spilling = true;
+                    return;
+                } catch (IOException e) {
+                    LOG.error("Failed to write the event to the spill file {}", spillFile, e);
+                }
+            }
+        }
+
+        if (droppedEvents.incrementAndGet() % 1000 == 1) {
+            LOG.warn("The Atlas hook queue is full, {} events have been dropped", droppedEvents.get());
+        }
+    }
+
+    /**
+     * Returns the number of events waiting in memory.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of events waiting in the spill file.
+     */
+    public synchronized long getSpilledEvents() {
+        return spilledEvents;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Returns the number of events moved to the dead letter file.
+     */
+    public long getDeadLetterEvents() {
+        return deadLetterEvents.get();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = sentBatches.get();
+        return batches == 0 ? 0 : (double) sentEvents.get() / batches;
+    }
+
+    public double getAverageSendLatencyMs() {
+        long batches = sentBatches.get();
+        return batches == 0 ? 0 : (double) sendTimeMs.get() / batches;
+    }
+
+    public long getLastSendLatencyMs() {
+        return lastSendTimeMs;
+    }
+
+    /**
+     * Stops accepting events into memory and waits up to the given time for the queued events to be sent. The events
+     * left are written to the spill file, and sent by the next process. The worker rewrites the spill file itself as it
+     * stops; if it is stuck sending a batch, which may still move the read offset of the file, the events left in
+     * memory are appended to the file instead of rewriting it.
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+        }
+
+        worker.join(unit.toMillis(timeout));
+        if (worker.isAlive()) {
+            worker.interrupt();
+            worker.join(unit.toMillis(timeout));
+        }
+        if (worker.isAlive()) {
+            // the worker is stuck sending a batch, which is sent again by the next process if it was spilled
+            spillQueued();
+        }
+        report();
+
+        synchronized (this) {
+            if (spillLock != null) {
+                try {
+                    spillLock.release();
+                    spillLock.channel().close();
+                } catch (IOException e) {
+                    LOG.warn("Failed to release the lock on the spill file {}", spillFile, e);
+                }
+            }
+        }
+    }
+
+    private void sendEvents() {
+        List<HookEvent> batch = new ArrayList<>(batchSize);
+        long nextSpillOffset = -1;
+        try {
+            while (true) {
+                // a batch from memory that failed without a spill file is retried before taking new events
+                if (batch.isEmpty()) {
+                    if (isDone()) {
+                        return;
+                    }
+                    try {
+                        nextSpillOffset = nextBatch(batch);
+                    } catch (IOException e) {
+                        LOG.error("Failed to read the spill file {}, retrying in {} ms", spillFile, retryIntervalMs, e);
+                        Thread.sleep(retryIntervalMs);
+                    }
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                }
+
+                if (send(batch)) {
+                    if (nextSpillOffset >= 0) {
+                        commitSpillRead(nextSpillOffset, batch.size());
+                    }
+                    rejectedAttempts = 0;
+                    batch.clear();
+                    continue;
+                }
+
+                if (nextSpillOffset >= 0 && rejectedAttempts > maxRetries) {
+                    moveToDeadLetterFile(batch, nextSpillOffset);
+                    rejectedAttempts = 0;
+                    batch.clear();
+                    continue;
+                }
+
+                if (nextSpillOffset < 0) {
+                    if (spillFile != null) {
+                        // keep the events that failed ahead of the later ones, which now follow them to the file
+                        spillAhead(batch);
+                        batch.clear();
+                    } else if (isClosed()) {
+                        droppedEvents.addAndGet(batch.size());
+                        LOG.warn("Dropping {} events that couldn't be sent to Atlas", batch.size());
+                        batch.clear();
+                    }
+                } else {
+                    // the events stay in the spill file, and are read again
+                    batch.clear();
+                }
+
+                if (isClosed()) {
+                    return;
+                }
+                Thread.sleep(retryIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            LOG.info("Atlas hook interrupted, {} events are queued", getQueueDepth() + batch.size());
+        } catch (Throwable t) {
+            LOG.error("Atlas hook failed", t);
+        } finally {
+            if (nextSpillOffset >= 0) {
+                batch.clear();
+            }
+            if (!batch.isEmpty() || !queue.isEmpty()) {
+                spillAhead(batch);
+            }
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private synchronized boolean isDone() {
+        return closed && queue.isEmpty();
+    }
+
+    /**
+     * Fills the batch with the oldest events, which are in memory when there are any, or else in the spill file.
+     * Returns the offset in the spill file after the batch, or -1 if the batch was taken from memory.
+     */
+    private long nextBatch(List<HookEvent> batch) throws InterruptedException, IOException {
+        if (queue.drainTo(batch, batchSize) > 0) {
+            return -1;
+        }
+
+        synchronized (this) {
+            if (spilling) {
+                return readSpillFile(batch);
+            }
+        }
+
+        HookEvent event = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (event != null) {
+            batch.add(event);
+            queue.drainTo(batch, batchSize - 1);
+        }
+        return -1;
+    }
+
+    private boolean send(List<HookEvent> batch) {
+        long startTime = System.currentTimeMillis();
+        try {
+            processor.process(batch);
+        } catch (Exception e) {
+            if (processor.isRejected(e)) {
+                rejectedAttempts++;
+            }
+            LOG.warn("Failed to send {} events to Atlas, retrying in {} ms", batch.size(), retryIntervalMs, e);
+            return false;
+        }
+
+        lastSendTimeMs = System.currentTimeMillis() - startTime;
+        sendTimeMs.addAndGet(lastSendTimeMs);
+        sentEvents.addAndGet(batch.size());
+        sentBatches.incrementAndGet();
+        LOG.debug("Sent {} events to Atlas in {} ms", batch.size(), lastSendTimeMs);
+
+        if (System.currentTimeMillis() - lastReportTime >= REPORT_INTERVAL_MS) {
+            report();
+        }
+        return true;
+    }
+
+    private void report() {
+        lastReportTime = System.currentTimeMillis();
+        LOG.info("Atlas hook sent {} events in {} batches, average batch size {}, average send latency {} ms, "
+                        + "{} events queued, {} spilled, {} dropped, {} dead lettered", sentEvents.get(),
+                sentBatches.get(), String.format("%.1f", getAverageBatchSize()),
+                String.format("%.1f", getAverageSendLatencyMs()), getQueueDepth(), getSpilledEvents(),
+                getDroppedEvents(), getDeadLetterEvents());
+    }
+
+    private void openSpillFile(File file) {
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Failed to create the directory " + parent);
+            }
+
+            // the processes that share the spill file take turns; the ones that find it locked don't spill
+            File lockFile = new File(file.getPath() + ".lock");
+            RandomAccessFile lockAccess = new RandomAccessFile(lockFile, "rw");
+            spillLock = lockAccess.getChannel().tryLock();
+            if (spillLock == null) {
+                lockAccess.close();
+                LOG.warn("The spill file {} is used by another process, events that don't fit in memory are dropped",
+                        file);
+                return;
+            }
+            spillFile = file;
+            deadLetterFile = new File(file.getPath() + ".dead");
+
+            if (file.length() > 0) {
+                terminateLastLine();
+                spilledEvents = countLines();
+                spilling = true;
+                LOG.info("Sending {} events left in the spill file {}", spilledEvents, file);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to open the spill file {}, events that don't fit in memory are dropped", file, e);
+        }
+    }
+
+    /**
+     * Ends a line left incomplete by a process that stopped while writing it, so that the events after it can be
+     * read. The incomplete event is skipped when it is read.
+     */
+    private void terminateLastLine() throws IOException {
+        try (RandomAccessFile access = new RandomAccessFile(spillFile, "rw")) {
+            access.seek(access.length() - 1);
+            if (access.read() != '\n') {
+                access.write('\n');
+            }
+        }
+    }
+
+    private long countLines() throws IOException {
+        long lines = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(spillFile))) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void appendToSpillFile(HookEvent event) throws IOException {
+        try (OutputStream out = new FileOutputStream(spillFile, true)) {
+            writeEvent(out, event);
+        }
+        spilledEvents++;
+    }
+
+    private void writeEvent(OutputStream out, HookEvent event) throws IOException {
+        try {
+            out.write((event.toJson() + '\n').getBytes(UTF_8));
+        } catch (org.json.JSONException e) {
+            throw new IOException("Failed to serialize event " + event.operation + " " + event.queryStr, e);
+        }
+    }
+
+    /**
+     * Writes the given events and the events in memory to the spill file, ahead of the events already there, and
+     * sends the following events through the file.
+     */
+    private synchronized void spillAhead(List<HookEvent> events) {
+        List<HookEvent> pending = new ArrayList<>(events);
+        queue.drainTo(pending);
+        if (spillFile == null) {
+            if (!pending.isEmpty()) {
+                droppedEvents.addAndGet(pending.size());
+                LOG.warn("Dropping {} events that couldn't be sent to Atlas", pending.size());
+            }
+            return;
+        }
+
+        File tmpFile = new File(spillFile.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+                for (HookEvent event : pending) {
+                    writeEvent(out, event);
+                }
+                if (spilling) {
+                    try (FileInputStream in = new FileInputStream(spillFile)) {
+                        long remaining = in.getChannel().size() - spillReadOffset;
+                        in.getChannel().transferTo(spillReadOffset, remaining, out.getChannel());
+                    }
+                }
+            }
+            if (!tmpFile.renameTo(spillFile) && !(spillFile.delete() && tmpFile.renameTo(spillFile))) {
+                throw new IOException("Failed to rename " + tmpFile + " to " + spillFile);
+            }
+
+            spilledEvents += pending.size();
+            spillReadOffset = 0;
+            spilling = true;
+            LOG.info("Spilled {} events to {}", pending.size(), spillFile);
+        } catch (IOException e) {
+            droppedEvents.addAndGet(pending.size());
+            LOG.error("Failed to spill {} events to {}", pending.size(), spillFile, e);
+        }
+    }
+
+    /**
+     * Appends the events in memory to the spill file, leaving the events already there and the read offset alone.
+     */
+    private synchronized void spillQueued() {
+        List<HookEvent> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (spillFile == null) {
+            droppedEvents.addAndGet(pending.size());
+            LOG.warn("Dropping {} events that couldn't be sent to Atlas", pending.size());
+            return;
+        }
+
+        int spilled = 0;
+        try {
+            for (HookEvent event : pending) {
+                appendToSpillFile(event);
+                spilling = true;
+                spilled++;
+            }
+            LOG.info("Spilled {} events to {}", spilled, spillFile);
+        } catch (IOException e) {
+            droppedEvents.addAndGet(pending.size() - spilled);
+            LOG.error("Failed to spill {} events to {}", pending.size() - spilled, spillFile, e);
+        }
+    }
+
+    /**
+     * Reads up to a batch of events from the spill file, from where the last batch ended. Once the whole file has
+     * been sent it is emptied and new events are queued in memory again.
+     */
+    private long readSpillFile(List<HookEvent> batch) throws IOException {
+        long offset = spillReadOffset;
+        if (offset >= spillFile.length()) {
+            new FileOutputStream(spillFile).close();
+            spillReadOffset = 0;
+            spilledEvents = 0;
+            spilling = false;
+            LOG.info("Sent all the events in the spill file {}", spillFile);
+            return -1;
+        }
+
+        try (FileInputStream file = new FileInputStream(spillFile)) {
+            file.getChannel().position(offset);
+            InputStream in = new BufferedInputStream(file);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while (batch.size() < batchSize && (b = in.read()) >= 0) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+
+                String json = new String(line.toByteArray(), UTF_8);
+                line.reset();
+                try {
+                    batch.add(HookEvent.fromJson(json));
+                } catch (Exception e) {
+                    spilledEvents--;
+                    LOG.error("Skipping the unreadable event {} in the spill file {}", json, spillFile, e);
+                }
+            }
+        }
+
+        if (batch.isEmpty()) {
+            // nothing but unreadable events, which are skipped for good
+            spillReadOffset = offset;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends the spilled batch, which Atlas has rejected more than the allowed number of times, to the dead letter
+     * file and moves past it in the spill file, so that the later events are sent.
+     */
+    private synchronized void moveToDeadLetterFile(List<HookEvent> batch, long nextSpillOffset) {
+        try (OutputStream out = new FileOutputStream(deadLetterFile, true)) {
+            for (HookEvent event : batch) {
+                writeEvent(out, event);
+            }
+            deadLetterEvents.addAndGet(batch.size());
+            LOG.error("Atlas rejected {} events {} times, moved them to {}", batch.size(), maxRetries + 1,
+                    deadLetterFile);
+        } catch (IOException e) {
+            droppedEvents.addAndGet(batch.size());
+            LOG.error("Failed to move {} events rejected by Atlas to {}, dropping them", batch.size(), deadLetterFile,
+                    e);
+        }
+        commitSpillRead(nextSpillOffset, batch.size());
+    }
+
+    private synchronized void commitSpillRead(long offset, int events) {
+        spillReadOffset = offset;
+        spilledEvents -= events;
+    }
+}
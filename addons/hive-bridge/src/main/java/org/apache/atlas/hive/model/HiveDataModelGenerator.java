@@ -64,6 +64,8 @@ public class HiveDataModelGenerator {
     public static final String NAME = "name";
     public static final String TABLE_NAME = "tableName";
     public static final String CLUSTER_NAME = "clusterName";
+    // unique name of a database or table across clusters, e.g. db@cluster or db.table@cluster
+    public static final String QUALIFIED_NAME = "qualifiedName";
     public static final String TABLE = "table";
     public static final String DB = "db";
 
@@ -225,6 +227,8 @@ public class HiveDataModelGenerator {
                 new AttributeDefinition(NAME, DataTypes.STRING_TYPE.getName(), Multiplicity.REQUIRED, false, null),
                 new AttributeDefinition(CLUSTER_NAME, DataTypes.STRING_TYPE.getName(), Multiplicity.REQUIRED, false,
                         null),
+                new AttributeDefinition(QUALIFIED_NAME, DataTypes.STRING_TYPE.getName(), Multiplicity.OPTIONAL, false,
+                        true, true, null),
                 new AttributeDefinition("description", DataTypes.STRING_TYPE.getName(), Multiplicity.OPTIONAL, false,
                         null),
                 new AttributeDefinition("locationUri", DataTypes.STRING_TYPE.getName(), Multiplicity.REQUIRED, false,
@@ -294,6 +298,8 @@ public class HiveDataModelGenerator {
         AttributeDefinition[] attributeDefinitions = new AttributeDefinition[]{
                 new AttributeDefinition(TABLE_NAME, DataTypes.STRING_TYPE.getName(), Multiplicity.REQUIRED, false,
                         null),
+                new AttributeDefinition(QUALIFIED_NAME, DataTypes.STRING_TYPE.getName(), Multiplicity.OPTIONAL, false,
+                        true, true, null),
                 new AttributeDefinition(DB, HiveDataTypes.HIVE_DB.getName(), Multiplicity.REQUIRED, false, null),
                 new AttributeDefinition("owner", DataTypes.STRING_TYPE.getName(), Multiplicity.OPTIONAL, false, null),
                 new AttributeDefinition("createTime", DataTypes.LONG_TYPE.getName(), Multiplicity.OPTIONAL, false,
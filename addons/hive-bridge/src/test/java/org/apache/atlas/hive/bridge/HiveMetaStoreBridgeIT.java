@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.hive.model.HiveDataTypes;
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.Driver;
+import org.apache.hadoop.hive.ql.session.SessionState;
+import org.codehaus.jettison.json.JSONArray;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class HiveMetaStoreBridgeIT {
+
+    private static final String DGI_URL = "http://localhost:21000/";
+    private static final String CLUSTER_NAME = "test";
+    private static final int PARTITIONS = 5;
+
+    private Driver driver;
+    private AtlasClient dgiClient;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        // no hook, so that the tables are only registered by the import
+        HiveConf conf = getHiveConf();
+        conf.setVar(HiveConf.ConfVars.POSTEXECHOOKS, "");
+        driver = new Driver(conf);
+        SessionState ss = new SessionState(conf, System.getProperty("user.name"));
+        SessionState.setCurrentSessionState(SessionState.start(ss));
+
+        dgiClient = new AtlasClient(DGI_URL);
+    }
+
+    private HiveConf getHiveConf() {
+        HiveConf hiveConf = new HiveConf(this.getClass());
+        hiveConf.setVar(HiveConf.ConfVars.PREEXECHOOKS, "");
+        hiveConf.setBoolVar(HiveConf.ConfVars.HIVE_SUPPORT_CONCURRENCY, false);
+        hiveConf.setVar(HiveConf.ConfVars.METASTOREWAREHOUSE, System.getProperty("user.dir") + "/target/metastore");
+        hiveConf.set(HiveMetaStoreBridge.DGI_URL_PROPERTY, DGI_URL);
+        hiveConf.set("javax.jdo.option.ConnectionURL", "jdbc:derby:./target/metastore_db;create=true");
+        hiveConf.set(HiveMetaStoreBridge.HIVE_CLUSTER_NAME, CLUSTER_NAME);
+        hiveConf.setBoolVar(HiveConf.ConfVars.HIVETESTMODE, true);  //to not use hdfs
+        hiveConf.setVar(HiveConf.ConfVars.HIVETESTMODEPREFIX, "");
+        hiveConf.set("fs.pfile.impl", "org.apache.hadoop.fs.ProxyLocalFileSystem");
+        return hiveConf;
+    }
+
+    private void runCommand(String cmd) throws Exception {
+        SessionState.get().setCommandType(null);
+        Assert.assertEquals(driver.run(cmd).getResponseCode(), 0, cmd);
+    }
+
+    @Test
+    public void testImportHiveMetadata() throws Exception {
+        String dbName = "db" + random();
+        runCommand("create database " + dbName);
+        String[] tableNames = new String[3];
+        for (int index = 0; index < tableNames.length; index++) {
+            tableNames[index] = "table" + random();
+            runCommand("create table " + dbName + "." + tableNames[index]
+                    + "(id int, name string) partitioned by(dt string)");
+        }
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            runCommand("alter table " + dbName + "." + tableNames[0] + " add partition (dt='" + partition + "')");
+        }
+
+        // the tables are imported concurrently, and the partitions in batches smaller than their number
+        HiveConf conf = getHiveConf();
+        conf.setInt(HiveMetaStoreBridge.IMPORT_THREADS, 4);
+        conf.setInt(HiveMetaStoreBridge.IMPORT_BATCH_SIZE, 2);
+        HiveMetaStoreBridge bridge = new HiveMetaStoreBridge(conf);
+        bridge.registerHiveDataModel();
+        bridge.importHiveMetadata();
+
+        assertRegistered(String.format("%s where name = '%s' and clusterName = '%s'",
+                HiveDataTypes.HIVE_DB.getName(), dbName.toLowerCase(), CLUSTER_NAME), 1);
+        for (String tableName : tableNames) {
+            assertRegistered(String.format("%s where name = '%s'", HiveDataTypes.HIVE_TABLE.getName(),
+                    HiveMetaStoreBridge.getTableName(CLUSTER_NAME, dbName, tableName)), 1);
+        }
+        assertRegistered(String.format("%s as p, table where name = '%s' select p",
+                HiveDataTypes.HIVE_PARTITION.getName(),
+                HiveMetaStoreBridge.getTableName(CLUSTER_NAME, dbName, tableNames[0])), PARTITIONS);
+
+        // importing again finds everything registered
+        bridge.importHiveMetadata();
+        assertRegistered(String.format("%s as p, table where name = '%s' select p",
+                HiveDataTypes.HIVE_PARTITION.getName(),
+                HiveMetaStoreBridge.getTableName(CLUSTER_NAME, dbName, tableNames[0])), PARTITIONS);
+    }
+
+    private void assertRegistered(String dslQuery, int count) throws Exception {
+        JSONArray results = dgiClient.searchByDSL(dslQuery);
+        Assert.assertEquals(results.length(), count, dslQuery);
+    }
+
+    private String random() {
+        return RandomStringUtils.randomAlphanumeric(10);
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.bridge;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.metadata.Hive;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class HiveMetaStoreBridgeTest {
+
+    private static final String DGI_URL = "http://localhost:21000/";
+
+    @Test
+    public void testBridgeIsSharedForSameConfiguration() throws Exception {
+        HiveConf conf = getHiveConf("shared", "thrift://localhost:1");
+        HiveMetaStoreBridge bridge = HiveMetaStoreBridge.get(conf);
+
+        // the bridge doesn't depend on the other properties, which sessions change
+        HiveConf sessionConf = new HiveConf(conf);
+        sessionConf.set("hive.exec.parallel", "true");
+        sessionConf.set("mapreduce.job.queuename", "etl");
+        Assert.assertSame(HiveMetaStoreBridge.get(sessionConf), bridge);
+        Assert.assertSame(HiveMetaStoreBridge.get(sessionConf, DGI_URL, "shared"), bridge);
+    }
+
+    @Test
+    public void testBridgeIsCreatedForChangedConfiguration() throws Exception {
+        HiveMetaStoreBridge bridge = HiveMetaStoreBridge.get(getHiveConf("changed", "thrift://localhost:1"));
+
+        Assert.assertNotSame(HiveMetaStoreBridge.get(getHiveConf("other", "thrift://localhost:1")), bridge);
+        Assert.assertNotSame(HiveMetaStoreBridge.get(getHiveConf("changed", "thrift://localhost:2")), bridge);
+
+        HiveConf conf = getHiveConf("changed", "thrift://localhost:1");
+        HiveMetaStoreBridge otherAtlas = HiveMetaStoreBridge.get(conf, "http://otherhost:21000/", "changed");
+        Assert.assertNotSame(otherAtlas, bridge);
+        Assert.assertSame(HiveMetaStoreBridge.get(conf, "http://otherhost:21000/", "changed"), otherAtlas);
+
+        // the bridges have caches of their own, sized by their configuration
+        conf = getHiveConf("changed", "thrift://localhost:1");
+        conf.setInt(HiveMetaStoreBridge.CACHE_SIZE, 0);
+        HiveMetaStoreBridge uncached = HiveMetaStoreBridge.get(conf);
+        Assert.assertNotSame(uncached, bridge);
+        conf.setLong(HiveMetaStoreBridge.CACHE_TTL, 10);
+        Assert.assertNotSame(HiveMetaStoreBridge.get(conf), uncached);
+    }
+
+    @Test
+    public void testBridgeIsCreatedWithoutHiveClient() throws Exception {
+        Hive.closeCurrent();
+        try {
+            // creating the bridge doesn't set up a hive client on the thread, which may be the one of a session
+            HiveMetaStoreBridge.get(getHiveConf("untouched", "thrift://localhost:3"));
+            Assert.assertNull(Hive.get().getConf().get(HiveMetaStoreBridge.HIVE_CLUSTER_NAME));
+        } finally {
+            Hive.closeCurrent();
+        }
+    }
+
+    @Test
+    public void testCachesPartitionsByTable() throws Exception {
+        StubAtlasClient atlasClient = new StubAtlasClient();
+        HiveMetaStoreBridge bridge =
+                new HiveMetaStoreBridge(getHiveConf("cached", "thrift://localhost:1"), atlasClient);
+        List<String> values = Collections.singletonList("2015-01-01");
+
+        Referenceable partition = bridge.registerPartition("db", "sales", values);
+        Assert.assertEquals(atlasClient.tableLookups, 1);
+        Assert.assertEquals(atlasClient.partitionLookups, 1);
+        Assert.assertEquals(bridge.registerPartition("db", "sales", values).getId()._getId(),
+                partition.getId()._getId());
+        Assert.assertEquals(atlasClient.tableLookups, 1);
+        Assert.assertEquals(atlasClient.partitionLookups, 1);
+
+        // the table is created again, and its partitions are looked up again under the new table
+        bridge.invalidateTable("db", "sales");
+        atlasClient.tableGuid = "table2";
+        bridge.registerPartition("db", "sales", values);
+        Assert.assertEquals(atlasClient.tableLookups, 2);
+        Assert.assertEquals(atlasClient.partitionLookups, 2);
+    }
+
+    @Test
+    public void testCacheOfSizeZeroLooksUpEveryTime() throws Exception {
+        StubAtlasClient atlasClient = new StubAtlasClient();
+        HiveConf conf = getHiveConf("uncached", "thrift://localhost:1");
+        conf.setInt(HiveMetaStoreBridge.CACHE_SIZE, 0);
+        HiveMetaStoreBridge bridge = new HiveMetaStoreBridge(conf, atlasClient);
+        List<String> values = Collections.singletonList("2015-01-01");
+
+        bridge.registerPartition("db", "sales", values);
+        bridge.registerPartition("db", "sales", values);
+        Assert.assertEquals(atlasClient.tableLookups, 2);
+        Assert.assertEquals(atlasClient.partitionLookups, 2);
+    }
+
+    @Test
+    public void testImportProgressCountsConcurrentImports() throws Exception {
+        final HiveMetaStoreBridge.ImportProgress progress = new HiveMetaStoreBridge.ImportProgress();
+        progress.tablesFound(250);
+
+        Thread[] threads = new Thread[5];
+        for (int index = 0; index < threads.length; index++) {
+            threads[index] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int table = 0; table < 50; table++) {
+                        progress.tableImported(2);
+                    }
+                }
+            });
+            threads[index].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(progress.getTablesFound(), 250);
+        Assert.assertEquals(progress.getTablesImported(), 250);
+        Assert.assertEquals(progress.getPartitionsImported(), 500);
+    }
+
+    /**
+     * Answers the lookups of a registered table and of its partitions, counting them.
+     */
+    private static final class StubAtlasClient extends AtlasClient {
+        private String tableGuid = "table1";
+        private int tableLookups;
+        private int partitionLookups;
+
+        private StubAtlasClient() {
+            super(DGI_URL);
+        }
+
+        @Override
+        public Referenceable getEntity(String entityType, String attribute, String value) {
+            tableLookups++;
+            return new Referenceable(tableGuid, entityType, null);
+        }
+
+        @Override
+        public JSONObject searchByGremlin(String gremlinQuery) {
+            partitionLookups++;
+            try {
+                JSONObject partition = new JSONObject().put("__guid", tableGuid + "-partition");
+                return new JSONObject().put(AtlasClient.RESULTS, new JSONArray().put(partition));
+            } catch (JSONException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private HiveConf getHiveConf(String clusterName, String metaStoreUris) {
+        HiveConf hiveConf = new HiveConf();
+        hiveConf.set(HiveMetaStoreBridge.DGI_URL_PROPERTY, DGI_URL);
+        hiveConf.set(HiveMetaStoreBridge.HIVE_CLUSTER_NAME, clusterName);
+        hiveConf.setVar(HiveConf.ConfVars.METASTOREURIS, metaStoreUris);
+        return hiveConf;
+    }
+}
@@ -94,6 +94,8 @@ public class HiveHookIT {
         Assert.assertNotNull(params);
         Assert.assertEquals(params.size(), 2);
         Assert.assertEquals(params.get("p1"), "v1");
+        Assert.assertEquals(definition.get(HiveDataModelGenerator.QUALIFIED_NAME),
+                HiveMetaStoreBridge.getDBQualifiedName(CLUSTER_NAME, dbName));
 
         //There should be just one entity per dbname
         runCommand("drop database " + dbName);
@@ -143,6 +145,9 @@ public class HiveHookIT {
         Assert.assertEquals(tableRef.get(HiveDataModelGenerator.COMMENT), "table comment");
         String entityName = HiveMetaStoreBridge.getTableName(CLUSTER_NAME, DEFAULT_DB, tableName);
         Assert.assertEquals(tableRef.get(HiveDataModelGenerator.NAME), entityName);
+        Assert.assertEquals(tableRef.get(HiveDataModelGenerator.QUALIFIED_NAME), entityName);
+        Assert.assertEquals(dgiCLient.getEntityGuid(HiveDataTypes.HIVE_TABLE.getName(),
+                HiveDataModelGenerator.QUALIFIED_NAME, entityName), tableId);
 
         final Id sdId = (Id) tableRef.get("sd");
         Referenceable sdRef = dgiCLient.getEntity(sdId.id);
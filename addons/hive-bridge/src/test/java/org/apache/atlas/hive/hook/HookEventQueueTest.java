@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.hive.hook;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.hadoop.hive.ql.plan.HiveOperation;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HookEventQueueTest {
+
+    private static final long RETRY_INTERVAL_MS = 10;
+    private static final int MAX_RETRIES = 3;
+    private static final long TIMEOUT_MS = 10000;
+
+    private File spillFile;
+
+    @BeforeMethod
+    public void setUp() {
+        spillFile = new File(System.getProperty("java.io.tmpdir"), "hook-queue-" + System.nanoTime() + ".spill");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        spillFile.delete();
+        new File(spillFile.getPath() + ".lock").delete();
+        new File(spillFile.getPath() + ".tmp").delete();
+        new File(spillFile.getPath() + ".dead").delete();
+    }
+
+    @Test
+    public void testOverflowSpillsAndReplaysInOrder() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(0);
+        processor.blocked = new CountDownLatch(1);
+        HookEventQueue queue =
+                new HookEventQueue(2, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        try {
+            queue.add(event(0));
+            Assert.assertTrue(processor.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+            // the worker is busy with the first event, so the queue fills up and the later events are spilled
+            for (int i = 1; i < 6; i++) {
+                queue.add(event(i));
+            }
+            Assert.assertEquals(queue.getQueueDepth(), 2);
+            Assert.assertEquals(queue.getSpilledEvents(), 3);
+
+            processor.blocked.countDown();
+            processor.awaitEvents(6);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(0, 6));
+            Assert.assertEquals(queue.getSpilledEvents(), 0);
+            Assert.assertEquals(queue.getDroppedEvents(), 0);
+
+            // once the spill file has been sent, new events are queued in memory again
+            queue.add(event(6));
+            processor.awaitEvents(7);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(0, 7));
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testReplaysSpillFileOfPreviousProcess() throws Exception {
+        // atlas is down, so the events are spilled when the queue is closed
+        RecordingProcessor failing = new RecordingProcessor(Integer.MAX_VALUE);
+        HookEventQueue queue = new HookEventQueue(10, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, failing);
+        for (int i = 0; i < 3; i++) {
+            queue.add(event(i));
+        }
+        queue.close(1, TimeUnit.SECONDS);
+        Assert.assertTrue(failing.getQueryIds().isEmpty());
+        Assert.assertEquals(queue.getDroppedEvents(), 0);
+        Assert.assertTrue(spillFile.length() > 0);
+
+        RecordingProcessor processor = new RecordingProcessor(0);
+        queue = new HookEventQueue(10, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        try {
+            queue.add(event(3));
+            processor.awaitEvents(4);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(0, 4));
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testRetriesFailedBatch() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(2);
+        HookEventQueue queue = new HookEventQueue(10, 10, null, RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        try {
+            queue.add(event(0));
+            processor.awaitEvents(1);
+            Assert.assertEquals(processor.attempts.get(), 3);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(0, 1));
+            Assert.assertEquals(queue.getDroppedEvents(), 0);
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testDropsWithoutSpillFile() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(0);
+        processor.blocked = new CountDownLatch(1);
+        HookEventQueue queue = new HookEventQueue(1, 10, null, RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        try {
+            queue.add(event(0));
+            Assert.assertTrue(processor.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+            // the event that doesn't fit in memory is dropped
+            queue.add(event(1));
+            queue.add(event(2));
+            Assert.assertEquals(queue.getDroppedEvents(), 1);
+
+            processor.blocked.countDown();
+            processor.awaitEvents(2);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(0, 2));
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testDropsFailedBatchOnCloseWithoutSpillFile() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(Integer.MAX_VALUE);
+        HookEventQueue queue = new HookEventQueue(10, 10, null, RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        queue.add(event(0));
+        queue.add(event(1));
+        processor.awaitAttempts(2);
+
+        // the batch is retried until the queue is closed, and then dropped
+        queue.close(1, TimeUnit.SECONDS);
+        Assert.assertTrue(processor.getQueryIds().isEmpty());
+        Assert.assertEquals(queue.getDroppedEvents(), 2);
+    }
+
+    @Test
+    public void testCloseAppendsQueuedEventsWhileWorkerIsStuck() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(0);
+        processor.blocked = new CountDownLatch(1);
+        HookEventQueue queue =
+                new HookEventQueue(10, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        queue.add(event(0));
+        Assert.assertTrue(processor.started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        queue.add(event(1));
+        queue.add(event(2));
+
+        // the worker ignores the interrupt, so the queued events are appended to the spill file
+        queue.close(100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(queue.getSpilledEvents(), 2);
+        processor.blocked.countDown();
+        processor.awaitEvents(1);
+
+        RecordingProcessor next = new RecordingProcessor(0);
+        queue = new HookEventQueue(10, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, next);
+        try {
+            next.awaitEvents(2);
+            Assert.assertEquals(next.getQueryIds(), queryIds(1, 3));
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testMovesRejectedSpilledBatchToDeadLetterFile() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor(0);
+        processor.rejectedQueryId = "query0";
+        HookEventQueue queue =
+                new HookEventQueue(10, 10, spillFile.getPath(), RETRY_INTERVAL_MS, MAX_RETRIES, processor);
+        try {
+            queue.add(event(0));
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (queue.getDeadLetterEvents() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(RETRY_INTERVAL_MS);
+            }
+            Assert.assertEquals(queue.getDeadLetterEvents(), 1);
+            Assert.assertEquals(processor.attempts.get(), MAX_RETRIES + 1);
+
+            // the events behind the rejected batch are sent
+            queue.add(event(1));
+            processor.awaitEvents(1);
+            Assert.assertEquals(processor.getQueryIds(), queryIds(1, 2));
+            Assert.assertEquals(queue.getSpilledEvents(), 0);
+            Assert.assertEquals(queue.getDroppedEvents(), 0);
+        } finally {
+            queue.close(1, TimeUnit.SECONDS);
+        }
+
+        List<String> lines = Files.readAllLines(new File(spillFile.getPath() + ".dead").toPath(),
+                Charset.forName("UTF-8"));
+        Assert.assertEquals(lines.size(), 1);
+        Assert.assertEquals(HookEvent.fromJson(lines.get(0)).queryId, "query0");
+    }
+
+    @Test
+    public void testSpilledEventKeepsAtlasUrlAndCluster() throws Exception {
+        HookEvent event = event(0);
+        event.atlasUrl = "http://atlas:21000/";
+        event.clusterName = "test";
+
+        HookEvent spilled = HookEvent.fromJson(event.toJson());
+        Assert.assertEquals(spilled.atlasUrl, event.atlasUrl);
+        Assert.assertEquals(spilled.clusterName, event.clusterName);
+        Assert.assertEquals(spilled.queryId, event.queryId);
+    }
+
+    private static HookEvent event(int index) {
+        HookEvent event = new HookEvent();
+        event.operation = HiveOperation.QUERY;
+        event.queryId = "query" + index;
+        event.queryStr = "insert into table t" + index + " select * from s";
+        return event;
+    }
+
+    private static List<String> queryIds(int from, int to) {
+        List<String> queryIds = new ArrayList<>();
+        for (int index = from; index < to; index++) {
+            queryIds.add("query" + index);
+        }
+        return queryIds;
+    }
+
+    /**
+     * Records the events it processes, after failing the given number of attempts as if Atlas was unreachable. The
+     * batches with the rejected query are always rejected by Atlas.
+     */
+    private static final class RecordingProcessor implements HookEventQueue.EventProcessor {
+        private final int failures;
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final List<String> queryIds = Collections.synchronizedList(new ArrayList<String>());
+        private volatile CountDownLatch blocked;
+        private volatile String rejectedQueryId;
+
+        private RecordingProcessor(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public void process(List<HookEvent> events) throws Exception {
+            started.countDown();
+            if (blocked != null) {
+                Uninterruptibles.awaitUninterruptibly(blocked);
+            }
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IOException("Atlas is down");
+            }
+            for (HookEvent event : events) {
+                if (event.queryId.equals(rejectedQueryId)) {
+                    throw new Exception("Atlas rejected " + rejectedQueryId);
+                }
+            }
+            for (HookEvent event : events) {
+                queryIds.add(event.queryId);
+            }
+        }
+
+        @Override
+        public boolean isRejected(Exception e) {
+            return !(e instanceof IOException);
+        }
+
+        private List<String> getQueryIds() {
+            synchronized (queryIds) {
+                return new ArrayList<>(queryIds);
+            }
+        }
+
+        private void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (queryIds.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(RETRY_INTERVAL_MS);
+            }
+            Assert.assertEquals(queryIds.size(), count);
+        }
+
+        private void awaitAttempts(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (attempts.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(RETRY_INTERVAL_MS);
+            }
+            Assert.assertTrue(attempts.get() >= count);
+        }
+    }
+}
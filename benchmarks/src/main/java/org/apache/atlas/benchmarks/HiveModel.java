@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.repository.MetadataRepository;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.TypesDef;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.AttributeDefinition;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.DataTypes;
+import org.apache.atlas.typesystem.types.EnumTypeDefinition;
+import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
+import org.apache.atlas.typesystem.types.Multiplicity;
+import org.apache.atlas.typesystem.types.StructTypeDefinition;
+import org.apache.atlas.typesystem.types.TraitType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.typesystem.types.TypeUtils;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A synthetic Hive model, modeled on the HiveTitanSample used by the query tests: databases with tables and their
+ * columns, and load processes that chain the tables of each database into a lineage, the first table feeding the
+ * second and so on.
+ */
+public final class HiveModel {
+
+    public static final String DATABASE_TYPE = "hive_db";
+    public static final String TABLE_TYPE = "hive_table";
+    public static final String COLUMN_TYPE = "hive_column";
+    public static final String PROCESS_TYPE = "hive_process";
+
+    public static final String DIMENSION_TRAIT = "Dimension";
+    public static final String FACT_TRAIT = "Fact";
+    public static final String ETL_TRAIT = "ETL";
+
+    private HiveModel() {
+    }
+
+    /**
+     * The DataSet and Process types the Hive types extend; the metadata service defines them when it starts.
+     */
+    public static TypesDef superTypesDef() {
+        AttributeDefinition name = TypesUtil.createRequiredAttrDef("name", DataTypes.STRING_TYPE);
+        AttributeDefinition description = TypesUtil.createOptionalAttrDef("description", DataTypes.STRING_TYPE);
+
+        HierarchicalTypeDefinition<ClassType> dataSetDef = TypesUtil
+                .createClassTypeDef(AtlasClient.DATA_SET_SUPER_TYPE, ImmutableList.<String>of(), name, description);
+        HierarchicalTypeDefinition<ClassType> processDef = TypesUtil
+                .createClassTypeDef(AtlasClient.PROCESS_SUPER_TYPE, ImmutableList.<String>of(), name, description,
+                        new AttributeDefinition("inputs", DataTypes.arrayTypeName(AtlasClient.DATA_SET_SUPER_TYPE),
+                                Multiplicity.OPTIONAL, false, null),
+                        new AttributeDefinition("outputs", DataTypes.arrayTypeName(AtlasClient.DATA_SET_SUPER_TYPE),
+                                Multiplicity.OPTIONAL, false, null));
+
+        return TypeUtils.getTypesDef(ImmutableList.<EnumTypeDefinition>of(), ImmutableList.<StructTypeDefinition>of(),
+                ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(), ImmutableList.of(dataSetDef, processDef));
+    }
+
+    public static TypesDef typesDef() {
+        HierarchicalTypeDefinition<ClassType> dbClsDef = TypesUtil
+                .createClassTypeDef(DATABASE_TYPE, null, attrDef("name", DataTypes.STRING_TYPE),
+                        attrDef("description", DataTypes.STRING_TYPE), attrDef("locationUri", DataTypes.STRING_TYPE),
+                        attrDef("owner", DataTypes.STRING_TYPE), attrDef("createTime", DataTypes.LONG_TYPE));
+
+        HierarchicalTypeDefinition<ClassType> columnClsDef = TypesUtil
+                .createClassTypeDef(COLUMN_TYPE, null, attrDef("name", DataTypes.STRING_TYPE),
+                        attrDef("dataType", DataTypes.STRING_TYPE), attrDef("comment", DataTypes.STRING_TYPE));
+
+        HierarchicalTypeDefinition<ClassType> tblClsDef = TypesUtil
+                .createClassTypeDef(TABLE_TYPE, ImmutableList.of(AtlasClient.DATA_SET_SUPER_TYPE),
+                        attrDef("owner", DataTypes.STRING_TYPE), attrDef("createTime", DataTypes.LONG_TYPE),
+                        attrDef("lastAccessTime", DataTypes.LONG_TYPE), attrDef("tableType", DataTypes.STRING_TYPE),
+                        attrDef("temporary", DataTypes.BOOLEAN_TYPE),
+                        new AttributeDefinition("db", DATABASE_TYPE, Multiplicity.REQUIRED, false, null),
+                        new AttributeDefinition("columns", DataTypes.arrayTypeName(COLUMN_TYPE),
+                                Multiplicity.COLLECTION, true, null));
+
+        HierarchicalTypeDefinition<ClassType> processClsDef = TypesUtil
+                .createClassTypeDef(PROCESS_TYPE, ImmutableList.of(AtlasClient.PROCESS_SUPER_TYPE),
+                        attrDef("userName", DataTypes.STRING_TYPE), attrDef("startTime", DataTypes.LONG_TYPE),
+                        attrDef("endTime", DataTypes.LONG_TYPE), attrDef("queryText", DataTypes.STRING_TYPE));
+
+        HierarchicalTypeDefinition<TraitType> dimTraitDef = TypesUtil.createTraitTypeDef(DIMENSION_TRAIT, null);
+        HierarchicalTypeDefinition<TraitType> factTraitDef = TypesUtil.createTraitTypeDef(FACT_TRAIT, null);
+        HierarchicalTypeDefinition<TraitType> etlTraitDef = TypesUtil.createTraitTypeDef(ETL_TRAIT, null);
+
+        return TypeUtils.getTypesDef(ImmutableList.<EnumTypeDefinition>of(), ImmutableList.<StructTypeDefinition>of(),
+                ImmutableList.of(dimTraitDef, factTraitDef, etlTraitDef),
+                ImmutableList.of(dbClsDef, columnClsDef, tblClsDef, processClsDef));
+    }
+
+    private static AttributeDefinition attrDef(String name, DataTypes.PrimitiveType dataType) {
+        return new AttributeDefinition(name, dataType.getName(), Multiplicity.OPTIONAL, false, null);
+    }
+
+    public static String tableName(int db, int table) {
+        return "db" + db + "_table" + table;
+    }
+
+    public static Referenceable database(int db) {
+        Referenceable referenceable = new Referenceable(DATABASE_TYPE);
+        referenceable.set("name", "db" + db);
+        referenceable.set("description", "database " + db);
+        referenceable.set("owner", "owner" + db);
+        referenceable.set("locationUri", "hdfs://host:8000/apps/warehouse/db" + db);
+        referenceable.set("createTime", System.currentTimeMillis());
+        return referenceable;
+    }
+
+    public static Referenceable table(int db, int table, Id dbId, int columns) {
+        Referenceable referenceable = new Referenceable(TABLE_TYPE, table % 2 == 0 ? FACT_TRAIT : DIMENSION_TRAIT);
+        referenceable.set("name", tableName(db, table));
+        referenceable.set("description", "table " + table + " of database " + db);
+        referenceable.set("owner", "owner" + table % 4);
+        referenceable.set("tableType", table % 2 == 0 ? "Managed" : "External");
+        referenceable.set("temporary", false);
+        referenceable.set("createTime", System.currentTimeMillis());
+        referenceable.set("lastAccessTime", System.currentTimeMillis());
+        referenceable.set("db", dbId);
+
+        List<Referenceable> cols = new ArrayList<>(columns);
+        for (int i = 0; i < columns; i++) {
+            Referenceable column = new Referenceable(COLUMN_TYPE);
+            column.set("name", "column" + i);
+            column.set("dataType", i % 2 == 0 ? "int" : "string");
+            column.set("comment", "column " + i + " of " + tableName(db, table));
+            cols.add(column);
+        }
+        referenceable.set("columns", cols);
+        return referenceable;
+    }
+
+    public static Referenceable process(String name, Id input, Id output) {
+        Referenceable referenceable = new Referenceable(PROCESS_TYPE, ETL_TRAIT);
+        referenceable.set("name", name);
+        referenceable.set("description", "process " + name);
+        referenceable.set("userName", "etl");
+        referenceable.set("startTime", System.currentTimeMillis());
+        referenceable.set("endTime", System.currentTimeMillis() + 10000);
+        referenceable.set("queryText", "insert into table select * from table");
+        referenceable.set("inputs", ImmutableList.of(input));
+        referenceable.set("outputs", ImmutableList.of(output));
+        return referenceable;
+    }
+
+    /**
+     * Creates the given number of databases in the repository, each with a chain of tables.
+     *
+     * @return the guids of the tables, the tables of the first database first
+     */
+    public static List<String> populate(MetadataRepository repository, int databases, int tablesPerDatabase,
+            int columnsPerTable) throws AtlasException {
+        List<String> tableGuids = new ArrayList<>();
+        for (int db = 0; db < databases; db++) {
+            Id dbId = create(repository, database(db));
+            Id previous = null;
+            for (int table = 0; table < tablesPerDatabase; table++) {
+                Id tableId = create(repository, table(db, table, dbId, columnsPerTable));
+                tableGuids.add(tableId._getId());
+                if (previous != null) {
+                    create(repository, process("load_" + tableName(db, table), previous, tableId));
+                }
+                previous = tableId;
+            }
+        }
+        return tableGuids;
+    }
+
+    public static ITypedReferenceableInstance toTyped(Referenceable referenceable) throws AtlasException {
+        ClassType classType = TypeSystem.getInstance().getDataType(ClassType.class, referenceable.getTypeName());
+        return classType.convert(referenceable, Multiplicity.REQUIRED);
+    }
+
+    public static Id create(MetadataRepository repository, Referenceable referenceable) throws AtlasException {
+        String guid = repository.createEntity(toTyped(referenceable));
+        return new Id(guid, 0, referenceable.getTypeName());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import org.apache.atlas.discovery.HiveLineageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HiveLineageService queries over the lineage chains of the Hive model. The inputs are looked up for the last
+ * table of a chain and the outputs for the first, so that both walk the whole chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LineageBenchmark {
+
+    /**
+     * The number of tables in each lineage chain.
+     */
+    @Param({"5", "20"})
+    private int depth;
+
+    private HiveLineageService lineageService;
+
+    private String firstTable;
+    private String lastTable;
+
+    @Setup
+    public void setUp() throws Exception {
+        RepositoryServices services = RepositoryServices.get();
+        services.defineHiveTypes();
+        HiveModel.populate(services.repository(), 5, depth, 5);
+
+        lineageService = services.get(HiveLineageService.class);
+        firstTable = HiveModel.tableName(0, 0);
+        lastTable = HiveModel.tableName(0, depth - 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RepositoryServices.shutdown();
+    }
+
+    @Benchmark
+    public String getInputs() throws Exception {
+        return lineageService.getInputs(lastTable);
+    }
+
+    @Benchmark
+    public String getInputsGraph() throws Exception {
+        return lineageService.getInputsGraph(lastTable);
+    }
+
+    @Benchmark
+    public String getOutputs() throws Exception {
+        return lineageService.getOutputs(firstTable);
+    }
+
+    @Benchmark
+    public String getOutputsGraph() throws Exception {
+        return lineageService.getOutputsGraph(firstTable);
+    }
+
+    @Benchmark
+    public String getSchema() throws Exception {
+        return lineageService.getSchema(lastTable);
+    }
+}
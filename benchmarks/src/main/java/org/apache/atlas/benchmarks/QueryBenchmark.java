@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import com.thinkaurelius.titan.core.TitanGraph;
+import org.apache.atlas.discovery.graph.DefaultGraphPersistenceStrategy;
+import org.apache.atlas.query.Expressions;
+import org.apache.atlas.query.GremlinQuery;
+import org.apache.atlas.query.GremlinQueryResult;
+import org.apache.atlas.query.GremlinTranslator;
+import org.apache.atlas.query.QueryEvaluator;
+import org.apache.atlas.query.QueryParser;
+import org.apache.atlas.query.QueryProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.util.Either;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of a DSL query over the Hive model: parsing, translation into a Gremlin query, and evaluation by the
+ * Gremlin script engine or the native evaluator. Each evaluation runs in a graph transaction of its own, closed
+ * afterwards as by the GraphTransactionInterceptor of the discovery service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"hive_table",
+            "hive_table where name = \"db0_table5\"",
+            "hive_table where owner = \"owner1\" select name, createTime",
+            "hive_table where name = \"db0_table5\", columns",
+            "hive_table groupby(owner) select owner, count()",
+            "hive_db as d hive_table where d.name = \"db1\" orderby name limit 5"})
+    private String query;
+
+    @Param({"false", "true"})
+    private boolean executeNatively;
+
+    private TitanGraph graph;
+    private DefaultGraphPersistenceStrategy persistenceStrategy;
+
+    private Expressions.Expression expression;
+    private GremlinQuery gremlinQuery;
+
+    @Setup
+    public void setUp() throws Exception {
+        RepositoryServices services = RepositoryServices.get();
+        services.defineHiveTypes();
+        HiveModel.populate(services.repository(), 10, 10, 5);
+
+        graph = services.graph();
+        persistenceStrategy = new DefaultGraphPersistenceStrategy(services.repository(), executeNatively);
+
+        expression = parse();
+        gremlinQuery = translate();
+    }
+
+    @TearDown
+    public void tearDown() {
+        RepositoryServices.shutdown();
+    }
+
+    @Benchmark
+    public Expressions.Expression parse() {
+        Either<?, Expressions.Expression> either = new QueryParser().apply(query);
+        if (either.isLeft()) {
+            throw new IllegalArgumentException("Invalid query " + query + ": " + either.left().get());
+        }
+        return either.right().get();
+    }
+
+    @Benchmark
+    public GremlinQuery translate() {
+        Expressions.Expression validatedExpression = QueryProcessor.validate(expression);
+        return new GremlinTranslator(validatedExpression, persistenceStrategy).translate();
+    }
+
+    @Benchmark
+    public GremlinQueryResult evaluate() {
+        try {
+            GremlinQueryResult result = QueryEvaluator
+                    .apply(gremlinQuery, persistenceStrategy, graph, Collections.<String, Object>emptyMap())
+                    .evaluate();
+            graph.commit();
+            return result;
+        } catch (RuntimeException e) {
+            graph.rollback();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import org.apache.atlas.repository.MetadataRepository;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating and loading entities through the GraphBackedMetadataRepository: a Hive table with its columns is written
+ * to, and read back from, the in-process graph. Each created table is a new one, and its conversion to a typed
+ * instance is measured along with its creation, as the metadata service does for every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"10"})
+    private int columns;
+
+    @Param({"100"})
+    private int tables;
+
+    private MetadataRepository repository;
+    private Id dbId;
+    private List<String> tableGuids;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        RepositoryServices services = RepositoryServices.get();
+        services.defineHiveTypes();
+        repository = services.repository();
+
+        tableGuids = HiveModel.populate(repository, 1, tables, columns);
+        dbId = HiveModel.create(repository, HiveModel.database(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RepositoryServices.shutdown();
+    }
+
+    @Benchmark
+    public String createEntity() throws Exception {
+        return repository.createEntity(HiveModel.toTyped(HiveModel.table(1, next++, dbId, columns)));
+    }
+
+    @Benchmark
+    public ITypedReferenceableInstance getEntityDefinition() throws Exception {
+        return repository.getEntityDefinition(tableGuids.get(next++ % tableGuids.size()));
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.thinkaurelius.titan.core.TitanGraph;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.apache.atlas.RepositoryMetadataModule;
+import org.apache.atlas.repository.MetadataRepository;
+import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.services.MetadataService;
+import org.apache.atlas.typesystem.json.TypesSerialization;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The repository services, wired as in the server, over the in-process graph configured in application.properties.
+ * The graph directories are cleared when the services are created, so every benchmark JVM starts from an empty
+ * repository.
+ */
+public final class RepositoryServices {
+
+    private static final String[] GRAPH_DIRECTORIES =
+            {"atlas.graph.storage.directory", "atlas.graph.index.search.directory"};
+
+    private static RepositoryServices instance;
+
+    private final Injector injector;
+
+    private RepositoryServices(Injector injector) {
+        this.injector = injector;
+    }
+
+    public static synchronized RepositoryServices get() throws AtlasException, IOException {
+        if (instance == null) {
+            PropertiesConfiguration conf = PropertiesUtil.getApplicationProperties();
+            for (String key : GRAPH_DIRECTORIES) {
+                String directory = conf.getString(key);
+                if (directory != null) {
+                    FileUtils.deleteDirectory(new File(directory));
+                }
+            }
+            instance = new RepositoryServices(Guice.createInjector(new RepositoryMetadataModule()));
+        }
+        return instance;
+    }
+
+    public <T> T get(Class<T> cls) {
+        return injector.getInstance(cls);
+    }
+
+    public MetadataRepository repository() {
+        return get(MetadataRepository.class);
+    }
+
+    public TitanGraph graph() {
+        return injector.getInstance(Key.get(new TypeLiteral<GraphProvider<TitanGraph>>() { })).get();
+    }
+
+    /**
+     * Defines the types of the Hive model, if they are not defined yet.
+     */
+    public synchronized void defineHiveTypes() throws AtlasException {
+        if (!TypeSystem.getInstance().isRegistered(HiveModel.TABLE_TYPE)) {
+            get(MetadataService.class).createType(TypesSerialization.toJson(HiveModel.typesDef()));
+        }
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.graph().shutdown();
+            instance = null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.benchmarks;
+
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.TypesDef;
+import org.apache.atlas.typesystem.persistence.Id;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.IDataType;
+import org.apache.atlas.typesystem.types.Multiplicity;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defining types, and building and accessing typed instances, without a repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeSystemBenchmark {
+
+    @Param({"10"})
+    private int columns;
+
+    private ClassType tableType;
+    private Referenceable table;
+    private ITypedReferenceableInstance typedTable;
+
+    /**
+     * A type system that has the super types of the Hive model, but not the model itself.
+     */
+    @State(Scope.Thread)
+    public static class EmptyTypeSystem {
+        private final TypeSystem typeSystem = new TypeSystem();
+        private final TypesDef superTypes = HiveModel.superTypesDef();
+        private final TypesDef types = HiveModel.typesDef();
+
+        @Setup(Level.Invocation)
+        public void reset() throws Exception {
+            typeSystem.reset();
+            typeSystem.defineTypes(superTypes);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        typeSystem.reset();
+        typeSystem.defineTypes(HiveModel.superTypesDef());
+        typeSystem.defineTypes(HiveModel.typesDef());
+
+        tableType = typeSystem.getDataType(ClassType.class, HiveModel.TABLE_TYPE);
+        table = HiveModel.table(0, 0, new Id("1", 0, HiveModel.DATABASE_TYPE), columns);
+        typedTable = tableType.convert(table, Multiplicity.REQUIRED);
+    }
+
+    @Benchmark
+    public Map<String, IDataType> defineTypes(EmptyTypeSystem state) throws Exception {
+        return state.typeSystem.defineTypes(state.types);
+    }
+
+    @Benchmark
+    public ITypedReferenceableInstance convert() throws Exception {
+        return tableType.convert(table, Multiplicity.REQUIRED);
+    }
+
+    @Benchmark
+    public void set() throws Exception {
+        typedTable.set("owner", "owner");
+        typedTable.set("createTime", 1000L);
+    }
+
+    @Benchmark
+    public Object get() throws Exception {
+        typedTable.get("createTime");
+        return typedTable.get("owner");
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * JMH benchmarks of the repository, type system and query hot paths.
+ * <p>
+ * The module is only built with the <i>benchmarks</i> profile, which packages the benchmarks with their
+ * dependencies in <i>target/benchmarks.jar</i>. Run them from the benchmarks directory, where the in-process graph
+ * of the repository benchmarks is created:
+ * <pre>
+ * mvn install -DskipTests -Pbenchmarks
+ * cd benchmarks
+ * java -jar target/benchmarks.jar                         # all the benchmarks
+ * java -jar target/benchmarks.jar QueryBenchmark -prof gc # one class, with allocation rates
+ * java -jar target/benchmarks.jar -h                      # the JMH options
+ * </pre>
+ * The repository, query and lineage benchmarks run over the synthetic Hive model of {@link
+ * org.apache.atlas.benchmarks.HiveModel}, stored in BerkeleyJE and indexed by an embedded
+ * Elasticsearch.
+ */
+package org.apache.atlas.benchmarks;
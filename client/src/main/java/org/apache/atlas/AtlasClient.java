@@ -58,10 +58,18 @@ public class AtlasClient {
     public static final String RESULTS = "results";
     public static final String COUNT = "count";
     public static final String ROWS = "rows";
+    public static final String LIMIT = "limit";
+    public static final String OFFSET = "offset";
+    public static final String CONTINUATION = "continuation";
+    public static final String TRUNCATED = "truncated";
 
     public static final String BASE_URI = "api/atlas/";
     public static final String TYPES = "types";
     public static final String URI_ENTITIES = "entities";
+    public static final String URI_BULK = "bulk";
+    public static final String URI_INGEST = "ingest";
+    public static final String URI_UPSERT = "upsert";
+    public static final String URI_GUID = "guid";
     public static final String URI_TRAITS = "traits";
     public static final String URI_SEARCH = "discovery/search";
     public static final String URI_LINEAGE = "lineage/hive/table";
@@ -70,6 +78,14 @@ public class AtlasClient {
     public static final String QUERY_TYPE = "queryType";
     public static final String ATTRIBUTE_NAME = "property";
     public static final String ATTRIBUTE_VALUE = "value";
+    public static final String ENTITY_TYPE = "type";
+
+    public static final String INGEST_IDENTIFIERS = "identifiers";
+    public static final String INGEST_EVENTS = "events";
+    public static final String EVENT_TYPE = "type";
+    public static final String EVENT_ENTITIES = "entities";
+    public static final String EVENT_IDENTITY = "identity";
+    public static final String EVENT_ATTRIBUTES = "attributes";
 
 
     public static final String INFRASTRUCTURE_SUPER_TYPE = "Infrastructure";
@@ -117,7 +133,11 @@ public class AtlasClient {
 
         //Entity operations
         CREATE_ENTITY(BASE_URI + URI_ENTITIES, HttpMethod.POST),
+        CREATE_ENTITIES(BASE_URI + URI_ENTITIES + "/" + URI_BULK, HttpMethod.POST),
+        INGEST(BASE_URI + URI_ENTITIES + "/" + URI_INGEST, HttpMethod.POST),
+        UPSERT_ENTITY(BASE_URI + URI_ENTITIES + "/" + URI_UPSERT, HttpMethod.POST),
         GET_ENTITY(BASE_URI + URI_ENTITIES, HttpMethod.GET),
+        GET_ENTITY_GUID(BASE_URI + URI_ENTITIES + "/" + URI_GUID, HttpMethod.GET),
         UPDATE_ENTITY(BASE_URI + URI_ENTITIES, HttpMethod.PUT),
         LIST_ENTITY(BASE_URI + URI_ENTITIES, HttpMethod.GET),
 
@@ -204,6 +224,61 @@ public class AtlasClient {
         return callAPI(API.CREATE_ENTITY, entityAsJson);
     }
 
+    /**
+     * Create the given entities in a single transaction
+     * @param entitiesAsJson json array of entities(type instances)
+     * @return result json object
+     * @throws AtlasServiceException
+     */
+    public JSONObject createEntities(String entitiesAsJson) throws AtlasServiceException {
+        return callAPI(API.CREATE_ENTITIES, entitiesAsJson);
+    }
+
+    /**
+     * Create the given entities in a single transaction
+     * @param entities entities(type instances)
+     * @return guids of the created entities, in the same order as the given entities
+     * @throws AtlasServiceException
+     */
+    public List<String> createEntities(Referenceable... entities) throws AtlasServiceException {
+        try {
+            JSONArray entitiesArray = new JSONArray();
+            for (Referenceable entity : entities) {
+                entitiesArray.put(new JSONObject(InstanceSerialization.toJson(entity, true)));
+            }
+
+            final JSONObject response = createEntities(entitiesArray.toString());
+            final JSONArray list = response.getJSONArray(AtlasClient.GUID);
+            List<String> guids = new ArrayList<>(list.length());
+            for (int index = 0; index < list.length(); index++) {
+                guids.add(list.getString(index));
+            }
+
+            return guids;
+        } catch (JSONException e) {
+            throw new AtlasServiceException(API.CREATE_ENTITIES, e);
+        }
+    }
+
+    /**
+     * Applies a batch of events, such as the ones of a hook, in a single transaction. The batch is a json object
+     * with the names of the attributes identifying the entities of each type, under {@link #INGEST_IDENTIFIERS},
+     * and the events, under {@link #INGEST_EVENTS}. An event either creates the entities under
+     * {@link #EVENT_ENTITIES} that aren't registered yet, or sets the {@link #EVENT_ATTRIBUTES} of the entity of
+     * type {@link #TYPENAME} identified by the {@link #EVENT_IDENTITY} attribute values.
+     * @param batchAsJson batch as json
+     * @return results of the events, in order, each with either the guids of the entities of the event or an error
+     * @throws AtlasServiceException
+     */
+    public JSONArray ingest(String batchAsJson) throws AtlasServiceException {
+        JSONObject response = callAPI(API.INGEST, batchAsJson);
+        try {
+            return response.getJSONArray(RESULTS);
+        } catch (JSONException e) {
+            throw new AtlasServiceException(API.INGEST, e);
+        }
+    }
+
     /**
      * Get an entity given the entity id
      * @param guid entity id
@@ -220,6 +295,75 @@ public class AtlasClient {
         }
     }
 
+    /**
+     * Get the entity of the given type with the given value of a unique attribute of the type
+     * @param entityType type name
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
+     * @return the entity, or null if there is none
+     * @throws AtlasServiceException
+     */
+    public Referenceable getEntity(String entityType, String attribute, String value) throws AtlasServiceException {
+        WebResource resource = getResource(API.GET_ENTITY);
+        resource = resource.queryParam(ENTITY_TYPE, entityType);
+        resource = resource.queryParam(ATTRIBUTE_NAME, attribute);
+        resource = resource.queryParam(ATTRIBUTE_VALUE, value);
+        try {
+            JSONObject jsonResponse = callAPIWithResource(API.GET_ENTITY, resource);
+            String entityInstanceDefinition = jsonResponse.getString(AtlasClient.DEFINITION);
+            return InstanceSerialization.fromJsonReferenceable(entityInstanceDefinition, true);
+        } catch (AtlasServiceException e) {
+            if (e.getStatus() == ClientResponse.Status.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        } catch (JSONException e) {
+            throw new AtlasServiceException(e);
+        }
+    }
+
+    /**
+     * Get the guid of the entity of the given type with the given value of a unique attribute of the type
+     * @param entityType type name
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
+     * @return the guid of the entity, or null if there is none
+     * @throws AtlasServiceException
+     */
+    public String getEntityGuid(String entityType, String attribute, String value) throws AtlasServiceException {
+        WebResource resource = getResource(API.GET_ENTITY_GUID);
+        resource = resource.queryParam(ENTITY_TYPE, entityType);
+        resource = resource.queryParam(ATTRIBUTE_NAME, attribute);
+        resource = resource.queryParam(ATTRIBUTE_VALUE, value);
+        try {
+            JSONObject jsonResponse = callAPIWithResource(API.GET_ENTITY_GUID, resource);
+            return jsonResponse.getString(GUID);
+        } catch (AtlasServiceException e) {
+            if (e.getStatus() == ClientResponse.Status.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        } catch (JSONException e) {
+            throw new AtlasServiceException(e);
+        }
+    }
+
+    /**
+     * Create the given entity, or update the registered entity with the same value of one of the unique
+     * attributes of its type
+     * @param entityAsJson entity(type instance) as json
+     * @return guid of the created or updated entity
+     * @throws AtlasServiceException
+     */
+    public String upsertEntity(String entityAsJson) throws AtlasServiceException {
+        JSONObject response = callAPI(API.UPSERT_ENTITY, entityAsJson);
+        try {
+            return response.getString(GUID);
+        } catch (JSONException e) {
+            throw new AtlasServiceException(API.UPSERT_ENTITY, e);
+        }
+    }
+
     /**
      * Updates property for the entity corresponding to guid
      * @param guid      guid
@@ -258,7 +402,7 @@ public class AtlasClient {
     }
 
     /**
-     * Search given query DSL
+     * Search given query DSL, returning the first page of the rows
      * @param query DSL query
      * @return result json object
      * @throws AtlasServiceException
@@ -275,6 +419,36 @@ public class AtlasClient {
         }
     }
 
+    /**
+     * Search given query DSL, returning a page of the results
+     * @param query DSL query
+     * @param limit maximum number of rows to return
+     * @param offset number of rows to skip
+     * @return result json object, with the continuation for the next page if this page is full
+     * @throws AtlasServiceException
+     */
+    public JSONObject searchByDSL(String query, int limit, int offset) throws AtlasServiceException {
+        LOG.debug("DSL query: {}, limit: {}, offset: {}", query, limit, offset);
+        WebResource resource = getResource(API.SEARCH_DSL);
+        resource = resource.queryParam(QUERY, query);
+        resource = resource.queryParam(LIMIT, String.valueOf(limit));
+        resource = resource.queryParam(OFFSET, String.valueOf(offset));
+        return callAPIWithResource(API.SEARCH_DSL, resource);
+    }
+
+    /**
+     * Search given query DSL, returning the page of the results that follows a previous page
+     * @param query DSL query
+     * @param limit maximum number of rows to return
+     * @param continuation the continuation returned with the previous page
+     * @return result json object, with the continuation for the next page if this page is full
+     * @throws AtlasServiceException
+     */
+    public JSONObject searchByDSL(String query, int limit, String continuation) throws AtlasServiceException {
+        LOG.debug("DSL query: {}, limit: {}, continuation: {}", query, limit, continuation);
+        return searchPage(API.SEARCH_DSL, query, limit, continuation);
+    }
+
     /**
      * Search given gremlin query
      * @param gremlinQuery Gremlin query
@@ -289,9 +463,9 @@ public class AtlasClient {
     }
 
     /**
-     * Search given full text search
+     * Search given full text search, returning the first page of the results
      * @param query Query
-     * @return result json object
+     * @return result json object, with the continuation for the next page if this page is full
      * @throws AtlasServiceException
      */
     public JSONObject searchByFullText(String query) throws AtlasServiceException {
@@ -300,6 +474,29 @@ public class AtlasClient {
         return callAPIWithResource(API.SEARCH_FULL_TEXT, resource);
     }
 
+    /**
+     * Search given full text search, returning the page of the results that follows a previous page
+     * @param query Query
+     * @param limit maximum number of results to return
+     * @param continuation the continuation returned with the previous page
+     * @return result json object, with the continuation for the next page if this page is full
+     * @throws AtlasServiceException
+     */
+    public JSONObject searchByFullText(String query, int limit, String continuation) throws AtlasServiceException {
+        return searchPage(API.SEARCH_FULL_TEXT, query, limit, continuation);
+    }
+
+    private JSONObject searchPage(API api, String query, int limit, String continuation)
+            throws AtlasServiceException {
+        WebResource resource = getResource(api);
+        resource = resource.queryParam(QUERY, query);
+        resource = resource.queryParam(LIMIT, String.valueOf(limit));
+        if (continuation != null) {
+            resource = resource.queryParam(CONTINUATION, continuation);
+        }
+        return callAPIWithResource(api, resource);
+    }
+
     public JSONObject getInputGraph(String datasetName) throws AtlasServiceException {
         JSONObject response = callAPI(API.LINEAGE_INPUTS_GRAPH, null, datasetName, "/inputs/graph");
         try {
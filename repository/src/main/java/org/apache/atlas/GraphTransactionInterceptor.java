@@ -22,6 +22,8 @@ import com.thinkaurelius.titan.core.TitanGraph;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.repository.graph.TypedInstanceCache;
+import org.apache.atlas.repository.graph.VertexIdCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +34,12 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
     @Inject
     GraphProvider<TitanGraph> graphProvider;
 
+    @Inject
+    VertexIdCache vertexIdCache;
+
+    @Inject
+    TypedInstanceCache typedInstanceCache;
+
     public Object invoke(MethodInvocation invocation) throws Throwable {
         if (titanGraph == null) {
             titanGraph = graphProvider.get();
@@ -40,10 +48,15 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         try {
             Object response = invocation.proceed();
             titanGraph.commit();
+            vertexIdCache.onCommit();
+            typedInstanceCache.onCommit();
             LOG.debug("graph commit");
             return response;
         } catch (Throwable t) {
             titanGraph.rollback();
+            // only the vertices and entities changed by this transaction may have been cached
+            vertexIdCache.onRollback();
+            typedInstanceCache.onRollback();
             LOG.error("graph rollback due to exception ", t);
             throw t;
         }
@@ -27,8 +27,11 @@ import org.apache.atlas.discovery.DiscoveryService;
 import org.apache.atlas.discovery.HiveLineageService;
 import org.apache.atlas.discovery.LineageService;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
+import org.apache.atlas.discovery.graph.LineageIndex;
+import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.listener.TypesChangeListener;
 import org.apache.atlas.repository.MetadataRepository;
+import org.apache.atlas.repository.graph.FullTextIndexer;
 import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
 import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
 import org.apache.atlas.repository.graph.GraphProvider;
@@ -61,6 +64,13 @@ public class RepositoryMetadataModule extends com.google.inject.AbstractModule {
                 Multibinder.newSetBinder(binder(), TypesChangeListener.class);
         typesChangeListenerBinder.addBinding().to(GraphBackedSearchIndexer.class);
 
+        Multibinder<EntityChangeListener> entityChangeListenerBinder =
+                Multibinder.newSetBinder(binder(), EntityChangeListener.class);
+        entityChangeListenerBinder.addBinding().to(FullTextIndexer.class);
+        if (isLineageIndexEnabled()) {
+            entityChangeListenerBinder.addBinding().to(LineageIndex.class);
+        }
+
         // bind the MetadataService interface to an implementation
         bind(MetadataService.class).to(DefaultMetadataService.class).asEagerSingleton();
 
@@ -74,4 +84,13 @@ public class RepositoryMetadataModule extends com.google.inject.AbstractModule {
         bindInterceptor(Matchers.any(), Matchers.annotatedWith(GraphTransaction.class), interceptor);
     }
 
+    private static boolean isLineageIndexEnabled() {
+        try {
+            return PropertiesUtil.getApplicationProperties()
+                    .getBoolean(LineageIndex.ENABLED_PROPERTY, LineageIndex.DEFAULT_ENABLED);
+        } catch (AtlasException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
 }
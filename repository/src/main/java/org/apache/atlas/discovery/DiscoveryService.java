@@ -26,11 +26,26 @@ import java.util.Map;
  */
 public interface DiscoveryService {
 
+    /**
+     * Limit that returns all the results of a search.
+     */
+    int NO_LIMIT = -1;
+
     /**
      * Full text search
      */
     String searchByFullText(String query) throws DiscoveryException;
 
+    /**
+     * Full text search, returning a page of the results.
+     *
+     * @param query  full text query.
+     * @param limit  maximum number of results to return; {@link #NO_LIMIT} returns all the results.
+     * @param offset number of results to skip.
+     * @return JSON array of the results.
+     */
+    String searchByFullText(String query, int limit, int offset) throws DiscoveryException;
+
     /**
      * Search using query DSL.
      *
@@ -39,6 +54,18 @@ public interface DiscoveryService {
      */
     String searchByDSL(String dslQuery) throws DiscoveryException;
 
+    /**
+     * Search using query DSL, returning a page of the results. The limit and offset are applied
+     * by the graph traversal, after any limit clause in the query itself. The rows of a page are
+     * ordered on the guids of the instances they are made from, unless the query orders them.
+     *
+     * @param dslQuery query in DSL format.
+     * @param limit    maximum number of rows to return; {@link #NO_LIMIT} returns all the rows.
+     * @param offset   number of rows to skip.
+     * @return JSON representing the type and results.
+     */
+    String searchByDSL(String dslQuery, int limit, int offset) throws DiscoveryException;
+
     /**
      * Assumes the User is familiar with the persistence structure of the Repository.
      * The given query is run uninterpreted against the underlying Graph Store.
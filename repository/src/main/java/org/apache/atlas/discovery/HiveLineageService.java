@@ -19,19 +19,28 @@
 package org.apache.atlas.discovery;
 
 import com.thinkaurelius.titan.core.TitanGraph;
+import com.tinkerpop.blueprints.Vertex;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.ParamChecker;
 import org.apache.atlas.PropertiesUtil;
 import org.apache.atlas.discovery.graph.DefaultGraphPersistenceStrategy;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
+import org.apache.atlas.discovery.graph.LineageIndex;
+import org.apache.atlas.discovery.graph.LineageTraversal;
 import org.apache.atlas.query.Expressions;
 import org.apache.atlas.query.GremlinQueryResult;
 import org.apache.atlas.query.HiveLineageQuery;
 import org.apache.atlas.query.HiveWhereUsedQuery;
+import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.EntityNotFoundException;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.json.InstanceSerialization;
+import org.apache.atlas.typesystem.types.AttributeInfo;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.TypeSystem;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +50,7 @@ import scala.collection.immutable.List;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
 
 /**
  * Hive implementation of Lineage service interface.
@@ -53,7 +63,11 @@ public class HiveLineageService implements LineageService {
     private static final Option<List<String>> SELECT_ATTRIBUTES =
             Some.<List<String>>apply(List.<String>fromArray(new String[]{"name"}));
 
+    private static final String NAME_ATTRIBUTE = "name";
+
     private static final String HIVE_TABLE_TYPE_NAME;
+    private static final String HIVE_TABLE_UNIQUE_TYPE_NAME;
+    private static final String HIVE_TABLE_UNIQUE_ATTRIBUTE_NAME;
     private static final String HIVE_PROCESS_TYPE_NAME;
     private static final String HIVE_PROCESS_INPUT_ATTRIBUTE_NAME;
     private static final String HIVE_PROCESS_OUTPUT_ATTRIBUTE_NAME;
@@ -61,11 +75,18 @@ public class HiveLineageService implements LineageService {
     private static final String HIVE_TABLE_SCHEMA_QUERY;
     private static final String HIVE_TABLE_EXISTS_QUERY;
 
+    private static final int LINEAGE_MAX_DEPTH;
+    private static final int LINEAGE_MAX_FANOUT;
+    private static final int LINEAGE_MAX_VERTICES;
+
     static {
         // todo - externalize this using type system - dog food
         try {
             PropertiesConfiguration conf = PropertiesUtil.getApplicationProperties();
             HIVE_TABLE_TYPE_NAME = conf.getString("atlas.lineage.hive.table.type.name", "DataSet");
+            HIVE_TABLE_UNIQUE_TYPE_NAME = conf.getString("atlas.lineage.hive.table.unique.type.name", "hive_table");
+            HIVE_TABLE_UNIQUE_ATTRIBUTE_NAME =
+                    conf.getString("atlas.lineage.hive.table.unique.attribute.name", "qualifiedName");
             HIVE_PROCESS_TYPE_NAME = conf.getString("atlas.lineage.hive.process.type.name", "Process");
             HIVE_PROCESS_INPUT_ATTRIBUTE_NAME = conf.getString("atlas.lineage.hive.process.inputs.name", "inputs");
             HIVE_PROCESS_OUTPUT_ATTRIBUTE_NAME = conf.getString("atlas.lineage.hive.process.outputs.name", "outputs");
@@ -74,6 +95,10 @@ public class HiveLineageService implements LineageService {
                     conf.getString("atlas.lineage.hive.table.schema.query", "hive_table where name=\"%s\", columns");
             HIVE_TABLE_EXISTS_QUERY = conf.getString("atlas.lineage.hive.table.exists.query",
                     "from " + HIVE_TABLE_TYPE_NAME + " where name=\"%s\"");
+
+            LINEAGE_MAX_DEPTH = conf.getInt("atlas.lineage.hive.max.depth", 0);
+            LINEAGE_MAX_FANOUT = conf.getInt("atlas.lineage.hive.max.fanout", 1000);
+            LINEAGE_MAX_VERTICES = conf.getInt("atlas.lineage.hive.max.vertices", 10000);
         } catch (AtlasException e) {
             throw new RuntimeException(e);
         }
@@ -81,15 +106,21 @@ public class HiveLineageService implements LineageService {
 
 
     private final TitanGraph titanGraph;
+    private final MetadataRepository metadataRepository;
     private final DefaultGraphPersistenceStrategy graphPersistenceStrategy;
     private final GraphBackedDiscoveryService discoveryService;
+    private final LineageTraversal lineageTraversal;
+    private final LineageIndex lineageIndex;
 
     @Inject
     HiveLineageService(GraphProvider<TitanGraph> graphProvider, MetadataRepository metadataRepository,
-            GraphBackedDiscoveryService discoveryService) throws DiscoveryException {
+            GraphBackedDiscoveryService discoveryService, LineageIndex lineageIndex) throws AtlasException {
         this.titanGraph = graphProvider.get();
+        this.metadataRepository = metadataRepository;
         this.graphPersistenceStrategy = new DefaultGraphPersistenceStrategy(metadataRepository);
         this.discoveryService = discoveryService;
+        this.lineageTraversal = new LineageTraversal(LINEAGE_MAX_DEPTH, LINEAGE_MAX_FANOUT, LINEAGE_MAX_VERTICES);
+        this.lineageIndex = lineageIndex;
     }
 
     /**
@@ -130,13 +161,8 @@ public class HiveLineageService implements LineageService {
     public String getOutputsGraph(String tableName) throws AtlasException {
         LOG.info("Fetching lineage outputs graph for tableName={}", tableName);
         ParamChecker.notEmpty(tableName, "table name cannot be null");
-        validateTableExists(tableName);
 
-        HiveWhereUsedQuery outputsQuery =
-                new HiveWhereUsedQuery(HIVE_TABLE_TYPE_NAME, tableName, HIVE_PROCESS_TYPE_NAME,
-                        HIVE_PROCESS_INPUT_ATTRIBUTE_NAME, HIVE_PROCESS_OUTPUT_ATTRIBUTE_NAME, Option.empty(),
-                        SELECT_ATTRIBUTES, true, graphPersistenceStrategy, titanGraph);
-        return outputsQuery.graph().toInstanceJson();
+        return InstanceSerialization.toJson(getLineageGraph(tableName, false), false);
     }
 
     /**
@@ -176,12 +202,8 @@ public class HiveLineageService implements LineageService {
     public String getInputsGraph(String tableName) throws AtlasException {
         LOG.info("Fetching lineage inputs graph for tableName={}", tableName);
         ParamChecker.notEmpty(tableName, "table name cannot be null");
-        validateTableExists(tableName);
 
-        HiveLineageQuery inputsQuery = new HiveLineageQuery(HIVE_TABLE_TYPE_NAME, tableName, HIVE_PROCESS_TYPE_NAME,
-                HIVE_PROCESS_INPUT_ATTRIBUTE_NAME, HIVE_PROCESS_OUTPUT_ATTRIBUTE_NAME, Option.empty(),
-                SELECT_ATTRIBUTES, true, graphPersistenceStrategy, titanGraph);
-        return inputsQuery.graph().toInstanceJson();
+        return InstanceSerialization.toJson(getLineageGraph(tableName, true), false);
     }
 
     /**
@@ -202,11 +224,69 @@ public class HiveLineageService implements LineageService {
     }
 
     /**
-     * Validate if indeed this is a table type and exists.
+     * Walks the lineage of the tables with the given name in the lineage index when it is enabled, and else on the
+     * graph, see {@link LineageTraversal}.
+     *
+     * @param tableName table name
+     * @param inputs    whether the tables the table was derived from are returned, or the ones derived from it
+     * @return lineage graph
+     */
+    private Struct getLineageGraph(String tableName, boolean inputs) throws AtlasException {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        ClassType tableType = typeSystem.getDataType(ClassType.class, HIVE_TABLE_TYPE_NAME);
+        String nameProperty =
+                metadataRepository.getFieldNameInVertex(tableType, tableType.fieldMapping().fields.get(NAME_ATTRIBUTE));
+
+        ArrayList<Vertex> tables = new ArrayList<>();
+        for (Vertex vertex : titanGraph.query().has(nameProperty, tableName).vertices()) {
+            if (tableType.isSubType(vertex.<String>getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY))) {
+                tables.add(vertex);
+            }
+        }
+        if (tables.isEmpty()) {
+            throw new EntityNotFoundException(tableName + " does not exist");
+        }
+
+        if (lineageIndex.isEnabled()) {
+            return inputs ?
+                    lineageIndex.inputs(tables, nameProperty, LINEAGE_MAX_DEPTH, LINEAGE_MAX_FANOUT,
+                            LINEAGE_MAX_VERTICES) :
+                    lineageIndex.outputs(tables, nameProperty, LINEAGE_MAX_DEPTH, LINEAGE_MAX_FANOUT,
+                            LINEAGE_MAX_VERTICES);
+        }
+
+        ClassType processType = typeSystem.getDataType(ClassType.class, HIVE_PROCESS_TYPE_NAME);
+        String inputsLabel = metadataRepository.getEdgeLabel(processType,
+                processType.fieldMapping().fields.get(HIVE_PROCESS_INPUT_ATTRIBUTE_NAME));
+        String outputsLabel = metadataRepository.getEdgeLabel(processType,
+                processType.fieldMapping().fields.get(HIVE_PROCESS_OUTPUT_ATTRIBUTE_NAME));
+        return inputs ? lineageTraversal.inputs(tables, inputsLabel, outputsLabel, nameProperty) :
+                lineageTraversal.outputs(tables, inputsLabel, outputsLabel, nameProperty);
+    }
+
+    /**
+     * Validate if indeed this is a table type and exists. The table is first looked up in the unique index that
+     * the hive model declares for its tables, and else with the table exists query, which also finds the tables of
+     * other types and the ones registered without a qualified name.
      *
      * @param tableName table name
      */
     private void validateTableExists(String tableName) throws AtlasException {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        if (typeSystem.isRegistered(HIVE_TABLE_UNIQUE_TYPE_NAME)) {
+            AttributeInfo uniqueAttribute = typeSystem.getDataType(ClassType.class, HIVE_TABLE_UNIQUE_TYPE_NAME)
+                    .fieldMapping().fields.get(HIVE_TABLE_UNIQUE_ATTRIBUTE_NAME);
+            if (uniqueAttribute != null && uniqueAttribute.isUnique) {
+                try {
+                    metadataRepository.getEntityByUniqueAttribute(HIVE_TABLE_UNIQUE_TYPE_NAME,
+                            HIVE_TABLE_UNIQUE_ATTRIBUTE_NAME, tableName);
+                    return;
+                } catch (EntityNotFoundException e) {
+                    LOG.debug("{} isn't registered by its {}", tableName, HIVE_TABLE_UNIQUE_ATTRIBUTE_NAME);
+                }
+            }
+        }
+
         final String tableExistsQuery = String.format(HIVE_TABLE_EXISTS_QUERY, tableName);
         GremlinQueryResult queryResult = discoveryService.evaluate(tableExistsQuery);
         if (!(queryResult.rows().length() > 0)) {
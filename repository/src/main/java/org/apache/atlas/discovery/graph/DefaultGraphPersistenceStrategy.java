@@ -19,7 +19,9 @@
 package org.apache.atlas.discovery.graph;
 
 import com.thinkaurelius.titan.core.TitanVertex;
+import com.tinkerpop.blueprints.Compare;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
 import org.apache.atlas.query.Expressions;
 import org.apache.atlas.query.GraphPersistenceStrategies;
 import org.apache.atlas.query.GraphPersistenceStrategies$class;
@@ -49,10 +51,22 @@ public class DefaultGraphPersistenceStrategy implements GraphPersistenceStrategi
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultGraphPersistenceStrategy.class);
 
+    /**
+     * Constant for the configuration property that selects the native query execution backend
+     * instead of Gremlin.
+     */
+    public static final String NATIVE_QUERY_PROPERTY = "atlas.repository.query.native";
+
     private final GraphBackedMetadataRepository metadataRepository;
+    private final boolean executeNatively;
+
+    public DefaultGraphPersistenceStrategy(MetadataRepository metadataRepository) throws AtlasException {
+        this(metadataRepository, PropertiesUtil.getApplicationProperties().getBoolean(NATIVE_QUERY_PROPERTY, false));
+    }
 
-    public DefaultGraphPersistenceStrategy(MetadataRepository metadataRepository) {
+    public DefaultGraphPersistenceStrategy(MetadataRepository metadataRepository, boolean executeNatively) {
         this.metadataRepository = (GraphBackedMetadataRepository) metadataRepository;
+        this.executeNatively = executeNatively;
     }
 
     @Override
@@ -197,11 +211,39 @@ public class DefaultGraphPersistenceStrategy implements GraphPersistenceStrategi
         return GraphPersistenceStrategies$class.typeTestExpression(this, typeName, intSeq);
     }
 
+    @Override
+    public scala.Option<scala.collection.Seq<String>> typeTestExpression(String typeName,
+            scala.collection.Seq<scala.Tuple3<String, Compare, Expressions.Literal<?>>> predicates,
+            IntSequence intSeq) {
+        return GraphPersistenceStrategies$class.typeTestExpression(this, typeName, predicates, intSeq);
+    }
+
+    @Override
+    public scala.Option<Compare> indexQueryCompOp(Expressions.ComparisonExpression op) {
+        return GraphPersistenceStrategies$class.indexQueryCompOp(this, op);
+    }
+
+    @Override
+    public boolean isIndexed(AttributeInfo aInfo) {
+        return GraphPersistenceStrategies$class.isIndexed(this, aInfo);
+    }
+
+    @Override
+    public scala.collection.immutable.List<scala.Tuple3<String, Compare, Expressions.Literal<?>>> indexPredicates(
+            Expressions.Expression condExpr) {
+        return GraphPersistenceStrategies$class.indexPredicates(this, condExpr);
+    }
+
     @Override
     public boolean collectTypeInstancesIntoVar() {
         return GraphPersistenceStrategies$class.collectTypeInstancesIntoVar(this);
     }
 
+    @Override
+    public boolean executeNatively() {
+        return executeNatively;
+    }
+
     @Override
     public boolean addGraphVertexPrefix(scala.collection.Traversable<String> preStatements) {
         return GraphPersistenceStrategies$class.addGraphVertexPrefix(this, preStatements);
@@ -18,40 +18,48 @@
 
 package org.apache.atlas.discovery.graph;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.thinkaurelius.titan.core.TitanIndexQuery;
 import com.thinkaurelius.titan.core.TitanProperty;
 import com.thinkaurelius.titan.core.TitanVertex;
 import com.tinkerpop.blueprints.Vertex;
 import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasException;
 import org.apache.atlas.GraphTransaction;
+import org.apache.atlas.PropertiesUtil;
 import org.apache.atlas.discovery.DiscoveryException;
 import org.apache.atlas.discovery.DiscoveryService;
 import org.apache.atlas.query.Expressions;
-import org.apache.atlas.query.GremlinEvaluator;
 import org.apache.atlas.query.GremlinQuery;
 import org.apache.atlas.query.GremlinQueryResult;
 import org.apache.atlas.query.GremlinTranslator;
+import org.apache.atlas.query.ParameterizedQuery;
+import org.apache.atlas.query.QueryEvaluator;
 import org.apache.atlas.query.QueryParser;
 import org.apache.atlas.query.QueryProcessor;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.repository.graph.GremlinScriptEnginePool;
+import org.apache.atlas.typesystem.types.TypeSystem;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Option;
 import scala.util.Either;
 import scala.util.parsing.combinator.Parsers;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.script.Bindings;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -65,16 +73,31 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
 
     private static final Logger LOG = LoggerFactory.getLogger(GraphBackedDiscoveryService.class);
 
+    /**
+     * Constant for the configuration property that sets the maximum number of cached DSL query plans.
+     */
+    public static final String QUERY_CACHE_SIZE_PROPERTY = "atlas.repository.cache.query.size";
+    public static final int DEFAULT_QUERY_CACHE_SIZE = 1000;
+
     private final TitanGraph titanGraph;
     private final DefaultGraphPersistenceStrategy graphPersistenceStrategy;
+    private final GremlinScriptEnginePool scriptEngines;
+
+    // parameterized dsl query -> translated gremlin query
+    private final Cache<String, GremlinQuery> queryPlans;
 
     public final static String SCORE = "score";
 
     @Inject
     GraphBackedDiscoveryService(GraphProvider<TitanGraph> graphProvider, MetadataRepository metadataRepository)
-    throws DiscoveryException {
+    throws AtlasException {
         this.titanGraph = graphProvider.get();
         this.graphPersistenceStrategy = new DefaultGraphPersistenceStrategy(metadataRepository);
+        this.scriptEngines = GremlinScriptEnginePool.getInstance();
+
+        int cacheSize = PropertiesUtil.getApplicationProperties()
+                .getInt(QUERY_CACHE_SIZE_PROPERTY, DEFAULT_QUERY_CACHE_SIZE);
+        this.queryPlans = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
     }
 
     //Refer http://s3.thinkaurelius.com/docs/titan/0.5.4/index-backends.html for indexed query
@@ -83,10 +106,22 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
     @Override
     @GraphTransaction
     public String searchByFullText(String query) throws DiscoveryException {
+        return searchByFullText(query, NO_LIMIT, 0);
+    }
+
+    @Override
+    @GraphTransaction
+    public String searchByFullText(String query, int limit, int offset) throws DiscoveryException {
         String graphQuery = String.format("v.%s:(%s)", Constants.ENTITY_TEXT_PROPERTY_KEY, query);
-        LOG.debug("Full text query: {}", graphQuery);
-        Iterator<TitanIndexQuery.Result<Vertex>> results =
-                titanGraph.indexQuery(Constants.FULLTEXT_INDEX, graphQuery).vertices().iterator();
+        LOG.debug("Full text query: {}, limit: {}, offset: {}", graphQuery, limit, offset);
+        TitanIndexQuery indexQuery = titanGraph.indexQuery(Constants.FULLTEXT_INDEX, graphQuery);
+        if (limit > 0) {
+            indexQuery = indexQuery.limit(limit);
+        }
+        if (offset > 0) {
+            indexQuery = indexQuery.offset(offset);
+        }
+        Iterator<TitanIndexQuery.Result<Vertex>> results = indexQuery.vertices().iterator();
         JSONArray response = new JSONArray();
 
         while (results.hasNext()) {
@@ -120,34 +155,135 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
     @Override
     @GraphTransaction
     public String searchByDSL(String dslQuery) throws DiscoveryException {
-        LOG.info("Executing dsl query={}", dslQuery);
-        GremlinQueryResult queryResult = evaluate(dslQuery);
+        return searchByDSL(dslQuery, NO_LIMIT, 0);
+    }
+
+    @Override
+    @GraphTransaction
+    public String searchByDSL(String dslQuery, int limit, int offset) throws DiscoveryException {
+        LOG.info("Executing dsl query={}, limit={}, offset={}", dslQuery, limit, offset);
+        GremlinQueryResult queryResult = evaluate(dslQuery, limit, offset);
         return queryResult.toJson();
     }
 
     public GremlinQueryResult evaluate(String dslQuery) throws DiscoveryException {
+        return evaluate(dslQuery, NO_LIMIT, 0);
+    }
+
+    /**
+     * Evaluates a DSL query, returning only the rows in the given page.
+     *
+     * @param dslQuery query in DSL format.
+     * @param limit    maximum number of rows to return; {@link #NO_LIMIT} returns all the rows.
+     * @param offset   number of rows to skip.
+     * @return the rows of the page
+     */
+    public GremlinQueryResult evaluate(String dslQuery, int limit, int offset) throws DiscoveryException {
         LOG.info("Executing dsl query={}", dslQuery);
         try {
-            QueryParser queryParser = new QueryParser();
-            Either<Parsers.NoSuccess, Expressions.Expression> either = queryParser.apply(dslQuery);
-            if (either.isRight()) {
-                Expressions.Expression expression = either.right().get();
-                return evaluate(expression);
-            } else {
-                throw new DiscoveryException("Invalid expression : " + dslQuery + ". " + either.left());
+            ParameterizedQuery parameterizedQuery = ParameterizedQuery.apply(dslQuery);
+            Map<String, Object> bindings = parameterizedQuery.bindings();
+
+            // each page is a separate plan, as the limit is part of the traversal
+            String page = (limit > 0 || offset > 0) ? String.format(" limit %d offset %d", limit, offset) : "";
+
+            GremlinQuery gremlinQuery = getQueryPlan(parameterizedQuery.queryStr() + page);
+            if (gremlinQuery == null && parameterizedQuery.isParameterized()) {
+                // queries whose literals could not be parameterized are cached as is
+                gremlinQuery = getQueryPlan(dslQuery + page);
+                bindings = Collections.emptyMap();
             }
+
+            if (gremlinQuery == null) {
+                Option<GremlinQuery> boundQuery = translate(parameterizedQuery, limit, offset);
+                if (boundQuery.isDefined()) {
+                    gremlinQuery = boundQuery.get();
+                    bindings = parameterizedQuery.bindings();
+                    queryPlans.put(parameterizedQuery.queryStr() + page, gremlinQuery);
+                } else {
+                    gremlinQuery = translate(page(parse(dslQuery), limit, offset));
+                    bindings = Collections.emptyMap();
+                    queryPlans.put(dslQuery + page, gremlinQuery);
+                }
+            }
+
+            return evaluate(gremlinQuery, bindings);
         } catch (Exception e) { // unable to catch ExpressionException
             throw new DiscoveryException("Invalid expression : " + dslQuery, e);
         }
     }
 
-    public GremlinQueryResult evaluate(Expressions.Expression expression) {
+    private GremlinQuery getQueryPlan(String query) {
+        GremlinQuery gremlinQuery = queryPlans.getIfPresent(query);
+        if (gremlinQuery != null && !gremlinQuery.isCurrent(TypeSystem.getInstance().getSnapshot())) {
+            LOG.debug("Types referenced by query {} have changed", query);
+            queryPlans.invalidate(query);
+            return null;
+        }
+
+        return gremlinQuery;
+    }
+
+    private Option<GremlinQuery> translate(ParameterizedQuery parameterizedQuery, int limit, int offset)
+        throws DiscoveryException {
+        try {
+            return ParameterizedQuery.bind(translate(page(parse(parameterizedQuery.queryStr()), limit, offset)),
+                    parameterizedQuery.params().size());
+        } catch (Exception e) {
+            if (!parameterizedQuery.isParameterized()) {
+                throw e;
+            }
+
+            // a parameter may be a quoted alias that is referred to elsewhere in the query
+            LOG.debug("Unable to translate parameterized query {}", parameterizedQuery.queryStr(), e);
+            return Option.empty();
+        }
+    }
+
+    private Expressions.Expression parse(String dslQuery) throws DiscoveryException {
+        QueryParser queryParser = new QueryParser();
+        Either<Parsers.NoSuccess, Expressions.Expression> either = queryParser.apply(dslQuery);
+        if (either.isRight()) {
+            return either.right().get();
+        } else {
+            throw new DiscoveryException("Invalid expression : " + dslQuery + ". " + either.left());
+        }
+    }
+
+    /**
+     * Pages the results of an expression. The results are ordered on their guids first, unless the query orders
+     * them itself, so that consecutive pages neither skip nor repeat results.
+     */
+    private Expressions.Expression page(Expressions.Expression expression, int limit, int offset) {
+        if (limit <= 0 && offset <= 0) {
+            return expression;
+        }
+
+        return expression.orderById().limit(limit > 0 ? limit : Integer.MAX_VALUE, Math.max(offset, 0));
+    }
+
+    private GremlinQuery translate(Expressions.Expression expression) {
         Expressions.Expression validatedExpression = QueryProcessor.validate(expression);
         GremlinQuery gremlinQuery = new GremlinTranslator(validatedExpression, graphPersistenceStrategy).translate();
         LOG.debug("Query = {}", validatedExpression);
         LOG.debug("Expression Tree = {}", validatedExpression.treeString());
         LOG.debug("Gremlin Query = {}", gremlinQuery.queryStr());
-        return new GremlinEvaluator(gremlinQuery, graphPersistenceStrategy, titanGraph).evaluate();
+        return gremlinQuery;
+    }
+
+    public GremlinQueryResult evaluate(Expressions.Expression expression) {
+        return evaluate(translate(expression), Collections.<String, Object>emptyMap());
+    }
+
+    private GremlinQueryResult evaluate(GremlinQuery gremlinQuery, Map<String, Object> bindings) {
+        return QueryEvaluator.apply(gremlinQuery, graphPersistenceStrategy, titanGraph, bindings).evaluate();
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the DSL query plan cache
+     */
+    public CacheStats getQueryCacheStats() {
+        return queryPlans.stats();
     }
 
     /**
@@ -163,13 +299,11 @@ public class GraphBackedDiscoveryService implements DiscoveryService {
     @GraphTransaction
     public List<Map<String, String>> searchByGremlin(String gremlinQuery) throws DiscoveryException {
         LOG.info("Executing gremlin query={}", gremlinQuery);
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = manager.getEngineByName("gremlin-groovy");
-        Bindings bindings = engine.createBindings();
+        Bindings bindings = scriptEngines.createBindings();
         bindings.put("g", titanGraph);
 
         try {
-            Object o = engine.eval(gremlinQuery, bindings);
+            Object o = scriptEngines.eval(gremlinQuery, bindings);
             return extractResult(o);
         } catch (ScriptException se) {
             throw new DiscoveryException(se);
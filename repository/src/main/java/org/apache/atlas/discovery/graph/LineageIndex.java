@@ -0,0 +1,729 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.discovery.graph;
+
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.apache.atlas.listener.EntityChangeListener;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
+import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.repository.graph.VertexIdCache;
+import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.types.ClassType;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of the lineage of data sets, answering the lineage graphs of {@link LineageTraversal} without
+ * walking the edges of the graph.
+ *
+ * Data sets and processes are numbered, and each number maps to the arrays of the numbers of its neighbours
+ * upstream, i.e. the processes that wrote a data set and the inputs of a process, and downstream, i.e. the processes
+ * that read a data set and the outputs of a process. The index is loaded when it is first used, from its snapshot
+ * file if one is configured, and completed with the processes of the graph that are not in it or changed since it
+ * was written, which is told by the version of their vertices, so the edges of the graph are only walked for the
+ * processes the snapshot misses or has stale. New processes are then added as they are created, updated processes are
+ * read again, and the snapshot is rewritten after every configured number of changes.
+ *
+ * Only the topology of the lineage is indexed; the names of the data sets in a lineage graph are read from their
+ * vertices, since they can change.
+ */
+@Singleton
+public class LineageIndex implements EntityChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LineageIndex.class);
+
+    /**
+     * Constants for the configuration properties that enable the index, set the path of its snapshot file and how
+     * many processes are added before the snapshot is rewritten.
+     */
+    public static final String ENABLED_PROPERTY = "atlas.lineage.index.enabled";
+    public static final String SNAPSHOT_PROPERTY = "atlas.lineage.index.snapshot";
+    public static final String SNAPSHOT_INTERVAL_PROPERTY = "atlas.lineage.index.snapshot.interval";
+    public static final boolean DEFAULT_ENABLED = false;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TitanGraph titanGraph;
+    private final VertexIdCache vertexIdCache;
+    private final boolean enabled;
+    private final File snapshotFile;
+    private final int snapshotInterval;
+
+    private final String processTypeName;
+    private final String inputsLabel;
+    private final String outputsLabel;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+
+    // guarded by lock
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private String[] guids = new String[INITIAL_CAPACITY];
+    // version of the vertex of each process when it was indexed
+    private int[] versions = new int[INITIAL_CAPACITY];
+    private final BitSet processes = new BitSet();
+    private final Adjacency upstream = new Adjacency();
+    private final Adjacency downstream = new Adjacency();
+    private int size;
+    private boolean loaded;
+
+    // changes since the snapshot was written, incremented under the write lock and reset under the read lock by
+    // saveSnapshot, so that the reset can't lose a change made while the snapshot is written
+    private final AtomicInteger addedSinceSnapshot = new AtomicInteger();
+
+    // processes created before the index was loaded, guarded by lock
+    private final List<ProcessEdges> pending = new ArrayList<>();
+
+    @Inject
+    public LineageIndex(GraphProvider<TitanGraph> graphProvider, GraphBackedMetadataRepository repository,
+            VertexIdCache vertexIdCache) throws AtlasException {
+        this(graphProvider.get(), repository, vertexIdCache, PropertiesUtil.getApplicationProperties());
+    }
+
+    private LineageIndex(TitanGraph titanGraph, GraphBackedMetadataRepository repository,
+            VertexIdCache vertexIdCache, PropertiesConfiguration configuration) {
+        this(titanGraph, repository, vertexIdCache, configuration.getBoolean(ENABLED_PROPERTY, DEFAULT_ENABLED),
+                configuration.getString(SNAPSHOT_PROPERTY),
+                configuration.getInt(SNAPSHOT_INTERVAL_PROPERTY, DEFAULT_SNAPSHOT_INTERVAL),
+                configuration.getString("atlas.lineage.hive.process.type.name", "Process"),
+                configuration.getString("atlas.lineage.hive.process.inputs.name", "inputs"),
+                configuration.getString("atlas.lineage.hive.process.outputs.name", "outputs"));
+    }
+
+    public LineageIndex(TitanGraph titanGraph, GraphBackedMetadataRepository repository,
+            VertexIdCache vertexIdCache, boolean enabled, String snapshotPath, int snapshotInterval,
+            String processTypeName, String inputsAttribute, String outputsAttribute) {
+        this.titanGraph = titanGraph;
+        this.vertexIdCache = vertexIdCache;
+        this.enabled = enabled;
+        this.snapshotFile = snapshotPath == null || snapshotPath.isEmpty() ? null : new File(snapshotPath);
+        this.snapshotInterval = snapshotInterval;
+        this.processTypeName = processTypeName;
+        this.inputsLabel = repository.getEdgeLabel(processTypeName, inputsAttribute);
+        this.outputsLabel = repository.getEdgeLabel(processTypeName, outputsAttribute);
+
+        if (enabled) {
+            LOG.info("Indexing the lineage of {} entities, snapshot {}", processTypeName, snapshotFile);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void onEntityAdded(String guid) throws AtlasException {
+        if (!enabled) {
+            return;
+        }
+
+        Vertex vertex = vertexIdCache.findVertexByGUID(titanGraph, guid);
+        if (vertex == null || !isProcess(vertex.<String>getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY))) {
+            return;
+        }
+
+        ProcessEdges process = new ProcessEdges(guid, getVersion(vertex), adjacentGuids(vertex, inputsLabel),
+                adjacentGuids(vertex, outputsLabel));
+
+        boolean save = false;
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                // the index may be loading from a graph that does not have the process yet
+                pending.add(process);
+                return;
+            }
+            if (addProcess(process.guid, process.version, process.inputs, process.outputs)) {
+                save = addedSinceSnapshot.incrementAndGet() >= snapshotInterval;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (save) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Reads the inputs and outputs of an indexed process again from the graph if its vertex changed. Until the index
+     * is loaded there is nothing to do, as loading checks the version of every process.
+     */
+    @Override
+    public void onEntityUpdated(String guid) throws AtlasException {
+        if (!enabled) {
+            return;
+        }
+
+        boolean save = false;
+        lock.writeLock().lock();
+        try {
+            Integer node = nodes.get(guid);
+            if (!loaded || node == null || !processes.get(node)) {
+                return;
+            }
+
+            Vertex process = vertexIdCache.findVertexByGUID(titanGraph, guid);
+            if (process != null && refreshProcess(node, process)) {
+                save = addedSinceSnapshot.incrementAndGet() >= snapshotInterval;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (save) {
+            saveSnapshot();
+        }
+    }
+
+    @Override
+    public void onTraitAdded(String guid, String traitName) throws AtlasException {
+    }
+
+    @Override
+    public void onTraitDeleted(String guid, String traitName) throws AtlasException {
+    }
+
+    /**
+     * Returns the graph of the data sets the given data sets were derived from, bounded like the graphs of
+     * {@link LineageTraversal}.
+     */
+    public Struct inputs(Iterable<Vertex> dataSets, String nameProperty, int maxDepth, int maxFanOut,
+            int maxVertices) {
+        return walk(dataSets, upstream, nameProperty, maxDepth, maxFanOut, maxVertices);
+    }
+
+    /**
+     * Returns the graph of the data sets derived from the given data sets, bounded like the graphs of
+     * {@link LineageTraversal}.
+     */
+    public Struct outputs(Iterable<Vertex> dataSets, String nameProperty, int maxDepth, int maxFanOut,
+            int maxVertices) {
+        return walk(dataSets, downstream, nameProperty, maxDepth, maxFanOut, maxVertices);
+    }
+
+    /**
+     * Writes the snapshot file, if one is configured.
+     */
+    public void saveSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+
+        synchronized (snapshotLock) {
+            lock.readLock().lock();
+            try {
+                writeSnapshot();
+                addedSinceSnapshot.set(0);
+            } catch (IOException e) {
+                LOG.error("Failed to write the lineage index snapshot {}", snapshotFile, e);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private Struct walk(Iterable<Vertex> dataSets, Adjacency adjacency, String nameProperty, int maxDepth,
+            int maxFanOut, int maxVertices) {
+        load();
+
+        Walk walk = new Walk(adjacency, maxDepth, maxFanOut, maxVertices);
+        lock.readLock().lock();
+        try {
+            walk.run(dataSets);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Object> vertices = new HashMap<>();
+        for (String guid : walk.dataSets) {
+            Vertex dataSet = vertexIdCache.findVertexByGUID(titanGraph, guid);
+            if (dataSet != null) {
+                vertices.put(guid, LineageTraversal.toVertexStruct(dataSet, nameProperty));
+            }
+        }
+        return LineageTraversal.toGraphStruct(vertices, walk.edges, walk.truncated);
+    }
+
+    /**
+     * A breadth first walk over the numbers of the data sets and processes, with the bounds and the results of the
+     * walks of {@link LineageTraversal}.
+     */
+    private final class Walk {
+        private final Adjacency adjacency;
+        private final int maxDepth;
+        private final int maxFanOut;
+        private final int maxVertices;
+
+        // data sets and processes expanded, or queued for expansion
+        private final BitSet visited = new BitSet();
+        private final BitSet inGraph = new BitSet();
+
+        private final List<String> dataSets = new ArrayList<>();
+        private final Map<String, Set<String>> edges = new HashMap<>();
+        private boolean truncated;
+        private boolean full;
+
+        private Walk(Adjacency adjacency, int maxDepth, int maxFanOut, int maxVertices) {
+            this.adjacency = adjacency;
+            this.maxDepth = maxDepth;
+            this.maxFanOut = maxFanOut;
+            this.maxVertices = maxVertices;
+        }
+
+        private void run(Iterable<Vertex> startDataSets) {
+            int[] hop = new int[16];
+            int hopSize = 0;
+            for (Vertex dataSet : startDataSets) {
+                Integer node = nodes.get(dataSet.<String>getProperty(Constants.GUID_PROPERTY_KEY));
+                if (node != null && !visited.get(node)) {
+                    visited.set(node);
+                    hop = append(hop, hopSize++, node);
+                }
+            }
+
+            int depth = 0;
+            while (hopSize > 0 && !full && (maxDepth <= 0 || depth < maxDepth)) {
+                int[] next = new int[16];
+                int nextSize = 0;
+
+                for (int i = 0; i < hopSize && !full; i++) {
+                    int dataSet = hop[i];
+                    int processCount = bound(adjacency.size(dataSet));
+                    for (int j = 0; j < processCount && !full; j++) {
+                        int process = adjacency.get(dataSet, j);
+                        if (visited.get(process)) {
+                            // the process was walked from another of its data sets
+                            if (edges.containsKey(guids[process])) {
+                                addDataSet(dataSet);
+                                addEdge(dataSet, process);
+                            }
+                            continue;
+                        }
+
+                        visited.set(process);
+                        int dataSetCount = bound(adjacency.size(process));
+                        if (dataSetCount == 0) {
+                            continue;
+                        }
+
+                        addDataSet(dataSet);
+                        addEdge(dataSet, process);
+                        for (int k = 0; k < dataSetCount; k++) {
+                            int processDataSet = adjacency.get(process, k);
+                            if (!inGraph.get(processDataSet) && dataSets.size() >= maxVertices) {
+                                truncated = true;
+                                full = true;
+                                break;
+                            }
+
+                            addDataSet(processDataSet);
+                            addEdge(process, processDataSet);
+                            if (!visited.get(processDataSet)) {
+                                visited.set(processDataSet);
+                                next = append(next, nextSize++, processDataSet);
+                            }
+                        }
+                    }
+                }
+
+                hop = next;
+                hopSize = nextSize;
+                depth++;
+            }
+        }
+
+        private int bound(int count) {
+            if (count > maxFanOut) {
+                truncated = true;
+                return maxFanOut;
+            }
+            return count;
+        }
+
+        private void addDataSet(int dataSet) {
+            if (!inGraph.get(dataSet)) {
+                inGraph.set(dataSet);
+                dataSets.add(guids[dataSet]);
+            }
+        }
+
+        private void addEdge(int from, int to) {
+            Set<String> adjacent = edges.get(guids[from]);
+            if (adjacent == null) {
+                adjacent = new LinkedHashSet<>();
+                edges.put(guids[from], adjacent);
+            }
+            adjacent.add(guids[to]);
+        }
+    }
+
+    private boolean isProcess(String typeName) throws AtlasException {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        return typeSystem.isRegistered(processTypeName)
+                && typeSystem.getDataType(ClassType.class, processTypeName).isSubType(typeName);
+    }
+
+    /**
+     * Loads the index from the snapshot and the graph, unless it is loaded.
+     */
+    private void load() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean changed;
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            boolean restored = false;
+            if (snapshotFile != null && snapshotFile.exists()) {
+                try {
+                    readSnapshot();
+                    restored = true;
+                } catch (IOException e) {
+                    LOG.warn("Failed to read the lineage index snapshot {}, rebuilding the index", snapshotFile, e);
+                    clear();
+                }
+            }
+
+            int added = addGraphProcesses();
+            for (ProcessEdges process : pending) {
+                if (addProcess(process.guid, process.version, process.inputs, process.outputs)) {
+                    added++;
+                }
+            }
+            pending.clear();
+            loaded = true;
+            changed = !restored || added > 0;
+
+            LOG.info("Loaded the lineage index of {} data sets and processes in {} ms, {} processes added or read "
+                    + "again from the graph", size, System.currentTimeMillis() - start, added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (changed) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Adds the processes of the graph that are not indexed, and reads the indexed ones that changed again.
+     */
+    private int addGraphProcesses() {
+        int added = 0;
+        for (String key : Arrays.asList(Constants.ENTITY_TYPE_PROPERTY_KEY, Constants.SUPER_TYPES_PROPERTY_KEY)) {
+            for (Vertex process : titanGraph.query().has(key, processTypeName).vertices()) {
+                Integer node = nodes.get(process.<String>getProperty(Constants.GUID_PROPERTY_KEY));
+                if (node != null && processes.get(node)) {
+                    if (refreshProcess(node, process)) {
+                        added++;
+                    }
+                    continue;
+                }
+
+                addProcess(process.<String>getProperty(Constants.GUID_PROPERTY_KEY), getVersion(process),
+                        adjacentGuids(process, inputsLabel), adjacentGuids(process, outputsLabel));
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Replaces the inputs and outputs of the given indexed process with the ones of its vertex, unless the vertex
+     * is at the indexed version.
+     */
+    private boolean refreshProcess(int node, Vertex process) {
+        int version = getVersion(process);
+        if (version == versions[node]) {
+            return false;
+        }
+
+        removeEdges(node, upstream, downstream);
+        removeEdges(node, downstream, upstream);
+        versions[node] = version;
+        for (String input : adjacentGuids(process, inputsLabel)) {
+            int dataSet = node(input);
+            upstream.add(node, dataSet);
+            downstream.add(dataSet, node);
+        }
+        for (String output : adjacentGuids(process, outputsLabel)) {
+            int dataSet = node(output);
+            downstream.add(node, dataSet);
+            upstream.add(dataSet, node);
+        }
+        return true;
+    }
+
+    private void removeEdges(int process, Adjacency adjacency, Adjacency reverse) {
+        for (int i = 0; i < adjacency.size(process); i++) {
+            reverse.remove(adjacency.get(process, i), process);
+        }
+        adjacency.clear(process);
+    }
+
+    private static int getVersion(Vertex vertex) {
+        Integer version = vertex.getProperty(Constants.VERSION_PROPERTY_KEY);
+        return version == null ? 0 : version;
+    }
+
+    private List<String> adjacentGuids(Vertex process, String label) {
+        List<String> adjacent = new ArrayList<>();
+        for (Vertex dataSet : process.getVertices(Direction.OUT, label)) {
+            adjacent.add(dataSet.<String>getProperty(Constants.GUID_PROPERTY_KEY));
+        }
+        return adjacent;
+    }
+
+    private boolean addProcess(String guid, int version, List<String> inputs, List<String> outputs) {
+        int process = node(guid);
+        if (processes.get(process)) {
+            return false;
+        }
+
+        processes.set(process);
+        versions[process] = version;
+        for (String input : inputs) {
+            int dataSet = node(input);
+            upstream.add(process, dataSet);
+            downstream.add(dataSet, process);
+        }
+        for (String output : outputs) {
+            int dataSet = node(output);
+            downstream.add(process, dataSet);
+            upstream.add(dataSet, process);
+        }
+        return true;
+    }
+
+    private int node(String guid) {
+        Integer node = nodes.get(guid);
+        if (node == null) {
+            node = size++;
+            if (node == guids.length) {
+                guids = Arrays.copyOf(guids, guids.length * 2);
+                versions = Arrays.copyOf(versions, versions.length * 2);
+            }
+            guids[node] = guid;
+            nodes.put(guid, node);
+        }
+        return node;
+    }
+
+    private void clear() {
+        nodes.clear();
+        guids = new String[INITIAL_CAPACITY];
+        versions = new int[INITIAL_CAPACITY];
+        processes.clear();
+        upstream.clear();
+        downstream.clear();
+        size = 0;
+    }
+
+    private void writeSnapshot() throws IOException {
+        File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create the directory " + parent);
+        }
+
+        File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(size);
+            for (int node = 0; node < size; node++) {
+                out.writeUTF(guids[node]);
+                out.writeBoolean(processes.get(node));
+                if (processes.get(node)) {
+                    out.writeInt(versions[node]);
+                }
+            }
+            upstream.write(out, size);
+            downstream.write(out, size);
+        }
+
+        if (!tmpFile.renameTo(snapshotFile) && !(snapshotFile.delete() && tmpFile.renameTo(snapshotFile))) {
+            throw new IOException("Failed to rename " + tmpFile + " to " + snapshotFile);
+        }
+        LOG.debug("Wrote the lineage index snapshot {} of {} data sets and processes", snapshotFile, size);
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported lineage index snapshot version " + version);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int node = node(in.readUTF());
+                if (in.readBoolean()) {
+                    processes.set(node);
+                    versions[node] = in.readInt();
+                }
+            }
+            upstream.read(in, count);
+            downstream.read(in, count);
+        }
+    }
+
+    /**
+     * The numbers of the neighbours of each data set and process in one direction.
+     */
+    private static final class Adjacency {
+        private int[][] rows = new int[INITIAL_CAPACITY][];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+
+        private int size(int node) {
+            return node < sizes.length ? sizes[node] : 0;
+        }
+
+        private int get(int node, int index) {
+            return rows[node][index];
+        }
+
+        private void add(int node, int adjacent) {
+            if (node >= rows.length) {
+                int capacity = Math.max(rows.length * 2, node + 1);
+                rows = Arrays.copyOf(rows, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+
+            int[] row = rows[node];
+            int rowSize = sizes[node];
+            if (row == null) {
+                row = new int[4];
+            } else if (rowSize == row.length) {
+                row = Arrays.copyOf(row, rowSize * 2);
+            }
+            row[rowSize] = adjacent;
+            rows[node] = row;
+            sizes[node] = rowSize + 1;
+        }
+
+        private void remove(int node, int adjacent) {
+            int rowSize = size(node);
+            for (int i = 0; i < rowSize; i++) {
+                if (rows[node][i] == adjacent) {
+                    System.arraycopy(rows[node], i + 1, rows[node], i, rowSize - i - 1);
+                    sizes[node] = rowSize - 1;
+                    return;
+                }
+            }
+        }
+
+        private void clear(int node) {
+            if (node < sizes.length) {
+                rows[node] = null;
+                sizes[node] = 0;
+            }
+        }
+
+        private void clear() {
+            rows = new int[INITIAL_CAPACITY][];
+            sizes = new int[INITIAL_CAPACITY];
+        }
+
+        private void write(DataOutputStream out, int count) throws IOException {
+            for (int node = 0; node < count; node++) {
+                int rowSize = size(node);
+                out.writeInt(rowSize);
+                for (int i = 0; i < rowSize; i++) {
+                    out.writeInt(rows[node][i]);
+                }
+            }
+        }
+
+        private void read(DataInputStream in, int count) throws IOException {
+            for (int node = 0; node < count; node++) {
+                int rowSize = in.readInt();
+                for (int i = 0; i < rowSize; i++) {
+                    add(node, in.readInt());
+                }
+            }
+        }
+    }
+
+    /**
+     * The guid and version of a process, and the guids of its inputs and outputs.
+     */
+    private static final class ProcessEdges {
+        private final String guid;
+        private final int version;
+        private final List<String> inputs;
+        private final List<String> outputs;
+
+        private ProcessEdges(String guid, int version, List<String> inputs, List<String> outputs) {
+            this.guid = guid;
+            this.version = version;
+            this.inputs = inputs;
+            this.outputs = outputs;
+        }
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+}
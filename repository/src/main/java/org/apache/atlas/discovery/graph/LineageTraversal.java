@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.discovery.graph;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.typesystem.Struct;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the lineage graph of data sets by walking the edges between data sets and the processes that read and
+ * write them breadth first, hop by hop, directly on the graph. The lineage of a data set is walked backwards, to the
+ * inputs of the processes that wrote it, or forwards, to the outputs of the processes that read it.
+ *
+ * The walk is bounded:
+ * - it stops after the given number of hops between data sets, if any.
+ * - each data set and process is expanded once, so cycles in the lineage end the walk instead of repeating it.
+ * - at most the given number of processes of a data set, and data sets of a process, are followed.
+ * - it ends early once the graph holds the given number of data sets.
+ * The graph is flagged as truncated when one of the last two bounds dropped part of the lineage.
+ *
+ * The graph is returned in the form of the graph of the closure queries, see TypeUtils.GraphResultStruct: a map of
+ * the data sets by guid, with their id and name, and a map of the guids of the data sets and processes to the guids
+ * of the processes and data sets they lead to.
+ */
+public class LineageTraversal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LineageTraversal.class);
+
+    public static final String GRAPH_TYPE_NAME = "__lineageGraph";
+    public static final String VERTEX_TYPE_NAME = "__lineageVertex";
+
+    public static final String VERTICES_ATTRIBUTE = "vertices";
+    public static final String EDGES_ATTRIBUTE = "edges";
+    public static final String TRUNCATED_ATTRIBUTE = "truncated";
+    public static final String VERTEX_ID_ATTRIBUTE = "vertexId";
+    public static final String NAME_ATTRIBUTE = "name";
+
+    private static final String ID_TYPE_NAME = "__IdType";
+    private static final String ID_TYPE_NAME_ATTRIBUTE = "typeName";
+
+    private final int maxDepth;
+    private final int maxFanOut;
+    private final int maxVertices;
+
+    /**
+     * @param maxDepth    maximum number of hops between data sets, or 0 to walk the whole lineage
+     * @param maxFanOut   maximum number of processes followed from a data set, and of data sets from a process
+     * @param maxVertices maximum number of data sets in the graph
+     */
+    public LineageTraversal(int maxDepth, int maxFanOut, int maxVertices) {
+        this.maxDepth = maxDepth;
+        this.maxFanOut = maxFanOut;
+        this.maxVertices = maxVertices;
+    }
+
+    /**
+     * Returns the graph of the data sets the given data sets were derived from.
+     *
+     * @param dataSets     vertices of the data sets whose lineage is computed
+     * @param inputsLabel  label of the edges from a process to its inputs
+     * @param outputsLabel label of the edges from a process to its outputs
+     * @param nameProperty key of the property holding the names of the data sets
+     */
+    public Struct inputs(Iterable<Vertex> dataSets, String inputsLabel, String outputsLabel, String nameProperty) {
+        return new Walk(outputsLabel, inputsLabel, nameProperty).run(dataSets);
+    }
+
+    /**
+     * Returns the graph of the data sets derived from the given data sets.
+     *
+     * @param dataSets     vertices of the data sets whose lineage is computed
+     * @param inputsLabel  label of the edges from a process to its inputs
+     * @param outputsLabel label of the edges from a process to its outputs
+     * @param nameProperty key of the property holding the names of the data sets
+     */
+    public Struct outputs(Iterable<Vertex> dataSets, String inputsLabel, String outputsLabel, String nameProperty) {
+        return new Walk(inputsLabel, outputsLabel, nameProperty).run(dataSets);
+    }
+
+    /**
+     * A walk from data sets to the processes with edges of the first label to them, and from these processes to the
+     * data sets at the end of their edges of the second label.
+     */
+    private final class Walk {
+        private final String toProcessLabel;
+        private final String fromProcessLabel;
+        private final String nameProperty;
+
+        // ids of the data sets and processes already expanded, or queued for expansion
+        private final Set<Object> visited = new HashSet<>();
+
+        private final Map<String, Object> vertices = new HashMap<>();
+        private final Map<String, Set<String>> edges = new HashMap<>();
+        private boolean truncated;
+        private boolean full;
+
+        private Walk(String toProcessLabel, String fromProcessLabel, String nameProperty) {
+            this.toProcessLabel = toProcessLabel;
+            this.fromProcessLabel = fromProcessLabel;
+            this.nameProperty = nameProperty;
+        }
+
+        private Struct run(Iterable<Vertex> dataSets) {
+            List<Vertex> hop = new ArrayList<>();
+            for (Vertex dataSet : dataSets) {
+                if (visited.add(dataSet.getId())) {
+                    hop.add(dataSet);
+                }
+            }
+
+            int depth = 0;
+            while (!hop.isEmpty() && !full && (maxDepth <= 0 || depth < maxDepth)) {
+                hop = expand(hop);
+                depth++;
+            }
+
+            if (truncated) {
+                LOG.info("Lineage truncated to {} data sets after {} hops", vertices.size(), depth);
+            }
+            return toStruct();
+        }
+
+        /**
+         * Follows the given data sets to the data sets one hop away, and returns the ones not walked yet.
+         */
+        private List<Vertex> expand(List<Vertex> hop) {
+            List<Vertex> next = new ArrayList<>();
+            for (Vertex dataSet : hop) {
+                for (Vertex process : adjacent(dataSet, Direction.IN, toProcessLabel)) {
+                    if (!visited.add(process.getId())) {
+                        // the process was walked from another of its data sets, and its data sets are in the graph
+                        if (edges.containsKey(guid(process))) {
+                            addVertex(dataSet);
+                            addEdge(dataSet, process);
+                        }
+                        continue;
+                    }
+
+                    List<Vertex> processDataSets = adjacent(process, Direction.OUT, fromProcessLabel);
+                    if (processDataSets.isEmpty()) {
+                        continue;
+                    }
+
+                    addVertex(dataSet);
+                    addEdge(dataSet, process);
+                    for (Vertex processDataSet : processDataSets) {
+                        if (!vertices.containsKey(guid(processDataSet)) && vertices.size() >= maxVertices) {
+                            truncated = true;
+                            full = true;
+                            return next;
+                        }
+
+                        addVertex(processDataSet);
+                        addEdge(process, processDataSet);
+                        if (visited.add(processDataSet.getId())) {
+                            next.add(processDataSet);
+                        }
+                    }
+                }
+            }
+            return next;
+        }
+
+        private List<Vertex> adjacent(Vertex vertex, Direction direction, String label) {
+            List<Vertex> adjacent = new ArrayList<>();
+            Iterator<Vertex> iterator = vertex.getVertices(direction, label).iterator();
+            while (iterator.hasNext()) {
+                if (adjacent.size() == maxFanOut) {
+                    truncated = true;
+                    break;
+                }
+                adjacent.add(iterator.next());
+            }
+            return adjacent;
+        }
+
+        private void addVertex(Vertex dataSet) {
+            String guid = guid(dataSet);
+            if (vertices.containsKey(guid)) {
+                return;
+            }
+
+            vertices.put(guid, toVertexStruct(dataSet, nameProperty));
+        }
+
+        private void addEdge(Vertex from, Vertex to) {
+            String fromGuid = guid(from);
+            Set<String> adjacent = edges.get(fromGuid);
+            if (adjacent == null) {
+                adjacent = new LinkedHashSet<>();
+                edges.put(fromGuid, adjacent);
+            }
+            adjacent.add(guid(to));
+        }
+
+        private Struct toStruct() {
+            return toGraphStruct(vertices, edges, truncated);
+        }
+    }
+
+    private static String guid(Vertex vertex) {
+        return vertex.getProperty(Constants.GUID_PROPERTY_KEY);
+    }
+
+    /**
+     * Returns the entry of the vertex map of a lineage graph for the given data set.
+     */
+    static Struct toVertexStruct(Vertex dataSet, String nameProperty) {
+        Map<String, Object> id = new HashMap<>();
+        id.put(TypeSystem.ID_STRUCT_ID_ATTRNAME, guid(dataSet));
+        id.put(ID_TYPE_NAME_ATTRIBUTE, dataSet.getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY));
+
+        Struct vertex = new Struct(VERTEX_TYPE_NAME);
+        vertex.set(VERTEX_ID_ATTRIBUTE, new Struct(ID_TYPE_NAME, id));
+        vertex.set(NAME_ATTRIBUTE, dataSet.getProperty(nameProperty));
+        return vertex;
+    }
+
+    /**
+     * Returns the lineage graph with the given vertex map and edges.
+     */
+    static Struct toGraphStruct(Map<String, Object> vertices, Map<String, ? extends Collection<String>> edges,
+            boolean truncated) {
+        Map<String, Object> edgeLists = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : edges.entrySet()) {
+            edgeLists.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+
+        Struct graph = new Struct(GRAPH_TYPE_NAME);
+        graph.set(VERTICES_ATTRIBUTE, vertices);
+        graph.set(EDGES_ATTRIBUTE, edgeLists);
+        if (truncated) {
+            graph.set(TRUNCATED_ATTRIBUTE, true);
+        }
+        return graph;
+    }
+}
@@ -19,7 +19,6 @@
 package org.apache.atlas.listener;
 
 import org.apache.atlas.AtlasException;
-import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 
 /**
  * Entity (a Typed instance) change notification listener.
@@ -27,12 +26,21 @@ import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 public interface EntityChangeListener {
 
     /**
-     * This is upon adding a new typed instance to the repository.
+     * This is upon adding a new entity to the repository. Listeners that need the entity read it themselves, so
+     * that it is only loaded when some listener uses it.
      *
-     * @param typedInstance a typed instance
+     * @param guid          globally unique identifier for the entity
+     * @throws AtlasException
+     */
+    void onEntityAdded(String guid) throws AtlasException;
+
+    /**
+     * This is upon updating the attributes of an entity in the repository.
+     *
+     * @param guid          globally unique identifier for the entity
      * @throws AtlasException
      */
-    void onEntityAdded(ITypedReferenceableInstance typedInstance) throws AtlasException;
+    void onEntityUpdated(String guid) throws AtlasException;
 
     /**
      * This is upon adding a new trait to a typed instance.
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository;
+
+import org.apache.atlas.typesystem.Referenceable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An event of a batch ingested by {@link MetadataRepository#ingest}, such as the ones sent by the hooks.
+ *
+ * A create event registers its entities, unless they are already registered. An update event sets attributes
+ * of a registered entity, such as the name of a renamed table. Entities are identified by the values of the
+ * identifying attributes of their types, e.g. the qualified name of a table, rather than by their guid.
+ */
+public final class IngestEvent {
+
+    public enum Type {
+        CREATE, UPDATE
+    }
+
+    public final Type type;
+
+    /**
+     * The entities to register, for create events.
+     */
+    public final List<Referenceable> entities;
+
+    /**
+     * The type and the identifying attribute values of the entity to update, and the values to set, for update
+     * events.
+     */
+    public final String typeName;
+    public final Map<String, Object> identity;
+    public final Map<String, String> attributes;
+
+    private IngestEvent(Type type, List<Referenceable> entities, String typeName, Map<String, Object> identity,
+            Map<String, String> attributes) {
+        this.type = type;
+        this.entities = entities;
+        this.typeName = typeName;
+        this.identity = identity;
+        this.attributes = attributes;
+    }
+
+    public static IngestEvent create(List<Referenceable> entities) {
+        return new IngestEvent(Type.CREATE, entities, null, null, null);
+    }
+
+    public static IngestEvent update(String typeName, Map<String, Object> identity, Map<String, String> attributes) {
+        return new IngestEvent(Type.UPDATE, Collections.<Referenceable>emptyList(), typeName, identity, attributes);
+    }
+
+    /**
+     * The outcome of an event.
+     */
+    public static final class Result {
+
+        /**
+         * Guids of the entities of the event, in order, whether they were created or already registered.
+         */
+        public final List<String> guids;
+
+        /**
+         * Guids of the entities created by the event, including the referenced entities it registered.
+         */
+        public final List<String> createdGuids;
+
+        /**
+         * Why the event was rejected, or null if it was applied.
+         */
+        public final String error;
+
+        private Result(List<String> guids, List<String> createdGuids, String error) {
+            this.guids = guids;
+            this.createdGuids = createdGuids;
+            this.error = error;
+        }
+
+        public static Result applied(List<String> guids, List<String> createdGuids) {
+            return new Result(guids, createdGuids, null);
+        }
+
+        public static Result rejected(String error) {
+            return new Result(Collections.<String>emptyList(), Collections.<String>emptyList(), error);
+        }
+
+        public boolean isApplied() {
+            return error == null;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.atlas.typesystem.types.AttributeInfo;
 import org.apache.atlas.typesystem.types.IDataType;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * An interface for persisting metadata into a blueprints enabled graph db.
@@ -82,6 +83,32 @@ public interface MetadataRepository {
      */
     String createEntity(IReferenceableInstance entity) throws RepositoryException;
 
+    /**
+     * Creates the given entity definitions (instances) in a single transaction.
+     *
+     * @param entities   entities (typed instances)
+     * @return globally unique identifiers, in the same order as the given entities
+     * @throws RepositoryException
+     */
+    String[] createEntities(IReferenceableInstance... entities) throws RepositoryException;
+
+    /**
+     * Applies a batch of events in a single transaction. The entities of the batch are resolved by the values of
+     * the identifying attributes of their types, to the entities already registered or to the ones registered
+     * by an earlier event of the batch, and only the ones not found are created.
+     *
+     * An event that is invalid, e.g. for an unknown type or an entity that isn't registered, is rejected without
+     * failing the batch.
+     *
+     * @param identifiers names of the attributes identifying the entities of each type; the entities of the
+     *                    other types are always created
+     * @param events      events, applied in order
+     * @return results of the events, in the same order
+     * @throws RepositoryException if the batch couldn't be applied, in which case none of it is
+     */
+    List<IngestEvent.Result> ingest(Map<String, List<String>> identifiers, List<IngestEvent> events)
+            throws RepositoryException;
+
     /**
      * Fetch the complete definition of an entity given its GUID.
      *
@@ -91,6 +118,43 @@ public interface MetadataRepository {
      */
     ITypedReferenceableInstance getEntityDefinition(String guid) throws RepositoryException;
 
+    /**
+     * Fetch the complete definition of the entity of a given type, or of one of its subtypes, with the given
+     * value of a unique attribute of the type. The entity is looked up in the unique index of the attribute.
+     *
+     * @param entityType name of the type
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
+     * @return entity (typed instance) definition
+     * @throws EntityNotFoundException if there is no such entity
+     */
+    ITypedReferenceableInstance getEntityByUniqueAttribute(String entityType, String attribute, Object value)
+            throws RepositoryException;
+
+    /**
+     * Gets the guid of the entity of the given type, or of one of its subtypes, with the given value of a unique
+     * attribute of the type, without reading the rest of the entity.
+     *
+     * @param entityType name of the type
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
+     * @return guid of the entity
+     * @throws EntityNotFoundException if there is no such entity
+     */
+    String getGuidByUniqueAttribute(String entityType, String attribute, Object value) throws RepositoryException;
+
+    /**
+     * Creates the given entity, unless an entity with the same value of one of the unique attributes of its type
+     * is registered. The primitive and enum attributes set in the given entity are then updated on the registered
+     * entity instead. Updating the references, collections or structs of a registered entity isn't supported.
+     *
+     * @param entity entity (typed instance)
+     * @return the guid of the entity, also listed among the created guids if the entity was created
+     * @throws RepositoryException if the entity is registered, and references, collections or structs are set in
+     *                             the given entity
+     */
+    IngestEvent.Result upsertEntity(ITypedReferenceableInstance entity) throws RepositoryException;
+
     /**
      * Gets the list of entities for a given entity type.
      *
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.apache.atlas.listener.EntityChangeListener;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the full text of entities, searched by the full text search, in sync with their attributes and traits
+ * and, when asynchronous indexing is enabled, writes the full text of new entities outside of the transaction
+ * that creates them.
+ *
+ * In asynchronous mode the guids of changed entities are queued, and a background thread recomputes their
+ * full text in batches of up to the configured size. A batch is written once it is full or once its oldest
+ * entity has waited for the configured lag, so search results trail the changes by at most about that lag.
+ * Otherwise the full text of new entities is written when they are created and updates and trait changes are
+ * indexed right away.
+ */
+@Singleton
+public class FullTextIndexer implements EntityChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FullTextIndexer.class);
+
+    /**
+     * Constants for the configuration properties that enable asynchronous indexing, set the maximum number of
+     * entities indexed in one transaction and how long a changed entity may wait to be indexed.
+     */
+    public static final String ASYNC_PROPERTY = "atlas.repository.fulltext.async";
+    public static final String BATCH_SIZE_PROPERTY = "atlas.repository.fulltext.batch.size";
+    public static final String MAX_LAG_PROPERTY = "atlas.repository.fulltext.max.lag.ms";
+    public static final boolean DEFAULT_ASYNC = false;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_LAG_MS = 1000;
+
+    private final GraphBackedMetadataRepository repository;
+    private final boolean async;
+    private final int batchSize;
+    private final long maxLagMs;
+
+    // guids waiting to be indexed -> time they first changed, oldest first; guarded by this
+    private final Map<String, Long> dirtyGuids = new LinkedHashMap<>();
+    private int inProgress;
+    private Thread worker;
+
+    @Inject
+    public FullTextIndexer(GraphBackedMetadataRepository repository) throws AtlasException {
+        this(repository, PropertiesUtil.getApplicationProperties());
+    }
+
+    private FullTextIndexer(GraphBackedMetadataRepository repository, PropertiesConfiguration configuration) {
+        this(repository, configuration.getBoolean(ASYNC_PROPERTY, DEFAULT_ASYNC),
+                configuration.getInt(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                configuration.getLong(MAX_LAG_PROPERTY, DEFAULT_MAX_LAG_MS));
+    }
+
+    public FullTextIndexer(GraphBackedMetadataRepository repository, boolean async, int batchSize, long maxLagMs) {
+        this.repository = repository;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.maxLagMs = maxLagMs;
+
+        if (async) {
+            LOG.info("Indexing full text asynchronously in batches of {} within {} ms", batchSize, maxLagMs);
+        }
+    }
+
+    @Override
+    public void onEntityAdded(String guid) throws AtlasException {
+        // the full text of new entities is otherwise written by the repository
+        if (async) {
+            markDirty(guid);
+        }
+    }
+
+    @Override
+    public void onEntityUpdated(String guid) throws AtlasException {
+        onEntityChanged(guid);
+    }
+
+    @Override
+    public void onTraitAdded(String guid, String traitName) throws AtlasException {
+        onEntityChanged(guid);
+    }
+
+    @Override
+    public void onTraitDeleted(String guid, String traitName) throws AtlasException {
+        onEntityChanged(guid);
+    }
+
+    private void onEntityChanged(String guid) throws AtlasException {
+        if (async) {
+            markDirty(guid);
+        } else {
+            repository.updateFullText(Collections.singletonList(guid));
+        }
+    }
+
+    /**
+     * Returns the number of entities waiting to be indexed.
+     */
+    public synchronized int getQueueDepth() {
+        return dirtyGuids.size();
+    }
+
+    /**
+     * Returns how long the oldest entity waiting to be indexed has been waiting, in milliseconds.
+     */
+    public synchronized long getLagMs() {
+        return dirtyGuids.isEmpty() ? 0 : System.currentTimeMillis() - oldestDirtyTime();
+    }
+
+    /**
+     * Waits until every entity queued so far has been indexed.
+     */
+    public synchronized void flush() throws InterruptedException {
+        while (!dirtyGuids.isEmpty() || inProgress > 0) {
+            wait(maxLagMs);
+        }
+    }
+
+    private synchronized void markDirty(String guid) {
+        if (!dirtyGuids.containsKey(guid)) {
+            dirtyGuids.put(guid, System.currentTimeMillis());
+        }
+
+        if (worker == null) {
+            worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    indexDirtyEntities();
+                }
+            }, "atlas-fulltext-indexer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        notifyAll();
+    }
+
+    private void indexDirtyEntities() {
+        while (true) {
+            List<String> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                LOG.info("Full text indexer interrupted, {} entities were not indexed", getQueueDepth());
+                return;
+            }
+
+            try {
+                repository.updateFullText(batch);
+                LOG.debug("Indexed the full text of {} entities, {} waiting", batch.size(), getQueueDepth());
+            } catch (Exception e) {
+                LOG.error("Failed to index the full text of entities {}", batch, e);
+            } finally {
+                synchronized (this) {
+                    inProgress = 0;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for a batch to be full or for its oldest entity to reach the maximum lag, and takes it off the queue.
+     */
+    private synchronized List<String> nextBatch() throws InterruptedException {
+        while (true) {
+            if (!dirtyGuids.isEmpty()) {
+                long waitMs = oldestDirtyTime() + maxLagMs - System.currentTimeMillis();
+                if (dirtyGuids.size() >= batchSize || waitMs <= 0) {
+                    break;
+                }
+                wait(waitMs);
+            } else {
+                wait();
+            }
+        }
+
+        List<String> batch = new ArrayList<>(Math.min(batchSize, dirtyGuids.size()));
+        Iterator<String> iterator = dirtyGuids.keySet().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            batch.add(iterator.next());
+            iterator.remove();
+        }
+        inProgress = batch.size();
+        return batch;
+    }
+
+    private long oldestDirtyTime() {
+        return dirtyGuids.values().iterator().next();
+    }
+}
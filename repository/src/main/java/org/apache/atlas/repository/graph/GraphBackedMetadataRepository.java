@@ -28,14 +28,18 @@ import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.GraphTransaction;
+import org.apache.atlas.PropertiesUtil;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.EntityNotFoundException;
+import org.apache.atlas.repository.IngestEvent;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.typesystem.IReferenceableInstance;
 import org.apache.atlas.typesystem.ITypedInstance;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
 import org.apache.atlas.typesystem.ITypedStruct;
+import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.Struct;
 import org.apache.atlas.typesystem.persistence.Id;
 import org.apache.atlas.typesystem.persistence.MapIds;
 import org.apache.atlas.typesystem.types.AttributeInfo;
@@ -43,6 +47,7 @@ import org.apache.atlas.typesystem.types.ClassType;
 import org.apache.atlas.typesystem.types.DataTypes;
 import org.apache.atlas.typesystem.types.EnumValue;
 import org.apache.atlas.typesystem.types.HierarchicalType;
+import org.apache.atlas.typesystem.types.IConstructableType;
 import org.apache.atlas.typesystem.types.IDataType;
 import org.apache.atlas.typesystem.types.Multiplicity;
 import org.apache.atlas.typesystem.types.ObjectGraphWalker;
@@ -57,13 +62,19 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -85,12 +96,22 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
 
     private final TypeSystem typeSystem;
     private final TitanGraph titanGraph;
+    private final VertexIdCache vertexIdCache;
+    private final TypedInstanceCache typedInstanceCache;
+
+    // when set, the full text of new entities is written by the FullTextIndexer instead of on creation
+    private final boolean fullTextAsync;
 
     @Inject
-    public GraphBackedMetadataRepository(GraphProvider<TitanGraph> graphProvider) throws AtlasException {
+    public GraphBackedMetadataRepository(GraphProvider<TitanGraph> graphProvider, VertexIdCache vertexIdCache,
+            TypedInstanceCache typedInstanceCache) throws AtlasException {
         this.typeSystem = TypeSystem.getInstance();
 
         this.titanGraph = graphProvider.get();
+        this.vertexIdCache = vertexIdCache;
+        this.typedInstanceCache = typedInstanceCache;
+        this.fullTextAsync = PropertiesUtil.getApplicationProperties()
+                .getBoolean(FullTextIndexer.ASYNC_PROPERTY, FullTextIndexer.DEFAULT_ASYNC);
     }
 
     public GraphToTypedInstanceMapper getGraphToInstanceMapper() {
@@ -151,24 +172,227 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
         }
     }
 
+    @Override
+    @GraphTransaction
+    public String[] createEntities(IReferenceableInstance... entities) throws RepositoryException {
+        LOG.info("adding {} entities", entities.length);
+        try {
+            return instanceToGraphMapper.mapTypedInstancesToGraph(entities);
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    @Override
+    @GraphTransaction
+    public List<IngestEvent.Result> ingest(Map<String, List<String>> identifiers, List<IngestEvent> events)
+            throws RepositoryException {
+        LOG.info("Ingesting {} events", events.size());
+        BatchIngester ingester = new BatchIngester(identifiers);
+        List<IngestEvent.Result> results = new ArrayList<>(events.size());
+        try {
+            for (IngestEvent event : events) {
+                results.add(ingester.apply(event));
+            }
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+        return results;
+    }
+
     @Override
     @GraphTransaction
     public ITypedReferenceableInstance getEntityDefinition(String guid) throws RepositoryException {
         LOG.info("Retrieving entity with guid={}", guid);
 
+        // taken before the read, so that an entity changed concurrently isn't cached as read
+        long stamp = typedInstanceCache.getStamp();
         Vertex instanceVertex = getVertexForGUID(guid);
 
         try {
             LOG.debug("Found a vertex {} for guid {}", instanceVertex, guid);
-            return graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
+            ITypedReferenceableInstance typedInstance =
+                    typedInstanceCache.get(guid, instanceVertex.<Integer>getProperty(Constants.VERSION_PROPERTY_KEY));
+            if (typedInstance == null) {
+                typedInstance = graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
+                typedInstanceCache.put(typedInstance, stamp);
+            }
+
+            return typedInstance;
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    @Override
+    @GraphTransaction
+    public ITypedReferenceableInstance getEntityByUniqueAttribute(String entityType, String attribute, Object value)
+            throws RepositoryException {
+        LOG.info("Retrieving entity of type={} with {}={}", entityType, attribute, value);
+        return getEntityDefinition(getGuidByUniqueAttribute(entityType, attribute, value));
+    }
+
+    @Override
+    @GraphTransaction
+    public String getGuidByUniqueAttribute(String entityType, String attribute, Object value)
+            throws RepositoryException {
+        LOG.debug("Retrieving guid of the entity of type={} with {}={}", entityType, attribute, value);
+
+        try {
+            ClassType type = typeSystem.getDataType(ClassType.class, entityType);
+            Vertex instanceVertex = findVertexByUniqueAttribute(type, getUniqueAttribute(type, attribute), value);
+            if (instanceVertex == null) {
+                throw new EntityNotFoundException(
+                        "Could not find an entity in the repository for " + entityType + " " + attribute + "="
+                                + value);
+            }
+            return instanceVertex.getProperty(Constants.GUID_PROPERTY_KEY);
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    @Override
+    @GraphTransaction
+    public IngestEvent.Result upsertEntity(ITypedReferenceableInstance entity) throws RepositoryException {
+        LOG.info("Upserting entity={}", entity);
+
+        try {
+            ClassType type = typeSystem.getDataType(ClassType.class, entity.getTypeName());
+            Vertex instanceVertex = null;
+            for (AttributeInfo attributeInfo : type.fieldMapping().fields.values()) {
+                Object value = entity.get(attributeInfo.name);
+                if (attributeInfo.isUnique && value != null) {
+                    instanceVertex = findVertexByUniqueAttribute(type, getUniqueAttribute(type, attributeInfo.name),
+                            value);
+                    if (instanceVertex != null) {
+                        break;
+                    }
+                }
+            }
+
+            if (instanceVertex == null) {
+                List<String> guids = Arrays.asList(instanceToGraphMapper.mapTypedInstancesToGraph(entity));
+                return IngestEvent.Result.applied(guids, guids);
+            }
+
+            // only primitive and enum attributes can be updated in place, the others are rejected before writing
+            List<AttributeInfo> updatedAttributes = new ArrayList<>();
+            List<String> unsupportedAttributes = new ArrayList<>();
+            for (AttributeInfo attributeInfo : type.fieldMapping().fields.values()) {
+                if (entity.get(attributeInfo.name) == null) {
+                    continue;
+                }
+
+                DataTypes.TypeCategory category = attributeInfo.dataType().getTypeCategory();
+                if (category == DataTypes.TypeCategory.PRIMITIVE || category == DataTypes.TypeCategory.ENUM) {
+                    updatedAttributes.add(attributeInfo);
+                } else {
+                    unsupportedAttributes.add(attributeInfo.name);
+                }
+            }
+            if (!unsupportedAttributes.isEmpty()) {
+                throw new RepositoryException("Update of the registered " + type.getName() + " with attributes "
+                        + unsupportedAttributes + " is not supported, only primitive and enum attributes can be "
+                        + "updated");
+            }
+
+            String guid = instanceVertex.getProperty(Constants.GUID_PROPERTY_KEY);
+            LOG.debug("Updating the registered entity {} of type {}", guid, getTypeName(instanceVertex));
+            Id id = getIdFromVertex(getTypeName(instanceVertex), instanceVertex);
+            for (AttributeInfo attributeInfo : updatedAttributes) {
+                instanceToGraphMapper.mapAttributesToVertex(id, entity, instanceVertex, new HashMap<Id, Vertex>(),
+                        attributeInfo, attributeInfo.dataType());
+            }
+            onEntityChanged(guid, instanceVertex);
+            return IngestEvent.Result.applied(Collections.singletonList(guid), Collections.<String>emptyList());
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (AtlasException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    private AttributeInfo getUniqueAttribute(ClassType type, String attribute) {
+        AttributeInfo attributeInfo = type.fieldMapping().fields.get(attribute);
+        if (attributeInfo == null || !attributeInfo.isUnique
+                || attributeInfo.dataType().getTypeCategory() != DataTypes.TypeCategory.PRIMITIVE) {
+            throw new IllegalArgumentException(attribute + " is not a unique attribute of " + type.getName());
+        }
+        return attributeInfo;
+    }
+
+    /**
+     * Returns the vertex of the entity of the given type, or of one of its subtypes, with the given value of the
+     * unique attribute, or null if there is none. The attribute is stored in the same property by the type that
+     * declares it and by its subtypes, and the unique index of the property finds the only vertex with the value.
+     */
+    private Vertex findVertexByUniqueAttribute(ClassType type, AttributeInfo attributeInfo, Object value)
+    throws AtlasException {
+        Object propertyValue = attributeInfo.dataType().convert(value, Multiplicity.REQUIRED);
+        Iterator<Vertex> results =
+                titanGraph.query().has(getFieldNameInVertex(type, attributeInfo), propertyValue).vertices().iterator();
+        if (!results.hasNext()) {
+            return null;
+        }
+
+        Vertex instanceVertex = results.next();
+        return type.isSubType(getTypeName(instanceVertex)) ? instanceVertex : null;
+    }
 
+    /**
+     * Recomputes the full text of the given entities from the graph. Entities referenced by them that have no
+     * full text yet, such as the ones created along with them, are indexed as well.
+     *
+     * @param guids globally unique identifiers of the entities to index
+     */
+    @GraphTransaction
+    public void updateFullText(Collection<String> guids) throws RepositoryException {
+        LOG.debug("Updating the full text of {} entities", guids.size());
+        FullTextMapper fullTextMapper = new FullTextMapper(Collections.<ITypedReferenceableInstance>emptyList());
+        Set<Object> visited = new HashSet<>();
+        Deque<Vertex> pending = new ArrayDeque<>();
+        for (String guid : guids) {
+            Vertex instanceVertex = vertexIdCache.findVertexByGUID(titanGraph, guid);
+            if (instanceVertex == null) {
+                LOG.warn("Could not find a vertex for guid={}, skipping its full text", guid);
+                continue;
+            }
+
+            pending.add(instanceVertex);
+        }
+
+        try {
+            while (!pending.isEmpty()) {
+                Vertex instanceVertex = pending.poll();
+                if (!visited.add(instanceVertex.getId())) {
+                    continue;
+                }
+
+                String guid = instanceVertex.getProperty(Constants.GUID_PROPERTY_KEY);
+                ITypedReferenceableInstance typedInstance =
+                        graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
+                addProperty(instanceVertex, Constants.ENTITY_TEXT_PROPERTY_KEY,
+                        fullTextMapper.getFullTextForEntity(typedInstance, true));
+
+                for (Vertex referenceVertex : instanceVertex.getVertices(Direction.OUT)) {
+                    if (referenceVertex.getProperty(Constants.GUID_PROPERTY_KEY) != null
+                            && referenceVertex.getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY) == null) {
+                        pending.add(referenceVertex);
+                    }
+                }
+            }
         } catch (AtlasException e) {
             throw new RepositoryException(e);
         }
     }
 
     private Vertex getVertexForGUID(String guid) throws EntityNotFoundException {
-        Vertex instanceVertex = GraphHelper.findVertexByGUID(titanGraph, guid);
+        Vertex instanceVertex = vertexIdCache.findVertexByGUID(titanGraph, guid);
         if (instanceVertex == null) {
             LOG.debug("Could not find a vertex for guid={}", guid);
             throw new EntityNotFoundException("Could not find an entity in the repository for guid: " + guid);
@@ -245,6 +469,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
 
             // update the traits in entity once adding trait instance is successful
             ((TitanVertex) instanceVertex).addProperty(Constants.TRAIT_NAMES_PROPERTY_KEY, traitName);
+            onEntityChanged(guid, instanceVertex);
 
         } catch (RepositoryException e) {
             throw e;
@@ -289,6 +514,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
                     // update the traits in entity once trait removal is successful
                     traitNames.remove(traitNameToBeDeleted);
                     updateTraits(instanceVertex, traitNames);
+                    onEntityChanged(guid, instanceVertex);
                 }
             }
         } catch (RepositoryException e) {
@@ -319,25 +545,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             LOG.debug("Found a vertex {} for guid {}", instanceVertex, guid);
             String typeName = instanceVertex.getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY);
             ClassType type = typeSystem.getDataType(ClassType.class, typeName);
-            AttributeInfo attributeInfo = type.fieldMapping.fields.get(property);
-            if (attributeInfo == null) {
-                throw new AtlasException("Invalid property " + property + " for entity " + typeName);
-            }
-
-            DataTypes.TypeCategory attrTypeCategory = attributeInfo.dataType().getTypeCategory();
-            ITypedReferenceableInstance instance = type.createInstance();
-            if (attrTypeCategory == DataTypes.TypeCategory.PRIMITIVE) {
-                instance.set(property, value);
-            } else if (attrTypeCategory == DataTypes.TypeCategory.CLASS) {
-                Id id = new Id(value, 0, attributeInfo.dataType().getName());
-                instance.set(property, id);
-            } else {
-                throw new RepositoryException("Update of " + attrTypeCategory + " is not supported");
-            }
-
-            instanceToGraphMapper
-                    .mapAttributesToVertex(getIdFromVertex(typeName, instanceVertex), instance, instanceVertex,
-                            new HashMap<Id, Vertex>(), attributeInfo, attributeInfo.dataType());
+            updateAttribute(guid, instanceVertex, type, getUpdatableAttribute(type, property), value);
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -345,6 +553,51 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
         }
     }
 
+    private AttributeInfo getUpdatableAttribute(ClassType type, String property) throws AtlasException {
+        AttributeInfo attributeInfo = type.fieldMapping.fields.get(property);
+        if (attributeInfo == null) {
+            throw new AtlasException("Invalid property " + property + " for entity " + type.getName());
+        }
+
+        DataTypes.TypeCategory attrTypeCategory = attributeInfo.dataType().getTypeCategory();
+        if (attrTypeCategory != DataTypes.TypeCategory.PRIMITIVE
+                && attrTypeCategory != DataTypes.TypeCategory.CLASS) {
+            throw new RepositoryException("Update of " + attrTypeCategory + " is not supported");
+        }
+        return attributeInfo;
+    }
+
+    private void updateAttribute(String guid, Vertex instanceVertex, ClassType type, AttributeInfo attributeInfo,
+            String value) throws AtlasException {
+        ITypedReferenceableInstance instance = type.createInstance();
+        if (attributeInfo.dataType().getTypeCategory() == DataTypes.TypeCategory.PRIMITIVE) {
+            instance.set(attributeInfo.name, value);
+        } else {
+            Id id = new Id(value, 0, attributeInfo.dataType().getName());
+            instance.set(attributeInfo.name, id);
+        }
+
+        instanceToGraphMapper
+                .mapAttributesToVertex(getIdFromVertex(type.getName(), instanceVertex), instance, instanceVertex,
+                        new HashMap<Id, Vertex>(), attributeInfo, attributeInfo.dataType());
+        onEntityChanged(guid, instanceVertex);
+    }
+
+    /**
+     * Increments the version of a changed entity, so that it isn't served at its previous version by the typed
+     * instance cache, and invalidates it. The version is only maintained for the cache, so nothing is written when
+     * the cache is disabled.
+     */
+    private void onEntityChanged(String guid, Vertex instanceVertex) {
+        if (!typedInstanceCache.isEnabled()) {
+            return;
+        }
+
+        Integer version = instanceVertex.getProperty(Constants.VERSION_PROPERTY_KEY);
+        instanceVertex.setProperty(Constants.VERSION_PROPERTY_KEY, version == null ? 1 : version + 1);
+        typedInstanceCache.invalidate(guid);
+    }
+
     public Id getIdFromVertex(String dataTypeName, Vertex vertex) {
         return new Id(vertex.<String>getProperty(Constants.GUID_PROPERTY_KEY),
                 vertex.<Integer>getProperty(Constants.VERSION_PROPERTY_KEY), dataTypeName);
@@ -416,11 +669,13 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
                 if (!idToVertexMap.containsKey(id)) {
                     Vertex instanceVertex;
                     if (id.isAssigned()) {  // has a GUID
-                        instanceVertex = GraphHelper.findVertexByGUID(titanGraph, id.id);
+                        instanceVertex = vertexIdCache.findVertexByGUID(titanGraph, id.id);
                     } else {
                         ClassType classType = typeSystem.getDataType(ClassType.class, typedInstance.getTypeName());
                         instanceVertex = GraphHelper
                                 .createVertexWithIdentity(titanGraph, typedInstance, classType.getAllSuperTypeNames());
+                        vertexIdCache.put(instanceVertex.<String>getProperty(Constants.GUID_PROPERTY_KEY),
+                                instanceVertex);
                     }
 
                     idToVertexMap.put(id, instanceVertex);
@@ -429,40 +684,288 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
         }
     }
 
-    private final class TypedInstanceToGraphMapper {
+    /**
+     * Applies the events of an ingested batch. The entities of the events are identified by the values of the
+     * identifying attributes of their types, and resolved to the registered entities, which are looked up at most
+     * once per batch. Each entity that isn't registered yet is created once, even if several events refer to it.
+     */
+    private final class BatchIngester {
 
-        private String mapTypedInstanceToGraph(IReferenceableInstance typedInstance) throws AtlasException {
+        private final Map<String, List<String>> identifiers;
 
-            EntityProcessor entityProcessor = new EntityProcessor();
+        // identity (type name followed by the identifying values) -> guid, for the entities resolved so far
+        private final Map<List<Object>, String> resolved = new HashMap<>();
+
+        BatchIngester(Map<String, List<String>> identifiers) {
+            this.identifiers = identifiers;
+        }
+
+        /**
+         * Rejects the event if it is invalid, which is found out before changing the graph.
+         */
+        IngestEvent.Result apply(IngestEvent event) throws AtlasException {
             try {
-                LOG.debug("Walking the object graph for instance {}", typedInstance.getTypeName());
-                new ObjectGraphWalker(typeSystem, entityProcessor, typedInstance).walk();
-            } catch (AtlasException me) {
-                throw new RepositoryException("TypeSystem error when walking the ObjectGraph", me);
+                switch (event.type) {
+                case CREATE:
+                    return create(event.entities);
+
+                case UPDATE:
+                    return update(event);
+
+                default:
+                    throw new IllegalArgumentException("Unsupported event type " + event.type);
+                }
+            } catch (RejectedEventException e) {
+                LOG.warn("Rejecting {} event: {}", event.type, e.getMessage());
+                return IngestEvent.Result.rejected(e.getMessage());
             }
+        }
 
-            List<ITypedReferenceableInstance> newTypedInstances = discoverInstances(entityProcessor);
-            entityProcessor.createVerticesForClassTypes(newTypedInstances);
-            String guid = addDiscoveredInstances(typedInstance, entityProcessor, newTypedInstances);
-            addFullTextProperty(entityProcessor, newTypedInstances);
+        private IngestEvent.Result create(List<Referenceable> entities) throws AtlasException {
+            NewEntities newEntities = new NewEntities();
+            List<Id> ids = new ArrayList<>(entities.size());
+            ITypedReferenceableInstance[] typedInstances;
+            try {
+                for (Referenceable entity : entities) {
+                    ids.add(resolve(entity, newEntities));
+                }
+
+                typedInstances = new ITypedReferenceableInstance[newEntities.entities.size()];
+                for (int index = 0; index < typedInstances.length; index++) {
+                    Referenceable entity = newEntities.entities.get(index);
+                    ClassType entityType = typeSystem.getDataType(ClassType.class, entity.getTypeName());
+                    typedInstances[index] = entityType.convert(entity, Multiplicity.REQUIRED);
+                }
+            } catch (AtlasException | IllegalArgumentException e) {
+                throw new RejectedEventException(e);
+            }
+
+            String[] createdGuids = typedInstances.length == 0 ? new String[0]
+                    : instanceToGraphMapper.mapTypedInstancesToGraph(typedInstances);
+            Map<Id, String> newGuids = new HashMap<>();
+            for (int index = 0; index < createdGuids.length; index++) {
+                newGuids.put(newEntities.entities.get(index).getId(), createdGuids[index]);
+                List<Object> identity = newEntities.identities.get(index);
+                if (identity != null) {
+                    resolved.put(identity, createdGuids[index]);
+                }
+            }
+
+            List<String> guids = new ArrayList<>(ids.size());
+            for (Id id : ids) {
+                guids.add(id.isAssigned() ? id.id : newGuids.get(id));
+            }
+            return IngestEvent.Result.applied(guids, Arrays.asList(createdGuids));
+        }
+
+        private IngestEvent.Result update(IngestEvent event) throws AtlasException {
+            ClassType type;
+            Vertex instanceVertex;
+            String guid;
+            Map<AttributeInfo, String> values = new HashMap<>();
+            try {
+                type = typeSystem.getDataType(ClassType.class, event.typeName);
+                List<Object> identity = getIdentity(event.typeName, event.identity);
+                guid = identity == null ? null : lookup(identity);
+                if (guid == null) {
+                    throw new EntityNotFoundException(
+                            "Could not find an entity in the repository for " + event.typeName + " " + event.identity);
+                }
+                instanceVertex = getVertexForGUID(guid);
+
+                for (Map.Entry<String, String> attribute : event.attributes.entrySet()) {
+                    values.put(getUpdatableAttribute(type, attribute.getKey()), attribute.getValue());
+                }
+            } catch (AtlasException | IllegalArgumentException e) {
+                throw new RejectedEventException(e);
+            }
+
+            for (Map.Entry<AttributeInfo, String> value : values.entrySet()) {
+                updateAttribute(guid, instanceVertex, type, value.getKey(), value.getValue());
+            }
+
+            // the identifying attributes of the entity may have changed
+            resolved.values().removeAll(Collections.singleton(guid));
+            return IngestEvent.Result.applied(Collections.singletonList(guid), Collections.<String>emptyList());
+        }
+
+        /**
+         * Returns the id to refer to the given entity by: the id of the registered entity with the same identity,
+         * or else the id of the entity created by the event, which is added to the entities to create along with
+         * the identified entities it refers to.
+         */
+        private Id resolve(Referenceable entity, NewEntities newEntities) throws AtlasException {
+            if (entity.getId().isAssigned()) {
+                return entity.getId();
+            }
+
+            List<Object> identity = getIdentity(entity.getTypeName(), entity.getValuesMap());
+            if (identity != null) {
+                Id id = newEntities.ids.get(identity);
+                if (id != null) {
+                    return id;
+                }
+
+                String guid = lookup(identity);
+                if (guid != null) {
+                    return new Id(guid, 0, entity.getTypeName());
+                }
+                newEntities.ids.put(identity, entity.getId());
+            }
+
+            resolveAttributes(entity, newEntities);
+            newEntities.entities.add(entity);
+            newEntities.identities.add(identity);
+            return entity.getId();
+        }
+
+        /**
+         * Replaces the identified entities among the attribute values of the given instance with their ids.
+         * The other entities remain part of the instance, and are created along with it. As the type system only
+         * keeps the id of an entity referred to by a single, non-composite attribute, such an entity is added to
+         * the entities to create instead, once however many attributes refer to it.
+         */
+        private void resolveAttributes(Struct instance, NewEntities newEntities) throws AtlasException {
+            IConstructableType<?, ?> type = typeSystem.getDataType(IConstructableType.class, instance.getTypeName());
+            for (Map.Entry<String, Object> attribute : instance.getValuesMap().entrySet()) {
+                AttributeInfo attributeInfo = type.fieldMapping().fields.get(attribute.getKey());
+                Object value = attribute.getValue();
+                if (attributeInfo != null && !attributeInfo.isComposite && value instanceof Referenceable
+                        && attributeInfo.dataType().getTypeCategory() == DataTypes.TypeCategory.CLASS
+                        && !isIdentified((Referenceable) value)) {
+                    attribute.setValue(addReferenced((Referenceable) value, newEntities));
+                } else {
+                    attribute.setValue(resolveValue(value, newEntities));
+                }
+            }
+        }
+
+        private boolean isIdentified(Referenceable entity) {
+            return entity.getId().isAssigned() || identifiers.containsKey(entity.getTypeName());
+        }
+
+        private Id addReferenced(Referenceable entity, NewEntities newEntities) throws AtlasException {
+            if (newEntities.referenced.add(entity.getId())) {
+                resolveAttributes(entity, newEntities);
+                newEntities.entities.add(entity);
+                newEntities.identities.add(null);
+            }
+            return entity.getId();
+        }
+
+        private Object resolveValue(Object value, NewEntities newEntities) throws AtlasException {
+            if (value instanceof Referenceable) {
+                Referenceable entity = (Referenceable) value;
+                if (isIdentified(entity)) {
+                    return resolve(entity, newEntities);
+                }
+                resolveAttributes(entity, newEntities);
+            } else if (value instanceof Struct) {
+                resolveAttributes((Struct) value, newEntities);
+            } else if (value instanceof List) {
+                List<Object> values = new ArrayList<>();
+                for (Object element : (List<?>) value) {
+                    values.add(resolveValue(element, newEntities));
+                }
+                return values;
+            } else if (value instanceof Map) {
+                Map<Object, Object> values = new HashMap<>();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    values.put(entry.getKey(), resolveValue(entry.getValue(), newEntities));
+                }
+                return values;
+            }
+            return value;
+        }
+
+        /**
+         * Returns the type name followed by the values of the identifying attributes of the type, or null if the
+         * type has no identifying attributes or a value is missing.
+         */
+        private List<Object> getIdentity(String typeName, Map<String, ?> values) throws AtlasException {
+            List<String> attributeNames = identifiers.get(typeName);
+            if (attributeNames == null || attributeNames.isEmpty() || values == null) {
+                return null;
+            }
+
+            ClassType type = typeSystem.getDataType(ClassType.class, typeName);
+            List<Object> identity = new ArrayList<>(attributeNames.size() + 1);
+            identity.add(typeName);
+            for (String attributeName : attributeNames) {
+                AttributeInfo attributeInfo = type.fieldMapping.fields.get(attributeName);
+                if (attributeInfo == null
+                        || attributeInfo.dataType().getTypeCategory() != DataTypes.TypeCategory.PRIMITIVE) {
+                    throw new IllegalArgumentException(
+                            "Entities of " + typeName + " can't be identified by " + attributeName);
+                }
+
+                Object value = values.get(attributeName);
+                if (value == null) {
+                    return null;
+                }
+                identity.add(attributeInfo.dataType().convert(value, Multiplicity.REQUIRED));
+            }
+            return identity;
+        }
+
+        private String lookup(List<Object> identity) throws AtlasException {
+            String guid = resolved.get(identity);
+            if (guid != null) {
+                return guid;
+            }
+
+            String typeName = (String) identity.get(0);
+            ClassType type = typeSystem.getDataType(ClassType.class, typeName);
+            GraphQuery query = titanGraph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName);
+            List<String> attributeNames = identifiers.get(typeName);
+            for (int index = 0; index < attributeNames.size(); index++) {
+                AttributeInfo attributeInfo = type.fieldMapping.fields.get(attributeNames.get(index));
+                query = query.has(getFieldNameInVertex(type, attributeInfo), identity.get(index + 1));
+            }
+
+            Iterator<Vertex> results = query.vertices().iterator();
+            if (results.hasNext()) {
+                guid = results.next().getProperty(Constants.GUID_PROPERTY_KEY);
+                resolved.put(identity, guid);
+            }
             return guid;
         }
+    }
 
-        private void addFullTextProperty(EntityProcessor entityProcessor,
-                List<ITypedReferenceableInstance> newTypedInstances) throws AtlasException {
+    /**
+     * The entities to create for an event, each with its identity, if any.
+     */
+    private static final class NewEntities {
+        private final List<Referenceable> entities = new ArrayList<>();
+        private final List<List<Object>> identities = new ArrayList<>();
+        private final Map<List<Object>, Id> ids = new HashMap<>();
+        private final Set<Id> referenced = new HashSet<>();
+    }
 
-            for (ITypedReferenceableInstance typedInstance : newTypedInstances) { // Traverse
-                Id id = typedInstance.getId();
-                Vertex instanceVertex = entityProcessor.idToVertexMap.get(id);
-                String fullText = getFullTextForVertex(instanceVertex, true);
-                addProperty(instanceVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
+    private static final class RejectedEventException extends AtlasException {
+        RejectedEventException(Exception cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Builds the full text of the entities created in one batch from their typed instances, rather than reading
+     * them back from the graph. The text of each referenced entity is computed once per batch, and only the
+     * entities that existed before the batch are materialized from the graph.
+     */
+    private final class FullTextMapper {
+
+        private final Map<Id, ITypedReferenceableInstance> batchInstances = new HashMap<>();
+        private final Map<Id, String> referenceFullText = new HashMap<>();
+
+        public FullTextMapper(List<ITypedReferenceableInstance> newTypedInstances) {
+            for (ITypedReferenceableInstance typedInstance : newTypedInstances) {
+                batchInstances.put(typedInstance.getId(), typedInstance);
             }
         }
 
-        private String getFullTextForVertex(Vertex instanceVertex, boolean followReferences) throws AtlasException {
-            String guid = instanceVertex.getProperty(Constants.GUID_PROPERTY_KEY);
-            ITypedReferenceableInstance typedReference =
-                    graphToInstanceMapper.mapGraphToTypedInstance(guid, instanceVertex);
+        private String getFullTextForEntity(ITypedReferenceableInstance typedReference, boolean followReferences)
+        throws AtlasException {
             String fullText = getFullTextForInstance(typedReference, followReferences);
             StringBuilder fullTextBuilder =
                     new StringBuilder(typedReference.getTypeName()).append(FULL_TEXT_DELIMITER).append(fullText);
@@ -476,6 +979,21 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             return fullTextBuilder.toString();
         }
 
+        private String getFullTextForReference(Id refId) throws AtlasException {
+            String fullText = referenceFullText.get(refId);
+            if (fullText == null) {
+                ITypedReferenceableInstance typedReference = batchInstances.get(refId);
+                if (typedReference == null) {
+                    String refGuid = refId._getId();
+                    typedReference = graphToInstanceMapper.mapGraphToTypedInstance(refGuid, getVertexForGUID(refGuid));
+                }
+
+                fullText = getFullTextForEntity(typedReference, false);
+                referenceFullText.put(refId, fullText);
+            }
+            return fullText;
+        }
+
         private String getFullTextForAttribute(IDataType type, Object value, boolean followReferences)
         throws AtlasException {
             switch (type.getTypeCategory()) {
@@ -519,9 +1037,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
 
             case CLASS:
                 if (followReferences) {
-                    String refGuid = ((ITypedReferenceableInstance) value).getId()._getId();
-                    Vertex refVertex = getVertexForGUID(refGuid);
-                    return getFullTextForVertex(refVertex, false);
+                    return getFullTextForReference(((IReferenceableInstance) value).getId());
                 }
                 break;
 
@@ -556,6 +1072,69 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             }
             return fullText.toString();
         }
+    }
+
+    private final class TypedInstanceToGraphMapper {
+
+        private String mapTypedInstanceToGraph(IReferenceableInstance typedInstance) throws AtlasException {
+            return mapTypedInstancesToGraph(typedInstance)[0];
+        }
+
+        /**
+         * Maps all the given instances, along with every instance reachable from them, to the graph
+         * in a single pass. Instances referenced by more than one root are discovered only once.
+         * Only the vertices of new instances are written; registered entities are just the targets of
+         * new edges, so their versions are left alone.
+         *
+         * @return guids of the given instances, in the order they were passed in
+         */
+        private String[] mapTypedInstancesToGraph(IReferenceableInstance... typedInstances) throws AtlasException {
+            // capture the ids before they are replaced with the newly assigned ones
+            List<Id> rootIds = new ArrayList<>(typedInstances.length);
+            for (IReferenceableInstance typedInstance : typedInstances) {
+                rootIds.add(typedInstance.getId());
+            }
+
+            EntityProcessor entityProcessor = new EntityProcessor();
+            try {
+                LOG.debug("Walking the object graph for {} instances", typedInstances.length);
+                new ObjectGraphWalker(typeSystem, entityProcessor, Arrays.asList(typedInstances)).walk();
+            } catch (AtlasException me) {
+                throw new RepositoryException("TypeSystem error when walking the ObjectGraph", me);
+            }
+
+            List<ITypedReferenceableInstance> newTypedInstances = discoverInstances(entityProcessor);
+            entityProcessor.createVerticesForClassTypes(newTypedInstances);
+            addDiscoveredInstances(entityProcessor, newTypedInstances);
+            if (!fullTextAsync) {
+                addFullTextProperty(entityProcessor, newTypedInstances);
+            }
+
+            String[] guids = new String[rootIds.size()];
+            for (int index = 0; index < rootIds.size(); index++) {
+                guids[index] = getGUID(entityProcessor, rootIds.get(index));
+            }
+
+            return guids;
+        }
+
+        private String getGUID(EntityProcessor entityProcessor, Id rootId) {
+            Id newId = entityProcessor.idToNewIdMap.get(rootId);
+            Vertex instanceVertex = entityProcessor.idToVertexMap.get(newId != null ? newId : rootId);
+            return instanceVertex == null ? null : instanceVertex.<String>getProperty(Constants.GUID_PROPERTY_KEY);
+        }
+
+        private void addFullTextProperty(EntityProcessor entityProcessor,
+                List<ITypedReferenceableInstance> newTypedInstances) throws AtlasException {
+
+            FullTextMapper fullTextMapper = new FullTextMapper(newTypedInstances);
+            for (ITypedReferenceableInstance typedInstance : newTypedInstances) { // Traverse
+                Id id = typedInstance.getId();
+                Vertex instanceVertex = entityProcessor.idToVertexMap.get(id);
+                String fullText = fullTextMapper.getFullTextForEntity(typedInstance, true);
+                addProperty(instanceVertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
+            }
+        }
 
         /**
          * Step 2: Traverse oldIdToInstance map create newInstances :
@@ -572,24 +1151,26 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
                     ClassType cT = typeSystem.getDataType(ClassType.class, transientInstance.getTypeName());
                     ITypedReferenceableInstance newInstance = cT.convert(transientInstance, Multiplicity.REQUIRED);
                     newTypedInstances.add(newInstance);
-
-                    // Now replace old references with new Ids
-                    MapIds mapIds = new MapIds(entityProcessor.idToNewIdMap);
-                    new ObjectGraphWalker(typeSystem, mapIds, newTypedInstances).walk();
-
                 } catch (AtlasException me) {
                     throw new RepositoryException(
                             String.format("Failed to create Instance(id = %s", transientInstance.getId()), me);
                 }
             }
 
+            // Now replace old references with new Ids, once for the whole batch
+            try {
+                MapIds mapIds = new MapIds(entityProcessor.idToNewIdMap);
+                new ObjectGraphWalker(typeSystem, mapIds, newTypedInstances).walk();
+            } catch (AtlasException me) {
+                throw new RepositoryException("Failed to replace references with new ids", me);
+            }
+
             return newTypedInstances;
         }
 
-        private String addDiscoveredInstances(IReferenceableInstance entity, EntityProcessor entityProcessor,
+        private void addDiscoveredInstances(EntityProcessor entityProcessor,
                 List<ITypedReferenceableInstance> newTypedInstances) throws AtlasException {
 
-            String typedInstanceGUID = null;
             for (ITypedReferenceableInstance typedInstance : newTypedInstances) { // Traverse over newInstances
                 LOG.debug("Adding typed instance {}", typedInstance.getTypeName());
 
@@ -615,13 +1196,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
                     mapTraitInstanceToVertex(traitInstance, typedInstance, instanceVertex,
                             entityProcessor.idToVertexMap);
                 }
-
-                if (typedInstance.getId() == entity.getId()) { // save the guid for return
-                    typedInstanceGUID = instanceVertex.getProperty(Constants.GUID_PROPERTY_KEY);
-                }
             }
-
-            return typedInstanceGUID;
         }
 
         private void mapInstanceToVertex(Id id, ITypedInstance typedInstance, Vertex instanceVertex,
@@ -770,7 +1345,7 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             if (id != null) {
                 Vertex referenceVertex;
                 if (id.isAssigned()) {
-                    referenceVertex = GraphHelper.findVertexByGUID(titanGraph, id.id);
+                    referenceVertex = vertexIdCache.findVertexByGUID(titanGraph, id.id);
                 } else {
                     referenceVertex = idToVertexMap.get(id);
                 }
@@ -880,21 +1455,23 @@ public class GraphBackedMetadataRepository implements MetadataRepository {
             Id id = new Id(guid, instanceVertex.<Integer>getProperty(Constants.VERSION_PROPERTY_KEY), typeName);
             LOG.debug("Created id {} for instance type {}", id, typeName);
 
-            ClassType classType = typeSystem.getDataType(ClassType.class, typeName);
+            // the class and trait types of the entity are looked up in the same snapshot of the types
+            TypeSystem.Snapshot types = typeSystem.getSnapshot();
+            ClassType classType = types.getDataType(ClassType.class, typeName);
             ITypedReferenceableInstance typedInstance =
                     classType.createInstance(id, traits.toArray(new String[traits.size()]));
 
             mapVertexToInstance(instanceVertex, typedInstance, classType.fieldMapping().fields);
-            mapVertexToInstanceTraits(instanceVertex, typedInstance, traits);
+            mapVertexToInstanceTraits(instanceVertex, typedInstance, traits, types);
 
             return typedInstance;
         }
 
         private void mapVertexToInstanceTraits(Vertex instanceVertex, ITypedReferenceableInstance typedInstance,
-                List<String> traits) throws AtlasException {
+                List<String> traits, TypeSystem.Snapshot types) throws AtlasException {
             for (String traitName : traits) {
                 LOG.debug("mapping trait {} to instance", traitName);
-                TraitType traitType = typeSystem.getDataType(TraitType.class, traitName);
+                TraitType traitType = types.getDataType(TraitType.class, traitName);
                 mapVertexToTraitInstance(instanceVertex, typedInstance, traitName, traitType);
             }
         }
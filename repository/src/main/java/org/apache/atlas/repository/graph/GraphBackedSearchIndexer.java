@@ -21,6 +21,7 @@ package org.apache.atlas.repository.graph;
 import com.thinkaurelius.titan.core.Cardinality;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.schema.ConsistencyModifier;
 import com.thinkaurelius.titan.core.schema.Mapping;
 import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
@@ -46,7 +47,10 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Adds index for properties of a given type when its added before any instances are added.
@@ -138,17 +142,22 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
     /**
      * This is upon adding a new type to Store.
      *
+     * The indexes of all the types are computed first, once for each property even when several types lead to it,
+     * e.g. through the struct types of their attributes, and are then created in a single management transaction.
+     *
      * @param dataTypes data type
      * @throws org.apache.atlas.AtlasException
      */
     @Override
     public void onAdd(Collection<? extends IDataType> dataTypes) throws AtlasException {
+        long start = System.currentTimeMillis();
 
+        Map<String, PropertyIndex> indexes = new LinkedHashMap<>();
+        Set<String> indexedStructTypes = new HashSet<>();
         for (IDataType dataType : dataTypes) {
-            LOG.info("Creating indexes for type name={}, definition={}", dataType.getName(), dataType.getClass());
+            LOG.debug("Computing indexes for type name={}, definition={}", dataType.getName(), dataType.getClass());
             try {
-                addIndexForType(dataType);
-                LOG.info("Index creation for type {} complete", dataType.getName());
+                addIndexesForType(dataType, indexes, indexedStructTypes);
             } catch (Throwable throwable) {
                 LOG.error("Error creating index for type {}", dataType, throwable);
                 //Rollback indexes if any failure
@@ -156,11 +165,30 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
                 throw new IndexCreationException("Error while creating index for type " + dataType, throwable);
             }
         }
+        long computed = System.currentTimeMillis();
+
+        for (PropertyIndex index : indexes.values()) {
+            try {
+                createIndex(index);
+            } catch (Throwable throwable) {
+                LOG.error("Error creating index for property {}", index.propertyName, throwable);
+                //Rollback indexes if any failure
+                rollback();
+                throw new IndexCreationException("Error while creating index for property " + index.propertyName,
+                        throwable);
+            }
+        }
+        long created = System.currentTimeMillis();
+
         //Commit indexes
         commit();
+        LOG.info("Index creation for {} types complete, {} properties: computed in {} ms, created in {} ms, "
+                        + "committed in {} ms", dataTypes.size(), indexes.size(), computed - start, created - computed,
+                System.currentTimeMillis() - created);
     }
 
-    private void addIndexForType(IDataType dataType) {
+    private void addIndexesForType(IDataType dataType, Map<String, PropertyIndex> indexes,
+            Set<String> indexedStructTypes) throws AtlasException {
         switch (dataType.getTypeCategory()) {
         case PRIMITIVE:
         case ENUM:
@@ -172,17 +200,18 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
 
         case STRUCT:
             StructType structType = (StructType) dataType;
-            createIndexForFields(structType, structType.fieldMapping().fields);
+            addIndexesForStruct(structType, indexes, indexedStructTypes);
             break;
 
         case TRAIT:
             TraitType traitType = (TraitType) dataType;
-            createIndexForFields(traitType, traitType.fieldMapping().fields);
+            addIndexesForFields(traitType, traitType.fieldMapping().fields, indexes, indexedStructTypes);
             break;
 
         case CLASS:
             ClassType classType = (ClassType) dataType;
-            createIndexForFields(classType, classType.fieldMapping().fields);
+            addUniqueIndexes(classType, indexes);
+            addIndexesForFields(classType, classType.fieldMapping().fields, indexes, indexedStructTypes);
             break;
 
         default:
@@ -190,23 +219,56 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
         }
     }
 
-    private void createIndexForFields(IDataType dataType, Map<String, AttributeInfo> fields) {
+    /**
+     * Adds a unique composite index for each unique primitive attribute declared by the class, so that an
+     * entity is found by the value of the attribute with a single index get. The inherited attributes are stored
+     * in the properties of the super types that declare them, which are indexed along with those.
+     */
+    private void addUniqueIndexes(ClassType classType, Map<String, PropertyIndex> indexes) throws AtlasException {
+        for (AttributeInfo field : classType.immediateAttrs) {
+            if (!field.isUnique) {
+                continue;
+            }
+
+            if (field.dataType().getTypeCategory() != DataTypes.TypeCategory.PRIMITIVE) {
+                LOG.warn("Ignoring unique attribute {} of {}, only primitive attributes can be unique", field.name,
+                        classType.getName());
+                continue;
+            }
+
+            String propertyName = classType.getQualifiedName(field.name);
+            indexes.put(propertyName,
+                    new PropertyIndex(propertyName, getPrimitiveClass(field.dataType()), true, field.isIndexable));
+        }
+    }
+
+    // the fields of a struct type are indexed once, however many attributes are of the type
+    private void addIndexesForStruct(StructType structType, Map<String, PropertyIndex> indexes,
+            Set<String> indexedStructTypes) {
+        if (indexedStructTypes.add(structType.getName())) {
+            addIndexesForFields(structType, structType.fieldMapping().fields, indexes, indexedStructTypes);
+        }
+    }
+
+    private void addIndexesForFields(IDataType dataType, Map<String, AttributeInfo> fields,
+            Map<String, PropertyIndex> indexes, Set<String> indexedStructTypes) {
         for (AttributeInfo field : fields.values()) {
             if (field.isIndexable) {
-                createIndexForAttribute(dataType.getName(), field);
+                addIndexForAttribute(dataType.getName(), field, indexes, indexedStructTypes);
             }
         }
     }
 
-    private void createIndexForAttribute(String typeName, AttributeInfo field) {
+    private void addIndexForAttribute(String typeName, AttributeInfo field, Map<String, PropertyIndex> indexes,
+            Set<String> indexedStructTypes) {
         final String propertyName = typeName + "." + field.name;
         switch (field.dataType().getTypeCategory()) {
         case PRIMITIVE:
-            createVertexMixedIndex(propertyName, getPrimitiveClass(field.dataType()));
+            addVertexMixedIndex(propertyName, getPrimitiveClass(field.dataType()), indexes);
             break;
 
         case ENUM:
-            createVertexMixedIndex(propertyName, String.class);
+            addVertexMixedIndex(propertyName, String.class, indexes);
             break;
 
         case ARRAY:
@@ -217,7 +279,7 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
 
         case STRUCT:
             StructType structType = (StructType) field.dataType();
-            createIndexForFields(structType, structType.fieldMapping().fields);
+            addIndexesForStruct(structType, indexes, indexedStructTypes);
             break;
 
         case TRAIT:
@@ -235,6 +297,35 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
         }
     }
 
+    private void addVertexMixedIndex(String propertyName, Class propertyClass, Map<String, PropertyIndex> indexes) {
+        // a unique index of the property takes precedence
+        if (!indexes.containsKey(propertyName)) {
+            indexes.put(propertyName, new PropertyIndex(propertyName, propertyClass, false, true));
+        }
+    }
+
+    private void createIndex(PropertyIndex index) {
+        if (!index.unique) {
+            createVertexMixedIndex(index.propertyName, index.propertyClass);
+            return;
+        }
+
+        if (management.containsPropertyKey(index.propertyName)) {
+            return;
+        }
+
+        PropertyKey propertyKey = createCompositeIndex(index.propertyName, index.propertyName, index.propertyClass,
+                true, Cardinality.SINGLE);
+        // lock the values so that concurrent transactions can't create two entities with the same one
+        management.setConsistency(management.getGraphIndex(index.propertyName), ConsistencyModifier.LOCK);
+
+        // the mixed index of the attribute is still used by the searches
+        if (index.indexable && checkIfMixedIndexApplicable(index.propertyClass)) {
+            management.addIndexKey(management.getGraphIndex(Constants.VERTEX_INDEX), propertyKey);
+        }
+        LOG.info("Created unique index for property {}", index.propertyName);
+    }
+
     private Class getPrimitiveClass(IDataType dataType) {
         if (dataType == DataTypes.STRING_TYPE) {
             return String.class;
@@ -359,6 +450,24 @@ public class GraphBackedSearchIndexer implements SearchIndexer {
         }
     }
 
+    /**
+     * Index of a property, created along with the property key unless the key exists.
+     */
+    private static final class PropertyIndex {
+        private final String propertyName;
+        private final Class propertyClass;
+        private final boolean unique;
+        // whether the property is also in the mixed vertex index
+        private final boolean indexable;
+
+        private PropertyIndex(String propertyName, Class propertyClass, boolean unique, boolean indexable) {
+            this.propertyName = propertyName;
+            this.propertyClass = propertyClass;
+            this.unique = unique;
+            this.indexable = indexable;
+        }
+    }
+
     /* Commenting this out since we do not need an index for edge label here
     private void createEdgeMixedIndex(String propertyName) {
         EdgeLabel edgeLabel = management.getEdgeLabel(propertyName);
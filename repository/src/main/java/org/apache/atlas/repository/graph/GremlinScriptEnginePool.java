@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A shared pool of gremlin-groovy script engines, with a bounded cache of the scripts they have
+ * compiled. Compiled scripts are evaluated with per call bindings, so the pool is safe to use from
+ * multiple threads.
+ */
+public final class GremlinScriptEnginePool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GremlinScriptEnginePool.class);
+
+    /**
+     * Constants for the configuration properties that set the number of script engines and the
+     * maximum number of cached compiled scripts.
+     */
+    public static final String POOL_SIZE_PROPERTY = "atlas.repository.gremlin.engines";
+    public static final String CACHE_SIZE_PROPERTY = "atlas.repository.cache.script.size";
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private static GremlinScriptEnginePool instance;
+
+    private final GremlinGroovyScriptEngine[] engines;
+    private final AtomicInteger nextEngine = new AtomicInteger();
+    private final Cache<String, CompiledScript> compiledScripts;
+
+    public static synchronized GremlinScriptEnginePool getInstance() throws AtlasException {
+        if (instance == null) {
+            PropertiesConfiguration configuration = PropertiesUtil.getApplicationProperties();
+            instance = new GremlinScriptEnginePool(
+                    configuration.getInt(POOL_SIZE_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                    configuration.getInt(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+        }
+
+        return instance;
+    }
+
+    public GremlinScriptEnginePool(int poolSize, int cacheSize) {
+        LOG.info("Creating {} gremlin script engines, caching up to {} compiled scripts", poolSize, cacheSize);
+        engines = new GremlinGroovyScriptEngine[Math.max(poolSize, 1)];
+        for (int i = 0; i < engines.length; i++) {
+            // the engines keep their own map of compiled classes, which they clear once it exceeds this size
+            engines[i] = new GremlinGroovyScriptEngine(cacheSize);
+        }
+
+        compiledScripts = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    /**
+     * Evaluates the script, compiling it first unless it was compiled recently.
+     *
+     * @param script   gremlin-groovy script
+     * @param bindings bindings for this evaluation only
+     * @return result of the script
+     * @throws ScriptException if the script does not compile or fails
+     */
+    public Object eval(String script, Bindings bindings) throws ScriptException {
+        CompiledScript compiledScript = compiledScripts.getIfPresent(script);
+        if (compiledScript == null) {
+            GremlinGroovyScriptEngine engine =
+                    engines[(nextEngine.getAndIncrement() & Integer.MAX_VALUE) % engines.length];
+            compiledScript = engine.compile(script);
+            compiledScripts.put(script, compiledScript);
+        }
+
+        return compiledScript.eval(bindings);
+    }
+
+    /**
+     * @return hit, miss and eviction counters of the compiled script cache
+     */
+    public CacheStats getStats() {
+        return compiledScripts.stats();
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.apache.atlas.typesystem.IReferenceableInstance;
+import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.persistence.ReferenceableInstance;
+import org.apache.atlas.typesystem.types.ObjectGraphWalker;
+import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An optional read-through cache of entities materialized from the graph, keyed by guid and
+ * version. Entities embed their composite references, so invalidating an entity also invalidates
+ * every cached entity that it is a composite part of.
+ *
+ * The repository increments the version of an entity whenever it changes it, so an entity cached
+ * at an earlier version is never served. Entries are also invalidated when the repository changes
+ * an entity, which covers the entities embedding it, and otherwise expire after the configured TTL.
+ * The entities changed by the graph transaction of the current thread are tracked until the
+ * transaction ends and invalidated again then, since a concurrent read may have cached their state
+ * from before the commit, or their uncommitted state if the transaction is rolled back.
+ *
+ * An entity read by a transaction that changed entities isn't cached, and neither is an entity read
+ * while another entity was invalidated, see {@link #getStamp()}. The cache holds copies of the
+ * instances it is given and returns copies of them, so callers may change them.
+ */
+@Singleton
+public class TypedInstanceCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TypedInstanceCache.class);
+
+    /**
+     * Constants for the configuration properties that set the maximum number of cached entities
+     * and how long an entity stays cached. A size of 0 disables the cache.
+     */
+    public static final String CACHE_SIZE_PROPERTY = "atlas.repository.cache.entity.size";
+    public static final String CACHE_TTL_PROPERTY = "atlas.repository.cache.entity.ttl.secs";
+    public static final int DEFAULT_CACHE_SIZE = 0;
+    public static final long DEFAULT_CACHE_TTL_SECS = 300;
+
+    private static final class Entry {
+        final ReferenceableInstance instance;
+        final Set<String> compositeGuids;
+
+        Entry(ReferenceableInstance instance, Set<String> compositeGuids) {
+            this.instance = instance;
+            this.compositeGuids = compositeGuids;
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+
+    // guid of a composite entity -> guids of the cached entities it is embedded in
+    private final Map<String, Set<String>> compositeOwners = new HashMap<>();
+
+    // number of invalidations, for the stamps of the entities read from the graph
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // guids of the entities changed by the current graph transaction of each thread
+    private final ThreadLocal<Set<String>> changedGuids = new ThreadLocal<Set<String>>() {
+        @Override
+        protected Set<String> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    @Inject
+    public TypedInstanceCache() throws AtlasException {
+        this(PropertiesUtil.getApplicationProperties());
+    }
+
+    private TypedInstanceCache(PropertiesConfiguration configuration) {
+        this(configuration.getInt(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE),
+                configuration.getLong(CACHE_TTL_PROPERTY, DEFAULT_CACHE_TTL_SECS));
+    }
+
+    public TypedInstanceCache(int maxSize, long ttlSecs) {
+        if (maxSize <= 0) {
+            LOG.info("Entity cache is disabled");
+            cache = null;
+            return;
+        }
+
+        LOG.info("Caching up to {} entities for {} secs", maxSize, ttlSecs);
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlSecs, TimeUnit.SECONDS)
+                .recordStats().removalListener(new RemovalListener<String, Entry>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, Entry> notification) {
+                        removeCompositeOwner(notification.getKey(), notification.getValue());
+                    }
+                }).build();
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the cached entity for the given guid, if it was cached at the given version.
+     *
+     * @param guid    globally unique identifier for the entity
+     * @param version current version of the entity
+     * @return the cached entity or null
+     */
+    public ITypedReferenceableInstance get(String guid, int version) {
+        if (cache == null) {
+            return null;
+        }
+
+        Entry entry = cache.getIfPresent(guid);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.instance.getId().version != version) {
+            remove(guid);
+            return null;
+        }
+
+        return entry.instance.copy();
+    }
+
+    /**
+     * Returns the stamp to cache an entity with, taken before the entity is read from the graph.
+     */
+    public long getStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a copy of the given entity, read from the graph, unless it may be stale: when the current transaction
+     * changed entities, or when an entity was invalidated since the given stamp was taken.
+     *
+     * @param instance entity read from the graph
+     * @param stamp    stamp taken before the entity was read
+     */
+    public void put(ITypedReferenceableInstance instance, long stamp) throws AtlasException {
+        if (cache == null || !(instance instanceof ReferenceableInstance) || !changedGuids.get().isEmpty()
+                || invalidations.get() != stamp) {
+            return;
+        }
+
+        final String guid = instance.getId()._getId();
+        final Set<String> compositeGuids = new HashSet<>();
+        new ObjectGraphWalker(TypeSystem.getInstance(), new ObjectGraphWalker.NodeProcessor() {
+            @Override
+            public void processNode(ObjectGraphWalker.Node nd) throws AtlasException {
+                if (nd.attributeName == null) {
+                    String nodeGuid = ((IReferenceableInstance) nd.instance).getId()._getId();
+                    if (!guid.equals(nodeGuid)) {
+                        compositeGuids.add(nodeGuid);
+                    }
+                }
+            }
+        }, instance).walk();
+
+        Entry entry = new Entry(((ReferenceableInstance) instance).copy(), compositeGuids);
+        synchronized (compositeOwners) {
+            if (invalidations.get() != stamp) {
+                return;
+            }
+
+            // replacing an entry removes the guid from the owners of the composites of the previous one
+            cache.put(guid, entry);
+            for (String compositeGuid : compositeGuids) {
+                Set<String> owners = compositeOwners.get(compositeGuid);
+                if (owners == null) {
+                    owners = new HashSet<>();
+                    compositeOwners.put(compositeGuid, owners);
+                }
+                owners.add(guid);
+            }
+        }
+    }
+
+    /**
+     * Removes the entity for the given guid, changed by the current graph transaction, and every entity it is a
+     * composite part of.
+     *
+     * @param guid globally unique identifier for the entity
+     */
+    public void invalidate(String guid) {
+        if (cache == null) {
+            return;
+        }
+
+        changedGuids.get().add(guid);
+        remove(guid);
+    }
+
+    private void remove(String guid) {
+        Set<String> owners;
+        synchronized (compositeOwners) {
+            invalidations.incrementAndGet();
+            owners = compositeOwners.remove(guid);
+        }
+
+        cache.invalidate(guid);
+        if (owners != null) {
+            for (String owner : owners) {
+                remove(owner);
+            }
+        }
+    }
+
+    /**
+     * Called when the graph transaction of the current thread is committed, to drop the entities it changed that
+     * were cached by concurrent reads before the commit.
+     */
+    public void onCommit() {
+        onRollback();
+    }
+
+    /**
+     * Called when the graph transaction of the current thread is rolled back, to drop the entities it changed.
+     */
+    public void onRollback() {
+        Set<String> guids = changedGuids.get();
+        for (String guid : guids) {
+            remove(guid);
+        }
+        guids.clear();
+    }
+
+    private void removeCompositeOwner(String guid, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+
+        synchronized (compositeOwners) {
+            for (String compositeGuid : entry.compositeGuids) {
+                Set<String> owners = compositeOwners.get(compositeGuid);
+                if (owners != null) {
+                    owners.remove(guid);
+                    if (owners.isEmpty()) {
+                        compositeOwners.remove(compositeGuid);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return hit, miss and eviction counters of this cache
+     */
+    public CacheStats getStats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.PropertiesUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A bounded cache of GUID to vertex id, in front of the index query done by
+ * {@link GraphHelper#findVertexByGUID(TitanGraph, String)}.
+ *
+ * The vertices created by the graph transaction of the current thread are tracked until the transaction ends, so
+ * that only their entries are dropped if it is rolled back.
+ */
+@Singleton
+public class VertexIdCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VertexIdCache.class);
+
+    /**
+     * Constant for the configuration property that sets the maximum number of cached GUIDs.
+     */
+    public static final String CACHE_SIZE_PROPERTY = "atlas.repository.cache.guid.size";
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private final Cache<String, Object> cache;
+
+    // guids of the vertices created by the current graph transaction of each thread
+    private final ThreadLocal<Set<String>> createdGuids = new ThreadLocal<Set<String>>() {
+        @Override
+        protected Set<String> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    @Inject
+    public VertexIdCache() throws AtlasException {
+        this(PropertiesUtil.getApplicationProperties().getInt(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    public VertexIdCache(int maxSize) {
+        LOG.info("Caching vertex ids for up to {} guids", maxSize);
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Finds the vertex for the given guid, using the cached vertex id if there is one.
+     *
+     * @param titanGraph graph to look the vertex up in
+     * @param guid       globally unique identifier for the entity
+     * @return vertex for the guid, or null if there is none
+     */
+    public Vertex findVertexByGUID(TitanGraph titanGraph, String guid) {
+        Object vertexId = cache.getIfPresent(guid);
+        if (vertexId != null) {
+            Vertex vertex = titanGraph.getVertex(vertexId);
+            if (vertex != null) {
+                return vertex;
+            }
+
+            LOG.debug("Cached vertex {} for guid {} no longer exists", vertexId, guid);
+            cache.invalidate(guid);
+        }
+
+        Vertex vertex = GraphHelper.findVertexByGUID(titanGraph, guid);
+        if (vertex != null) {
+            cache.put(guid, vertex.getId());
+        }
+
+        return vertex;
+    }
+
+    /**
+     * Caches the vertex created for the given guid by the current graph transaction.
+     */
+    public void put(String guid, Vertex vertex) {
+        cache.put(guid, vertex.getId());
+        createdGuids.get().add(guid);
+    }
+
+    /**
+     * Called when the graph transaction of the current thread is committed.
+     */
+    public void onCommit() {
+        createdGuids.get().clear();
+    }
+
+    /**
+     * Called when the graph transaction of the current thread is rolled back, to drop the vertices it created.
+     */
+    public void onRollback() {
+        Set<String> guids = createdGuids.get();
+        cache.invalidateAll(guids);
+        guids.clear();
+    }
+
+    /**
+     * @return hit, miss and eviction counters of this cache
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+}
@@ -21,7 +21,12 @@ package org.apache.atlas.repository.typestore;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.schema.ConsistencyModifier;
+import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
+import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -30,6 +35,7 @@ import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graph.GraphProvider;
 import org.apache.atlas.typesystem.TypesDef;
+import org.apache.atlas.typesystem.json.TypesSerialization;
 import org.apache.atlas.typesystem.types.AttributeDefinition;
 import org.apache.atlas.typesystem.types.AttributeInfo;
 import org.apache.atlas.typesystem.types.ClassType;
@@ -50,14 +56,34 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Stores each type in a vertex of its own, with edges to its super types and to the types its attributes refer to.
+ *
+ * The definitions of all the stored types are also kept serialized in a single snapshot vertex, rewritten in the
+ * same transaction as the type vertices, so the type system is restored by reading one vertex instead of walking
+ * the vertices and edges of every type. If there is no snapshot, e.g. for types stored before snapshots were
+ * written, or if it doesn't hold the types of the type vertices, the types are restored from their vertices and the
+ * snapshot is rewritten from them.
+ *
+ * The snapshot is rewritten by every store, so the snapshot property is locked by the transactions changing it, and
+ * the snapshot vertex is named with a unique locked key. A store that would overwrite the changes of a concurrent
+ * one, or add a second snapshot vertex, fails when its transaction is committed.
+ */
 @Singleton
 public class GraphBackedTypeStore implements ITypeStore {
     public static final String VERTEX_TYPE = "typeSystem";
+    public static final String SNAPSHOT_VERTEX_TYPE = "typeSystemSnapshot";
     private static final String PROPERTY_PREFIX = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "type.";
     public static final String SUPERTYPE_EDGE_LABEL = PROPERTY_PREFIX + ".supertype";
+    public static final String SNAPSHOT_PROPERTY_KEY = PROPERTY_PREFIX + "snapshot";
+    public static final String SNAPSHOT_NAME_PROPERTY_KEY = PROPERTY_PREFIX + "snapshot.name";
 
     private static Logger LOG = LoggerFactory.getLogger(GraphBackedTypeStore.class);
 
@@ -66,6 +92,35 @@ public class GraphBackedTypeStore implements ITypeStore {
     @Inject
     public GraphBackedTypeStore(GraphProvider<TitanGraph> graphProvider) {
         titanGraph = graphProvider.get();
+        createSnapshotKeys();
+    }
+
+    /**
+     * Creates the locked keys of the snapshot vertex, also for graphs whose types were stored before snapshots were
+     * written.
+     */
+    private void createSnapshotKeys() {
+        TitanManagement management = titanGraph.getManagementSystem();
+        try {
+            if (!management.containsPropertyKey(SNAPSHOT_NAME_PROPERTY_KEY)) {
+                PropertyKey nameKey =
+                        management.makePropertyKey(SNAPSHOT_NAME_PROPERTY_KEY).dataType(String.class).make();
+                TitanGraphIndex index = management.buildIndex(SNAPSHOT_NAME_PROPERTY_KEY, Vertex.class)
+                        .addKey(nameKey).unique().buildCompositeIndex();
+                management.setConsistency(index, ConsistencyModifier.LOCK);
+            }
+
+            PropertyKey snapshotKey = management.containsPropertyKey(SNAPSHOT_PROPERTY_KEY) ?
+                    management.getPropertyKey(SNAPSHOT_PROPERTY_KEY) :
+                    management.makePropertyKey(SNAPSHOT_PROPERTY_KEY).dataType(String.class).make();
+            if (management.getConsistency(snapshotKey) != ConsistencyModifier.LOCK) {
+                management.setConsistency(snapshotKey, ConsistencyModifier.LOCK);
+            }
+            management.commit();
+        } catch (RuntimeException e) {
+            management.rollback();
+            throw e;
+        }
     }
 
     @Override
@@ -76,31 +131,87 @@ public class GraphBackedTypeStore implements ITypeStore {
     @Override
     @GraphTransaction
     public void store(TypeSystem typeSystem, ImmutableList<String> typeNames) throws AtlasException {
+        // read the stored types before adding the vertices of the new ones, in case they are restored from vertices
+        Vertex snapshotVertex = findSnapshotVertex();
+        TypesDef snapshot = snapshotVertex != null ? getSnapshot(snapshotVertex) : restoreFromVertices();
+
+        Map<String, Vertex> vertices = findVertices(typeSystem, typeNames);
         for (String typeName : typeNames) {
             IDataType dataType = typeSystem.getDataType(IDataType.class, typeName);
             LOG.debug("Processing {}.{} in type store", dataType.getTypeCategory(), dataType.getName());
             switch (dataType.getTypeCategory()) {
             case ENUM:
-                storeInGraph((EnumType) dataType);
+                storeInGraph(vertices, (EnumType) dataType);
                 break;
 
             case STRUCT:
                 StructType structType = (StructType) dataType;
-                storeInGraph(typeSystem, dataType.getTypeCategory(), dataType.getName(),
+                storeInGraph(typeSystem, vertices, dataType.getTypeCategory(), dataType.getName(),
                         ImmutableList.copyOf(structType.infoToNameMap.keySet()), ImmutableList.<String>of());
                 break;
 
             case TRAIT:
             case CLASS:
                 HierarchicalType type = (HierarchicalType) dataType;
-                storeInGraph(typeSystem, dataType.getTypeCategory(), dataType.getName(), type.immediateAttrs,
-                        type.superTypes);
+                storeInGraph(typeSystem, vertices, dataType.getTypeCategory(), dataType.getName(),
+                        type.immediateAttrs, type.superTypes);
                 break;
 
             default:    //Ignore primitive/collection types as they are covered under references
                 break;
             }
         }
+        storeSnapshot(snapshotVertex, merge(snapshot, TypesSerialization.convertToTypesDef(typeSystem, typeNames)));
+    }
+
+    /**
+     * Finds the vertices of the given types and of the types they refer to with a single query.
+     * @return vertices by type name
+     */
+    private Map<String, Vertex> findVertices(TypeSystem typeSystem, List<String> typeNames) throws AtlasException {
+        Set<String> names = new HashSet<>(typeNames);
+        for (String typeName : typeNames) {
+            IDataType dataType = typeSystem.getDataType(IDataType.class, typeName);
+            switch (dataType.getTypeCategory()) {
+            case STRUCT:
+                for (AttributeInfo attribute : ((StructType) dataType).infoToNameMap.keySet()) {
+                    addNames(names, getReferencedTypes(typeSystem, attribute));
+                }
+                break;
+
+            case TRAIT:
+            case CLASS:
+                HierarchicalType<?, ?> type = (HierarchicalType<?, ?>) dataType;
+                names.addAll(type.superTypes);
+                for (AttributeInfo attribute : type.immediateAttrs) {
+                    addNames(names, getReferencedTypes(typeSystem, attribute));
+                }
+                break;
+
+            default:
+                break;
+            }
+        }
+
+        LOG.debug("Finding vertices for {} types", names.size());
+        Map<String, Vertex> vertices = new HashMap<>();
+        if (names.isEmpty()) {
+            return vertices;
+        }
+
+        Iterator results =
+                titanGraph.query().has(Constants.TYPENAME_PROPERTY_KEY, Contains.IN, names).vertices().iterator();
+        while (results.hasNext()) {
+            Vertex vertex = (Vertex) results.next();
+            vertices.put((String) vertex.getProperty(Constants.TYPENAME_PROPERTY_KEY), vertex);
+        }
+        return vertices;
+    }
+
+    private void addNames(Set<String> names, List<IDataType> dataTypes) {
+        for (IDataType dataType : dataTypes) {
+            names.add(dataType.getName());
+        }
     }
 
     private void addProperty(Vertex vertex, String propertyName, Object value) {
@@ -108,8 +219,8 @@ public class GraphBackedTypeStore implements ITypeStore {
         vertex.setProperty(propertyName, value);
     }
 
-    private void storeInGraph(EnumType dataType) {
-        Vertex vertex = createVertex(dataType.getTypeCategory(), dataType.getName());
+    private void storeInGraph(Map<String, Vertex> vertices, EnumType dataType) {
+        Vertex vertex = createVertex(vertices, dataType.getTypeCategory(), dataType.getName());
         List<String> values = new ArrayList<>(dataType.values().size());
         for (EnumValue enumValue : dataType.values()) {
             String key = getPropertyKey(dataType.getName(), enumValue.value);
@@ -131,9 +242,10 @@ public class GraphBackedTypeStore implements ITypeStore {
         return PROPERTY_PREFIX + "edge." + parent + "." + child;
     }
 
-    private void storeInGraph(TypeSystem typeSystem, DataTypes.TypeCategory category, String typeName,
-            ImmutableList<AttributeInfo> attributes, ImmutableList<String> superTypes) throws AtlasException {
-        Vertex vertex = createVertex(category, typeName);
+    private void storeInGraph(TypeSystem typeSystem, Map<String, Vertex> vertices, DataTypes.TypeCategory category,
+            String typeName, ImmutableList<AttributeInfo> attributes, ImmutableList<String> superTypes)
+            throws AtlasException {
+        Vertex vertex = createVertex(vertices, category, typeName);
         List<String> attrNames = new ArrayList<>();
         if (attributes != null) {
             for (AttributeInfo attribute : attributes) {
@@ -144,7 +256,7 @@ public class GraphBackedTypeStore implements ITypeStore {
                     throw new StorageException(typeName, e);
                 }
                 attrNames.add(attribute.name);
-                addReferencesForAttribute(typeSystem, vertex, attribute);
+                addReferencesForAttribute(typeSystem, vertices, vertex, attribute);
             }
         }
         addProperty(vertex, getPropertyKey(typeName), attrNames);
@@ -153,19 +265,29 @@ public class GraphBackedTypeStore implements ITypeStore {
         if (superTypes != null) {
             for (String superTypeName : superTypes) {
                 HierarchicalType superType = typeSystem.getDataType(HierarchicalType.class, superTypeName);
-                Vertex superVertex = createVertex(superType.getTypeCategory(), superTypeName);
+                Vertex superVertex = createVertex(vertices, superType.getTypeCategory(), superTypeName);
                 addEdge(vertex, superVertex, SUPERTYPE_EDGE_LABEL);
             }
         }
     }
 
     //Add edges for complex attributes
-    private void addReferencesForAttribute(TypeSystem typeSystem, Vertex vertex, AttributeInfo attribute)
+    private void addReferencesForAttribute(TypeSystem typeSystem, Map<String, Vertex> vertices, Vertex vertex,
+            AttributeInfo attribute) throws AtlasException {
+        String vertexTypeName = vertex.getProperty(Constants.TYPENAME_PROPERTY_KEY);
+        for (IDataType attrType : getReferencedTypes(typeSystem, attribute)) {
+            Vertex attrVertex = createVertex(vertices, attrType.getTypeCategory(), attrType.getName());
+            String label = getEdgeLabel(vertexTypeName, attribute.name);
+            addEdge(vertex, attrVertex, label);
+        }
+    }
+
+    //Types with a vertex referenced by the attribute
+    private List<IDataType> getReferencedTypes(TypeSystem typeSystem, AttributeInfo attribute)
             throws AtlasException {
         ImmutableList<String> coreTypes = typeSystem.getCoreTypes();
         List<IDataType> attrDataTypes = new ArrayList<>();
         IDataType attrDataType = attribute.dataType();
-        String vertexTypeName = vertex.getProperty(Constants.TYPENAME_PROPERTY_KEY);
 
         switch (attrDataType.getTypeCategory()) {
         case ARRAY:
@@ -196,13 +318,13 @@ public class GraphBackedTypeStore implements ITypeStore {
                     "Attribute cannot reference instances of type : " + attrDataType.getTypeCategory());
         }
 
+        List<IDataType> referencedTypes = new ArrayList<>();
         for (IDataType attrType : attrDataTypes) {
             if (!coreTypes.contains(attrType.getName())) {
-                Vertex attrVertex = createVertex(attrType.getTypeCategory(), attrType.getName());
-                String label = getEdgeLabel(vertexTypeName, attribute.name);
-                addEdge(vertex, attrVertex, label);
+                referencedTypes.add(attrType);
             }
         }
+        return referencedTypes;
     }
 
     private void addEdge(Vertex fromVertex, Vertex toVertex, String label) {
@@ -213,6 +335,34 @@ public class GraphBackedTypeStore implements ITypeStore {
     @Override
     @GraphTransaction
     public TypesDef restore() throws AtlasException {
+        Vertex snapshotVertex = findSnapshotVertex();
+        if (snapshotVertex != null) {
+            TypesDef snapshot = getSnapshot(snapshotVertex);
+            if (getTypeNames(snapshot).equals(getVertexTypeNames())) {
+                LOG.info("Restoring types from the type system snapshot");
+                return snapshot;
+            }
+            LOG.warn("The type system snapshot doesn't match the type vertices, restoring types from the vertices");
+        }
+
+        TypesDef typesDef = restoreFromVertices();
+        if (!typesDef.isEmpty()) {
+            storeSnapshot(snapshotVertex, typesDef);
+        }
+        return typesDef;
+    }
+
+    private Set<String> getVertexTypeNames() {
+        Set<String> typeNames = new HashSet<>();
+        Iterator vertices =
+                titanGraph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, VERTEX_TYPE).vertices().iterator();
+        while (vertices.hasNext()) {
+            typeNames.add((String) ((Vertex) vertices.next()).getProperty(Constants.TYPENAME_PROPERTY_KEY));
+        }
+        return typeNames;
+    }
+
+    private TypesDef restoreFromVertices() throws AtlasException {
         //Get all vertices for type system
         Iterator vertices =
                 titanGraph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, VERTEX_TYPE).vertices().iterator();
@@ -293,36 +443,101 @@ public class GraphBackedTypeStore implements ITypeStore {
         return attributes.toArray(new AttributeDefinition[attributes.size()]);
     }
 
+    private Vertex findSnapshotVertex() {
+        Iterator results =
+                titanGraph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, SNAPSHOT_VERTEX_TYPE).vertices().iterator();
+        return results.hasNext() ? (Vertex) results.next() : null;
+    }
+
+    private TypesDef getSnapshot(Vertex snapshotVertex) {
+        return TypesSerialization.fromJson((String) snapshotVertex.getProperty(SNAPSHOT_PROPERTY_KEY));
+    }
+
+    private void storeSnapshot(Vertex snapshotVertex, TypesDef typesDef) {
+        LOG.debug("Storing the type system snapshot");
+        if (snapshotVertex == null) {
+            snapshotVertex = titanGraph.addVertex(null);
+            snapshotVertex.setProperty(Constants.VERTEX_TYPE_PROPERTY_KEY, SNAPSHOT_VERTEX_TYPE);
+            snapshotVertex.setProperty(SNAPSHOT_NAME_PROPERTY_KEY, SNAPSHOT_VERTEX_TYPE);
+        }
+        snapshotVertex.setProperty(SNAPSHOT_PROPERTY_KEY, TypesSerialization.toJson(typesDef));
+    }
+
+    /**
+     * Returns the given snapshot with the definitions of the given types, replacing the ones of the same name.
+     */
+    private TypesDef merge(TypesDef snapshot, TypesDef types) {
+        Set<String> names = getTypeNames(types);
+
+        ImmutableList.Builder<EnumTypeDefinition> enums = ImmutableList.builder();
+        for (EnumTypeDefinition enumType : snapshot.enumTypesAsJavaList()) {
+            if (!names.contains(enumType.name)) {
+                enums.add(enumType);
+            }
+        }
+        ImmutableList.Builder<StructTypeDefinition> structs = ImmutableList.builder();
+        for (StructTypeDefinition structType : snapshot.structTypesAsJavaList()) {
+            if (!names.contains(structType.typeName)) {
+                structs.add(structType);
+            }
+        }
+        ImmutableList.Builder<HierarchicalTypeDefinition<TraitType>> traits = ImmutableList.builder();
+        for (HierarchicalTypeDefinition<TraitType> traitType : snapshot.traitTypesAsJavaList()) {
+            if (!names.contains(traitType.typeName)) {
+                traits.add(traitType);
+            }
+        }
+        ImmutableList.Builder<HierarchicalTypeDefinition<ClassType>> classTypes = ImmutableList.builder();
+        for (HierarchicalTypeDefinition<ClassType> classType : snapshot.classTypesAsJavaList()) {
+            if (!names.contains(classType.typeName)) {
+                classTypes.add(classType);
+            }
+        }
+
+        enums.addAll(types.enumTypesAsJavaList());
+        structs.addAll(types.structTypesAsJavaList());
+        traits.addAll(types.traitTypesAsJavaList());
+        classTypes.addAll(types.classTypesAsJavaList());
+        return TypeUtils.getTypesDef(enums.build(), structs.build(), traits.build(), classTypes.build());
+    }
+
+    private Set<String> getTypeNames(TypesDef types) {
+        Set<String> names = new HashSet<>();
+        for (EnumTypeDefinition enumType : types.enumTypesAsJavaList()) {
+            names.add(enumType.name);
+        }
+        for (StructTypeDefinition structType : types.structTypesAsJavaList()) {
+            names.add(structType.typeName);
+        }
+        for (HierarchicalTypeDefinition<TraitType> traitType : types.traitTypesAsJavaList()) {
+            names.add(traitType.typeName);
+        }
+        for (HierarchicalTypeDefinition<ClassType> classType : types.classTypesAsJavaList()) {
+            names.add(classType.typeName);
+        }
+        return names;
+    }
+
     private String toString(Vertex vertex) {
         return PROPERTY_PREFIX + vertex.getProperty(Constants.TYPENAME_PROPERTY_KEY);
     }
 
     /**
-     * Find vertex for the given type category and name, else create new vertex
+     * Find vertex for the given type category and name among the vertices found, else create new vertex
+     * @param vertices vertices by type name, the new vertex is added to
      * @param category
      * @param typeName
      * @return vertex
      */
-    private Vertex findVertex(DataTypes.TypeCategory category, String typeName) {
-        LOG.debug("Finding vertex for {}.{}", category, typeName);
-
-        Iterator results = titanGraph.query().has(Constants.TYPENAME_PROPERTY_KEY, typeName).vertices().iterator();
-        Vertex vertex = null;
-        if (results != null && results.hasNext()) {
-            //There should be just one vertex with the given typeName
-            vertex = (Vertex) results.next();
-        }
-        return vertex;
-    }
-
-    private Vertex createVertex(DataTypes.TypeCategory category, String typeName) {
-        Vertex vertex = findVertex(category, typeName);
+    private Vertex createVertex(Map<String, Vertex> vertices, DataTypes.TypeCategory category, String typeName) {
+        Vertex vertex = vertices.get(typeName);
         if (vertex == null) {
             LOG.debug("Adding vertex {}{}", PROPERTY_PREFIX, typeName);
             vertex = titanGraph.addVertex(null);
             addProperty(vertex, Constants.VERTEX_TYPE_PROPERTY_KEY, VERTEX_TYPE);  //Mark as type vertex
             addProperty(vertex, Constants.TYPE_CATEGORY_PROPERTY_KEY, category);
             addProperty(vertex, Constants.TYPENAME_PROPERTY_KEY, typeName);
+            vertices.put(typeName, vertex);
         }
         return vertex;
     }
@@ -29,6 +29,7 @@ import org.apache.atlas.classification.InterfaceAudience;
 import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.listener.TypesChangeListener;
 import org.apache.atlas.repository.IndexCreationException;
+import org.apache.atlas.repository.IngestEvent;
 import org.apache.atlas.repository.MetadataRepository;
 import org.apache.atlas.repository.typestore.ITypeStore;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
@@ -50,6 +51,7 @@ import org.apache.atlas.typesystem.types.TraitType;
 import org.apache.atlas.typesystem.types.TypeSystem;
 import org.apache.atlas.typesystem.types.TypeUtils;
 import org.apache.atlas.typesystem.types.utils.TypesUtil;
+import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
@@ -57,8 +59,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -81,17 +86,22 @@ public class DefaultMetadataService implements MetadataService {
 
     @Inject
     DefaultMetadataService(final MetadataRepository repository, final ITypeStore typeStore,
-            final Collection<Provider<TypesChangeListener>> typeChangeListeners) throws AtlasException {
+            final Collection<Provider<TypesChangeListener>> typeChangeListeners,
+            final Collection<Provider<EntityChangeListener>> entityChangeListeners) throws AtlasException {
         this.typeStore = typeStore;
         this.typeSystem = TypeSystem.getInstance();
         this.repository = repository;
 
         this.typeChangeListeners = typeChangeListeners;
+        for (Provider<EntityChangeListener> listenerProvider : entityChangeListeners) {
+            registerListener(listenerProvider.get());
+        }
         restoreTypeSystem();
     }
 
     private void restoreTypeSystem() {
         LOG.info("Restoring type system from the store");
+        long start = System.currentTimeMillis();
         try {
             TypesDef typesDef = typeStore.restore();
             typeSystem.defineTypes(typesDef);
@@ -102,7 +112,7 @@ public class DefaultMetadataService implements MetadataService {
         } catch (AtlasException e) {
             throw new RuntimeException(e);
         }
-        LOG.info("Restored type system from the store");
+        LOG.info("Restored type system from the store in {} ms", System.currentTimeMillis() - start);
     }
 
     private static final AttributeDefinition NAME_ATTRIBUTE =
@@ -162,18 +172,26 @@ public class DefaultMetadataService implements MetadataService {
         }
 
         try {
-            final Map<String, IDataType> typesAdded = typeSystem.defineTypes(typesDef);
-
-            try {
-                /* Create indexes first so that if index creation fails then we rollback
-                   the typesystem and also do not persist the graph
-                 */
-                onTypesAdded(typesAdded);
-                typeStore.store(typeSystem, ImmutableList.copyOf(typesAdded.keySet()));
-            } catch (Throwable t) {
-                typeSystem.removeTypes(typesAdded.keySet());
-                throw new AtlasException("Unable to persist types ", t);
-            }
+            final long start = System.currentTimeMillis();
+            /* The types are indexed and stored before they are published, so that if index creation or the store
+               fails, no reader ever sees them
+             */
+            final Map<String, IDataType> typesAdded = typeSystem.defineTypes(typesDef, new TypeSystem.TypesCommit() {
+                @Override
+                public void commit(Map<String, IDataType> definedTypes) throws AtlasException {
+                    long defined = System.currentTimeMillis();
+                    try {
+                        onTypesAdded(definedTypes);
+                        long indexed = System.currentTimeMillis();
+                        typeStore.store(typeSystem, ImmutableList.copyOf(definedTypes.keySet()));
+                        LOG.info("Created {} types: defined in {} ms, indexed in {} ms, stored in {} ms",
+                                definedTypes.size(), defined - start, indexed - defined,
+                                System.currentTimeMillis() - indexed);
+                    } catch (Throwable t) {
+                        throw new AtlasException("Unable to persist types ", t);
+                    }
+                }
+            });
 
             return new JSONObject() {{
                 put(AtlasClient.TYPES, typesAdded.keySet());
@@ -230,10 +248,185 @@ public class DefaultMetadataService implements MetadataService {
 
         final String guid = repository.createEntity(entityTypedInstance);
 
-        onEntityAddedToRepo(entityTypedInstance);
+        onEntityAddedToRepo(guid);
         return guid;
     }
 
+    /**
+     * Creates the given entities, instances of their types, in a single transaction.
+     *
+     * @param entitiesInstanceDefinition json array of entity definitions
+     * @return list of guids, in the same order as the given entity definitions
+     */
+    @Override
+    public List<String> createEntities(String entitiesInstanceDefinition) throws AtlasException {
+        ParamChecker.notEmpty(entitiesInstanceDefinition, "Entity instances definition cannot be empty");
+
+        ITypedReferenceableInstance[] typedInstances = deserializeClassInstances(entitiesInstanceDefinition);
+
+        final String[] guids = repository.createEntities(typedInstances);
+
+        for (String guid : guids) {
+            onEntityAddedToRepo(guid);
+        }
+        return Arrays.asList(guids);
+    }
+
+    /**
+     * Creates an entity, instance of the type, unless an entity with the same value of one of the unique
+     * attributes of the type is registered, in which case the primitive and enum attributes of the registered
+     * entity are updated.
+     *
+     * @param entityInstanceDefinition definition
+     * @return guid of the created or updated entity
+     */
+    @Override
+    public String upsertEntity(String entityInstanceDefinition) throws AtlasException {
+        ParamChecker.notEmpty(entityInstanceDefinition, "Entity instance definition cannot be empty");
+
+        ITypedReferenceableInstance entityTypedInstance = deserializeClassInstance(entityInstanceDefinition);
+
+        IngestEvent.Result result = repository.upsertEntity(entityTypedInstance);
+
+        for (String guid : result.createdGuids) {
+            onEntityAddedToRepo(guid);
+        }
+        if (result.createdGuids.isEmpty()) {
+            onEntityUpdatedInRepo(result.guids.get(0));
+        }
+        return result.guids.get(0);
+    }
+
+    /**
+     * Applies a batch of events, such as the ones sent by the hooks, in a single transaction.
+     *
+     * @param batchDefinition json object with the identifying attributes of each type and the events
+     * @return json array with the result of each event, in order
+     */
+    @Override
+    public JSONArray ingest(String batchDefinition) throws AtlasException {
+        ParamChecker.notEmpty(batchDefinition, "Ingest batch definition cannot be empty");
+
+        Map<String, List<String>> identifiers = new HashMap<>();
+        List<IngestEvent> events = new ArrayList<>();
+        try {
+            JSONObject batch = new JSONObject(batchDefinition);
+            JSONObject batchIdentifiers = batch.optJSONObject(AtlasClient.INGEST_IDENTIFIERS);
+            if (batchIdentifiers != null) {
+                Iterator<?> typeNames = batchIdentifiers.keys();
+                while (typeNames.hasNext()) {
+                    String typeName = (String) typeNames.next();
+                    JSONArray attributeNames = batchIdentifiers.getJSONArray(typeName);
+                    List<String> names = new ArrayList<>(attributeNames.length());
+                    for (int index = 0; index < attributeNames.length(); index++) {
+                        names.add(attributeNames.getString(index));
+                    }
+                    identifiers.put(typeName, names);
+                }
+            }
+
+            JSONArray batchEvents = batch.getJSONArray(AtlasClient.INGEST_EVENTS);
+            for (int index = 0; index < batchEvents.length(); index++) {
+                events.add(deserializeIngestEvent(batchEvents.getJSONObject(index)));
+            }
+        } catch (JSONException e) {
+            LOG.error("Unable to deserialize json={}", batchDefinition, e);
+            throw new IllegalArgumentException("Unable to deserialize json", e);
+        }
+
+        List<IngestEvent.Result> results = repository.ingest(identifiers, events);
+
+        JSONArray response = new JSONArray();
+        try {
+            for (int index = 0; index < results.size(); index++) {
+                IngestEvent.Result result = results.get(index);
+                for (String guid : result.createdGuids) {
+                    onEntityAddedToRepo(guid);
+                }
+                if (result.isApplied() && events.get(index).type == IngestEvent.Type.UPDATE) {
+                    onEntityUpdatedInRepo(result.guids.get(0));
+                }
+
+                JSONObject eventResponse = new JSONObject();
+                if (result.isApplied()) {
+                    eventResponse.put(AtlasClient.GUID, new JSONArray(result.guids));
+                } else {
+                    eventResponse.put(AtlasClient.ERROR, result.error);
+                }
+                response.put(eventResponse);
+            }
+        } catch (JSONException e) {
+            throw new AtlasException(e);
+        }
+        return response;
+    }
+
+    private IngestEvent deserializeIngestEvent(JSONObject event) throws JSONException {
+        IngestEvent.Type type;
+        try {
+            type = IngestEvent.Type.valueOf(event.getString(AtlasClient.EVENT_TYPE));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported event type " + event.getString(AtlasClient.EVENT_TYPE));
+        }
+
+        if (type == IngestEvent.Type.CREATE) {
+            JSONArray entities = event.getJSONArray(AtlasClient.EVENT_ENTITIES);
+            List<Referenceable> references = new ArrayList<>(entities.length());
+            for (int index = 0; index < entities.length(); index++) {
+                try {
+                    references.add(InstanceSerialization.fromJsonReferenceable(entities.getString(index), true));
+                } catch (Exception e) {  // exception from deserializer
+                    throw new IllegalArgumentException("Unable to deserialize json", e);
+                }
+            }
+            return IngestEvent.create(references);
+        }
+
+        Map<String, Object> identity = new HashMap<>();
+        JSONObject eventIdentity = event.getJSONObject(AtlasClient.EVENT_IDENTITY);
+        Iterator<?> names = eventIdentity.keys();
+        while (names.hasNext()) {
+            String name = (String) names.next();
+            identity.put(name, eventIdentity.get(name));
+        }
+
+        Map<String, String> attributes = new HashMap<>();
+        JSONObject eventAttributes = event.getJSONObject(AtlasClient.EVENT_ATTRIBUTES);
+        names = eventAttributes.keys();
+        while (names.hasNext()) {
+            String name = (String) names.next();
+            attributes.put(name, eventAttributes.getString(name));
+        }
+        return IngestEvent.update(event.getString(AtlasClient.TYPENAME), identity, attributes);
+    }
+
+    private ITypedReferenceableInstance[] deserializeClassInstances(String entitiesInstanceDefinition)
+    throws AtlasException {
+
+        final JSONArray entities;
+        try {
+            entities = new JSONArray(entitiesInstanceDefinition);
+        } catch (JSONException e) {
+            LOG.error("Unable to deserialize json={}", entitiesInstanceDefinition, e);
+            throw new IllegalArgumentException("Unable to deserialize json");
+        }
+
+        if (entities.length() == 0) {
+            throw new IllegalArgumentException("Entity instances cannot be empty");
+        }
+
+        ITypedReferenceableInstance[] typedInstances = new ITypedReferenceableInstance[entities.length()];
+        for (int index = 0; index < entities.length(); index++) {
+            try {
+                typedInstances[index] = deserializeClassInstance(entities.getString(index));
+            } catch (JSONException e) {
+                throw new IllegalArgumentException("Unable to deserialize json", e);
+            }
+        }
+
+        return typedInstances;
+    }
+
     private ITypedReferenceableInstance deserializeClassInstance(String entityInstanceDefinition)
     throws AtlasException {
 
@@ -265,6 +458,42 @@ public class DefaultMetadataService implements MetadataService {
         return InstanceSerialization.toJson(instance, true);
     }
 
+    /**
+     * Return the definition of the entity of the given type with the given value of a unique attribute.
+     *
+     * @param entityType type
+     * @param attribute  unique attribute of the type
+     * @param value      value of the attribute
+     * @return entity definition as json
+     */
+    @Override
+    public String getEntityDefinition(String entityType, String attribute, String value) throws AtlasException {
+        validateTypeExists(entityType);
+        ParamChecker.notEmpty(attribute, "attribute name cannot be null");
+        ParamChecker.notEmpty(value, "attribute value cannot be null");
+
+        final ITypedReferenceableInstance instance =
+                repository.getEntityByUniqueAttribute(entityType, attribute, value);
+        return InstanceSerialization.toJson(instance, true);
+    }
+
+    /**
+     * Return the guid of the entity of the given type with the given value of a unique attribute.
+     *
+     * @param entityType type
+     * @param attribute  unique attribute of the type
+     * @param value      value of the attribute
+     * @return guid of the entity
+     */
+    @Override
+    public String getEntityGuid(String entityType, String attribute, String value) throws AtlasException {
+        validateTypeExists(entityType);
+        ParamChecker.notEmpty(attribute, "attribute name cannot be null");
+        ParamChecker.notEmpty(value, "attribute value cannot be null");
+
+        return repository.getGuidByUniqueAttribute(entityType, attribute, value);
+    }
+
     /**
      * Return the list of entity names for the given type in the repository.
      *
@@ -285,6 +514,8 @@ public class DefaultMetadataService implements MetadataService {
         ParamChecker.notEmpty(value, "property value cannot be null");
 
         repository.updateEntity(guid, property, value);
+
+        onEntityUpdatedInRepo(guid);
     }
 
     private void validateTypeExists(String entityType) throws AtlasException {
@@ -399,10 +630,15 @@ public class DefaultMetadataService implements MetadataService {
         }
     }
 
-    private void onEntityAddedToRepo(ITypedReferenceableInstance typedInstance) throws AtlasException {
+    private void onEntityAddedToRepo(String guid) throws AtlasException {
+        for (EntityChangeListener listener : entityChangeListeners) {
+            listener.onEntityAdded(guid);
+        }
+    }
 
+    private void onEntityUpdatedInRepo(String guid) throws AtlasException {
         for (EntityChangeListener listener : entityChangeListeners) {
-            listener.onEntityAdded(typedInstance);
+            listener.onEntityUpdated(guid);
         }
     }
 
@@ -20,6 +20,7 @@ package org.apache.atlas.services;
 
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.typesystem.types.DataTypes;
+import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONObject;
 
 import java.util.List;
@@ -68,6 +69,33 @@ public interface MetadataService {
      */
     String createEntity(String entityDefinition) throws AtlasException;
 
+    /**
+     * Creates the given entities, instances of their types, in a single transaction.
+     *
+     * @param entitiesDefinition json array of entity definitions
+     * @return list of guids, in the same order as the given entity definitions
+     */
+    List<String> createEntities(String entitiesDefinition) throws AtlasException;
+
+    /**
+     * Applies a batch of events, such as the ones sent by the hooks, in a single transaction. The entities of
+     * the events are resolved by their identifying attributes on the server, and only created if they aren't
+     * registered yet.
+     *
+     * @param batchDefinition json object with the identifying attributes of each type and the events
+     * @return json array with the result of each event, in order
+     */
+    JSONArray ingest(String batchDefinition) throws AtlasException;
+
+    /**
+     * Creates an entity, instance of the type, or updates the registered entity with the same value of one of
+     * the unique attributes of the type.
+     *
+     * @param entityDefinition definition
+     * @return guid of the created or updated entity
+     */
+    String upsertEntity(String entityDefinition) throws AtlasException;
+
     /**
      * Return the definition for the given guid.
      *
@@ -76,6 +104,26 @@ public interface MetadataService {
      */
     String getEntityDefinition(String guid) throws AtlasException;
 
+    /**
+     * Return the definition of the entity of the given type with the given value of a unique attribute.
+     *
+     * @param entityType type
+     * @param attribute  unique attribute of the type
+     * @param value      value of the attribute
+     * @return entity definition as JSON
+     */
+    String getEntityDefinition(String entityType, String attribute, String value) throws AtlasException;
+
+    /**
+     * Return the guid of the entity of the given type with the given value of a unique attribute.
+     *
+     * @param entityType type
+     * @param attribute  unique attribute of the type
+     * @param value      value of the attribute
+     * @return guid of the entity
+     */
+    String getEntityGuid(String entityType, String attribute, String value) throws AtlasException;
+
     /**
      * Return the list of entity names for the given type in the repository.
      *
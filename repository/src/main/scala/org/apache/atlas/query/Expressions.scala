@@ -326,6 +326,16 @@ object Expressions {
         def instance() = new InstanceExpression(this)
 
         def path() = new PathExpression(this)
+
+        def limit(lmt: Literal[Integer], offset: Literal[Integer]) = new LimitExpression(this, lmt, offset)
+
+        def limit(lmt: Int, offset: Int): LimitExpression = limit(int(lmt), int(offset))
+
+        def orderBy(odrBy: Expression, asc: Boolean = true) = new OrderExpression(this, odrBy, asc)
+
+        def orderById() = new IdOrderExpression(this)
+
+        def groupBy(keys: Expression*) = new GroupByExpression(this, keys.toList)
     }
 
     trait BinaryNode {
@@ -663,6 +673,13 @@ object Expressions {
 
         override def namedExpressions = child.namedExpressions ++ (selectList.flatMap(_.namedExpressions))
 
+        /**
+         * A select over a groupby, or with aggregate functions in its select list, produces a row per group
+         * instead of a row per input object.
+         */
+        def isAggregate = child.isInstanceOf[GroupByExpression] ||
+            selectListWithAlias.exists(_.child.isInstanceOf[AggregateExpression])
+
         override def toString = s"""$child select ${selectListWithAlias.mkString("", ", ", "")}"""
     }
 
@@ -736,4 +753,149 @@ object Expressions {
 
     override def toString = s"$child withPath"
   }
+
+  case class LimitExpression(child: Expression, limit: Literal[Integer], offset: Literal[Integer])
+    extends Expression with UnaryNode {
+    lazy val dataType = {
+      if (!resolved) {
+        throw new UnresolvedException(this,
+          s"datatype. Can not resolve due to unresolved child")
+      }
+      if (limit.value <= 0 || offset.value < 0) {
+        throw new ExpressionException(this, s"Invalid limit ${limit.value} or offset ${offset.value}")
+      }
+      child.dataType
+    }
+
+    override def toString = s"$child limit ${limit.value} offset ${offset.value}"
+  }
+
+  case class OrderExpression(child: Expression, odrBy: Expression, asc: Boolean) extends Expression {
+    val children = List(child, odrBy)
+    lazy val dataType = {
+      if (!resolved) {
+        throw new UnresolvedException(this,
+          s"datatype. Can not resolve due to unresolved children")
+      }
+      if (odrBy.dataType.getTypeCategory != TypeCategory.PRIMITIVE &&
+        odrBy.dataType.getTypeCategory != TypeCategory.ENUM) {
+        throw new ExpressionException(this, s"Cannot order by '$odrBy', it is not a primitive value")
+      }
+      child.dataType
+    }
+
+    override def namedExpressions = child.namedExpressions
+
+    override def toString = s"$child orderby $odrBy ${if (asc) "asc" else "desc"}"
+  }
+
+  /**
+   * Orders the objects of the child on a stable key, so that consecutive pages of its results neither skip nor
+   * repeat objects: instances on their guid, and values on themselves. The [[GremlinTranslator]] moves it to the
+   * objects that the results are made from; results the query orders or limits itself keep their order.
+   */
+  case class IdOrderExpression(child: Expression) extends Expression with UnaryNode {
+    lazy val dataType = {
+      if (!resolved) {
+        throw new UnresolvedException(this,
+          s"datatype. Can not resolve due to unresolved child")
+      }
+      child.dataType
+    }
+
+    override def toString = child.toString
+  }
+
+  /**
+   * Groups the objects of the child by the values of the keys. It is the input of an aggregate
+   * [[SelectExpression]], whose select list can only refer to the keys and aggregate functions.
+   */
+  case class GroupByExpression(child: Expression, keys: List[Expression]) extends Expression {
+    val children = child :: keys
+    lazy val dataType = {
+      if (!resolved) {
+        throw new UnresolvedException(this,
+          s"datatype. Can not resolve due to unresolved children")
+      }
+      child.dataType
+    }
+
+    override def namedExpressions = child.namedExpressions
+
+    override def toString = s"""$child groupby(${keys.mkString(", ")})"""
+  }
+
+  /**
+   * A function computed over the objects of a group; it can only appear in the select list of an aggregate
+   * [[SelectExpression]].
+   */
+  trait AggregateExpression extends Expression {
+    self: Product =>
+
+    def function: String
+  }
+
+  case class CountExpression() extends AggregateExpression with LeafNode {
+    val function = "count"
+
+    def dataType = DataTypes.LONG_TYPE
+
+    override def toString = "count()"
+  }
+
+  def count() = new CountExpression()
+
+  case class MaxExpression(child: Expression) extends AggregateExpression with UnaryNode {
+    val function = "max"
+
+    lazy val dataType = comparableType(this, child)
+
+    override def toString = s"max($child)"
+  }
+
+  def max(child: Expression) = new MaxExpression(child)
+
+  case class MinExpression(child: Expression) extends AggregateExpression with UnaryNode {
+    val function = "min"
+
+    lazy val dataType = comparableType(this, child)
+
+    override def toString = s"min($child)"
+  }
+
+  def min(child: Expression) = new MinExpression(child)
+
+  case class SumExpression(child: Expression) extends AggregateExpression with UnaryNode {
+    val function = "sum"
+
+    lazy val dataType = {
+      if (!resolved) {
+        throw new UnresolvedException(this,
+          s"datatype. Can not resolve due to unresolved child")
+      }
+      // the sum is computed exactly, as a big decimal, whatever the numeric type of the values
+      child.dataType match {
+        case _: DataTypes.ByteType | _: DataTypes.ShortType | _: DataTypes.IntType | _: DataTypes.LongType |
+             _: DataTypes.FloatType | _: DataTypes.DoubleType | _: DataTypes.BigIntegerType |
+             _: DataTypes.BigDecimalType => DataTypes.BIGDECIMAL_TYPE
+        case t => throw new ExpressionException(this, s"Cannot apply sum on ${t.getName}, it is not a numeric type")
+      }
+    }
+
+    override def toString = s"sum($child)"
+  }
+
+  def sum(child: Expression) = new SumExpression(child)
+
+  private def comparableType(e: AggregateExpression, child: Expression): IDataType[_] = {
+    if (!e.resolved) {
+      throw new UnresolvedException(e,
+        s"datatype. Can not resolve due to unresolved child")
+    }
+    if (child.dataType.getTypeCategory != TypeCategory.PRIMITIVE) {
+      throw new ExpressionException(e,
+        s"Cannot apply ${e.function} on ${child.dataType.getName}, it is not a primitive type")
+    }
+    child.dataType
+  }
 }
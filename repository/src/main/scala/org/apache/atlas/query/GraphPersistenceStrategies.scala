@@ -19,8 +19,8 @@
 package org.apache.atlas.query
 
 import com.thinkaurelius.titan.core.TitanVertex
-import com.tinkerpop.blueprints.Direction
-import org.apache.atlas.query.Expressions.{ComparisonExpression, ExpressionException}
+import com.tinkerpop.blueprints.{Compare, Contains, Direction}
+import org.apache.atlas.query.Expressions._
 import org.apache.atlas.query.TypeUtils.FieldInfo
 import org.apache.atlas.typesystem.persistence.Id
 import org.apache.atlas.typesystem.types.DataTypes._
@@ -111,6 +111,47 @@ trait GraphPersistenceStrategies {
         case _ => throw new ExpressionException(op, "Comparison operator not supported in Gremlin")
     }
 
+    /**
+     * The comparison an index query uses for a comparison in a query; None if an index query cannot evaluate it.
+     */
+    def indexQueryCompOp(op: ComparisonExpression): Option[Compare] = op.symbol match {
+        case "=" => Some(Compare.EQUAL)
+        case ">" => Some(Compare.GREATER_THAN)
+        case ">=" => Some(Compare.GREATER_THAN_EQUAL)
+        case "<" => Some(Compare.LESS_THAN)
+        case "<=" => Some(Compare.LESS_THAN_EQUAL)
+        case _ => None
+    }
+
+    /**
+     * Is the attribute indexed in the graph; see GraphBackedSearchIndexer.
+     */
+    def isIndexed(aInfo: AttributeInfo) =
+        aInfo.isIndexable && aInfo.dataType().getTypeCategory == TypeCategory.PRIMITIVE
+
+    /**
+     * The conjuncts of a filter condition that can be evaluated by the index query that finds the instances of a
+     * type: equality and range comparisons of indexed attributes of the instance with a literal.
+     * The returned predicates only narrow the instances; the condition must still be applied to them.
+     *
+     * @return the property key, comparison and literal of each predicate.
+     */
+    def indexPredicates(condExpr: Expression): List[(String, Compare, Literal[_])] = {
+        val conjuncts = condExpr match {
+            case LogicalExpression("and", children) => children
+            case c: ComparisonExpression => List(c)
+            case _ => Nil
+        }
+        def predicate(e: Expression): Option[(String, Compare, Literal[_])] = e match {
+            case c@ComparisonExpression(_, FieldExpression(_, fInfo, None), l: Literal[_])
+                if fInfo.attrInfo != null && !fInfo.isReverse && fInfo.traitName == null &&
+                    isIndexed(fInfo.attrInfo) =>
+                indexQueryCompOp(c).map((fieldNameInVertex(fInfo.dataType, fInfo.attrInfo), _, l))
+            case _ => None
+        }
+        conjuncts.flatMap(predicate(_))
+    }
+
     def loopObjectExpression(dataType: IDataType[_]) = {
       _typeTestExpression(dataType.getName, "it.object")
     }
@@ -139,6 +180,17 @@ trait GraphPersistenceStrategies {
      */
     def collectTypeInstancesIntoVar = true
 
+    /**
+     * Controls how queries are executed:
+     * - translated into a Gremlin script that is evaluated by a script engine.
+     * - executed by the [[NativeQueryEvaluator]], which walks the graph directly through the Blueprints API.
+     *
+     * Both produce the same results; the native evaluator avoids generating and compiling a script per query.
+     *
+     * @return
+     */
+    def executeNatively = false
+
     def typeTestExpression(typeName : String, intSeq : IntSequence) : Seq[String] = {
         if (collectTypeInstancesIntoVar)
             typeTestExpressionMultiStep(typeName, intSeq)
@@ -146,15 +198,36 @@ trait GraphPersistenceStrategies {
             typeTestExpressionUsingFilter(typeName)
     }
 
+    /**
+     * Collects only the instances of a type that satisfy the given index predicates, so the lookups are answered
+     * by the attribute indexes instead of scanning every instance of the type.
+     *
+     * @return None if instances are not collected into a variable; the caller then filters the type's instances.
+     */
+    def typeTestExpression(typeName : String, predicates : Seq[(String, Compare, Literal[_])],
+                           intSeq : IntSequence) : Option[Seq[String]] = {
+        if (collectTypeInstancesIntoVar && predicates.nonEmpty) {
+            val varName = s"_var_${intSeq.next}"
+            val has = predicates.map { case (key, op, l) =>
+                s""".has("$key", ${classOf[Compare].getName}.${op.name}, $l)"""
+            }.mkString
+            Some(Seq(
+                newSetVar(varName),
+                s"""g.query().has(${typeHasArgs(typeName)})$has.vertices()._().fill($varName)""",
+                s"$varName._()"
+            ))
+        } else {
+            None
+        }
+    }
+
     private def typeTestExpressionUsingFilter(typeName : String) : Seq[String] = {
       Seq(s"""filter${_typeTestExpression(typeName, "it")}""")
     }
 
   private def _typeTestExpression(typeName: String, itRef: String): String = {
-    s"""{(${itRef}.'${typeAttributeName}' == '${typeName}') |
-       |(${itRef}.'${superTypeAttributeName}' ?
-       |${itRef}.'${superTypeAttributeName}'.contains('${typeName}') : false)}""".
-      stripMargin.replace(System.getProperty("line.separator"), "")
+    val typeNames = TypeUtils.instanceTypeNames(typeName).map(n => s"'$n'").mkString("[", ",", "]")
+    s"""{${typeNames}.contains(${itRef}.'${typeAttributeName}')}"""
   }
 
     private def typeTestExpressionMultiStep(typeName : String, intSeq : IntSequence) : Seq[String] = {
@@ -163,7 +236,6 @@ trait GraphPersistenceStrategies {
         Seq(
             newSetVar(varName),
             fillVarWithTypeInstances(typeName, varName),
-            fillVarWithSubTypeInstances(typeName, varName),
             s"$varName._()"
         )
     }
@@ -171,15 +243,21 @@ trait GraphPersistenceStrategies {
     private def newSetVar(varName : String) = s"$varName = [] as Set"
 
     private def fillVarWithTypeInstances(typeName : String, fillVar : String) = {
-        s"""g.V().has("${typeAttributeName}", "${typeName}").fill($fillVar)"""
+        s"""g.query().has(${typeHasArgs(typeName)}).vertices()._().fill($fillVar)"""
     }
 
-    private def fillVarWithSubTypeInstances(typeName : String, fillVar : String) = {
-        s"""g.V().has("${superTypeAttributeName}", "${typeName}").fill($fillVar)"""
+    /**
+     * The arguments of a has step that matches the instances of a type and of its sub types, known from the
+     * TypeSystem, with a single lookup in the index of the type attribute.
+     */
+    private def typeHasArgs(typeName : String) = TypeUtils.instanceTypeNames(typeName) match {
+        case Seq(name) => s""""${typeAttributeName}", "${name}""""
+        case names => s""""${typeAttributeName}", ${classOf[Contains].getName}.IN, """ +
+            names.map(n => s""""$n"""").mkString("[", ", ", "]")
     }
 }
 
-object GraphPersistenceStrategy1 extends GraphPersistenceStrategies {
+class GraphPersistenceStrategy1 extends GraphPersistenceStrategies {
     val typeAttributeName = "typeName"
     val superTypeAttributeName = "superTypeNames"
     val idAttributeName = "guid"
@@ -325,3 +403,4 @@ object GraphPersistenceStrategy1 extends GraphPersistenceStrategies {
     }
 }
 
+object GraphPersistenceStrategy1 extends GraphPersistenceStrategy1
@@ -18,10 +18,11 @@
 
 package org.apache.atlas.query
 
-import javax.script.{Bindings, ScriptEngine, ScriptEngineManager}
+import javax.script.Bindings
 
 import com.thinkaurelius.titan.core.TitanGraph
 import com.tinkerpop.pipes.util.structures.Row
+import org.apache.atlas.repository.graph.GremlinScriptEnginePool
 import org.apache.atlas.query.TypeUtils.ResultWithPathStruct
 import org.apache.atlas.typesystem.json._
 import org.apache.atlas.typesystem.types._
@@ -36,12 +37,26 @@ case class GremlinQueryResult(query: String,
     def toJson = JsonHelper.toJson(this)
 }
 
-class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph) {
+/**
+ * Evaluates a [[GremlinQuery]] against the graph and converts the objects it returns into a
+ * [[GremlinQueryResult]]. Subclasses decide how the query is executed.
+ */
+abstract class QueryEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies,
+                              params: java.util.Map[String, AnyRef]) {
 
-    val manager: ScriptEngineManager = new ScriptEngineManager
-    val engine: ScriptEngine = manager.getEngineByName("gremlin-groovy")
-    val bindings: Bindings = engine.createBindings
-    bindings.put("g", g)
+    /**
+     * Executes the query.
+     * @return a List of the objects, or for a path expression the paths, that the query produced.
+     */
+    protected def execute(): java.util.List[AnyRef]
+
+    /**
+     * The query expression with its parameters, if any, replaced by their values.
+     */
+    def queryString: String = {
+        import scala.collection.JavaConversions._
+        params.foldLeft(qry.expr.toString) { case (s, (n, v)) => s.replace("\"" + n + "\"", "\"" + v + "\"")}
+    }
 
     /**
      *
@@ -60,7 +75,7 @@ class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceS
         val oPaths = iPaths.map { p =>
           persistenceStrategy.constructInstance(TypeSystem.getInstance().getIdType.getStructType, p)
         }.toList.asJava
-        val sType = qry.expr.dataType.asInstanceOf[StructType]
+        val sType = qry.resultExpr.dataType.asInstanceOf[StructType]
         val sInstance = sType.createInstance()
         sInstance.set(ResultWithPathStruct.pathAttrName, oPaths)
         sInstance.set(ResultWithPathStruct.resultAttrName, qryResultObj)
@@ -80,23 +95,23 @@ class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceS
     def evaluate(): GremlinQueryResult = {
         import scala.collection.JavaConversions._
         val rType = qry.expr.dataType
-        val oType = if (qry.isPathExpresion) qry.expr.children(0).dataType else rType
-        val rawRes = engine.eval(qry.queryStr, bindings)
+        val oType = if (qry.isPathExpresion) qry.resultExpr.children(0).dataType else rType
+        val rawRes = execute()
 
         if (!qry.hasSelectList) {
-            val rows = rawRes.asInstanceOf[java.util.List[AnyRef]].map { v =>
+            val rows = rawRes.map { v =>
                 val iV = instanceObject(v)
                 val o = persistenceStrategy.constructInstance(oType, iV)
               addPathStruct(v, o)
             }
-            GremlinQueryResult(qry.expr.toString, rType, rows.toList)
+            GremlinQueryResult(queryString, rType, rows.toList)
         } else {
             val sType = oType.asInstanceOf[StructType]
-            val rows = rawRes.asInstanceOf[java.util.List[AnyRef]].map { r =>
+            val rows = rawRes.map { r =>
               val rV = instanceObject(r).asInstanceOf[Row[java.util.List[AnyRef]]]
                 val sInstance = sType.createInstance()
                 val selExpr =
-                  (if (qry.isPathExpresion) qry.expr.children(0) else qry.expr).
+                  (if (qry.isPathExpresion) qry.resultExpr.children(0) else qry.resultExpr).
                     asInstanceOf[Expressions.SelectExpression]
                 selExpr.selectListWithAlias.foreach { aE =>
                     val cName = aE.alias
@@ -106,12 +121,46 @@ class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceS
                 }
               addPathStruct(r, sInstance)
             }
-            GremlinQueryResult(qry.expr.toString, rType, rows.toList)
+            GremlinQueryResult(queryString, rType, rows.toList)
         }
 
     }
 }
 
+object QueryEvaluator {
+
+    /**
+     * @return the evaluator for the execution backend chosen by the persistence strategy.
+     */
+    def apply(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph,
+              params: java.util.Map[String, AnyRef]): QueryEvaluator = {
+        if (persistenceStrategy.executeNatively) {
+            new NativeQueryEvaluator(qry, persistenceStrategy, g, params)
+        } else {
+            new GremlinEvaluator(qry, persistenceStrategy, g, params)
+        }
+    }
+
+    def apply(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph): QueryEvaluator =
+        apply(qry, persistenceStrategy, g, java.util.Collections.emptyMap[String, AnyRef]())
+}
+
+class GremlinEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph,
+                       params: java.util.Map[String, AnyRef])
+    extends QueryEvaluator(qry, persistenceStrategy, params) {
+
+    def this(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph) =
+        this(qry, persistenceStrategy, g, java.util.Collections.emptyMap[String, AnyRef]())
+
+    val engines: GremlinScriptEnginePool = GremlinScriptEnginePool.getInstance()
+    val bindings: Bindings = engines.createBindings
+    bindings.put("g", g)
+    scala.collection.JavaConversions.mapAsScalaMap(params).foreach { case (n, v) => bindings.put(n, v)}
+
+    protected def execute(): java.util.List[AnyRef] =
+        engines.eval(qry.queryStr, bindings).asInstanceOf[java.util.List[AnyRef]]
+}
+
 object JsonHelper {
 
     class GremlinQueryResultSerializer()
@@ -18,8 +18,10 @@
 
 package org.apache.atlas.query
 
+import com.google.common.collect.ImmutableSet
 import org.apache.atlas.query.Expressions._
 import org.apache.atlas.typesystem.types.DataTypes.TypeCategory
+import org.apache.atlas.typesystem.types.{IDataType, TypeSystem}
 
 import scala.collection.mutable
 import scala.collection.mutable.ArrayBuffer
@@ -28,15 +30,104 @@ trait IntSequence {
     def next: Int
 }
 
-case class GremlinQuery(expr: Expression, queryStr: String, resultMaping: Map[String, (String, Int)]) {
+/**
+ * A validated query expression, ready for evaluation. The queryStr is the Gremlin script for the expression; it is null
+ * if the persistence strategy executes queries natively. The typeSystemVersion and subTypeNames are the version of the
+ * TypeSystem and the sub types of the referenced types when the query was translated; the type tests of the script
+ * look up the instances of these sub types.
+ */
+case class GremlinQuery(expr: Expression, queryStr: String, resultMaping: Map[String, (String, Int)],
+                        typeSystemVersion: Long, subTypeNames: Map[String, ImmutableSet[String]]) {
 
     def hasSelectList = resultMaping != null
 
-    def isPathExpresion = expr.isInstanceOf[PathExpression]
+    /**
+     * The expression that the results are constructed from, i.e. the expression without the limit clause and the
+     * page order if it has them.
+     */
+    lazy val resultExpr = GremlinQuery.pagedExpr(expr)
+
+    def isPathExpresion = resultExpr.isInstanceOf[PathExpression]
+
+    /**
+     * The class and trait types this query was translated against.
+     */
+    lazy val referencedTypes: List[IDataType[_]] = GremlinQuery.referencedTypes(expr)
+
+    /**
+     * @return false if any of the referenced types has since been removed, redefined or given new sub types in the
+     *         given snapshot of the TypeSystem.
+     */
+    def isCurrent(typSystem: TypeSystem.Snapshot) = typSystem.getVersion == typeSystemVersion || referencedTypes.forall { t =>
+        GremlinQuery.isCurrent(t, typSystem) &&
+            subTypeNames.get(t.getName).exists(_ == typSystem.getSubTypeNames(t.getName))
+    }
+}
+
+object GremlinQuery {
+
+    def referencedTypes(e: Expression): List[IDataType[_]] = {
+        val l = ArrayBuffer[IDataType[_]]()
+        e.traverseUp {
+            case c: ClassExpression => l += c.dataType
+            case t: TraitExpression => l += t.dataType
+        }
+        l.toList
+    }
+
+    def isCurrent(t: IDataType[_], typSystem: TypeSystem.Snapshot) =
+        typSystem.isRegistered(t.getName) && (typSystem.getDataType(classOf[IDataType[_]], t.getName) eq t)
+
+    /**
+     * The version of the TypeSystem, if the class and trait types an expression refers to are current in it, and
+     * -1 otherwise, e.g. when the types changed after the expression was parsed.
+     */
+    def typeSystemVersion(e: Expression, typSystem: TypeSystem.Snapshot): Long = {
+        val version = typSystem.getVersion
+        if (referencedTypes(e).forall(isCurrent(_, typSystem))) version else -1
+    }
+
+    /**
+     * The current sub types of the class and trait types an expression refers to.
+     */
+    def subTypeNames(e: Expression, typSystem: TypeSystem.Snapshot): Map[String, ImmutableSet[String]] =
+        referencedTypes(e).map(t => t.getName -> typSystem.getSubTypeNames(t.getName)).toMap
+
+    def pagedExpr(e: Expression): Expression = e match {
+        case LimitExpression(child, _, _) => pagedExpr(child)
+        case IdOrderExpression(child) => pagedExpr(child)
+        case _ => e
+    }
 }
 
 trait SelectExpressionHandling {
 
+    /**
+     * Qualifies the unqualified field references in an expression with a reference to the given alias.
+     */
+    class DecorateFieldWithAlias(aliasE: AliasExpression)
+        extends PartialFunction[Expression, Expression] {
+        def isDefinedAt(e: Expression) = true
+
+        def apply(e: Expression) = e match {
+            case fe@FieldExpression(fieldName, fInfo, None) =>
+                FieldExpression(fieldName, fInfo, Some(BackReference(aliasE.alias, aliasE.child, None)))
+            case _ => e
+        }
+    }
+
+    /**
+     * Matches a scan of the instances of a class, optionally aliased; the input of a filter whose conditions can
+     * be pushed into the index queries that collect the instances.
+     */
+    object ClassScan {
+        def unapply(e: Expression): Option[(String, Option[String])] = e match {
+            case ClassExpression(clsName) => Some((clsName, None))
+            case AliasExpression(ClassExpression(clsName), alias) => Some((clsName, Some(alias)))
+            case _ => None
+        }
+    }
+
     /**
      * To aide in gremlinQuery generation add an alias to the input of SelectExpressions
      */
@@ -46,18 +137,17 @@ trait SelectExpressionHandling {
 
         def isDefinedAt(e: Expression) = true
 
-        class DecorateFieldWithAlias(aliasE: AliasExpression)
-            extends PartialFunction[Expression, Expression] {
-            def isDefinedAt(e: Expression) = true
-
-            def apply(e: Expression) = e match {
-                case fe@FieldExpression(fieldName, fInfo, None) =>
-                    FieldExpression(fieldName, fInfo, Some(BackReference(aliasE.alias, aliasE.child, None)))
-                case _ => e
-            }
-        }
-
         def apply(e: Expression) = e match {
+            case SelectExpression(GroupByExpression(input, keys), selList) => {
+                idx = idx + 1
+                val aliasE = input match {
+                    case a: AliasExpression => a
+                    case _ => AliasExpression(input, s"_src$idx")
+                }
+                val decorate = new DecorateFieldWithAlias(aliasE)
+                SelectExpression(GroupByExpression(aliasE, keys.map(_.transformUp(decorate))),
+                    selList.map(_.transformUp(decorate)))
+            }
             case SelectExpression(aliasE@AliasExpression(_, _), selList) => {
                 idx = idx + 1
                 SelectExpression(aliasE, selList.map(_.transformUp(new DecorateFieldWithAlias(aliasE))))
@@ -120,15 +210,95 @@ trait SelectExpressionHandling {
         m.toMap
     }
 
+    /**
+     * The input of an aggregate SelectExpression, its group keys and the alias of the input. The rows of an
+     * aggregate select have a single column, named after the alias, that holds the values of the select list.
+     */
+    def aggregateInput(sel: SelectExpression): (Expression, List[Expression], String) = sel.child match {
+        case GroupByExpression(input@AliasExpression(_, alias), keys) => (input, keys, alias)
+        case input@AliasExpression(_, alias) => (input, Nil, alias)
+        case _ => throw new GremlinTranslationException(sel, "input of aggregate select is not aliased")
+    }
+
+    def aggregateResultMapping(sel: SelectExpression): Map[String, (String, Int)] = {
+        val (_, _, src) = aggregateInput(sel)
+        sel.selectListWithAlias.zipWithIndex.map { case (se, idx) => (se.alias, (src, idx))}.toMap
+    }
+
+    /**
+     * The aggregate function of each select list entry; null for an entry that is a group key.
+     */
+    def aggregateFunctions(sel: SelectExpression): List[String] = sel.selectListWithAlias.map {
+        _.child match {
+            case a: AggregateExpression => a.function
+            case _ => null
+        }
+    }
+
+    /**
+     * The expression whose values are aggregated for a select list entry; None for count.
+     */
+    def aggregatedExpression(e: Expression): Option[Expression] = e match {
+        case CountExpression() => None
+        case a: AggregateExpression => Some(a.children.head)
+        case _ => Some(e)
+    }
+
+    /**
+     * An aggregate select must be the result of the query, and the entries of its select list must be either
+     * aggregate functions or group keys. Aggregate functions can only be entries of its select list.
+     */
+    def validateAggregates(topE: Expression): PartialFunction[Expression, Unit] = {
+        case sel@SelectExpression(child, selList) if sel.isAggregate => {
+            if (!(sel fastEquals topE)) {
+                throw new GremlinTranslationException(sel, "aggregates are only supported in the select list of a query")
+            }
+            val keys = child match {
+                case GroupByExpression(_, k) => k
+                case _ => Nil
+            }
+            sel.selectListWithAlias.foreach { se =>
+                se.child match {
+                    case a: AggregateExpression => a.children.foreach(_.traverseDown {
+                        case n: AggregateExpression =>
+                            throw new GremlinTranslationException(a, "aggregate functions cannot be nested")
+                    })
+                    case e if keys.exists(_ fastEquals e) =>
+                    case e => throw new GremlinTranslationException(e,
+                        "select list of an aggregate select can only contain group keys and aggregate functions")
+                }
+            }
+        }
+        case g: GroupByExpression if !(topE match {
+            case SelectExpression(c, _) => c fastEquals g
+            case _ => false
+        }) => throw new GremlinTranslationException(g, "groupby is only supported as the input of a select")
+        case s: SelectExpression =>
+            s.selectList.foreach(_.traverseDown {
+                case a: AggregateExpression =>
+                    throw new GremlinTranslationException(a, "aggregate function is not an entry of the select list")
+            })
+    }
+
 }
 
 class GremlinTranslationException(expr: Expression, reason: String) extends
 ExpressionException(expr, s"Unsupported Gremlin translation: $reason")
 
+object GremlinTranslator {
+
+    /**
+     * The class the generated scripts compute orderby and aggregate clauses with.
+     */
+    val AGGREGATION = "org.apache.atlas.query.QueryAggregation"
+}
+
 class GremlinTranslator(expr: Expression,
                         gPersistenceBehavior: GraphPersistenceStrategies)
     extends SelectExpressionHandling {
 
+    import GremlinTranslator.AGGREGATION
+
     val preStatements = ArrayBuffer[String]()
     val postStatements = ArrayBuffer[String]()
 
@@ -188,6 +358,31 @@ class GremlinTranslator(expr: Expression,
       }
     }
 
+    val pageOrder: PartialFunction[Expression, Expression] = {
+        case IdOrderExpression(child) => orderById(child)
+    }
+
+    /**
+     * Orders the objects that the results of an expression are made from on a stable key: the input of a select,
+     * and the input of the groups of an aggregate select. Results ordered or limited by the query, paths and the
+     * single row of an aggregate select without groups keep their order, as do objects that have no such key.
+     */
+    def orderById(e: Expression): Expression = e match {
+        case o: OrderExpression => o
+        case l: LimitExpression => l
+        case p: PathExpression => p
+        case SelectExpression(GroupByExpression(AliasExpression(input, alias), keys), selList) =>
+            SelectExpression(GroupByExpression(AliasExpression(orderById(input), alias), keys), selList)
+        case sel: SelectExpression if sel.isAggregate => sel
+        case SelectExpression(AliasExpression(input, alias), selList) =>
+            SelectExpression(AliasExpression(orderById(input), alias), selList)
+        case _ => e.dataType.getTypeCategory match {
+            case TypeCategory.CLASS | TypeCategory.TRAIT | TypeCategory.STRUCT | TypeCategory.PRIMITIVE |
+                 TypeCategory.ENUM => IdOrderExpression(e)
+            case _ => e
+        }
+    }
+
     def typeTestExpression(typeName : String) : String = {
         val stats = gPersistenceBehavior.typeTestExpression(typeName, counter)
         preStatements ++= stats.init
@@ -235,12 +430,36 @@ class GremlinTranslator(expr: Expression,
                 case None => s"""has("$fieldGremlinExpr", ${gPersistenceBehavior.gremlinCompOp(c)}, $l)"""
             }
         }
+        case FilterExpression(child@ClassScan(clsName, alias), condExpr)
+            if gPersistenceBehavior.indexPredicates(condExpr).nonEmpty => {
+            val predicates = gPersistenceBehavior.indexPredicates(condExpr)
+            gPersistenceBehavior.typeTestExpression(clsName, predicates, counter) match {
+                case Some(stats) => {
+                    preStatements ++= stats.init
+                    val aliasStep = alias.map(a => s""".as("$a")""").getOrElse("")
+                    s"${stats.last}$aliasStep.${genQuery(condExpr, inSelect)}"
+                }
+                case None => s"${genQuery(child, inSelect)}.${genQuery(condExpr, inSelect)}"
+            }
+        }
         case fil@FilterExpression(child, condExpr) => {
             s"${genQuery(child, inSelect)}.${genQuery(condExpr, inSelect)}"
         }
         case l@LogicalExpression(symb, children) => {
             s"""$symb${children.map("_()." + genQuery(_, inSelect)).mkString("(", ",", ")")}"""
         }
+        case sel@SelectExpression(child, selList) if sel.isAggregate => {
+            val (input, keys, src) = aggregateInput(sel)
+            val exprs = sel.selectListWithAlias.map(se => aggregatedExpression(se.child)) ++ keys.map(Some(_))
+            val values = exprs.map {
+                case Some(e) => s"$AGGREGATION.value(${genQuery(e, true)})"
+                case None => "null"
+            }
+            val functions = aggregateFunctions(sel).map(f => if (f == null) "null" else s""""$f"""")
+            val inputQry = graphQuery(genQuery(input, inSelect))
+            val rows = s"""$inputQry.transform{${values.mkString("[", ",", "]")}}"""
+            s"""$AGGREGATION.aggregate($rows, ${functions.mkString("[", ",", "]")}, ${keys.size}, "$src")._()"""
+        }
         case sel@SelectExpression(child, selList) => {
             val m = groupSelectExpressionsBySrc(sel)
             var srcNamesList: List[String] = List()
@@ -291,14 +510,44 @@ class GremlinTranslator(expr: Expression,
         case pe@PathExpression(child) => {
           s"${genQuery(child, inSelect)}.path"
         }
+        case OrderExpression(child, odrBy, asc) => {
+            val key = odrBy.transformUp(new DecorateFieldWithAlias(AliasExpression(child, "_order")))
+            val (a, b) = if (asc) ("it.a", "it.b") else ("it.b", "it.a")
+            val keyClosure = s"{$AGGREGATION.value(${genQuery(key, true)})}"
+            s"""${genQuery(child, inSelect)}.order{def k = $keyClosure; $AGGREGATION.compare(k($a), k($b))}"""
+        }
+        case IdOrderExpression(child) => {
+            val order = child.dataType.getTypeCategory match {
+                case TypeCategory.PRIMITIVE | TypeCategory.ENUM => s"$AGGREGATION.compare(it.a, it.b)"
+                case _ => {
+                    val id = gPersistenceBehavior.idAttributeName
+                    s"""$AGGREGATION.compare(it.a.getProperty("$id"), it.b.getProperty("$id")) ?: """ +
+                        s"$AGGREGATION.compare(it.a.id, it.b.id)"
+                }
+            }
+            s"${genQuery(child, inSelect)}.order{$order}"
+        }
+        case LimitExpression(child, limit, offset) => {
+          val high = math.min(offset.value.toLong + limit.value - 1, Int.MaxValue)
+          s"${genQuery(child, inSelect)}.range(${offset.value}, $high)"
+        }
         case x => throw new GremlinTranslationException(x, "expression not yet supported")
     }
 
+    /**
+     * Prefixes a query that starts from the vertices of the graph with the step that produces them, if the
+     * persistence strategy requires it.
+     */
+    private def graphQuery(q: String): String =
+        if (gPersistenceBehavior.addGraphVertexPrefix(preStatements)) s"g.V.$q" else q
+
     def genFullQuery(expr: Expression): String = {
         var q = genQuery(expr, false)
 
-        if(gPersistenceBehavior.addGraphVertexPrefix(preStatements)) {
-            q = s"g.V.$q"
+        // an aggregate select starts from the list of its rows
+        q = GremlinQuery.pagedExpr(expr) match {
+            case sel: SelectExpression if sel.isAggregate => q
+            case _ => graphQuery(q)
         }
 
         q = s"$q.toList()"
@@ -315,23 +564,35 @@ class GremlinTranslator(expr: Expression,
         var e1 = expr.transformUp(wrapAndRule)
 
         e1.traverseUp(validateComparisonForm)
+        e1.traverseUp(validateAggregates(GremlinQuery.pagedExpr(e1)))
 
         e1 = e1.transformUp(new AddAliasToSelectInput)
         e1.traverseUp(validateSelectExprHaveOneSrc)
         e1 = e1.transformUp(addAliasToLoopInput())
-        e1 = e1.transformUp(instanceClauseToTop(e1))
-        e1 = e1.transformUp(traitClauseWithInstanceForTop(e1))
-
-        e1 match {
-            case e1: SelectExpression => {
-                val rMap = buildResultMapping(e1)
-                GremlinQuery(e1, genFullQuery(e1), rMap)
+        e1 = e1.transformUp(instanceClauseToTop(GremlinQuery.pagedExpr(e1)))
+        e1 = e1.transformUp(traitClauseWithInstanceForTop(GremlinQuery.pagedExpr(e1)))
+        e1 = e1.transformUp(pageOrder)
+
+        // read from one snapshot before the type tests are generated, so that types defined meanwhile make the
+        // query stale
+        val typeSystem = TypeSystem.getInstance().getSnapshot
+        val typeSystemVersion = GremlinQuery.typeSystemVersion(e1, typeSystem)
+        val subTypeNames = GremlinQuery.subTypeNames(e1, typeSystem)
+        val queryStr = if (gPersistenceBehavior.executeNatively) null else genFullQuery(e1)
+
+        GremlinQuery.pagedExpr(e1) match {
+            case se: SelectExpression if se.isAggregate => {
+                GremlinQuery(e1, queryStr, aggregateResultMapping(se), typeSystemVersion, subTypeNames)
+            }
+            case se: SelectExpression => {
+                val rMap = buildResultMapping(se)
+                GremlinQuery(e1, queryStr, rMap, typeSystemVersion, subTypeNames)
             }
             case pe@PathExpression(se@SelectExpression(child, selectList)) => {
               val rMap = buildResultMapping(se)
-              GremlinQuery(e1, genFullQuery(e1), rMap)
+              GremlinQuery(e1, queryStr, rMap, typeSystemVersion, subTypeNames)
             }
-            case e1 => GremlinQuery(e1, genFullQuery(e1), null)
+            case _ => GremlinQuery(e1, queryStr, null, typeSystemVersion, subTypeNames)
         }
 
     }
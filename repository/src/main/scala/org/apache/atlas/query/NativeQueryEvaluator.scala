@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.query
+
+import com.thinkaurelius.titan.core.TitanGraph
+import com.tinkerpop.blueprints.{Compare, Contains, Direction, Element, Graph, Vertex}
+import com.tinkerpop.pipes.util.structures.Row
+import org.apache.atlas.query.Expressions._
+import org.apache.atlas.typesystem.types.DataTypes.TypeCategory
+
+import scala.collection.JavaConversions._
+import scala.collection.mutable
+
+/**
+ * Executes a [[GremlinQuery]] by walking the graph through the Blueprints API, instead of evaluating the Gremlin script
+ * for it. The expression tree is evaluated as a chain of lazy iterators that behave like the Gremlin pipes the
+ * [[GremlinTranslator]] generates, so that the results, and their order, are the same as those of the
+ * [[GremlinEvaluator]]:
+ * - instances of a type are collected with an index lookup of the names of the type and of its sub types. The
+ *   indexed predicates of a filter on the instances are added to the lookups, see [[GraphPersistenceStrategies]].
+ * - a condition holds for an object if evaluating it from that object produces a result. Like in Gremlin, the
+ *   condition does not see the aliases of the enclosing expression.
+ * - a loop feeds the objects its body produces back into the body before it takes the next input object.
+ * - each object carries the path that led to it, and the objects bound to the aliases along that path.
+ * - orderby and aggregate clauses, and the order of pages, are computed with [[QueryAggregation]], like in the
+ *   Gremlin scripts.
+ */
+class NativeQueryEvaluator(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph,
+                           params: java.util.Map[String, AnyRef])
+    extends QueryEvaluator(qry, persistenceStrategy, params) with SelectExpressionHandling {
+
+    def this(qry: GremlinQuery, persistenceStrategy: GraphPersistenceStrategies, g: TitanGraph) =
+        this(qry, persistenceStrategy, g, java.util.Collections.emptyMap[String, AnyRef]())
+
+    /**
+     * An object produced by a step of the evaluation.
+     * @param obj the vertex, or value, produced by the step.
+     * @param path the objects that led to obj, most recent first.
+     * @param aliases the objects bound to the aliases on the path.
+     * @param loops the number of times obj went through the body of the enclosing loop.
+     */
+    case class Traverser(obj: AnyRef, path: List[AnyRef], aliases: Map[String, Traverser], loops: Int) {
+
+        def step(o: AnyRef) = Traverser(o, o :: path, aliases, loops)
+
+        def restart = Traverser(obj, List(obj), Map(), loops)
+    }
+
+    object Traverser {
+        def apply(o: AnyRef): Traverser = Traverser(o, List(o), Map(), 0)
+    }
+
+    protected def execute(): java.util.List[AnyRef] = {
+        val starts: Iterator[Traverser] =
+            if (persistenceStrategy.collectTypeInstancesIntoVar) Iterator.empty
+            else (g: Graph).getVertices.iterator.map(v => Traverser(v))
+
+        val l = new java.util.ArrayList[AnyRef]()
+        eval(qry.expr, starts).foreach(t => l.add(t.obj))
+        l
+    }
+
+    private def eval(expr: Expression, in: Iterator[Traverser]): Iterator[Traverser] = expr match {
+        case ClassExpression(clsName) =>
+            typeInstances(clsName, in)
+        case TraitExpression(clsName) =>
+            typeInstances(clsName, in)
+        case fe@FieldExpression(fieldName, fInfo, child) if fe.dataType.getTypeCategory == TypeCategory.PRIMITIVE => {
+            val fN = persistenceStrategy.fieldNameInVertex(fInfo.dataType, fInfo.attrInfo)
+            eval(child, in).map(t => t.step(property(t.obj, fN)))
+        }
+        case fe@FieldExpression(fieldName, fInfo, child)
+            if fe.dataType.getTypeCategory == TypeCategory.CLASS || fe.dataType.getTypeCategory == TypeCategory.STRUCT => {
+            val direction = if (fInfo.isReverse) Direction.IN else Direction.OUT
+            val edgeLbl = persistenceStrategy.edgeLabel(fInfo)
+            eval(child, in).flatMap(adjacent(_, direction, edgeLbl))
+        }
+        case fe@FieldExpression(fieldName, fInfo, child) if fInfo.traitName != null => {
+            val direction = toDirection(persistenceStrategy.instanceToTraitEdgeDirection)
+            val edgeLbl = persistenceStrategy.edgeLabel(fInfo)
+            eval(child, in).flatMap(adjacent(_, direction, edgeLbl))
+        }
+        case c@ComparisonExpression(symb, f@FieldExpression(fieldName, fInfo, ch), l: Literal[_]) => {
+            val fN = persistenceStrategy.fieldNameInVertex(fInfo.dataType, fInfo.attrInfo)
+            val op = persistenceStrategy.gremlinCompOp(c)
+            val v = literalValue(l)
+            eval(ch, in).filter(t => compare(op, property(t.obj, fN), v))
+        }
+        case FilterExpression(ClassScan(clsName, alias), condExpr)
+            if persistenceStrategy.collectTypeInstancesIntoVar &&
+                persistenceStrategy.indexPredicates(condExpr).nonEmpty => {
+            val instances = typeInstances(clsName, persistenceStrategy.indexPredicates(condExpr))
+            eval(condExpr, alias.map(a => instances.map(t => t.copy(aliases = t.aliases + (a -> t)))).getOrElse(instances))
+        }
+        case FilterExpression(child, condExpr) =>
+            eval(condExpr, eval(child, in))
+        case LogicalExpression(symb, children) =>
+            in.filter { t =>
+                def holds(e: Expression) = eval(e, Iterator(t.restart)).hasNext
+                if (symb == "and") children.forall(holds) else children.exists(holds)
+            }
+        case sel@SelectExpression(child, selList) if sel.isAggregate => {
+            val (input, keys, src) = aggregateInput(sel)
+            val exprs = sel.selectListWithAlias.map(se => aggregatedExpression(se.child)) ++ keys.map(Some(_))
+            val rows = eval(input, in).map { t =>
+                val start = t.restart
+                val values: java.util.List[AnyRef] = exprs.map(_.map(value(_, start)).orNull)
+                values
+            }
+            QueryAggregation.aggregate(rows, aggregateFunctions(sel), keys.size, src).iterator.map(r => Traverser(r))
+        }
+        case sel@SelectExpression(child, selList) => {
+            val srcs = groupSelectExpressionsBySrc(sel).toList
+            val srcNames: java.util.List[String] = srcs.map(_._1)
+            eval(child, in).map { t =>
+                val columns: java.util.List[java.util.List[AnyRef]] = srcs.map { case (src, selExprs) =>
+                    val start = t.aliases.getOrElse(src, t).restart
+                    val values: java.util.List[AnyRef] = selExprs.map(value(_, start))
+                    values
+                }
+                t.step(new Row(columns, srcNames))
+            }
+        }
+        case loop@LoopExpression(input, loopExpr, times) =>
+            val isInput = instanceTest(input.dataType.getName)
+            loopOver(eval(input, in), eval(loopExpr, _), times.map(_.value.intValue()), t => isInput(t.obj))
+        case BackReference(alias, _, _) =>
+            in.map(t => t.aliases.get(alias).map(_.copy(aliases = t.aliases, loops = t.loops)).getOrElse(t))
+        case AliasExpression(child, alias) =>
+            eval(child, in).map(t => t.copy(aliases = t.aliases + (alias -> t)))
+        case isTraitLeafExpression(traitName, Some(clsExp)) =>
+            in.flatMap(adjacent(_, Direction.OUT, persistenceStrategy.traitLabel(clsExp.dataType, traitName)))
+        case isTraitUnaryExpression(traitName, child) =>
+            in.flatMap(adjacent(_, Direction.OUT, persistenceStrategy.traitLabel(child.dataType, traitName)))
+        case hasFieldLeafExpression(fieldName, Some(clsExp)) =>
+            in.filter(t => property(t.obj, fieldName) != null)
+        case hasFieldUnaryExpression(fieldName, child) =>
+            eval(child, in).filter(t => property(t.obj, fieldName) != null)
+        case ArithmeticExpression(symb, left, right) =>
+            in.map(t => t.step(arithmetic(symb, value(left, t), value(right, t))))
+        case l: Literal[_] =>
+            in.map(t => t.step(literalValue(l)))
+        case TraitInstanceExpression(child) => {
+            val direction = toDirection(persistenceStrategy.traitToInstanceEdgeDirection)
+            eval(child, in).flatMap(adjacent(_, direction))
+        }
+        case InstanceExpression(child) =>
+            eval(child, in)
+        case PathExpression(child) =>
+            eval(child, in).map(t => t.step(seqAsJavaList(t.path.reverse)))
+        case OrderExpression(child, odrBy, asc) => {
+            val keyed = eval(child, in).map(t => (value(odrBy, t.restart), t)).toList
+            val sorted = keyed.sortWith { (x, y) =>
+                if (asc) QueryAggregation.compare(x._1, y._1) < 0 else QueryAggregation.compare(y._1, x._1) < 0
+            }
+            sorted.iterator.map(_._2)
+        }
+        case IdOrderExpression(child) => {
+            val key: Traverser => (AnyRef, AnyRef) = child.dataType.getTypeCategory match {
+                case TypeCategory.PRIMITIVE | TypeCategory.ENUM => t => (t.obj, null)
+                case _ => {
+                    val id = persistenceStrategy.idAttributeName
+                    t => (property(t.obj, id), t.obj match {
+                        case e: Element => e.getId
+                        case _ => null
+                    })
+                }
+            }
+            val keyed = eval(child, in).map(t => (key(t), t)).toList
+            val sorted = keyed.sortWith { (x, y) =>
+                val c = QueryAggregation.compare(x._1._1, y._1._1)
+                (if (c != 0) c else QueryAggregation.compare(x._1._2, y._1._2)) < 0
+            }
+            sorted.iterator.map(_._2)
+        }
+        case LimitExpression(child, limit, offset) =>
+            eval(child, in).drop(offset.value).take(limit.value)
+        case x => throw new GremlinTranslationException(x, "expression not yet supported")
+    }
+
+    private def eval(expr: Option[Expression], in: Iterator[Traverser]): Iterator[Traverser] =
+        expr.map(eval(_, in)).getOrElse(in)
+
+    /**
+     * @return the first object produced by evaluating the expression from the given object, or null.
+     */
+    private def value(expr: Expression, t: Traverser): AnyRef = {
+        val r = eval(expr, Iterator(t))
+        if (r.hasNext) r.next().obj else null
+    }
+
+    private def typeInstances(typeName: String, in: Iterator[Traverser]): Iterator[Traverser] = {
+        if (persistenceStrategy.collectTypeInstancesIntoVar) {
+            typeInstances(typeName, Nil)
+        } else {
+            val isInstance = instanceTest(typeName)
+            in.filter(t => isInstance(t.obj))
+        }
+    }
+
+    /**
+     * The instances of a type that satisfy the given index predicates, collected with an index query.
+     */
+    private def typeInstances(typeName: String, predicates: List[(String, Compare, Literal[_])]): Iterator[Traverser] = {
+        val typeNames = TypeUtils.instanceTypeNames(typeName)
+        val typeQuery = typeNames match {
+            case Seq(name) => (g: Graph).query().has(persistenceStrategy.typeAttributeName, name)
+            case _ =>
+                (g: Graph).query().has(persistenceStrategy.typeAttributeName, Contains.IN, seqAsJavaList(typeNames))
+        }
+        val query = predicates.foldLeft(typeQuery) {
+            case (q, (key, op, l)) => q.has(key, op, literalValue(l))
+        }
+        query.vertices().iterator.map(v => Traverser(v))
+    }
+
+    private def instanceTest(typeName: String): AnyRef => Boolean = {
+        val typeNames = TypeUtils.instanceTypeNames(typeName).toSet
+        o => property(o, persistenceStrategy.typeAttributeName) match {
+            case name: String => typeNames.contains(name)
+            case _ => false
+        }
+    }
+
+    private def adjacent(t: Traverser, direction: Direction, labels: String*): Iterator[Traverser] = t.obj match {
+        case v: Vertex => v.getVertices(direction, labels: _*).iterator.map(t.step)
+        case _ => Iterator.empty
+    }
+
+    private def property(o: AnyRef, key: String): AnyRef = o match {
+        case e: Element => e.getProperty[AnyRef](key)
+        case _ => null
+    }
+
+    private def toDirection(direction: String) = direction match {
+        case "out" => Direction.OUT
+        case "in" => Direction.IN
+        case _ => Direction.BOTH
+    }
+
+    private def literalValue(l: Literal[_]): AnyRef = l.value match {
+        case s: String if params.containsKey(s) => params.get(s)
+        case v => v.asInstanceOf[AnyRef]
+    }
+
+    private def compare(op: String, a: AnyRef, b: AnyRef): Boolean = op match {
+        case "T.eq" => NativeQueryEvaluator.equal(a, b)
+        case "T.neq" => !NativeQueryEvaluator.equal(a, b)
+        case _ if a == null || b == null => false
+        case "T.gt" => NativeQueryEvaluator.compareTo(a, b) > 0
+        case "T.gte" => NativeQueryEvaluator.compareTo(a, b) >= 0
+        case "T.lt" => NativeQueryEvaluator.compareTo(a, b) < 0
+        case "T.lte" => NativeQueryEvaluator.compareTo(a, b) <= 0
+    }
+
+    private def arithmetic(symb: String, a: AnyRef, b: AnyRef): AnyRef = (a, b) match {
+        case (x: Number, y: Number) => {
+            val l = NativeQueryEvaluator.toBigDecimal(x)
+            val r = NativeQueryEvaluator.toBigDecimal(y)
+            symb match {
+                case "+" => l.add(r)
+                case "-" => l.subtract(r)
+                case "*" => l.multiply(r)
+                case "/" => l.divide(r, java.math.MathContext.DECIMAL128)
+                case "%" => l.remainder(r)
+            }
+        }
+        case (x: String, y) if symb == "+" => x + y
+        case _ => null
+    }
+
+    /**
+     * Evaluates a loop like the Gremlin loop step: an object produced by the body is fed back into it while the loop
+     * count is under the given limit, and is emitted if the loop ends for it or it passes the emit test. Objects fed
+     * back are processed before the next input object.
+     */
+    private def loopOver(starts: Iterator[Traverser], body: Iterator[Traverser] => Iterator[Traverser],
+                         times: Option[Int], emit: Traverser => Boolean): Iterator[Traverser] = {
+        val loopBack = mutable.Queue[Traverser]()
+        val bodyStarts = new Iterator[Traverser] {
+            def hasNext = loopBack.nonEmpty || starts.hasNext
+
+            def next() = if (loopBack.nonEmpty) loopBack.dequeue() else starts.next().copy(loops = 1)
+        }
+        val bodyEnds = body(bodyStarts)
+
+        new Iterator[Traverser] {
+            private var nextEnd: Traverser = null
+
+            def hasNext = {
+                while (nextEnd == null && bodyEnds.hasNext) {
+                    val t = bodyEnds.next()
+                    if (times.forall(t.loops < _)) {
+                        loopBack.enqueue(t.copy(loops = t.loops + 1))
+                        if (emit(t)) {
+                            nextEnd = t
+                        }
+                    } else {
+                        nextEnd = t
+                    }
+                }
+                nextEnd != null
+            }
+
+            def next() = {
+                if (!hasNext) {
+                    throw new NoSuchElementException
+                }
+                val t = nextEnd
+                nextEnd = null
+                t
+            }
+        }
+    }
+}
+
+object NativeQueryEvaluator {
+
+    def toBigDecimal(n: Number): java.math.BigDecimal = n match {
+        case b: java.math.BigDecimal => b
+        case b: java.math.BigInteger => new java.math.BigDecimal(b)
+        case _: java.lang.Byte | _: java.lang.Short | _: java.lang.Integer | _: java.lang.Long =>
+            java.math.BigDecimal.valueOf(n.longValue())
+        case _ => new java.math.BigDecimal(n.doubleValue())
+    }
+
+    def equal(a: AnyRef, b: AnyRef): Boolean = (a, b) match {
+        case (x: Number, y: Number) => toBigDecimal(x).compareTo(toBigDecimal(y)) == 0
+        case _ => a == b
+    }
+
+    def compareTo(a: AnyRef, b: AnyRef): Int = (a, b) match {
+        case (x: Number, y: Number) => toBigDecimal(x).compareTo(toBigDecimal(y))
+        case (x: Comparable[_], y) => x.asInstanceOf[Comparable[AnyRef]].compareTo(y)
+        case _ => throw new IllegalArgumentException(s"Cannot compare $a with $b")
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.query
+
+import org.apache.atlas.query.Expressions._
+
+import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * A DSL query with its string literals replaced by named parameters. Queries that differ only in
+ * their string literals have the same parameterized form, and so can share a translated
+ * [[GremlinQuery]] that is evaluated with different bindings.
+ */
+case class ParameterizedQuery(queryStr: String, params: List[String]) {
+
+    def isParameterized = params.nonEmpty
+
+    def bindings: java.util.Map[String, AnyRef] = {
+        val m = new java.util.HashMap[String, AnyRef]()
+        params.zipWithIndex.foreach { case (p, i) => m.put(ParameterizedQuery.paramName(i), p)}
+        m
+    }
+}
+
+object ParameterizedQuery {
+
+    val PARAM_PREFIX = "__atlas_param_"
+
+    private lazy val lexer = new QueryParser().lexical
+
+    def paramName(idx: Int) = s"$PARAM_PREFIX$idx"
+
+    /**
+     * Replaces each string literal in the query with a placeholder literal naming its parameter.
+     * A query the lexer cannot tokenize is returned unchanged, so that parsing reports the error.
+     */
+    def apply(query: String): ParameterizedQuery = {
+        val q = new StringBuilder
+        val params = ArrayBuffer[String]()
+        var last = 0
+        var scanner = new lexer.Scanner(query)
+        while (!scanner.atEnd) {
+            scanner.first match {
+                case lexer.StringLit(s) => {
+                    // the lexer does not support escapes, so the token is the literal and its quotes
+                    val end = scanner.rest.offset
+                    q.append(query.substring(last, end - s.length - 2)).append('"').append(paramName(params.size))
+                        .append('"')
+                    params += s
+                    last = end
+                }
+                case lexer.ErrorToken(_) => return ParameterizedQuery(query, Nil)
+                case _ =>
+            }
+            scanner = scanner.rest
+        }
+        q.append(query.substring(last))
+        ParameterizedQuery(q.toString, params.toList)
+    }
+
+    /**
+     * Rewrites a query translated from the parameterized form to read its parameters from bound
+     * variables. Returns None if a parameter is not used as a literal, for e.g. a quoted alias,
+     * in which case the query has to be translated with its literals in place.
+     */
+    def bind(q: GremlinQuery, paramCount: Int): Option[GremlinQuery] = {
+        val literals = mutable.Set[String]()
+        q.expr.traverseUp {
+            case l: Literal[_] if l.value.isInstanceOf[String] => literals += l.value.asInstanceOf[String]
+        }
+
+        val names = (0 until paramCount).map(paramName)
+        if (!names.forall(literals.contains)) {
+            None
+        } else if (q.queryStr == null) {
+            // natively executed queries read the parameters when they are evaluated
+            Some(q)
+        } else {
+            Some(q.copy(queryStr = names.foldLeft(q.queryStr) { (s, n) => s.replace("\"" + n + "\"", n)}))
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.query
+
+import com.tinkerpop.pipes.util.structures.Row
+
+/**
+ * Computes the orderby and aggregate clauses of a query over the objects its traversal produces. It is called from
+ * the Gremlin scripts the [[GremlinTranslator]] generates, and by the [[NativeQueryEvaluator]], so both backends
+ * compute these clauses in the same way, without constructing instances for the objects they aggregate.
+ */
+object QueryAggregation {
+
+    val COUNT = "count"
+    val MAX = "max"
+    val MIN = "min"
+    val SUM = "sum"
+
+    /**
+     * @return the value of an expression evaluated from an object: if the expression is a traversal, the first
+     *         object it produces.
+     */
+    def value(v: AnyRef): AnyRef = v match {
+        case it: java.util.Iterator[_] => if (it.hasNext) it.next().asInstanceOf[AnyRef] else null
+        case _ => v
+    }
+
+    /**
+     * Compares two values, ordering nulls first and numbers by their value.
+     */
+    def compare(a: AnyRef, b: AnyRef): Int = (a, b) match {
+        case (null, null) => 0
+        case (null, _) => -1
+        case (_, null) => 1
+        case _ => NativeQueryEvaluator.compareTo(a, b)
+    }
+
+    /**
+     * Groups rows of values by their keys, and computes the aggregate functions for each group.
+     * @param rows for each object, the values of the select list followed by the values of the group keys.
+     * @param functions the aggregate function of each select list entry; null for an entry that is a group key.
+     * @param keyCount the number of group keys.
+     * @param src the name of the column of the result rows.
+     * @return a Row for each group, in the order the groups are first seen. If there are no keys there is exactly
+     *         one group, even if there are no rows.
+     */
+    def aggregate(rows: java.util.Iterator[java.util.List[AnyRef]], functions: java.util.List[String], keyCount: Int,
+                  src: String): java.util.List[Row[java.util.List[AnyRef]]] = {
+        val n = functions.size
+        val groups = new java.util.LinkedHashMap[java.util.List[AnyRef], Array[AnyRef]]()
+        while (rows.hasNext) {
+            val r = rows.next()
+            val key = new java.util.ArrayList[AnyRef](r.subList(n, n + keyCount))
+            var acc = groups.get(key)
+            if (acc == null) {
+                acc = initial(functions)
+                groups.put(key, acc)
+            }
+            for (i <- 0 until n) {
+                acc(i) = accumulate(functions.get(i), acc(i), r.get(i))
+            }
+        }
+        if (groups.isEmpty && keyCount == 0) {
+            groups.put(java.util.Collections.emptyList(), initial(functions))
+        }
+
+        val result = new java.util.ArrayList[Row[java.util.List[AnyRef]]](groups.size)
+        val it = groups.values.iterator
+        while (it.hasNext) {
+            result.add(new Row(java.util.Collections.singletonList(java.util.Arrays.asList(it.next(): _*)),
+                java.util.Collections.singletonList(src)))
+        }
+        result
+    }
+
+    private def initial(functions: java.util.List[String]): Array[AnyRef] = {
+        val acc = new Array[AnyRef](functions.size)
+        for (i <- 0 until functions.size if functions.get(i) == COUNT) {
+            acc(i) = java.lang.Long.valueOf(0)
+        }
+        acc
+    }
+
+    private def accumulate(function: String, acc: AnyRef, v: AnyRef): AnyRef = function match {
+        case COUNT => java.lang.Long.valueOf(acc.asInstanceOf[java.lang.Long] + 1)
+        case _ if v == null => acc
+        case MAX => if (acc == null || compare(v, acc) > 0) v else acc
+        case MIN => if (acc == null || compare(v, acc) < 0) v else acc
+        case SUM => {
+            val d = NativeQueryEvaluator.toBigDecimal(v.asInstanceOf[Number])
+            if (acc == null) d else acc.asInstanceOf[java.math.BigDecimal].add(d)
+        }
+        case _ => if (acc == null) v else acc
+    }
+}
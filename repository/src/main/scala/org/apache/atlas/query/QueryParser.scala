@@ -34,6 +34,15 @@ trait QueryKeywords {
 
     protected implicit def asParser(k: Keyword): Parser[String] = k.str
 
+    /**
+     * A word that is a keyword only where the grammar expects it, and an identifier anywhere else; so that the
+     * attributes named like the aggregate functions or the sort orders can still be queried.
+     */
+    protected case class ContextualKeyword(str: String)
+
+    protected implicit def contextualAsParser(k: ContextualKeyword): Parser[String] =
+        elem(k.str, t => t.isInstanceOf[lexical.Identifier] && t.chars.equalsIgnoreCase(k.str)) ^^ (_.chars)
+
     protected val LPAREN = Keyword("(")
     protected val RPAREN = Keyword(")")
     protected val EQ = Keyword("=")
@@ -62,6 +71,15 @@ trait QueryKeywords {
     protected val AS = Keyword("as")
     protected val TIMES = Keyword("times")
     protected val WITHPATH = Keyword("withPath")
+    protected val LIMIT = Keyword("limit")
+    protected val OFFSET = Keyword("offset")
+    protected val ORDERBY = Keyword("orderby")
+    protected val ASC = ContextualKeyword("asc")
+    protected val DESC = ContextualKeyword("desc")
+    protected val COUNT = ContextualKeyword("count")
+    protected val MAX = ContextualKeyword("max")
+    protected val MIN = ContextualKeyword("min")
+    protected val SUM = ContextualKeyword("sum")
 }
 
 trait ExpressionUtils {
@@ -83,6 +101,8 @@ trait ExpressionUtils {
         input.select(selList: _*)
     }
 
+    def order(input: Expression, o: (Expression, Boolean)) = input.orderBy(o._1, o._2)
+
     def leftmostId(e: Expression) = {
         var le: IdExpression = null
         e.traverseUp { case i: IdExpression if le == null => le = i}
@@ -125,9 +145,16 @@ class QueryParser extends StandardTokenParsers with QueryKeywords with Expressio
         }
     }
 
-    def queryWithPath = query ~ opt(WITHPATH) ^^ {
-      case q ~ None => q
-      case q ~ p => q.path()
+    def queryWithPath = query ~ opt(WITHPATH) ~ opt(limitClause) ^^ {
+      case q ~ None ~ None => q
+      case q ~ p ~ None => q.path()
+      case q ~ None ~ Some((l, o)) => q.limit(l, o)
+      case q ~ p ~ Some((l, o)) => q.path().limit(l, o)
+    }
+
+    def limitClause = LIMIT ~ intConstant ~ opt(OFFSET ~> intConstant) ^^ {
+      case l ~ i ~ None => (int(i), int(0))
+      case l ~ i ~ Some(o) => (int(i), int(o))
     }
 
     def query: Parser[Expression] = rep1sep(singleQuery, opt(COMMA)) ^^ { l => l match {
@@ -136,11 +163,18 @@ class QueryParser extends StandardTokenParsers with QueryKeywords with Expressio
     }
     }
 
-    def singleQuery = singleQrySrc ~ opt(loopExpression) ~ opt(selectClause) ^^ {
-        case s ~ None ~ None => s
-        case s ~ l ~ None => loop(s, l.get)
-        case s ~ l ~ sel if l.isDefined => select(loop(s, l.get), sel.get)
-        case s ~ None ~ sel => select(s, sel.get)
+    /**
+     * The orderby clause is written after the select clause, but orders the objects the select list is computed
+     * from; so its expression refers to the source of the query.
+     */
+    def singleQuery = singleQrySrc ~ opt(loopExpression) ~ opt(groupByClause) ~ opt(selectClause) ~
+        opt(orderByClause) ^^ {
+        case s ~ l ~ grp ~ sel ~ odr => {
+            val src = l.map(loop(s, _)).getOrElse(s)
+            val ordered = odr.map(order(src, _)).getOrElse(src)
+            val grouped = grp.map(keys => ordered.groupBy(keys: _*)).getOrElse(ordered)
+            sel.map(select(grouped, _)).getOrElse(grouped)
+        }
     }
 
     /**
@@ -191,6 +225,12 @@ class QueryParser extends StandardTokenParsers with QueryKeywords with Expressio
         case s ~ cs => cs
     }
 
+    def groupByClause: Parser[List[Expression]] = GROUPBY ~> LPAREN ~> rep1sep(expr, COMMA) <~ RPAREN
+
+    def orderByClause: Parser[(Expression, Boolean)] = ORDERBY ~ expr ~ opt(ASC ^^^ true | DESC ^^^ false) ^^ {
+        case o ~ e ~ asc => (e, asc.getOrElse(true))
+    }
+
     def selectExpression: Parser[(Expression, Option[String])] = expr ~ opt(AS ~> alias) ^^ {
         case e ~ a => (e, a)
     }
@@ -223,7 +263,12 @@ class QueryParser extends StandardTokenParsers with QueryKeywords with Expressio
     def multiERight = (STAR | DIV) ~ atomE ^^ { case op ~ r => (op, r)}
 
 
-    def atomE = literal | identifier | LPAREN ~> expr <~ RPAREN
+    def atomE = literal | aggregateE | identifier | LPAREN ~> expr <~ RPAREN
+
+    def aggregateE: Parser[Expression] = COUNT ~ LPAREN ~ RPAREN ^^ { case c ~ l ~ r => count()} |
+        MAX ~> LPAREN ~> expr <~ RPAREN ^^ { e => max(e)} |
+        MIN ~> LPAREN ~> expr <~ RPAREN ^^ { e => min(e)} |
+        SUM ~> LPAREN ~> expr <~ RPAREN ^^ { e => sum(e)}
 
     def identifier = rep1sep(ident, DOT) ^^ { l => l match {
         case h :: Nil => id(h)
@@ -304,6 +349,7 @@ class QueryLexer(val keywords: Seq[String], val delims: Seq[String]) extends Std
                 | intConstant ^^ IntLiteral
                 | floatConstant ^^ FloatLiteral
                 | dubConstant ^^ DoubleLiteral
+                | quotedIdentifier ^^ Identifier
                 | identifier ^^ processIdent
                 | string ^^ StringLit
                 | EofCh ^^^ EOF
@@ -316,10 +362,14 @@ class QueryLexer(val keywords: Seq[String], val delims: Seq[String]) extends Std
 
     override def identChar = letter | elem('_')
 
-    def identifier = identChar ~ (identChar | digit).* ^^ { case first ~ rest => (first :: rest).mkString} |
-        '`' ~> chrExcept('`', '\n', EofCh).* <~ '`' ^^ {
-            _ mkString ""
-        }
+    def identifier = identChar ~ (identChar | digit).* ^^ { case first ~ rest => (first :: rest).mkString}
+
+    /**
+     * An identifier quoted in backticks is never a keyword, e.g. `limit` for an attribute named limit.
+     */
+    def quotedIdentifier = '`' ~> chrExcept('`', '\n', EofCh).* <~ '`' ^^ {
+        _ mkString ""
+    }
 
     override def whitespace: Parser[Any] =
         (whitespaceChar
@@ -32,7 +32,7 @@ object QueryProcessor {
         LOG.debug("Query: " + e1)
         LOG.debug("Expression Tree:\n" + e1.treeString)
         LOG.debug("Gremlin Query: " + q.queryStr)
-        new GremlinEvaluator(q, gP, g).evaluate()
+        QueryEvaluator(q, gP, g).evaluate()
     }
 
     def validate(e: Expression): Expression = {
@@ -91,6 +91,16 @@ class Resolver(srcExpr: Option[Expression] = None, aliases: Map[String, Expressi
             val r = new Resolver(Some(inputExpr), inputExpr.namedExpressions, true)
             return new LoopExpression(inputExpr, loopExpr.transformUp(r), t)
         }
+        case OrderExpression(child, odrBy, asc) if child.resolved => {
+            val r = new Resolver(Some(child), child.namedExpressions)
+            return new OrderExpression(child, odrBy.transformUp(r), asc)
+        }
+        case GroupByExpression(child, keys) if child.resolved => {
+            val r = new Resolver(Some(child), child.namedExpressions)
+            return new GroupByExpression(child, keys.map {
+                _.transformUp(r)
+            })
+        }
         case x => x
     }
 }
@@ -152,6 +162,17 @@ object FieldValidator extends PartialFunction[Expression, Expression] {
             l1.loopingExpression.traverseUp(validateOnlyFieldReferencesInLoopExpressions(l1))
             l1
         }
+        case o@OrderExpression(child, odrBy, asc) => {
+            val validatedOE = odrBy.transformUp(validateQualifiedField(child.dataType))
+            if (validatedOE.fastEquals(odrBy)) o else new OrderExpression(child, validatedOE, asc)
+        }
+        case g@GroupByExpression(child, keys) => {
+            val v = validateQualifiedField(child.dataType)
+            val validatedKeys = keys.map {
+                _.transformUp(v)
+            }
+            if (validatedKeys.corresponds(keys)(_ fastEquals _)) g else new GroupByExpression(child, validatedKeys)
+        }
         case x => x
     }
 }
\ No newline at end of file
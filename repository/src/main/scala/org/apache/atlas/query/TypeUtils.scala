@@ -55,6 +55,14 @@ object TypeUtils {
         throw new AtlasException(s"Cannot combine types: ${typ1.getName} and ${typ2.getName}")
     }
 
+    /**
+     * The names of a type and of its sub types, i.e. the type names of the instances of the type.
+     */
+    def instanceTypeNames(typeName : String) : Seq[String] = {
+        import scala.collection.JavaConversions._
+        typeName +: typSystem.getSubTypeNames(typeName).toSeq
+    }
+
     var tempStructCounter : AtomicInteger = new AtomicInteger(0)
     val TEMP_STRUCT_NAME_PREFIX = "__tempQueryResultStruct"
     def createStructType(selectExprs : List[Expressions.AliasExpression]) : StructType = {
@@ -53,6 +53,10 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 
 import static org.apache.atlas.typesystem.types.utils.TypesUtil.createClassTypeDef;
 import static org.apache.atlas.typesystem.types.utils.TypesUtil.createOptionalAttrDef;
@@ -144,6 +148,70 @@ public class GraphBackedDiscoveryServiceTest {
         Assert.assertEquals(rows.length(), 1);
     }
 
+    @Test
+    public void testSearchByDSLWithParameters() throws Exception {
+        long hitCount = discoveryService.getQueryCacheStats().hitCount();
+        for (String name : new String[]{"John", "Jane"}) {
+            JSONObject results = new JSONObject(discoveryService.searchByDSL("Person where name = '" + name + "'"));
+            Assert.assertTrue(results.getString("query").contains(name));
+
+            JSONArray rows = results.getJSONArray("rows");
+            Assert.assertEquals(rows.length(), 1);
+            Assert.assertEquals(rows.getJSONObject(0).getString("name"), name);
+        }
+
+        // the second query reuses the plan of the first one
+        Assert.assertEquals(discoveryService.getQueryCacheStats().hitCount(), hitCount + 1);
+
+        // quoted aliases are not parameterized
+        JSONObject results = new JSONObject(discoveryService.searchByDSL("Person as 'p' where p.name = 'John'"));
+        Assert.assertEquals(results.getJSONArray("rows").length(), 1);
+    }
+
+    @Test
+    public void testSearchByDSLWithLimit() throws Exception {
+        JSONArray allRows = new JSONObject(discoveryService.searchByDSL("Person")).getJSONArray("rows");
+        Assert.assertTrue(allRows.length() > 1);
+
+        // the pages are ordered on the guids, so that they neither skip nor repeat rows
+        List<String> guids = new ArrayList<>();
+        for (int offset = 0; offset < allRows.length(); offset++) {
+            JSONArray rows = new JSONObject(discoveryService.searchByDSL("Person", 1, offset)).getJSONArray("rows");
+            Assert.assertEquals(rows.length(), 1);
+            guids.add(rows.getJSONObject(0).getJSONObject("$id$").getString("id"));
+        }
+        List<String> sortedGuids = new ArrayList<>(guids);
+        Collections.sort(sortedGuids);
+        Assert.assertEquals(guids, sortedGuids);
+        Assert.assertEquals(new HashSet<>(guids).size(), allRows.length());
+
+        // the limit clause in the query is applied before the page
+        JSONArray rows = new JSONObject(discoveryService.searchByDSL("Person limit 1 offset 1", 10, 0)).getJSONArray("rows");
+        Assert.assertEquals(rows.length(), 1);
+        Assert.assertEquals(rows.getJSONObject(0).getString("name"), allRows.getJSONObject(1).getString("name"));
+
+        rows = new JSONObject(discoveryService.searchByDSL("Person", 10, allRows.length())).getJSONArray("rows");
+        Assert.assertEquals(rows.length(), 0);
+    }
+
+    @Test
+    public void testSearchByDSLWithAggregates() throws Exception {
+        JSONArray allRows = new JSONObject(discoveryService.searchByDSL("Person")).getJSONArray("rows");
+
+        JSONArray rows = new JSONObject(discoveryService.searchByDSL("Person select count() as total"))
+                .getJSONArray("rows");
+        Assert.assertEquals(rows.length(), 1);
+        Assert.assertEquals(rows.getJSONObject(0).getInt("total"), allRows.length());
+
+        rows = new JSONObject(discoveryService.searchByDSL("Person select name orderby name desc"))
+                .getJSONArray("rows");
+        Assert.assertEquals(rows.length(), allRows.length());
+        for (int i = 1; i < rows.length(); i++) {
+            Assert.assertTrue(rows.getJSONObject(i - 1).getString("_col_0")
+                    .compareTo(rows.getJSONObject(i).getString("_col_0")) >= 0);
+        }
+    }
+
     @Test(expectedExceptions = Throwable.class)
     public void testSearchByDSLBadQuery() throws Exception {
         String dslQuery = "from blah";
@@ -209,7 +277,10 @@ public class GraphBackedDiscoveryServiceTest {
                         + "destTable withPath"},
                 {"Table as t, sd, Column as c where t.name=\"sales_fact\" select c.name as colName, c.dataType as "
                         + "colType"},
-                {"Table where name='sales_fact', db where name='Reporting'"}};
+                {"Table where name='sales_fact', db where name='Reporting'"},
+                {"DB orderby name desc"}, {"Table select name orderby name limit 2"},
+                {"DB select count()"}, {"DB select max(createTime), min(createTime), sum(createTime)"},
+                {"Table groupby(db.name) select db.name, count() as tableCount"}};
     }
 
     @Test(dataProvider = "dslQueriesProvider")
@@ -261,6 +332,35 @@ public class GraphBackedDiscoveryServiceTest {
         System.out.println("results = " + results);
     }
 
+    @Test
+    public void testSearchForSubTypes() throws Exception {
+        TypeSystem typeSystem = TypeSystem.getInstance();
+        typeSystem.defineClassTypes(
+                createClassTypeDef("SuperT", null, createRequiredAttrDef("name", DataTypes.STRING_TYPE)),
+                createClassTypeDef("SubT1", ImmutableList.of("SuperT")));
+        createInstance("SubT1", "s1");
+
+        String dslQuery = "SuperT where name = 's1'";
+        Assert.assertEquals(new JSONObject(discoveryService.searchByDSL(dslQuery)).getJSONArray("rows").length(), 1);
+        Assert.assertEquals(new JSONObject(discoveryService.searchByDSL("SuperT")).getJSONArray("rows").length(), 1);
+
+        // the cached plans of the queries look up the instances of the new sub type too
+        typeSystem.defineClassTypes(createClassTypeDef("SubT2", ImmutableList.of("SubT1")));
+        createInstance("SubT2", "s2");
+
+        Assert.assertEquals(new JSONObject(discoveryService.searchByDSL("SuperT")).getJSONArray("rows").length(), 2);
+        dslQuery = "SuperT where name = 's2'";
+        Assert.assertEquals(new JSONObject(discoveryService.searchByDSL(dslQuery)).getJSONArray("rows").length(), 1);
+    }
+
+    private void createInstance(String typeName, String name) throws Exception {
+        Referenceable instance = new Referenceable(typeName);
+        instance.set("name", name);
+
+        ClassType type = TypeSystem.getInstance().getDataType(ClassType.class, typeName);
+        repositoryService.createEntity(type.convert(instance, Multiplicity.REQUIRED));
+    }
+
     /*
      * Type Hierarchy is:
      *   A(a)
@@ -20,9 +20,17 @@ package org.apache.atlas.discovery;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
+import org.apache.atlas.discovery.graph.LineageIndex;
 import org.apache.atlas.repository.EntityNotFoundException;
+import org.apache.atlas.repository.graph.GraphBackedMetadataRepository;
+import org.apache.atlas.repository.graph.GraphProvider;
+import org.apache.atlas.repository.graph.VertexIdCache;
 import org.apache.atlas.services.DefaultMetadataService;
 import org.apache.atlas.typesystem.Referenceable;
 import org.apache.atlas.typesystem.TypesDef;
@@ -49,6 +57,8 @@ import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.io.File;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -66,8 +76,14 @@ public class HiveLineageServiceTest {
     @Inject
     private HiveLineageService hiveLineageService;
 
-    //    @Inject
-    //    private GraphProvider<TitanGraph> graphProvider;
+    @Inject
+    private GraphProvider<TitanGraph> graphProvider;
+
+    @Inject
+    private GraphBackedMetadataRepository metadataRepository;
+
+    @Inject
+    private VertexIdCache vertexIdCache;
 
     @BeforeClass
     public void setUp() throws Exception {
@@ -239,6 +255,102 @@ public class HiveLineageServiceTest {
         Assert.assertEquals(edges.length(), 4);
     }
 
+    @Test
+    public void testLineageIndex() throws Exception {
+        File snapshot = new File(System.getProperty("java.io.tmpdir"), "lineage-" + System.nanoTime() + ".idx");
+        try {
+            LineageIndex lineageIndex = lineageIndex(snapshot);
+            HiveLineageService indexedService =
+                    new HiveLineageService(graphProvider, metadataRepository, discoveryService, lineageIndex);
+            assertSameGraph(indexedService.getInputsGraph("sales_fact_monthly_mv"),
+                    hiveLineageService.getInputsGraph("sales_fact_monthly_mv"));
+            assertSameGraph(indexedService.getOutputsGraph("sales_fact"),
+                    hiveLineageService.getOutputsGraph("sales_fact"));
+            Assert.assertTrue(snapshot.exists());
+
+            // restored from the snapshot, then kept up to date as processes are created
+            lineageIndex = lineageIndex(snapshot);
+            indexedService = new HiveLineageService(graphProvider, metadataRepository, discoveryService, lineageIndex);
+            assertSameGraph(indexedService.getOutputsGraph("sales_fact"),
+                    hiveLineageService.getOutputsGraph("sales_fact"));
+
+            Id process;
+            metadataService.registerListener(lineageIndex);
+            try {
+                Id indexDB = database("IndexDB", "lineage index database", "Jane BI", "hdfs://host:8000/apps/index");
+                List<Referenceable> columns = ImmutableList.of(column("id", "int", "id"));
+                Id source = table("index_source", "source table", indexDB, null, "Jane BI", "Managed", columns);
+                Id target = table("index_target", "target table", indexDB, null, "Jane BI", "Managed", columns);
+                process = loadProcess("loadIndexTarget", "hive query for the target", "Jane BI",
+                        ImmutableList.of(source), ImmutableList.of(target), "create table as select ", "plan", "id",
+                        "graph");
+            } finally {
+                metadataService.unregisterListener(lineageIndex);
+            }
+
+            JSONObject values = new JSONObject(indexedService.getOutputsGraph("index_source")).getJSONObject("values");
+            Assert.assertEquals(values.getJSONObject("vertices").length(), 2);
+            Assert.assertEquals(values.getJSONObject("edges").length(), 2);
+            assertSameGraph(indexedService.getInputsGraph("index_target"),
+                    hiveLineageService.getInputsGraph("index_target"));
+
+            // the outputs of a process can't be updated through the repository, so they are removed from the
+            // graph, and the process is updated to change the version of its vertex
+            TitanGraph graph = graphProvider.get();
+            Vertex processVertex = vertexIdCache.findVertexByGUID(graph, process.id);
+            for (Edge edge : processVertex.getEdges(Direction.OUT,
+                    metadataRepository.getEdgeLabel("Process", "outputs"))) {
+                graph.removeEdge(edge);
+            }
+            processVertex.removeProperty("Process.outputs");
+            graph.commit();
+            metadataService.updateEntity(process.id, "description", "hive query without outputs");
+
+            // the snapshot is stale, and the process is read again from the graph when it is restored
+            HiveLineageService restoredService = new HiveLineageService(graphProvider, metadataRepository,
+                    discoveryService, lineageIndex(snapshot));
+            assertSameGraph(restoredService.getOutputsGraph("index_source"),
+                    hiveLineageService.getOutputsGraph("index_source"));
+
+            lineageIndex.onEntityUpdated(process.id);
+            values = new JSONObject(indexedService.getOutputsGraph("index_source")).getJSONObject("values");
+            Assert.assertEquals(values.getJSONObject("vertices").length(), 0);
+            assertSameGraph(indexedService.getOutputsGraph("index_source"),
+                    hiveLineageService.getOutputsGraph("index_source"));
+        } finally {
+            snapshot.delete();
+        }
+    }
+
+    private LineageIndex lineageIndex(File snapshot) {
+        return new LineageIndex(graphProvider.get(), metadataRepository, vertexIdCache, true, snapshot.getPath(), 1,
+                "Process", "inputs", "outputs");
+    }
+
+    private void assertSameGraph(String actualJson, String expectedJson) throws Exception {
+        JSONObject actual = new JSONObject(actualJson).getJSONObject("values");
+        JSONObject expected = new JSONObject(expectedJson).getJSONObject("values");
+
+        JSONObject actualVertices = actual.getJSONObject("vertices");
+        JSONObject expectedVertices = expected.getJSONObject("vertices");
+        Assert.assertEquals(actualVertices.length(), expectedVertices.length());
+        Iterator<?> guids = expectedVertices.keys();
+        while (guids.hasNext()) {
+            String guid = (String) guids.next();
+            Assert.assertEquals(actualVertices.getJSONObject(guid).getJSONObject("values").getString("name"),
+                    expectedVertices.getJSONObject(guid).getJSONObject("values").getString("name"));
+        }
+
+        JSONObject actualEdges = actual.getJSONObject("edges");
+        JSONObject expectedEdges = expected.getJSONObject("edges");
+        Assert.assertEquals(actualEdges.length(), expectedEdges.length());
+        guids = expectedEdges.keys();
+        while (guids.hasNext()) {
+            String guid = (String) guids.next();
+            Assert.assertEquals(actualEdges.getJSONArray(guid).length(), expectedEdges.getJSONArray(guid).length());
+        }
+    }
+
     @DataProvider(name = "tableNamesProvider")
     private Object[][] tableNames() {
         return new String[][]{{"sales_fact", "4"}, {"time_dim", "3"}, {"sales_fact_daily_mv", "4"},
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.discovery.graph;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.typesystem.Struct;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class LineageTraversalTest {
+
+    private static final String INPUTS = "__Process.inputs";
+    private static final String OUTPUTS = "__Process.outputs";
+    private static final String NAME = "DataSet.name";
+
+    private Graph graph;
+
+    /**
+     * a -> p1 -> b -> p2 -> d
+     *            c ----^
+     */
+    @BeforeMethod
+    public void setUp() {
+        graph = new TinkerGraph();
+        process("p1", Arrays.asList(dataSet("a")), Arrays.asList(dataSet("b")));
+        process("p2", Arrays.asList(vertex("b"), dataSet("c")), Arrays.asList(dataSet("d")));
+    }
+
+    @Test
+    public void testInputs() {
+        Struct lineage = new LineageTraversal(0, 10, 10).inputs(vertices("d"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).keySet(), set("a", "b", "c", "d"));
+        Assert.assertEquals(edges(lineage).get("d"), Arrays.asList("p2"));
+        Assert.assertEquals(set(edges(lineage).get("p2")), set("b", "c"));
+        Assert.assertEquals(edges(lineage).get("b"), Arrays.asList("p1"));
+        Assert.assertEquals(edges(lineage).get("p1"), Arrays.asList("a"));
+        Assert.assertEquals(edges(lineage).size(), 4);
+        Assert.assertNull(lineage.get(LineageTraversal.TRUNCATED_ATTRIBUTE));
+
+        Struct vertex = (Struct) vertices(lineage).get("a");
+        Assert.assertEquals(vertex.get(LineageTraversal.NAME_ATTRIBUTE), "a_name");
+        Struct id = (Struct) vertex.get(LineageTraversal.VERTEX_ID_ATTRIBUTE);
+        Assert.assertEquals(id.get("guid"), "a");
+        Assert.assertEquals(id.get("typeName"), "hive_table");
+    }
+
+    @Test
+    public void testOutputs() {
+        Struct lineage = new LineageTraversal(0, 10, 10).outputs(vertices("a"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).keySet(), set("a", "b", "d"));
+        Assert.assertEquals(edges(lineage).keySet(), set("a", "p1", "b", "p2"));
+        Assert.assertEquals(edges(lineage).get("p2"), Arrays.asList("d"));
+    }
+
+    @Test
+    public void testNoLineage() {
+        Struct lineage = new LineageTraversal(0, 10, 10).outputs(vertices("d"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertTrue(vertices(lineage).isEmpty());
+        Assert.assertTrue(edges(lineage).isEmpty());
+    }
+
+    @Test
+    public void testCycle() {
+        process("p3", Arrays.asList(vertex("d")), Arrays.asList(vertex("a")));
+
+        Struct lineage = new LineageTraversal(0, 10, 10).inputs(vertices("a"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).keySet(), set("a", "b", "c", "d"));
+        Assert.assertEquals(edges(lineage).keySet(), set("a", "p3", "d", "p2", "b", "p1"));
+        // the walk ends at the table it started from
+        Assert.assertEquals(edges(lineage).get("p1"), Arrays.asList("a"));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        Struct lineage = new LineageTraversal(1, 10, 10).inputs(vertices("d"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).keySet(), set("b", "c", "d"));
+        Assert.assertEquals(edges(lineage).keySet(), set("d", "p2"));
+        Assert.assertNull(lineage.get(LineageTraversal.TRUNCATED_ATTRIBUTE));
+    }
+
+    @Test
+    public void testMaxFanOut() {
+        Struct lineage = new LineageTraversal(0, 1, 10).inputs(vertices("d"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).size(), 3);
+        Assert.assertEquals(edges(lineage).get("p2").size(), 1);
+        Assert.assertEquals(lineage.get(LineageTraversal.TRUNCATED_ATTRIBUTE), true);
+    }
+
+    @Test
+    public void testMaxVertices() {
+        Struct lineage = new LineageTraversal(0, 10, 2).inputs(vertices("d"), INPUTS, OUTPUTS, NAME);
+
+        Assert.assertEquals(vertices(lineage).size(), 2);
+        Assert.assertEquals(edges(lineage).keySet(), set("d", "p2"));
+        Assert.assertEquals(lineage.get(LineageTraversal.TRUNCATED_ATTRIBUTE), true);
+    }
+
+    private Vertex dataSet(String guid) {
+        Vertex vertex = graph.addVertex(guid);
+        vertex.setProperty(Constants.GUID_PROPERTY_KEY, guid);
+        vertex.setProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, "hive_table");
+        vertex.setProperty(NAME, guid + "_name");
+        return vertex;
+    }
+
+    private void process(String guid, List<Vertex> inputs, List<Vertex> outputs) {
+        Vertex vertex = graph.addVertex(guid);
+        vertex.setProperty(Constants.GUID_PROPERTY_KEY, guid);
+        vertex.setProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, "hive_process");
+        for (Vertex input : inputs) {
+            graph.addEdge(null, vertex, input, INPUTS);
+        }
+        for (Vertex output : outputs) {
+            graph.addEdge(null, vertex, output, OUTPUTS);
+        }
+    }
+
+    private Vertex vertex(String guid) {
+        return graph.getVertex(guid);
+    }
+
+    private List<Vertex> vertices(String guid) {
+        return Collections.singletonList(vertex(guid));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> vertices(Struct lineage) {
+        return (Map<String, Object>) lineage.get(LineageTraversal.VERTICES_ATTRIBUTE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<String>> edges(Struct lineage) {
+        return (Map<String, List<String>>) lineage.get(LineageTraversal.EDGES_ATTRIBUTE);
+    }
+
+    private static Set<String> set(String... values) {
+        return set(Arrays.asList(values));
+    }
+
+    private static Set<String> set(List<String> values) {
+        return new HashSet<>(values);
+    }
+}
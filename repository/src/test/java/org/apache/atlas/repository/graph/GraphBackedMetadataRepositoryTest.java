@@ -21,6 +21,7 @@ package org.apache.atlas.repository.graph;
 import com.google.common.collect.ImmutableList;
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.Vertex;
 import org.apache.atlas.RepositoryMetadataModule;
@@ -29,6 +30,7 @@ import org.apache.atlas.discovery.graph.GraphBackedDiscoveryService;
 import org.apache.atlas.repository.BaseTest;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.EntityNotFoundException;
+import org.apache.atlas.repository.IngestEvent;
 import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.typesystem.IStruct;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
@@ -62,6 +64,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -91,6 +94,12 @@ public class GraphBackedMetadataRepositoryTest {
     @Inject
     private GraphBackedDiscoveryService discoveryService;
 
+    @Inject
+    private VertexIdCache vertexIdCache;
+
+    @Inject
+    private TypedInstanceCache typedInstanceCache;
+
     private TypeSystem typeSystem;
     private String guid;
 
@@ -128,6 +137,75 @@ public class GraphBackedMetadataRepositoryTest {
         Assert.assertNotNull(entity);
     }
 
+    @Test(dependsOnMethods = "testSubmitEntity")
+    public void testVertexIdCache() throws Exception {
+        // populated when the entity was created
+        long hitCount = vertexIdCache.getStats().hitCount();
+        repositoryService.getEntityDefinition(guid);
+        Assert.assertEquals(vertexIdCache.getStats().hitCount(), hitCount + 1);
+
+        long missCount = vertexIdCache.getStats().missCount();
+        try {
+            repositoryService.getTraitNames(UUID.randomUUID().toString());
+            Assert.fail();
+        } catch (EntityNotFoundException e) {
+            Assert.assertEquals(vertexIdCache.getStats().missCount(), missCount + 1);
+        }
+    }
+
+    @Test(dependsOnMethods = "testSubmitEntity")
+    public void testTypedInstanceCache() throws Exception {
+        Assert.assertTrue(typedInstanceCache.isEnabled());
+
+        ITypedReferenceableInstance hrDept = repositoryService.getEntityDefinition(guid);
+        long hitCount = typedInstanceCache.getStats().hitCount();
+        ITypedReferenceableInstance cachedDept = repositoryService.getEntityDefinition(guid);
+        Assert.assertEquals(typedInstanceCache.getStats().hitCount(), hitCount + 1);
+
+        // the cache returns copies, which callers may change
+        Assert.assertNotSame(cachedDept, hrDept);
+        Assert.assertEquals(cachedDept.toString(), hrDept.toString());
+        cachedDept.set("name", "changed");
+        Assert.assertEquals(repositoryService.getEntityDefinition(guid).get("name"), hrDept.get("name"));
+
+        // updating a composite employee bumps its version and invalidates the department it is embedded in
+        List<ITypedReferenceableInstance> employees = (List<ITypedReferenceableInstance>) hrDept.get("employees");
+        ITypedReferenceableInstance employee = employees.get(0);
+        String employeeGuid = employee.getId()._getId();
+        repositoryService.updateEntity(employeeGuid, "name", (String) employee.get("name"));
+        Assert.assertEquals(repositoryService.getEntityDefinition(employeeGuid).getId().version,
+                employee.getId().version + 1);
+
+        long missCount = typedInstanceCache.getStats().missCount();
+        hrDept = repositoryService.getEntityDefinition(guid);
+        Assert.assertEquals(typedInstanceCache.getStats().missCount(), missCount + 1);
+        employees = (List<ITypedReferenceableInstance>) hrDept.get("employees");
+        for (ITypedReferenceableInstance e : employees) {
+            if (e.getId()._getId().equals(employeeGuid)) {
+                Assert.assertEquals(e.getId().version, employee.getId().version + 1);
+            }
+        }
+    }
+
+    @Test(dependsOnMethods = "testSubmitEntity")
+    public void testFailedReadKeepsCachedEntities() throws Exception {
+        repositoryService.getEntityDefinition(guid);
+
+        // a transaction that changed nothing doesn't invalidate the caches when it fails
+        try {
+            repositoryService.getEntityDefinition(UUID.randomUUID().toString());
+            Assert.fail();
+        } catch (EntityNotFoundException e) {
+            //expected
+        }
+
+        long vertexHitCount = vertexIdCache.getStats().hitCount();
+        long entityHitCount = typedInstanceCache.getStats().hitCount();
+        repositoryService.getEntityDefinition(guid);
+        Assert.assertEquals(vertexIdCache.getStats().hitCount(), vertexHitCount + 1);
+        Assert.assertEquals(typedInstanceCache.getStats().hitCount(), entityHitCount + 1);
+    }
+
     @Test(expectedExceptions = RepositoryException.class)
     public void testGetEntityDefinitionNonExistent() throws Exception {
         repositoryService.getEntityDefinition("blah");
@@ -178,6 +256,33 @@ public class GraphBackedMetadataRepositoryTest {
         ITypedReferenceableInstance table = createHiveTableInstance(dbInstance);
         String tableGUID = repositoryService.createEntity(table);
         System.out.println("added table = " + tableGUID);
+
+        // the database is only referenced by the new table, so it hasn't changed
+        Assert.assertEquals(repositoryService.getEntityDefinition(dbGUID).getId().version, db.getId().version);
+    }
+
+    @Test
+    public void testCreateEntities() throws Exception {
+        ClassType columnType = typeSystem.getDataType(ClassType.class, "column_type");
+        ITypedReferenceableInstance[] columns = new ITypedReferenceableInstance[3];
+        for (int index = 0; index < columns.length; index++) {
+            Referenceable columnInstance = new Referenceable("column_type");
+            columnInstance.set("name", "bulk_column_" + index);
+            columnInstance.set("type", "string");
+            columns[index] = columnType.convert(columnInstance, Multiplicity.REQUIRED);
+        }
+
+        // the same instance passed twice in a batch is created only once
+        String[] guids = repositoryService.createEntities(columns[0], columns[1], columns[2], columns[0]);
+        Assert.assertEquals(guids.length, 4);
+        Assert.assertEquals(guids[3], guids[0]);
+        Assert.assertNotEquals(guids[0], guids[1]);
+        Assert.assertNotEquals(guids[1], guids[2]);
+
+        for (int index = 0; index < columns.length; index++) {
+            ITypedReferenceableInstance column = repositoryService.getEntityDefinition(guids[index]);
+            Assert.assertEquals(column.getString("name"), "bulk_column_" + index);
+        }
     }
 
     @Test(dependsOnMethods = "testCreateEntity")
@@ -189,6 +294,74 @@ public class GraphBackedMetadataRepositoryTest {
         System.out.println("*** table = " + table);
     }
 
+    @Test(dependsOnMethods = "testCreateEntity")
+    public void testGetEntityByUniqueAttribute() throws Exception {
+        ITypedReferenceableInstance db =
+                repositoryService.getEntityByUniqueAttribute(DATABASE_TYPE, "name", DATABASE_NAME);
+        Assert.assertEquals(db.getString("description"), "foo database");
+
+        ITypedReferenceableInstance table =
+                repositoryService.getEntityByUniqueAttribute(TABLE_TYPE, "name", TABLE_NAME);
+        Assert.assertEquals(table.getId()._getId(), getGUID());
+        Assert.assertEquals(repositoryService.getGuidByUniqueAttribute(TABLE_TYPE, "name", TABLE_NAME), getGUID());
+
+        try {
+            repositoryService.getEntityByUniqueAttribute(DATABASE_TYPE, "name", "missing_db");
+            Assert.fail("Expected EntityNotFoundException");
+        } catch (EntityNotFoundException e) {
+            // expected
+        }
+
+        try {
+            repositoryService.getEntityByUniqueAttribute(DATABASE_TYPE, "description", "foo database");
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected, description isn't unique
+        }
+    }
+
+    @Test
+    public void testUpsertEntity() throws Exception {
+        ClassType dbType = typeSystem.getDataType(ClassType.class, DATABASE_TYPE);
+        Referenceable databaseInstance = new Referenceable(DATABASE_TYPE);
+        databaseInstance.set("name", "upsert_db");
+        databaseInstance.set("description", "first description");
+
+        IngestEvent.Result result =
+                repositoryService.upsertEntity(dbType.convert(databaseInstance, Multiplicity.REQUIRED));
+        Assert.assertEquals(result.createdGuids, result.guids);
+        String guid = result.guids.get(0);
+
+        // the registered database is updated
+        databaseInstance = new Referenceable(DATABASE_TYPE);
+        databaseInstance.set("name", "upsert_db");
+        databaseInstance.set("description", "second description");
+        result = repositoryService.upsertEntity(dbType.convert(databaseInstance, Multiplicity.REQUIRED));
+        Assert.assertEquals(result.guids, ImmutableList.of(guid));
+        Assert.assertTrue(result.createdGuids.isEmpty());
+
+        ITypedReferenceableInstance db =
+                repositoryService.getEntityByUniqueAttribute(DATABASE_TYPE, "name", "upsert_db");
+        Assert.assertEquals(db.getId()._getId(), guid);
+        Assert.assertEquals(db.getString("description"), "second description");
+    }
+
+    @Test(dependsOnMethods = "testCreateEntity")
+    public void testUpsertRegisteredEntityWithReferences() throws Exception {
+        Referenceable databaseInstance = new Referenceable(DATABASE_TYPE);
+        databaseInstance.set("name", DATABASE_NAME);
+        databaseInstance.set("description", "foo database");
+
+        try {
+            repositoryService.upsertEntity(createHiveTableInstance(databaseInstance));
+            Assert.fail("Expected RepositoryException");
+        } catch (RepositoryException e) {
+            // expected, the struct and class attributes of the registered table can't be updated
+            Assert.assertTrue(e.getMessage().contains("serde1"));
+            Assert.assertTrue(e.getMessage().contains("database"));
+        }
+    }
+
     private String getGUID() {
         Vertex tableVertex = getTableEntityVertex();
 
@@ -468,6 +641,153 @@ public class GraphBackedMetadataRepositoryTest {
         Assert.assertEquals(row.get("typeName"), "Person");
     }
 
+    @Test(dependsOnMethods = {"testGetEntityList", "testFullTextSearch"})
+    public void testIngest() throws Exception {
+        Map<String, List<String>> identifiers = new HashMap<>();
+        identifiers.put("Department", ImmutableList.of("name"));
+        identifiers.put("column_type", ImmutableList.of("name"));
+
+        // the department referenced twice in the batch is created once, and found by the later event
+        Referenceable dept = new Referenceable("Department");
+        dept.set("name", "ingest_dept");
+        Referenceable sameDept = new Referenceable("Department");
+        sameDept.set("name", "ingest_dept");
+        Referenceable alice = new Referenceable("Person");
+        alice.set("name", "Alice");
+        alice.set("department", sameDept);
+        dept.set("employees", ImmutableList.of(alice));
+
+        Referenceable registeredDept = new Referenceable("Department");
+        registeredDept.set("name", "ingest_dept");
+        Referenceable bob = new Referenceable("Person");
+        bob.set("name", "Bob");
+        bob.set("department", registeredDept);
+
+        Referenceable column = new Referenceable("column_type");
+        column.set("name", "ingest_column");
+        column.set("type", "string");
+
+        Referenceable unknown = new Referenceable("unknown_type");
+
+        List<IngestEvent.Result> results = repositoryService.ingest(identifiers,
+                ImmutableList.of(IngestEvent.create(ImmutableList.of(dept)),
+                        IngestEvent.create(ImmutableList.of(bob, column)),
+                        IngestEvent.create(ImmutableList.of(unknown))));
+        Assert.assertEquals(results.size(), 3);
+        Assert.assertTrue(results.get(0).isApplied());
+        Assert.assertEquals(results.get(0).createdGuids, results.get(0).guids);
+        Assert.assertTrue(results.get(1).isApplied());
+        Assert.assertEquals(results.get(1).createdGuids.size(), 2);
+        Assert.assertFalse(results.get(2).isApplied());
+
+        String deptGuid = results.get(0).guids.get(0);
+        ITypedReferenceableInstance deptInstance = repositoryService.getEntityDefinition(deptGuid);
+        ITypedReferenceableInstance aliceInstance =
+                (ITypedReferenceableInstance) ((List) deptInstance.get("employees")).get(0);
+        Assert.assertEquals(((ITypedReferenceableInstance) aliceInstance.get("department")).getId()._getId(),
+                deptGuid);
+        ITypedReferenceableInstance bobInstance = repositoryService.getEntityDefinition(results.get(1).guids.get(0));
+        Assert.assertEquals(((ITypedReferenceableInstance) bobInstance.get("department")).getId()._getId(),
+                deptGuid);
+
+        // a later batch resolves the registered entities, and updates them by their identity
+        Referenceable columnAgain = new Referenceable("column_type");
+        columnAgain.set("name", "ingest_column");
+        columnAgain.set("type", "string");
+        String columnGuid = results.get(1).guids.get(1);
+
+        Map<String, Object> identity = new HashMap<>();
+        identity.put("name", "ingest_column");
+        Map<String, Object> missing = new HashMap<>();
+        missing.put("name", "missing_column");
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("type", "int");
+
+        results = repositoryService.ingest(identifiers,
+                ImmutableList.of(IngestEvent.create(ImmutableList.of(columnAgain)),
+                        IngestEvent.update("column_type", identity, attributes),
+                        IngestEvent.update("column_type", missing, attributes)));
+        Assert.assertEquals(results.get(0).guids, ImmutableList.of(columnGuid));
+        Assert.assertTrue(results.get(0).createdGuids.isEmpty());
+        Assert.assertEquals(results.get(1).guids, ImmutableList.of(columnGuid));
+        Assert.assertFalse(results.get(2).isApplied());
+        Assert.assertEquals(repositoryService.getEntityDefinition(columnGuid).getString("type"), "int");
+    }
+
+    @Test(dependsOnMethods = "testIngest")
+    public void testIngestReferencedEntities() throws Exception {
+        Map<String, List<String>> identifiers = new HashMap<>();
+        identifiers.put("Person", ImmutableList.of("name"));
+
+        // the department isn't identified, and is created once along with the persons referring to it
+        Referenceable dept = new Referenceable("Department");
+        dept.set("name", "ingest_referenced_dept");
+        Referenceable carol = new Referenceable("Person");
+        carol.set("name", "Carol");
+        carol.set("department", dept);
+        Referenceable dave = new Referenceable("Person");
+        dave.set("name", "Dave");
+        dave.set("department", dept);
+        dept.set("employees", ImmutableList.of(carol, dave));
+
+        List<IngestEvent.Result> results = repositoryService.ingest(identifiers,
+                ImmutableList.of(IngestEvent.create(ImmutableList.of(carol, dave))));
+        Assert.assertTrue(results.get(0).isApplied());
+        Assert.assertEquals(results.get(0).guids.size(), 2);
+        Assert.assertEquals(results.get(0).createdGuids.size(), 3);
+
+        ITypedReferenceableInstance carolInstance = repositoryService.getEntityDefinition(results.get(0).guids.get(0));
+        ITypedReferenceableInstance daveInstance = repositoryService.getEntityDefinition(results.get(0).guids.get(1));
+        String deptGuid = ((ITypedReferenceableInstance) carolInstance.get("department")).getId()._getId();
+        Assert.assertEquals(((ITypedReferenceableInstance) daveInstance.get("department")).getId()._getId(), deptGuid);
+        Assert.assertEquals(repositoryService.getEntityDefinition(deptGuid).getString("name"),
+                "ingest_referenced_dept");
+    }
+
+    @Test(dependsOnMethods = {"testGetEntityList", "testFullTextSearch"})
+    public void testFullTextIndexer() throws Exception {
+        Referenceable dept = new Referenceable("Department");
+        Referenceable person = new Referenceable("Person");
+        person.set("name", "Mark");
+        person.set("department", dept);
+        dept.set("name", "research");
+        dept.set("employees", ImmutableList.of(person));
+
+        ClassType deptType = typeSystem.getDataType(ClassType.class, "Department");
+        String deptGuid = repositoryService.createEntity(deptType.convert(dept, Multiplicity.REQUIRED));
+
+        // entities created along with the changed ones are indexed with them
+        TitanGraph graph = graphProvider.get();
+        Vertex personVertex = GraphHelper.findVertexByGUID(graph, deptGuid)
+                .getVertices(Direction.OUT, repositoryService.getEdgeLabel("Department", "employees")).iterator()
+                .next();
+        personVertex.removeProperty(Constants.ENTITY_TEXT_PROPERTY_KEY);
+        graph.commit();
+
+        TraitType traitType = typeSystem.defineTraitType(
+                TypesUtil.createTraitTypeDef("Indexed", ImmutableList.<String>of()));
+        repositoryService.addTrait(deptGuid, traitType.createInstance());
+
+        FullTextIndexer asyncIndexer = new FullTextIndexer(repositoryService, true, 10, 100);
+        asyncIndexer.onTraitAdded(deptGuid, "Indexed");
+        Assert.assertEquals(asyncIndexer.getQueueDepth(), 1);
+        asyncIndexer.flush();
+        Assert.assertEquals(asyncIndexer.getQueueDepth(), 0);
+
+        graph.rollback();
+        Vertex deptVertex = GraphHelper.findVertexByGUID(graph, deptGuid);
+        Assert.assertTrue(deptVertex.<String>getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY).contains("Indexed"));
+        personVertex = graph.getVertex(personVertex.getId());
+        Assert.assertTrue(personVertex.<String>getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY).contains("Mark"));
+
+        repositoryService.deleteTrait(deptGuid, "Indexed");
+        new FullTextIndexer(repositoryService, false, 10, 100).onTraitDeleted(deptGuid, "Indexed");
+
+        graph.rollback();
+        deptVertex = GraphHelper.findVertexByGUID(graph, deptGuid);
+        Assert.assertFalse(deptVertex.<String>getProperty(Constants.ENTITY_TEXT_PROPERTY_KEY).contains("Indexed"));
+    }
+
     private void createHiveTypes() throws Exception {
         HierarchicalTypeDefinition<ClassType> superTypeDefinition = TypesUtil
                 .createClassTypeDef(SUPER_TYPE_NAME, ImmutableList.<String>of(),
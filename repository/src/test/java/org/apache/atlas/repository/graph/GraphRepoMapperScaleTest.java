@@ -110,7 +110,8 @@ public class GraphRepoMapperScaleTest {
     @GraphTransaction
     public void setUp() throws Exception {
         //Make sure we can cleanup the index directory
-        repositoryService = new GraphBackedMetadataRepository(graphProvider);
+        repositoryService = new GraphBackedMetadataRepository(graphProvider, new VertexIdCache(),
+                new TypedInstanceCache(0, 0));
 
         searchIndexer = new GraphBackedSearchIndexer(graphProvider);
 
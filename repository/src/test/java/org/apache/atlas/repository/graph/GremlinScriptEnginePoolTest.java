@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.repository.graph;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.script.Bindings;
+import javax.script.ScriptException;
+
+public class GremlinScriptEnginePoolTest {
+
+    @Test
+    public void testEval() throws Exception {
+        GremlinScriptEnginePool engines = new GremlinScriptEnginePool(2, 10);
+
+        for (int i = 0; i < 3; i++) {
+            Bindings bindings = engines.createBindings();
+            bindings.put("x", i);
+            Assert.assertEquals(engines.eval("x + 1", bindings), i + 1);
+        }
+
+        // compiled once, then served from the cache
+        Assert.assertEquals(engines.getStats().missCount(), 1);
+        Assert.assertEquals(engines.getStats().hitCount(), 2);
+    }
+
+    @Test
+    public void testEvictedScripts() throws Exception {
+        GremlinScriptEnginePool engines = new GremlinScriptEnginePool(1, 2);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(engines.eval("return " + i, engines.createBindings()), i);
+        }
+
+        Assert.assertEquals(engines.eval("return 0", engines.createBindings()), 0);
+        Assert.assertTrue(engines.getStats().evictionCount() > 0);
+    }
+
+    @Test(expectedExceptions = ScriptException.class)
+    public void testInvalidScript() throws Exception {
+        GremlinScriptEnginePool engines = new GremlinScriptEnginePool(1, 10);
+        engines.eval("x +", engines.createBindings());
+    }
+}
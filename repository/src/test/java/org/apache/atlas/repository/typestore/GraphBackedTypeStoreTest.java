@@ -18,7 +18,10 @@
 
 package org.apache.atlas.repository.typestore;
 
+import com.google.common.collect.ImmutableList;
+import com.thinkaurelius.titan.core.TitanException;
 import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanTransaction;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -27,9 +30,11 @@ import org.apache.atlas.AtlasException;
 import org.apache.atlas.GraphTransaction;
 import org.apache.atlas.RepositoryMetadataModule;
 import org.apache.atlas.TestUtils;
+import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graph.GraphHelper;
 import org.apache.atlas.repository.graph.GraphProvider;
 import org.apache.atlas.typesystem.TypesDef;
+import org.apache.atlas.typesystem.json.TypesSerialization;
 import org.apache.atlas.typesystem.types.AttributeDefinition;
 import org.apache.atlas.typesystem.types.ClassType;
 import org.apache.atlas.typesystem.types.DataTypes;
@@ -39,12 +44,16 @@ import org.apache.atlas.typesystem.types.HierarchicalTypeDefinition;
 import org.apache.atlas.typesystem.types.StructTypeDefinition;
 import org.apache.atlas.typesystem.types.TraitType;
 import org.apache.atlas.typesystem.types.TypeSystem;
+import org.apache.atlas.typesystem.types.utils.TypesUtil;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 
 import javax.inject.Inject;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 @Guice(modules = RepositoryMetadataModule.class)
 public class GraphBackedTypeStoreTest {
@@ -124,4 +133,89 @@ public class GraphBackedTypeStoreTest {
         ts.reset();
         ts.defineTypes(types);
     }
+
+    @Test(dependsOnMethods = "testRestore")
+    public void testRestoreWithoutSnapshot() throws Exception {
+        TypesDef types = typeStore.restore();
+
+        // types stored before snapshots were written are restored from their vertices
+        TitanGraph graph = graphProvider.get();
+        graph.removeVertex(getSnapshotVertex());
+        graph.commit();
+        Assert.assertNull(getSnapshotVertex());
+
+        Assert.assertEquals(classNames(types), classNames(typeStore.restore()));
+        Assert.assertNotNull(getSnapshotVertex());
+        Assert.assertEquals(classNames(types), classNames(typeStore.restore()));
+    }
+
+    @Test(dependsOnMethods = "testRestoreWithoutSnapshot")
+    public void testStoreUpdatesSnapshot() throws Exception {
+        HierarchicalTypeDefinition<ClassType> contractor = TypesUtil
+                .createClassTypeDef("Contractor", ImmutableList.of("Person"),
+                        TypesUtil.createRequiredAttrDef("agency", DataTypes.STRING_TYPE));
+        ts.defineClassTypes(contractor);
+        typeStore.store(ts, ImmutableList.of("Contractor"));
+
+        TypesDef types = typeStore.restore();
+        Set<String> classNames = classNames(types);
+        Assert.assertTrue(classNames.contains("Contractor"));
+        Assert.assertTrue(classNames.contains("Manager"));
+        Assert.assertEquals(1, types.enumTypesAsJavaList().size());
+
+        ts.reset();
+        ts.defineTypes(types);
+        Assert.assertEquals(ImmutableList.of("Person"), ts.getDataType(ClassType.class, "Contractor").superTypes);
+    }
+
+    @Test(dependsOnMethods = "testStoreUpdatesSnapshot")
+    public void testRestoreWithStaleSnapshot() throws Exception {
+        Set<String> classNames = classNames(typeStore.restore());
+
+        // a snapshot missing types of the type vertices is ignored and rewritten
+        TitanGraph graph = graphProvider.get();
+        getSnapshotVertex().setProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY,
+                TypesSerialization.toJson(ts, "Person"));
+        graph.commit();
+
+        Assert.assertEquals(classNames, classNames(typeStore.restore()));
+        Assert.assertEquals(classNames, classNames(TypesSerialization.fromJson((String) getSnapshotVertex()
+                .getProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY))));
+    }
+
+    @Test(dependsOnMethods = "testRestoreWithStaleSnapshot")
+    public void testConcurrentSnapshotChangesFail() throws Exception {
+        TitanGraph graph = graphProvider.get();
+        Object snapshotId = getSnapshotVertex().getId();
+        graph.commit();
+
+        TitanTransaction tx1 = graph.newTransaction();
+        TitanTransaction tx2 = graph.newTransaction();
+        String snapshot = tx1.getVertex(snapshotId).getProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY);
+        tx2.getVertex(snapshotId).getProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY);
+        tx1.getVertex(snapshotId).setProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY, snapshot);
+        tx2.getVertex(snapshotId).setProperty(GraphBackedTypeStore.SNAPSHOT_PROPERTY_KEY, snapshot);
+        tx1.commit();
+        try {
+            tx2.commit();
+            Assert.fail("Expected the snapshot lock to fail the second commit");
+        } catch (TitanException e) {
+            //expected
+        }
+    }
+
+    private Vertex getSnapshotVertex() {
+        Iterator<Vertex> vertices = graphProvider.get().query()
+                .has(Constants.VERTEX_TYPE_PROPERTY_KEY, GraphBackedTypeStore.SNAPSHOT_VERTEX_TYPE).vertices()
+                .iterator();
+        return vertices.hasNext() ? vertices.next() : null;
+    }
+
+    private Set<String> classNames(TypesDef types) {
+        Set<String> names = new HashSet<>();
+        for (HierarchicalTypeDefinition<ClassType> classType : types.classTypesAsJavaList()) {
+            names.add(classType.typeName);
+        }
+        return names;
+    }
 }
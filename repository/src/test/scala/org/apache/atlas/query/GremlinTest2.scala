@@ -30,6 +30,9 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
 
   var g: TitanGraph = null
 
+
+  def gp: GraphPersistenceStrategies = GraphPersistenceStrategy1
+
   override def beforeAll() {
     TypeSystem.getInstance().reset()
     QueryTestsUtils.setupTypes
@@ -41,38 +44,38 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
   }
 
   test("testTraitSelect") {
-    val r = QueryProcessor.evaluate(_class("Table").as("t").join("Dimension").as("dim").select(id("t"), id("dim")), g)
+    val r = QueryProcessor.evaluate(_class("Table").as("t").join("Dimension").as("dim").select(id("t"), id("dim")), g, gp)
     validateJson(r, "{\n  \"query\":\"Table as t.Dimension as dim select t as _col_0, dim as _col_1\",\n  \"dataType\":{\n    \"typeName\":\"\",\n    \"attributeDefinitions\":[\n      {\n        \"name\":\"_col_0\",\n        \"dataTypeName\":\"Table\",\n        \"multiplicity\":{\n          \"lower\":0,\n          \"upper\":1,\n          \"isUnique\":false\n        },\n        \"isComposite\":false,\n        \"isUnique\":false,\n        \"isIndexable\":true,\n        \"reverseAttributeName\":null\n      },\n      {\n        \"name\":\"_col_1\",\n        \"dataTypeName\":\"Dimension\",\n        \"multiplicity\":{\n          \"lower\":0,\n          \"upper\":1,\n          \"isUnique\":false\n        },\n        \"isComposite\":false,\n        \"isUnique\":false,\n        \"isIndexable\":true,\n        \"reverseAttributeName\":null\n      }\n    ]\n  },\n  \"rows\":[\n    {\n      \"$typeName$\":\"\",\n      \"_col_1\":{\n        \"$typeName$\":\"Dimension\"\n      },\n      \"_col_0\":{\n        \"id\":\"3328\",\n        \"$typeName$\":\"Table\",\n        \"version\":0\n      }\n    },\n    {\n      \"$typeName$\":\"\",\n      \"_col_1\":{\n        \"$typeName$\":\"Dimension\"\n      },\n      \"_col_0\":{\n        \"id\":\"4864\",\n        \"$typeName$\":\"Table\",\n        \"version\":0\n      }\n    },\n    {\n      \"$typeName$\":\"\",\n      \"_col_1\":{\n        \"$typeName$\":\"Dimension\"\n      },\n      \"_col_0\":{\n        \"id\":\"6656\",\n        \"$typeName$\":\"Table\",\n        \"version\":0\n      }\n    }\n  ]\n}")
   }
 
   test("testTrait") {
-    val r = QueryProcessor.evaluate(_trait("Dimension"), g)
+    val r = QueryProcessor.evaluate(_trait("Dimension"), g, gp)
     validateJson(r)
   }
 
   test("testTraitInstance") {
-    val r = QueryProcessor.evaluate(_trait("Dimension").traitInstance(), g)
+    val r = QueryProcessor.evaluate(_trait("Dimension").traitInstance(), g, gp)
     validateJson(r)
   }
 
   test("testInstanceAddedToFilter") {
-    val r = QueryProcessor.evaluate(_trait("Dimension").hasField("typeName"), g)
+    val r = QueryProcessor.evaluate(_trait("Dimension").hasField("typeName"), g, gp)
     validateJson(r)
   }
 
   test("testInstanceFilter") {
-    val r = QueryProcessor.evaluate(_trait("Dimension").traitInstance().hasField("name"), g)
+    val r = QueryProcessor.evaluate(_trait("Dimension").traitInstance().hasField("name"), g, gp)
     validateJson(r)
   }
 
   test("testLineageWithPath") {
-    val r = QueryProcessor.evaluate(_class("Table").loop(id("LoadProcess").field("outputTable")).path(), g)
+    val r = QueryProcessor.evaluate(_class("Table").loop(id("LoadProcess").field("outputTable")).path(), g, gp)
     validateJson(r)
   }
 
   test("testLineageAllSelectWithPath") {
     val r = QueryProcessor.evaluate(_class("Table").as("src").loop(id("LoadProcess").field("outputTable")).as("dest").
-      select(id("src").field("name").as("srcTable"), id("dest").field("name").as("destTable")).path(), g)
+      select(id("src").field("name").as("srcTable"), id("dest").field("name").as("destTable")).path(), g, gp)
     validateJson(r)
   }
 
@@ -81,7 +84,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
     val e = p("Table as src loop (LoadProcess outputTable) as dest " +
       "select src.name as srcTable, dest.name as destTable withPath").right.get
     //Table as src loop (LoadProcess where LoadProcess.outputTable) as dest select src.name as srcTable, dest.name as destTable withPath
-    val r = QueryProcessor.evaluate(e, g)
+    val r = QueryProcessor.evaluate(e, g, gp)
     validateJson(r)
   }
 
@@ -90,7 +93,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
 
     val e = p("Table as src loop (`LoadProcess->outputTable` inputTables) as dest " +
       "select src.name as srcTable, dest.name as destTable withPath").right.get
-    val r = QueryProcessor.evaluate(e, g)
+    val r = QueryProcessor.evaluate(e, g, gp)
     validateJson(r)
   }
 
@@ -99,7 +102,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
           "LoadProcess",
           "inputTables",
           "outputTable",
-        None, Some(List("name")), true, GraphPersistenceStrategy1, g).evaluate()
+        None, Some(List("name")), true, gp, g).evaluate()
     validateJson(r)
   }
 
@@ -108,7 +111,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
       "LoadProcess",
       "inputTables",
       "outputTable",
-      None, Some(List("name")), true, GraphPersistenceStrategy1, g).graph
+      None, Some(List("name")), true, gp, g).graph
 
     println(r.toInstanceJson)
     //validateJson(r)
@@ -119,7 +122,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
       "LoadProcess",
       "inputTables",
       "outputTable",
-      None, Some(List("name")), true, GraphPersistenceStrategy1, g).evaluate()
+      None, Some(List("name")), true, gp, g).evaluate()
     validateJson(r)
   }
 
@@ -128,7 +131,7 @@ class GremlinTest2 extends FunSuite with BeforeAndAfterAll with BaseGremlinTest
       "LoadProcess",
       "inputTables",
       "outputTable",
-      None, Some(List("name")), true, GraphPersistenceStrategy1, g).graph
+      None, Some(List("name")), true, gp, g).graph
     println(r.toInstanceJson)
   }
 
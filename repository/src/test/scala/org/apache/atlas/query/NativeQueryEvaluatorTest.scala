@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.atlas.query
+
+import org.junit.runner.RunWith
+import org.scalatest.junit.JUnitRunner
+
+object NativeGraphPersistenceStrategy1 extends GraphPersistenceStrategy1 {
+    override val executeNatively = true
+}
+
+/*
+ * Run the query suites against the native execution backend; the expected results are the same as with Gremlin.
+ */
+
+@RunWith(classOf[JUnitRunner])
+class NativeGremlinTest extends GremlinTest {
+    override def gp = NativeGraphPersistenceStrategy1
+}
+
+@RunWith(classOf[JUnitRunner])
+class NativeGremlinTest2 extends GremlinTest2 {
+    override def gp = NativeGraphPersistenceStrategy1
+}
+
+@RunWith(classOf[JUnitRunner])
+class NativeLineageQueryTest extends LineageQueryTest {
+    override def gp = NativeGraphPersistenceStrategy1
+}
@@ -18,8 +18,9 @@
 
 package org.apache.atlas.query
 
+import org.apache.atlas.query.Expressions._
 import org.apache.atlas.repository.BaseTest
-import org.junit.{Before, Test}
+import org.junit.{Assert, Before, Test}
 
 
 class ParserTest extends BaseTest {
@@ -57,6 +58,54 @@ class ParserTest extends BaseTest {
         println(p("DB name = \"Reporting\"").right.get.toString)
     }
 
+    @Test def testLimit: Unit = {
+        val p = new QueryParser
+        println(p("DB where name = \"Reporting\" limit 10 offset 5").right.get.toString)
+    }
+
+    @Test def testOrderBy: Unit = {
+        val p = new QueryParser
+        val e = p("Table where name = \"sales_fact\" select name orderby name desc").right.get
+        // the source objects are ordered before the select list is computed
+        e match {
+            case SelectExpression(OrderExpression(_, _, false), _) =>
+            case _ => Assert.fail(s"Expected a select of an ordered source, got $e")
+        }
+        Assert.assertEquals("Table where (name = \"sales_fact\") orderby name desc select name as _col_0", e.toString)
+    }
+
+    @Test def testAggregates: Unit = {
+        val p = new QueryParser
+        val e = p("DB select count(), max(createTime), min(createTime), sum(createTime) as total").right.get
+        e match {
+            case SelectExpression(_, List(CountExpression(), MaxExpression(_), MinExpression(_),
+                AliasExpression(SumExpression(_), "total"))) =>
+            case _ => Assert.fail(s"Expected a select of aggregate functions, got $e")
+        }
+        Assert.assertEquals("DB select count() as _col_0, max(createTime) as _col_1, min(createTime) as _col_2, " +
+            "sum(createTime) as total", e.toString)
+
+        val grouped = p("Table groupby(db.name) select db.name, count()").right.get
+        grouped match {
+            case SelectExpression(GroupByExpression(_, List(_)), List(_, CountExpression())) =>
+            case _ => Assert.fail(s"Expected a select of a grouped source, got $grouped")
+        }
+        Assert.assertEquals("Table groupby(db.name) select db.name as _col_0, count() as _col_1", grouped.toString)
+    }
+
+    @Test def testKeywordsAsIdentifiers: Unit = {
+        val p = new QueryParser
+        // the aggregate functions and sort orders are only keywords where the grammar expects them
+        val e = p("DB where count > 1 select count, max, desc orderby sum desc").right.get
+        Assert.assertEquals("DB where (count > 1) orderby sum desc select count as _col_0, max as _col_1, " +
+            "desc as _col_2", e.toString)
+
+        // the other keywords can be used as identifiers in backticks
+        val quoted = p("DB where `limit` > 1 select `offset`, `orderby` limit 1").right.get
+        Assert.assertEquals("DB where (limit > 1) select offset as _col_0, orderby as _col_1 limit 1 offset 0",
+            quoted.toString)
+    }
+
   @Test def testIsTrait: Unit = {
     val p = new QueryParser
     println(p("Table isa Dimension").right.get.toString)
@@ -29,6 +29,7 @@ import org.apache.atlas.typesystem.types.FieldMapping;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Date;
+import java.util.Map;
 
 /*
  * @todo handle names prefixed by traitName.
@@ -79,6 +80,25 @@ public class ReferenceableInstance extends StructInstance implements ITypedRefer
         this.id = id;
     }
 
+    @Override
+    public ReferenceableInstance copy() {
+        ImmutableMap.Builder<String, ITypedStruct> traitsCopy = ImmutableMap.builder();
+        for (Map.Entry<String, ITypedStruct> trait : traits.entrySet()) {
+            traitsCopy.put(trait.getKey(), (ITypedStruct) copyValue(trait.getValue()));
+        }
+
+        ReferenceableInstance copy = new ReferenceableInstance(id, dataTypeName, fieldMapping,
+                new boolean[nullFlags.length], bools == null ? null : bools.clone(),
+                bytes == null ? null : bytes.clone(), shorts == null ? null : shorts.clone(),
+                ints == null ? null : ints.clone(), longs == null ? null : longs.clone(),
+                floats == null ? null : floats.clone(), doubles == null ? null : doubles.clone(),
+                bigDecimals == null ? null : bigDecimals.clone(), bigIntegers == null ? null : bigIntegers.clone(),
+                copyDates(), strings == null ? null : strings.clone(), copyArrays(), copyMaps(), copyStructs(),
+                copyReferenceables(), ids == null ? null : ids.clone(), traitsCopy.build());
+        copyNullFlags(copy);
+        return copy;
+    }
+
     @Override
     public String toString() {
         try {
@@ -712,6 +712,102 @@ public class StructInstance implements ITypedStruct {
         TypeUtils.outputVal("\n}\n", buf, "");
     }
 
+    /**
+     * Returns a deep copy of this instance: the dates, structs and referenceable instances it holds, directly or
+     * in its arrays and maps, are copied as well, so that changing one doesn't change the other.
+     */
+    public StructInstance copy() {
+        StructInstance copy = new StructInstance(dataTypeName, fieldMapping, new boolean[nullFlags.length],
+                bools == null ? null : bools.clone(), bytes == null ? null : bytes.clone(),
+                shorts == null ? null : shorts.clone(), ints == null ? null : ints.clone(),
+                longs == null ? null : longs.clone(), floats == null ? null : floats.clone(),
+                doubles == null ? null : doubles.clone(), bigDecimals == null ? null : bigDecimals.clone(),
+                bigIntegers == null ? null : bigIntegers.clone(), copyDates(), strings == null ? null : strings.clone(),
+                copyArrays(), copyMaps(), copyStructs(), copyReferenceables(), ids == null ? null : ids.clone());
+        copyNullFlags(copy);
+        return copy;
+    }
+
+    void copyNullFlags(StructInstance copy) {
+        System.arraycopy(nullFlags, 0, copy.nullFlags, 0, nullFlags.length);
+    }
+
+    Date[] copyDates() {
+        if (dates == null) {
+            return null;
+        }
+        Date[] copy = new Date[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            copy[i] = dates[i] == null ? null : (Date) dates[i].clone();
+        }
+        return copy;
+    }
+
+    ImmutableList<Object>[] copyArrays() {
+        if (arrays == null) {
+            return null;
+        }
+        ImmutableList<Object>[] copy = arrays.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] != null) {
+                ImmutableList.Builder<Object> b = ImmutableList.builder();
+                for (Object element : copy[i]) {
+                    b.add(copyValue(element));
+                }
+                copy[i] = b.build();
+            }
+        }
+        return copy;
+    }
+
+    ImmutableMap<Object, Object>[] copyMaps() {
+        if (maps == null) {
+            return null;
+        }
+        ImmutableMap<Object, Object>[] copy = maps.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] != null) {
+                ImmutableMap.Builder<Object, Object> b = ImmutableMap.builder();
+                for (Map.Entry<Object, Object> entry : copy[i].entrySet()) {
+                    b.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+                }
+                copy[i] = b.build();
+            }
+        }
+        return copy;
+    }
+
+    StructInstance[] copyStructs() {
+        if (structs == null) {
+            return null;
+        }
+        StructInstance[] copy = new StructInstance[structs.length];
+        for (int i = 0; i < structs.length; i++) {
+            copy[i] = structs[i] == null ? null : structs[i].copy();
+        }
+        return copy;
+    }
+
+    ReferenceableInstance[] copyReferenceables() {
+        if (referenceables == null) {
+            return null;
+        }
+        ReferenceableInstance[] copy = new ReferenceableInstance[referenceables.length];
+        for (int i = 0; i < referenceables.length; i++) {
+            copy[i] = referenceables[i] == null ? null : referenceables[i].copy();
+        }
+        return copy;
+    }
+
+    static Object copyValue(Object value) {
+        if (value instanceof StructInstance) {
+            return ((StructInstance) value).copy();
+        } else if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        return value;
+    }
+
     @Override
     public String toString() {
         try {
@@ -20,6 +20,9 @@ package org.apache.atlas.typesystem.types;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.TypeNotFoundException;
@@ -34,6 +37,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -54,13 +58,20 @@ public class TypeSystem {
         }
     };
 
-    private Map<String, IDataType> types;
+    /**
+     * The registered types. A snapshot is never modified: defining or removing types builds a new snapshot, which
+     * is then published by replacing this one, so readers always see complete batches of types.
+     */
+    private volatile Snapshot snapshot;
     private IdType idType;
 
-    /**
-     * An in-memory copy of type categories vs types for convenience.
+    /*
+     * Types are defined and removed one batch at a time. The thread defining a batch looks its types up among the
+     * pending types until the batch is published; other threads only see the batch once it is published.
      */
-    private Multimap<DataTypes.TypeCategory, String> typeCategoriesToTypeNamesMap;
+    private final Object definitionLock = new Object();
+    private volatile Thread definingThread;
+    private Map<String, IDataType> pendingTypes;
 
     private ImmutableList<String> coreTypes;
 
@@ -81,12 +92,31 @@ public class TypeSystem {
     }
 
     private void initialize() {
-        types = new ConcurrentHashMap<>();
-        typeCategoriesToTypeNamesMap = ArrayListMultimap.create(DataTypes.TypeCategory.values().length, 10);
+        synchronized (definitionLock) {
+            long version = snapshot != null ? snapshot.version + 1 : 0;
+            snapshot = new Snapshot(version, ImmutableMap.<String, IDataType>of(),
+                    ImmutableListMultimap.<DataTypes.TypeCategory, String>of(),
+                    ImmutableMap.<String, ImmutableSet<String>>of());
+
+            registerPrimitiveTypes();
+            registerCoreTypes();
+            coreTypes = ImmutableList.copyOf(snapshot.types.keySet());
+        }
+    }
 
-        registerPrimitiveTypes();
-        registerCoreTypes();
-        coreTypes = ImmutableList.copyOf(types.keySet());
+    /**
+     * Returns the registered types. The snapshot doesn't change as types are defined or removed, so lookups
+     * through it are consistent with each other, e.g. for the duration of a request.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the version of the registered types, which is increased each time types are defined or removed.
+     */
+    public long getVersion() {
+        return snapshot.version;
     }
 
     public ImmutableList<String> getCoreTypes() {
@@ -94,29 +124,35 @@ public class TypeSystem {
     }
 
     public ImmutableList<String> getTypeNames() {
-        List<String> typeNames = new ArrayList<>(types.keySet());
+        List<String> typeNames = new ArrayList<>(snapshot.types.keySet());
+        if (definingThread == Thread.currentThread()) {
+            typeNames.addAll(pendingTypes.keySet());
+        }
         typeNames.removeAll(getCoreTypes());
         return ImmutableList.copyOf(typeNames);
     }
 
     public ImmutableList<String> getTypeNamesByCategory(DataTypes.TypeCategory typeCategory) {
-        return ImmutableList.copyOf(typeCategoriesToTypeNamesMap.get(typeCategory));
+        return snapshot.getTypeNamesByCategory(typeCategory);
     }
 
     private void registerPrimitiveTypes() {
-        types.put(DataTypes.BOOLEAN_TYPE.getName(), DataTypes.BOOLEAN_TYPE);
-        types.put(DataTypes.BYTE_TYPE.getName(), DataTypes.BYTE_TYPE);
-        types.put(DataTypes.SHORT_TYPE.getName(), DataTypes.SHORT_TYPE);
-        types.put(DataTypes.INT_TYPE.getName(), DataTypes.INT_TYPE);
-        types.put(DataTypes.LONG_TYPE.getName(), DataTypes.LONG_TYPE);
-        types.put(DataTypes.FLOAT_TYPE.getName(), DataTypes.FLOAT_TYPE);
-        types.put(DataTypes.DOUBLE_TYPE.getName(), DataTypes.DOUBLE_TYPE);
-        types.put(DataTypes.BIGINTEGER_TYPE.getName(), DataTypes.BIGINTEGER_TYPE);
-        types.put(DataTypes.BIGDECIMAL_TYPE.getName(), DataTypes.BIGDECIMAL_TYPE);
-        types.put(DataTypes.DATE_TYPE.getName(), DataTypes.DATE_TYPE);
-        types.put(DataTypes.STRING_TYPE.getName(), DataTypes.STRING_TYPE);
-
-        typeCategoriesToTypeNamesMap.putAll(DataTypes.TypeCategory.PRIMITIVE, types.keySet());
+        Map<String, IDataType> primitiveTypes = new LinkedHashMap<>();
+        primitiveTypes.put(DataTypes.BOOLEAN_TYPE.getName(), DataTypes.BOOLEAN_TYPE);
+        primitiveTypes.put(DataTypes.BYTE_TYPE.getName(), DataTypes.BYTE_TYPE);
+        primitiveTypes.put(DataTypes.SHORT_TYPE.getName(), DataTypes.SHORT_TYPE);
+        primitiveTypes.put(DataTypes.INT_TYPE.getName(), DataTypes.INT_TYPE);
+        primitiveTypes.put(DataTypes.LONG_TYPE.getName(), DataTypes.LONG_TYPE);
+        primitiveTypes.put(DataTypes.FLOAT_TYPE.getName(), DataTypes.FLOAT_TYPE);
+        primitiveTypes.put(DataTypes.DOUBLE_TYPE.getName(), DataTypes.DOUBLE_TYPE);
+        primitiveTypes.put(DataTypes.BIGINTEGER_TYPE.getName(), DataTypes.BIGINTEGER_TYPE);
+        primitiveTypes.put(DataTypes.BIGDECIMAL_TYPE.getName(), DataTypes.BIGDECIMAL_TYPE);
+        primitiveTypes.put(DataTypes.DATE_TYPE.getName(), DataTypes.DATE_TYPE);
+        primitiveTypes.put(DataTypes.STRING_TYPE.getName(), DataTypes.STRING_TYPE);
+
+        Multimap<DataTypes.TypeCategory, String> categories = ArrayListMultimap.create();
+        categories.putAll(DataTypes.TypeCategory.PRIMITIVE, primitiveTypes.keySet());
+        snapshot = snapshot.add(primitiveTypes, categories);
     }
 
 
@@ -132,13 +168,32 @@ public class TypeSystem {
     }
 
     public boolean isRegistered(String typeName) {
-        return types.containsKey(typeName);
+        return snapshot.isRegistered(typeName) || getPendingType(typeName) != null;
+    }
+
+    /**
+     * Returns the names of the types that have the given type as a super type, directly or through other types.
+     *
+     * @param typeName name of a class or trait type
+     * @return names of the sub types, empty if the type has none or isn't registered
+     */
+    public ImmutableSet<String> getSubTypeNames(String typeName) {
+        return snapshot.getSubTypeNames(typeName);
+    }
+
+    private IDataType getPendingType(String name) {
+        return definingThread == Thread.currentThread() ? pendingTypes.get(name) : null;
     }
 
     public <T> T getDataType(Class<T> cls, String name) throws AtlasException {
-        if (types.containsKey(name)) {
+        Snapshot current = snapshot;
+        IDataType type = current.find(name);
+        if (type == null) {
+            type = getPendingType(name);
+        }
+        if (type != null) {
             try {
-                return cls.cast(types.get(name));
+                return cls.cast(type);
             } catch (ClassCastException cce) {
                 throw new AtlasException(cce);
             }
@@ -149,7 +204,7 @@ public class TypeSystem {
          */
         String arrElemType = TypeUtils.parseAsArrayType(name);
         if (arrElemType != null) {
-            IDataType dT = defineArrayType(getDataType(IDataType.class, arrElemType));
+            IDataType dT = current.intern(new DataTypes.ArrayType(getDataType(IDataType.class, arrElemType)));
             return cls.cast(dT);
         }
 
@@ -158,8 +213,8 @@ public class TypeSystem {
          */
         String[] mapType = TypeUtils.parseAsMapType(name);
         if (mapType != null) {
-            IDataType dT =
-                    defineMapType(getDataType(IDataType.class, mapType[0]), getDataType(IDataType.class, mapType[1]));
+            IDataType dT = current.intern(new DataTypes.MapType(getDataType(IDataType.class, mapType[0]),
+                    getDataType(IDataType.class, mapType[1])));
             return cls.cast(dT);
         }
 
@@ -227,19 +282,27 @@ public class TypeSystem {
     }
 
     public Map<String, IDataType> defineTypes(TypesDef typesDef) throws AtlasException {
-        Map<String, IDataType> typesAdded = new HashMap<>();
-        for (EnumTypeDefinition enumDef : typesDef.enumTypesAsJavaList()) {
-            typesAdded.put(enumDef.name, defineEnumType(enumDef));
-        }
+        return defineTypes(typesDef, null);
+    }
 
+    /**
+     * Defines the types of the given batch, and publishes them once the given commit has succeeded. The commit is
+     * called with the defined types before anyone else can see them, and sees them through this type system as if
+     * they were registered. If it fails, the types aren't published.
+     *
+     * @param commit called with the defined types before they are published, may be null
+     * @return the defined types
+     */
+    public Map<String, IDataType> defineTypes(TypesDef typesDef, TypesCommit commit) throws AtlasException {
+        ImmutableList<EnumTypeDefinition> enumDefs = ImmutableList.copyOf(typesDef.enumTypesAsJavaList());
         ImmutableList<StructTypeDefinition> structDefs = ImmutableList.copyOf(typesDef.structTypesAsJavaList());
         ImmutableList<HierarchicalTypeDefinition<TraitType>> traitDefs =
                 ImmutableList.copyOf(typesDef.traitTypesAsJavaList());
         ImmutableList<HierarchicalTypeDefinition<ClassType>> classDefs =
                 ImmutableList.copyOf(typesDef.classTypesAsJavaList());
 
-        typesAdded.putAll(defineTypes(structDefs, traitDefs, classDefs));
-        return typesAdded;
+        TransientTypeSystem transientTypes = new TransientTypeSystem(enumDefs, structDefs, traitDefs, classDefs);
+        return transientTypes.defineTypes(commit);
     }
 
     public Map<String, IDataType> defineTypes(ImmutableList<StructTypeDefinition> structDefs,
@@ -257,7 +320,7 @@ public class TypeSystem {
         DataTypes.ArrayType dT = new DataTypes.ArrayType(elemType);
         //        types.put(dT.getName(), dT);
         //        typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.ARRAY, dT.getName());
-        return dT;
+        return (DataTypes.ArrayType) snapshot.intern(dT);
     }
 
     public DataTypes.MapType defineMapType(IDataType keyType, IDataType valueType) throws AtlasException {
@@ -266,7 +329,7 @@ public class TypeSystem {
         DataTypes.MapType dT = new DataTypes.MapType(keyType, valueType);
         //        types.put(dT.getName(), dT);
         //        typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.MAP, dT.getName());
-        return dT;
+        return (DataTypes.MapType) snapshot.intern(dT);
     }
 
     public EnumType defineEnumType(String name, EnumValue... values) throws AtlasException {
@@ -275,14 +338,10 @@ public class TypeSystem {
 
     public EnumType defineEnumType(EnumTypeDefinition eDef) throws AtlasException {
         assert eDef.name != null;
-        if (types.containsKey(eDef.name)) {
-            throw new AtlasException(String.format("Redefinition of type %s not supported", eDef.name));
-        }
-
-        EnumType eT = new EnumType(this, eDef.name, eDef.enumValues);
-        types.put(eDef.name, eT);
-        typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.ENUM, eDef.name);
-        return eT;
+        TransientTypeSystem transientTypes = new TransientTypeSystem(ImmutableList.of(eDef),
+                ImmutableList.<StructTypeDefinition>of(), ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(),
+                ImmutableList.<HierarchicalTypeDefinition<ClassType>>of());
+        return (EnumType) transientTypes.defineTypes().get(eDef.name);
     }
 
     public SimpleDateFormat getDateFormat() {
@@ -293,17 +352,179 @@ public class TypeSystem {
         return false;
     }
 
+    /**
+     * Makes the types of a batch durable, e.g. by indexing and storing them, before they are published.
+     */
+    public interface TypesCommit {
+        void commit(Map<String, IDataType> definedTypes) throws AtlasException;
+    }
+
     public void removeTypes(Collection<String> typeNames) {
-        for (String typeName : typeNames) {
-            IDataType dataType = types.get(typeName);
-            final DataTypes.TypeCategory typeCategory = dataType.getTypeCategory();
-            typeCategoriesToTypeNamesMap.get(typeCategory).remove(typeName);
-            types.remove(typeName);
+        synchronized (definitionLock) {
+            snapshot = snapshot.remove(typeNames);
+        }
+    }
+
+    /**
+     * An immutable set of registered types, along with the indexes derived from them. The array and map types of
+     * the registered types are built once, the first time they are looked up, and then shared by all lookups.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final ImmutableMap<String, IDataType> types;
+        private final ImmutableListMultimap<DataTypes.TypeCategory, String> typeNamesByCategory;
+
+        /*
+         * The names of the sub types of each class and trait type that has sub types, including the sub types of
+         * its sub types.
+         */
+        private final ImmutableMap<String, ImmutableSet<String>> subTypes;
+        private final ConcurrentHashMap<String, IDataType> compositeTypes = new ConcurrentHashMap<>();
+
+        private Snapshot(long version, ImmutableMap<String, IDataType> types,
+                ImmutableListMultimap<DataTypes.TypeCategory, String> typeNamesByCategory,
+                ImmutableMap<String, ImmutableSet<String>> subTypes) {
+            this.version = version;
+            this.types = types;
+            this.typeNamesByCategory = typeNamesByCategory;
+            this.subTypes = subTypes;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isRegistered(String typeName) {
+            return types.containsKey(typeName);
+        }
+
+        public ImmutableList<String> getTypeNamesByCategory(DataTypes.TypeCategory typeCategory) {
+            return typeNamesByCategory.get(typeCategory);
+        }
+
+        public ImmutableSet<String> getSubTypeNames(String typeName) {
+            ImmutableSet<String> names = subTypes.get(typeName);
+            return names != null ? names : ImmutableSet.<String>of();
+        }
+
+        public <T> T getDataType(Class<T> cls, String name) throws AtlasException {
+            IDataType type = find(name);
+            if (type == null) {
+                String arrElemType = TypeUtils.parseAsArrayType(name);
+                String[] mapType = arrElemType == null ? TypeUtils.parseAsMapType(name) : null;
+                if (arrElemType != null) {
+                    type = intern(new DataTypes.ArrayType(getDataType(IDataType.class, arrElemType)));
+                } else if (mapType != null) {
+                    type = intern(new DataTypes.MapType(getDataType(IDataType.class, mapType[0]),
+                            getDataType(IDataType.class, mapType[1])));
+                } else {
+                    throw new TypeNotFoundException(String.format("Unknown datatype: %s", name));
+                }
+            }
+
+            try {
+                return cls.cast(type);
+            } catch (ClassCastException cce) {
+                throw new AtlasException(cce);
+            }
+        }
+
+        private IDataType find(String name) {
+            IDataType type = types.get(name);
+            return type != null ? type : compositeTypes.get(name);
+        }
+
+        /*
+         * Returns the shared instance of the given array or map type. Only composites of the types of this snapshot
+         * are shared: a composite of a temporary type, e.g. of a query result or of a type being defined, could
+         * otherwise be returned for another type of the same name.
+         */
+        private IDataType intern(IDataType composite) {
+            boolean internable;
+            if (composite instanceof DataTypes.ArrayType) {
+                internable = contains(((DataTypes.ArrayType) composite).getElemType());
+            } else {
+                DataTypes.MapType mapType = (DataTypes.MapType) composite;
+                internable = contains(mapType.getKeyType()) && contains(mapType.getValueType());
+            }
+            if (!internable) {
+                return composite;
+            }
+
+            IDataType interned = compositeTypes.putIfAbsent(composite.getName(), composite);
+            return interned != null ? interned : composite;
+        }
+
+        private boolean contains(IDataType type) {
+            return find(type.getName()) == type;
+        }
+
+        private Snapshot add(Map<String, IDataType> addedTypes, Multimap<DataTypes.TypeCategory, String> categories) {
+            Map<String, IDataType> newTypes = new LinkedHashMap<>(types);
+            newTypes.putAll(addedTypes);
+
+            ImmutableListMultimap.Builder<DataTypes.TypeCategory, String> newCategories =
+                    ImmutableListMultimap.builder();
+            newCategories.putAll(typeNamesByCategory).putAll(categories);
+
+            Map<String, Set<String>> newSubTypes = new HashMap<>();
+            for (Map.Entry<String, ImmutableSet<String>> entry : subTypes.entrySet()) {
+                newSubTypes.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+            }
+            for (IDataType type : addedTypes.values()) {
+                if (type instanceof HierarchicalType) {
+                    for (String superTypeName : ((HierarchicalType<?, ?>) type).getAllSuperTypeNames()) {
+                        if (!newSubTypes.containsKey(superTypeName)) {
+                            newSubTypes.put(superTypeName, new LinkedHashSet<String>());
+                        }
+                        newSubTypes.get(superTypeName).add(type.getName());
+                    }
+                }
+            }
+
+            return new Snapshot(version + 1, ImmutableMap.copyOf(newTypes), newCategories.build(),
+                    copyOf(newSubTypes));
+        }
+
+        private Snapshot remove(Collection<String> typeNames) {
+            Map<String, IDataType> newTypes = new LinkedHashMap<>(types);
+            newTypes.keySet().removeAll(typeNames);
+
+            ImmutableListMultimap.Builder<DataTypes.TypeCategory, String> newCategories =
+                    ImmutableListMultimap.builder();
+            for (Map.Entry<DataTypes.TypeCategory, String> entry : typeNamesByCategory.entries()) {
+                if (!typeNames.contains(entry.getValue())) {
+                    newCategories.put(entry);
+                }
+            }
+
+            Map<String, Set<String>> newSubTypes = new HashMap<>();
+            for (Map.Entry<String, ImmutableSet<String>> entry : subTypes.entrySet()) {
+                if (!typeNames.contains(entry.getKey())) {
+                    Set<String> names = new LinkedHashSet<>(entry.getValue());
+                    names.removeAll(typeNames);
+                    newSubTypes.put(entry.getKey(), names);
+                }
+            }
+
+            return new Snapshot(version + 1, ImmutableMap.copyOf(newTypes), newCategories.build(),
+                    copyOf(newSubTypes));
+        }
+
+        private static ImmutableMap<String, ImmutableSet<String>> copyOf(Map<String, Set<String>> subTypes) {
+            ImmutableMap.Builder<String, ImmutableSet<String>> builder = ImmutableMap.builder();
+            for (Map.Entry<String, Set<String>> entry : subTypes.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    builder.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+                }
+            }
+            return builder.build();
         }
     }
 
     class TransientTypeSystem extends TypeSystem {
 
+        final ImmutableList<EnumTypeDefinition> enumDefs;
         final ImmutableList<StructTypeDefinition> structDefs;
         final ImmutableList<HierarchicalTypeDefinition<TraitType>> traitDefs;
         final ImmutableList<HierarchicalTypeDefinition<ClassType>> classDefs;
@@ -313,6 +534,10 @@ public class TypeSystem {
 
         Set<String> transientTypes;
 
+        // the types of the batch, and their categories, published together once they are all defined
+        Map<String, IDataType> pending;
+        Multimap<DataTypes.TypeCategory, String> pendingCategories;
+
         List<AttributeInfo> recursiveRefs;
         List<DataTypes.ArrayType> recursiveArrayTypes;
         List<DataTypes.MapType> recursiveMapTypes;
@@ -321,7 +546,15 @@ public class TypeSystem {
         TransientTypeSystem(ImmutableList<StructTypeDefinition> structDefs,
                 ImmutableList<HierarchicalTypeDefinition<TraitType>> traitDefs,
                 ImmutableList<HierarchicalTypeDefinition<ClassType>> classDefs) {
+            this(ImmutableList.<EnumTypeDefinition>of(), structDefs, traitDefs, classDefs);
+        }
+
+        TransientTypeSystem(ImmutableList<EnumTypeDefinition> enumDefs,
+                ImmutableList<StructTypeDefinition> structDefs,
+                ImmutableList<HierarchicalTypeDefinition<TraitType>> traitDefs,
+                ImmutableList<HierarchicalTypeDefinition<ClassType>> classDefs) {
 
+            this.enumDefs = enumDefs;
             this.structDefs = structDefs;
             this.traitDefs = traitDefs;
             this.classDefs = classDefs;
@@ -333,10 +566,13 @@ public class TypeSystem {
             recursiveArrayTypes = new ArrayList<>();
             recursiveMapTypes = new ArrayList<>();
             transientTypes = new LinkedHashSet<>();
+            pending = new LinkedHashMap<>();
+            pendingCategories = ArrayListMultimap.create();
         }
 
         private IDataType dataType(String name) {
-            return TypeSystem.this.types.get(name);
+            IDataType type = pending.get(name);
+            return type != null ? type : TypeSystem.this.snapshot.find(name);
         }
 
         /*
@@ -345,24 +581,32 @@ public class TypeSystem {
          * - setup shallow Type instances to facilitate recursive type graphs
          */
         private void step1() throws AtlasException {
+            for (EnumTypeDefinition eDef : enumDefs) {
+                assert eDef.name != null;
+                if (dataType(eDef.name) != null) {
+                    throw new AtlasException(String.format("Redefinition of type %s not supported", eDef.name));
+                }
+                pending.put(eDef.name, new EnumType(TypeSystem.this, eDef.name, eDef.enumValues));
+                pendingCategories.put(DataTypes.TypeCategory.ENUM, eDef.name);
+            }
+
             for (StructTypeDefinition sDef : structDefs) {
                 assert sDef.typeName != null;
                 if (dataType(sDef.typeName) != null) {
                     throw new AtlasException(String.format("Cannot redefine type %s", sDef.typeName));
                 }
-                TypeSystem.this.types
-                        .put(sDef.typeName, new StructType(this, sDef.typeName, sDef.attributeDefinitions.length));
+                pending.put(sDef.typeName, new StructType(this, sDef.typeName, sDef.attributeDefinitions.length));
                 structNameToDefMap.put(sDef.typeName, sDef);
                 transientTypes.add(sDef.typeName);
             }
 
             for (HierarchicalTypeDefinition<TraitType> traitDef : traitDefs) {
                 assert traitDef.typeName != null;
-                if (types.containsKey(traitDef.typeName)) {
+                if (dataType(traitDef.typeName) != null) {
                     throw new AtlasException(String.format("Cannot redefine type %s", traitDef.typeName));
                 }
 
-                TypeSystem.this.types.put(traitDef.typeName, new TraitType(this, traitDef.typeName, traitDef.superTypes,
+                pending.put(traitDef.typeName, new TraitType(this, traitDef.typeName, traitDef.superTypes,
                                 traitDef.attributeDefinitions.length));
                 traitNameToDefMap.put(traitDef.typeName, traitDef);
                 transientTypes.add(traitDef.typeName);
@@ -370,11 +614,11 @@ public class TypeSystem {
 
             for (HierarchicalTypeDefinition<ClassType> classDef : classDefs) {
                 assert classDef.typeName != null;
-                if (types.containsKey(classDef.typeName)) {
+                if (dataType(classDef.typeName) != null) {
                     throw new AtlasException(String.format("Cannot redefine type %s", classDef.typeName));
                 }
 
-                TypeSystem.this.types.put(classDef.typeName, new ClassType(this, classDef.typeName, classDef.superTypes,
+                pending.put(classDef.typeName, new ClassType(this, classDef.typeName, classDef.superTypes,
                                 classDef.attributeDefinitions.length));
                 classNameToDefMap.put(classDef.typeName, classDef);
                 transientTypes.add(classDef.typeName);
@@ -465,7 +709,7 @@ public class TypeSystem {
             }
 
             StructType type = new StructType(TypeSystem.this, def.typeName, null, infos);
-            TypeSystem.this.types.put(def.typeName, type);
+            pending.put(def.typeName, type);
             return type;
         }
 
@@ -480,7 +724,7 @@ public class TypeSystem {
                 Constructor<U> cons = cls.getDeclaredConstructor(TypeSystem.class, String.class, ImmutableList.class,
                         AttributeInfo[].class);
                 U type = cons.newInstance(TypeSystem.this, def.typeName, def.superTypes, infos);
-                TypeSystem.this.types.put(def.typeName, type);
+                pending.put(def.typeName, type);
                 return type;
             } catch (Exception e) {
                 throw new AtlasException(String.format("Cannot construct Type of MetaType %s", cls.getName()), e);
@@ -508,17 +752,17 @@ public class TypeSystem {
 
             for (StructTypeDefinition structDef : structDefs) {
                 constructStructureType(structDef);
-                typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.CLASS, structDef.typeName);
+                pendingCategories.put(DataTypes.TypeCategory.CLASS, structDef.typeName);
             }
 
             for (TraitType traitType : traitTypes) {
                 constructHierarchicalType(TraitType.class, traitNameToDefMap.get(traitType.getName()));
-                typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.TRAIT, traitType.getName());
+                pendingCategories.put(DataTypes.TypeCategory.TRAIT, traitType.getName());
             }
 
             for (ClassType classType : classTypes) {
                 constructHierarchicalType(ClassType.class, classNameToDefMap.get(classType.getName()));
-                typeCategoriesToTypeNamesMap.put(DataTypes.TypeCategory.CLASS, classType.getName());
+                pendingCategories.put(DataTypes.TypeCategory.CLASS, classType.getName());
             }
         }
 
@@ -540,25 +784,32 @@ public class TypeSystem {
         }
 
         Map<String, IDataType> defineTypes() throws AtlasException {
-            try {
-                step1();
-                step2();
-
-                step3();
-                step4();
-            } catch (AtlasException me) {
-                for (String sT : transientTypes) {
-                    types.remove(sT);
+            return defineTypes(null);
+        }
+
+        Map<String, IDataType> defineTypes(TypesCommit commit) throws AtlasException {
+            synchronized (TypeSystem.this.definitionLock) {
+                TypeSystem.this.pendingTypes = pending;
+                TypeSystem.this.definingThread = Thread.currentThread();
+                try {
+                    step1();
+                    step2();
+
+                    step3();
+                    step4();
+
+                    if (commit != null) {
+                        commit.commit(Collections.unmodifiableMap(pending));
+                    }
+                } finally {
+                    TypeSystem.this.definingThread = null;
+                    TypeSystem.this.pendingTypes = null;
                 }
-                throw me;
-            }
-
-            Map<String, IDataType> newTypes = new HashMap<>();
 
-            for (String tName : transientTypes) {
-                newTypes.put(tName, dataType(tName));
+                TypeSystem.this.snapshot = TypeSystem.this.snapshot.add(pending, pendingCategories);
             }
-            return newTypes;
+
+            return new HashMap<>(pending);
         }
 
         @Override
@@ -623,7 +874,9 @@ public class TypeSystem {
                 infos[1] = new AttributeInfo(TypeSystem.this, typNmAttr, null);
 
                 StructType type = new StructType(TypeSystem.this, TYP_NAME, null, infos);
-                TypeSystem.this.types.put(TYP_NAME, type);
+                Multimap<DataTypes.TypeCategory, String> categories = ArrayListMultimap.create();
+                TypeSystem.this.snapshot =
+                        TypeSystem.this.snapshot.add(ImmutableMap.<String, IDataType>of(TYP_NAME, type), categories);
 
             } catch (AtlasException me) {
                 throw new RuntimeException(me);
@@ -180,6 +180,11 @@ object TypesSerialization {
         TypesDef(enumTypes, structTypes, traitTypes, classTypes)
     }
 
+    def convertToTypesDef(ts: TypeSystem, typNames: java.util.Collection[String]): TypesDef = {
+        val names = typNames.toSet
+        convertToTypesDef(ts, (typ: IDataType[_]) => names.contains(typ.getName))
+    }
+
 }
 
 class MultiplicitySerializer extends CustomSerializer[Multiplicity](format => ( {
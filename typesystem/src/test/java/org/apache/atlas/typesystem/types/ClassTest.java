@@ -20,11 +20,15 @@ package org.apache.atlas.typesystem.types;
 
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.typesystem.ITypedReferenceableInstance;
+import org.apache.atlas.typesystem.ITypedStruct;
 import org.apache.atlas.typesystem.Referenceable;
+import org.apache.atlas.typesystem.persistence.ReferenceableInstance;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 public class ClassTest extends BaseTest {
 
     @Before
@@ -69,4 +73,29 @@ public class ClassTest extends BaseTest {
                 "}");
 
     }
+
+    @Test
+    public void testCopy() throws AtlasException {
+        TypeSystem ts = getTypeSystem();
+
+        defineDeptEmployeeTypes(ts);
+        ClassType deptType = ts.getDataType(ClassType.class, "Department");
+        ReferenceableInstance hrDept = (ReferenceableInstance) deptType.convert(createDeptEg1(ts),
+                Multiplicity.REQUIRED);
+
+        ReferenceableInstance copy = hrDept.copy();
+        Assert.assertEquals(copy.toString(), hrDept.toString());
+        Assert.assertEquals(copy.getId(), hrDept.getId());
+
+        // changing the copy, or the instances it embeds, leaves the original as it was
+        copy.set("name", "finance");
+        List<ITypedReferenceableInstance> employees = (List<ITypedReferenceableInstance>) copy.get("employees");
+        employees.get(0).set("name", "Jack");
+        ((ITypedStruct) employees.get(1).getTrait("SecurityClearance")).set("level", 2);
+
+        Assert.assertEquals(hrDept.get("name"), "hr");
+        employees = (List<ITypedReferenceableInstance>) hrDept.get("employees");
+        Assert.assertEquals(employees.get(0).get("name"), "John");
+        Assert.assertEquals(employees.get(1).getTrait("SecurityClearance").get("level"), 1);
+    }
 }
@@ -19,6 +19,10 @@
 package org.apache.atlas.typesystem.types;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.TypeNotFoundException;
+import org.apache.atlas.typesystem.TypesDef;
 import org.apache.atlas.typesystem.types.utils.TypesUtil;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.testng.Assert;
@@ -29,6 +33,7 @@ import scala.actors.threadpool.Arrays;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.apache.atlas.typesystem.types.utils.TypesUtil.createClassTypeDef;
 import static org.apache.atlas.typesystem.types.utils.TypesUtil.createRequiredAttrDef;
@@ -118,4 +123,191 @@ public class TypeSystemTest extends BaseTest {
 
         ts.defineTypes(ImmutableList.of(structType), ImmutableList.of(traitType), ImmutableList.of(classType));
     }
+
+    @Test
+    public void testCompositeTypesAreInterned() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        ts.defineClassType(createClassTypeDef("t_column", ImmutableList.<String>of(),
+                createRequiredAttrDef("name", DataTypes.STRING_TYPE)));
+
+        String arrayName = DataTypes.arrayTypeName("t_column");
+        DataTypes.ArrayType arrayType = ts.getDataType(DataTypes.ArrayType.class, arrayName);
+        Assert.assertSame(ts.getDataType(DataTypes.ArrayType.class, arrayName), arrayType);
+        Assert.assertSame(ts.defineArrayType(ts.getDataType(ClassType.class, "t_column")), arrayType);
+        Assert.assertSame(arrayType.getElemType(), ts.getDataType(ClassType.class, "t_column"));
+
+        String mapName = DataTypes.mapTypeName(DataTypes.STRING_TYPE.getName(), "t_column");
+        DataTypes.MapType mapType = ts.getDataType(DataTypes.MapType.class, mapName);
+        Assert.assertSame(ts.getDataType(DataTypes.MapType.class, mapName), mapType);
+        Assert.assertSame(ts.defineMapType(DataTypes.STRING_TYPE, arrayType.getElemType()), mapType);
+        Assert.assertSame(ts.defineArrayType(mapType), ts.defineArrayType(mapType));
+    }
+
+    @Test
+    public void testCompositeTypesOfTemporaryTypesAreNotInterned() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        StructType tempType = ts.defineQueryResultType("t_result", null,
+                createRequiredAttrDef("name", DataTypes.STRING_TYPE));
+
+        DataTypes.ArrayType arrayType = ts.defineArrayType(tempType);
+        Assert.assertNotSame(ts.defineArrayType(tempType), arrayType);
+        Assert.assertFalse(ts.isRegistered(arrayType.getName()));
+    }
+
+    @Test
+    public void testCompositeTypesOfRemovedTypes() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        ts.defineClassType(createClassTypeDef("t_table", ImmutableList.<String>of(),
+                createRequiredAttrDef("name", DataTypes.STRING_TYPE)));
+        String arrayName = DataTypes.arrayTypeName("t_table");
+        ts.getDataType(DataTypes.ArrayType.class, arrayName);
+
+        ts.removeTypes(ImmutableList.of("t_table"));
+        try {
+            ts.getDataType(DataTypes.ArrayType.class, arrayName);
+            Assert.fail("Expected TypeNotFoundException");
+        } catch (TypeNotFoundException e) {
+            //expected
+        }
+
+        ClassType redefined = ts.defineClassType(createClassTypeDef("t_table", ImmutableList.<String>of(),
+                createRequiredAttrDef("name", DataTypes.STRING_TYPE)));
+        Assert.assertSame(ts.getDataType(DataTypes.ArrayType.class, arrayName).getElemType(), redefined);
+    }
+
+    @Test
+    public void testGetSubTypeNames() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        HierarchicalTypeDefinition<ClassType> a = createClassTypeDef("t_a", ImmutableList.<String>of());
+        HierarchicalTypeDefinition<ClassType> b = createClassTypeDef("t_b", ImmutableList.of("t_a"));
+        HierarchicalTypeDefinition<ClassType> c = createClassTypeDef("t_c", ImmutableList.of("t_b"));
+        HierarchicalTypeDefinition<TraitType> t = createTraitTypeDef("t_t", ImmutableList.<String>of());
+        HierarchicalTypeDefinition<TraitType> u = createTraitTypeDef("t_u", ImmutableList.of("t_t"));
+        ts.defineTypes(ImmutableList.<StructTypeDefinition>of(), ImmutableList.of(t, u), ImmutableList.of(a, b, c));
+
+        Assert.assertEquals(ts.getSubTypeNames("t_a"), ImmutableSet.of("t_b", "t_c"));
+        Assert.assertEquals(ts.getSubTypeNames("t_b"), ImmutableSet.of("t_c"));
+        Assert.assertTrue(ts.getSubTypeNames("t_c").isEmpty());
+        Assert.assertEquals(ts.getSubTypeNames("t_t"), ImmutableSet.of("t_u"));
+        Assert.assertTrue(ts.getSubTypeNames("unknown").isEmpty());
+
+        ts.defineClassType(createClassTypeDef("t_d", ImmutableList.of("t_a", "t_b")));
+        Assert.assertEquals(ts.getSubTypeNames("t_a"), ImmutableSet.of("t_b", "t_c", "t_d"));
+        Assert.assertEquals(ts.getSubTypeNames("t_b"), ImmutableSet.of("t_c", "t_d"));
+
+        ts.removeTypes(ImmutableList.of("t_c", "t_d"));
+        Assert.assertEquals(ts.getSubTypeNames("t_a"), ImmutableSet.of("t_b"));
+        Assert.assertTrue(ts.getSubTypeNames("t_b").isEmpty());
+    }
+
+    @Test
+    public void testSubTypesOfFailedDefinition() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        ts.defineClassType(createClassTypeDef("t_a", ImmutableList.<String>of()));
+
+        try {
+            ts.defineTypes(ImmutableList.<StructTypeDefinition>of(),
+                    ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(),
+                    ImmutableList.of(createClassTypeDef("t_b", ImmutableList.of("t_a")),
+                            createClassTypeDef("t_c", ImmutableList.of("unknown"))));
+            Assert.fail("Expected AtlasException");
+        } catch (AtlasException e) {
+            //expected
+        }
+        Assert.assertTrue(ts.getSubTypeNames("t_a").isEmpty());
+    }
+
+    @Test
+    public void testSnapshots() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        TypeSystem.Snapshot before = ts.getSnapshot();
+
+        ts.defineClassType(createClassTypeDef("t_a", ImmutableList.<String>of(),
+                createRequiredAttrDef("name", DataTypes.STRING_TYPE)));
+        ts.defineClassType(createClassTypeDef("t_b", ImmutableList.of("t_a")));
+
+        TypeSystem.Snapshot after = ts.getSnapshot();
+        Assert.assertEquals(ts.getVersion(), after.getVersion());
+        Assert.assertTrue(after.getVersion() > before.getVersion());
+
+        Assert.assertFalse(before.isRegistered("t_a"));
+        Assert.assertTrue(before.getSubTypeNames("t_a").isEmpty());
+        try {
+            before.getDataType(ClassType.class, "t_a");
+            Assert.fail("Expected TypeNotFoundException");
+        } catch (TypeNotFoundException e) {
+            //expected
+        }
+
+        Assert.assertSame(after.getDataType(ClassType.class, "t_a"), ts.getDataType(ClassType.class, "t_a"));
+        Assert.assertEquals(after.getSubTypeNames("t_a"), ImmutableSet.of("t_b"));
+        Assert.assertTrue(after.getTypeNamesByCategory(DataTypes.TypeCategory.CLASS).contains("t_b"));
+        Assert.assertSame(after.getDataType(DataTypes.ArrayType.class, DataTypes.arrayTypeName("t_a")),
+                ts.getDataType(DataTypes.ArrayType.class, DataTypes.arrayTypeName("t_a")));
+
+        ts.removeTypes(ImmutableList.of("t_b"));
+        Assert.assertTrue(ts.getVersion() > after.getVersion());
+        Assert.assertTrue(after.isRegistered("t_b"));
+        Assert.assertFalse(ts.isRegistered("t_b"));
+    }
+
+    @Test
+    public void testFailedDefinitionIsNotPublished() throws Exception {
+        TypeSystem ts = getTypeSystem();
+        long version = ts.getVersion();
+
+        TypesDef typesDef = TypeUtils.getTypesDef(
+                ImmutableList.of(new EnumTypeDefinition("t_enum", new EnumValue("A", 1))),
+                ImmutableList.<StructTypeDefinition>of(), ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(),
+                ImmutableList.of(createClassTypeDef("t_a", ImmutableList.<String>of(),
+                        createRequiredAttrDef("e", "t_enum")), createClassTypeDef("t_b", ImmutableList.of("unknown"))));
+        try {
+            ts.defineTypes(typesDef);
+            Assert.fail("Expected AtlasException");
+        } catch (AtlasException e) {
+            //expected
+        }
+
+        Assert.assertEquals(ts.getVersion(), version);
+        Assert.assertFalse(ts.isRegistered("t_enum"));
+        Assert.assertFalse(ts.isRegistered("t_a"));
+        Assert.assertTrue(ts.getTypeNamesByCategory(DataTypes.TypeCategory.ENUM).isEmpty());
+    }
+
+    @Test
+    public void testTypesArePublishedAfterCommit() throws Exception {
+        final TypeSystem ts = getTypeSystem();
+        final long version = ts.getVersion();
+        TypesDef typesDef = TypeUtils.getTypesDef(ImmutableList.<EnumTypeDefinition>of(),
+                ImmutableList.<StructTypeDefinition>of(), ImmutableList.<HierarchicalTypeDefinition<TraitType>>of(),
+                ImmutableList.of(createClassTypeDef("t_a", ImmutableList.<String>of(),
+                        createRequiredAttrDef("name", DataTypes.STRING_TYPE))));
+
+        try {
+            ts.defineTypes(typesDef, new TypeSystem.TypesCommit() {
+                @Override
+                public void commit(Map<String, IDataType> definedTypes) throws AtlasException {
+                    // the committing thread sees the types, the published snapshot doesn't have them yet
+                    Assert.assertSame(ts.getDataType(ClassType.class, "t_a"), definedTypes.get("t_a"));
+                    Assert.assertTrue(ts.getTypeNames().contains("t_a"));
+                    Assert.assertFalse(ts.getSnapshot().isRegistered("t_a"));
+                    Assert.assertEquals(ts.getVersion(), version);
+                    throw new AtlasException("commit failed");
+                }
+            });
+            Assert.fail("Expected AtlasException");
+        } catch (AtlasException e) {
+            //expected
+        }
+        Assert.assertEquals(ts.getVersion(), version);
+        Assert.assertFalse(ts.isRegistered("t_a"));
+
+        ts.defineTypes(typesDef, new TypeSystem.TypesCommit() {
+            @Override
+            public void commit(Map<String, IDataType> definedTypes) {
+            }
+        });
+        Assert.assertTrue(ts.isRegistered("t_a"));
+        Assert.assertTrue(ts.getVersion() > version);
+    }
 }
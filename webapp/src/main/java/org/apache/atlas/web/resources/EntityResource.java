@@ -19,6 +19,11 @@
 package org.apache.atlas.web.resources;
 
 import com.google.common.base.Preconditions;
+import com.thinkaurelius.titan.core.SchemaViolationException;
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.diskstorage.BackendException;
+import com.thinkaurelius.titan.diskstorage.locking.PermanentLockingException;
+import com.thinkaurelius.titan.diskstorage.locking.TemporaryLockingException;
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.ParamChecker;
@@ -117,6 +122,129 @@ public class EntityResource {
         }
     }
 
+    /**
+     * Submits a batch of entity definitions (instances), passed in as a json array,
+     * which are created in a single transaction.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes(Servlets.JSON_MEDIA_TYPE)
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response submitEntities(@Context HttpServletRequest request) {
+        try {
+            final String entities = Servlets.getRequestPayload(request);
+            LOG.debug("submitting entities {} ", entities);
+
+            final List<String> guids = metadataService.createEntities(entities);
+
+            JSONObject response = new JSONObject();
+            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
+            response.put(AtlasClient.GUID, new JSONArray(guids));
+            response.put(AtlasClient.COUNT, guids.size());
+
+            return Response.status(Response.Status.CREATED).entity(response).build();
+
+        } catch (ValueConversionException ve) {
+            LOG.error("Unable to persist entity instances due to a desrialization error ", ve);
+            throw new WebApplicationException(Servlets.getErrorResponse(ve.getCause(), Response.Status.BAD_REQUEST));
+        } catch (AtlasException | IllegalArgumentException e) {
+            LOG.error("Unable to persist entity instances", e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
+        } catch (Throwable e) {
+            LOG.error("Unable to persist entity instances", e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * Submits an entity definition (instance), which is created unless an entity with the same value of one
+     * of the unique attributes of its type is registered, in which case the registered entity is updated. Only
+     * the primitive and enum attributes of a registered entity can be updated, setting any other attribute is
+     * rejected as a bad request.
+     */
+    @POST
+    @Path(AtlasClient.URI_UPSERT)
+    @Consumes(Servlets.JSON_MEDIA_TYPE)
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response upsert(@Context HttpServletRequest request) {
+        try {
+            final String entity = Servlets.getRequestPayload(request);
+            LOG.debug("upserting entity {} ", entity);
+
+            final String guid = metadataService.upsertEntity(entity);
+
+            JSONObject response = new JSONObject();
+            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
+            response.put(AtlasClient.GUID, guid);
+            response.put(AtlasClient.DEFINITION, metadataService.getEntityDefinition(guid));
+
+            return Response.ok(response).build();
+
+        } catch (ValueConversionException ve) {
+            LOG.error("Unable to persist entity instance due to a desrialization error ", ve);
+            throw new WebApplicationException(Servlets.getErrorResponse(ve.getCause(), Response.Status.BAD_REQUEST));
+        } catch (AtlasException | IllegalArgumentException e) {
+            LOG.error("Unable to persist entity instance", e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
+        } catch (Throwable e) {
+            LOG.error("Unable to persist entity instance", e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * Applies a batch of events, such as the ones sent by the hooks, in a single transaction. The entities of
+     * the events are resolved by their identifying attributes, and only created if they aren't registered yet.
+     * Invalid events are rejected without failing the batch, and the response holds the result of each event.
+     */
+    @POST
+    @Path(AtlasClient.URI_INGEST)
+    @Consumes(Servlets.JSON_MEDIA_TYPE)
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response ingest(@Context HttpServletRequest request) {
+        try {
+            final String batch = Servlets.getRequestPayload(request);
+            LOG.debug("ingesting batch {} ", batch);
+
+            final JSONArray results = metadataService.ingest(batch);
+
+            JSONObject response = new JSONObject();
+            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
+            response.put(AtlasClient.RESULTS, results);
+            response.put(AtlasClient.COUNT, results.length());
+
+            return Response.ok(response).build();
+
+        } catch (Throwable e) {
+            LOG.error("Unable to ingest the batch", e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, getIngestErrorStatus(e)));
+        }
+    }
+
+    /**
+     * A batch that wasn't applied because the storage backend is unavailable, or because of a concurrent
+     * transaction creating the same entities, may be sent again. Any other failure, including the repository
+     * rejecting the batch, would fail again.
+     */
+    private static Response.Status getIngestErrorStatus(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SchemaViolationException || t instanceof PermanentLockingException
+                    || t instanceof TemporaryLockingException) {
+                return Response.Status.CONFLICT;
+            }
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TitanException || t instanceof BackendException) {
+                return Response.Status.SERVICE_UNAVAILABLE;
+            }
+        }
+
+        if (e instanceof AtlasException || e instanceof IllegalArgumentException) {
+            return Response.Status.BAD_REQUEST;
+        }
+        return Response.Status.INTERNAL_SERVER_ERROR;
+    }
+
     /**
      * Fetch the complete definition of an entity given its GUID.
      *
@@ -159,13 +287,21 @@ public class EntityResource {
     }
 
     /**
-     * Gets the list of entities for a given entity type.
+     * Gets the list of entities for a given entity type, or the entity of the type with the given value of a
+     * unique attribute when the attribute is given.
      *
      * @param entityType name of a type which is unique
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
      */
     @GET
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public Response getEntityListByType(@QueryParam("type") String entityType) {
+    public Response getEntityListByType(@QueryParam("type") String entityType,
+            @QueryParam("property") String attribute, @QueryParam("value") String value) {
+        if (attribute != null) {
+            return getEntityDefinitionByAttribute(entityType, attribute, value);
+        }
+
         try {
             Preconditions.checkNotNull(entityType, "Entity type cannot be null");
 
@@ -191,6 +327,64 @@ public class EntityResource {
         }
     }
 
+    private Response getEntityDefinitionByAttribute(String entityType, String attribute, String value) {
+        try {
+            LOG.debug("Fetching entity definition for type={}, {}={}", entityType, attribute, value);
+            final String entityDefinition = metadataService.getEntityDefinition(entityType, attribute, value);
+
+            JSONObject response = new JSONObject();
+            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
+            response.put(AtlasClient.DEFINITION, entityDefinition);
+
+            return Response.ok(response).build();
+
+        } catch (EntityNotFoundException e) {
+            LOG.error("An entity with type={} and {}={} does not exist", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.NOT_FOUND));
+        } catch (AtlasException | IllegalArgumentException e) {
+            LOG.error("Bad type={}, {}={}", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
+        } catch (Throwable e) {
+            LOG.error("Unable to get instance definition for type={}, {}={}", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * Gets the GUID of the entity of the given type with the given value of a unique attribute, without its
+     * definition.
+     *
+     * @param entityType name of the type
+     * @param attribute  name of a unique attribute of the type
+     * @param value      value of the attribute
+     */
+    @GET
+    @Path(AtlasClient.URI_GUID)
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Response getEntityGuidByAttribute(@QueryParam("type") String entityType,
+            @QueryParam("property") String attribute, @QueryParam("value") String value) {
+        try {
+            LOG.debug("Fetching entity guid for type={}, {}={}", entityType, attribute, value);
+            final String guid = metadataService.getEntityGuid(entityType, attribute, value);
+
+            JSONObject response = new JSONObject();
+            response.put(AtlasClient.REQUEST_ID, Servlets.getRequestId());
+            response.put(AtlasClient.GUID, guid);
+
+            return Response.ok(response).build();
+
+        } catch (EntityNotFoundException e) {
+            LOG.error("An entity with type={} and {}={} does not exist", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.NOT_FOUND));
+        } catch (AtlasException | IllegalArgumentException e) {
+            LOG.error("Bad type={}, {}={}", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.BAD_REQUEST));
+        } catch (Throwable e) {
+            LOG.error("Unable to get entity guid for type={}, {}={}", entityType, attribute, value, e);
+            throw new WebApplicationException(Servlets.getErrorResponse(e, Response.Status.INTERNAL_SERVER_ERROR));
+        }
+    }
+
     /**
      * Adds property to the given entity id
      * @param guid entity id
@@ -20,7 +20,9 @@ package org.apache.atlas.web.resources;
 
 import com.google.common.base.Preconditions;
 import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasException;
 import org.apache.atlas.ParamChecker;
+import org.apache.atlas.PropertiesUtil;
 import org.apache.atlas.discovery.DiscoveryException;
 import org.apache.atlas.discovery.DiscoveryService;
 import org.apache.atlas.web.util.Servlets;
@@ -33,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -54,7 +57,15 @@ public class MetadataDiscoveryResource {
     private static final String QUERY_TYPE_GREMLIN = "gremlin";
     private static final String QUERY_TYPE_FULLTEXT = "full-text";
 
+    /**
+     * Constants for the configuration property that sets the largest limit a search can give. A
+     * search that does not give a limit returns a page of this many results.
+     */
+    public static final String MAX_LIMIT_PROPERTY = "atlas.search.maxlimit";
+    public static final int MAX_LIMIT = 10000;
+
     private final DiscoveryService discoveryService;
+    private final int maxLimit;
 
     /**
      * Created by the Guice ServletModule and injected with the
@@ -63,21 +74,27 @@ public class MetadataDiscoveryResource {
      * @param discoveryService metadata service handle
      */
     @Inject
-    public MetadataDiscoveryResource(DiscoveryService discoveryService) {
+    public MetadataDiscoveryResource(DiscoveryService discoveryService) throws AtlasException {
         this.discoveryService = discoveryService;
+        this.maxLimit = PropertiesUtil.getApplicationProperties().getInt(MAX_LIMIT_PROPERTY, MAX_LIMIT);
     }
 
     /**
      * Search using a given query.
      *
      * @param query search query in raw gremlin or DSL format falling back to full text.
+     * @param limit maximum number of results to return, at most atlas.search.maxlimit, which is
+     *              also the limit if it isn't given.
+     * @param offset number of results to skip.
+     * @param continuation the continuation returned with the previous page, in place of the offset.
      * @return JSON representing the type and results.
      */
     @GET
     @Path("search")
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public Response search(@QueryParam("query") String query) {
+    public Response search(@QueryParam("query") String query, @QueryParam("limit") @DefaultValue("-1") int limit,
+            @QueryParam("offset") @DefaultValue("0") int offset, @QueryParam("continuation") String continuation) {
         JSONObject response;
         try {   // fall back to dsl
             ParamChecker.notEmpty(query, "query cannot be null");
@@ -86,8 +103,9 @@ public class MetadataDiscoveryResource {
                 return searchUsingGremlinQuery(query);
             }
 
-            final String jsonResultStr = discoveryService.searchByDSL(query);
-            response = new DSLJSONResponseBuilder().results(jsonResultStr).query(query).build();
+            Page page = new Page(limit, offset, continuation);
+            final String jsonResultStr = discoveryService.searchByDSL(query, page.limit, page.offset);
+            response = new DSLJSONResponseBuilder().results(jsonResultStr).page(page).query(query).build();
 
         } catch (IllegalArgumentException e) {
             LOG.error("Unable to get entity list for empty query", e);
@@ -96,8 +114,9 @@ public class MetadataDiscoveryResource {
             LOG.error("Unable to get entity list for query {} using dsl", query, throwable);
 
             try {   //fall back to full-text
-                final String jsonResultStr = discoveryService.searchByFullText(query);
-                response = new FullTextJSonResponseBuilder().results(jsonResultStr).query(query).build();
+                Page page = new Page(limit, offset, continuation);
+                final String jsonResultStr = discoveryService.searchByFullText(query, page.limit, page.offset);
+                response = new FullTextJSonResponseBuilder().results(jsonResultStr).page(page).query(query).build();
 
             } catch (DiscoveryException | IllegalArgumentException e) {
                 LOG.error("Unable to get entity list for query {}", query, e);
@@ -116,18 +135,26 @@ public class MetadataDiscoveryResource {
      * Search using query DSL format.
      *
      * @param dslQuery search query in DSL format.
+     * @param limit maximum number of rows to return, at most atlas.search.maxlimit, which is
+     *              also the limit if it isn't given.
+     * @param offset number of rows to skip.
+     * @param continuation the continuation returned with the previous page, in place of the offset.
      * @return JSON representing the type and results.
      */
     @GET
     @Path("search/dsl")
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public Response searchUsingQueryDSL(@QueryParam("query") String dslQuery) {
+    public Response searchUsingQueryDSL(@QueryParam("query") String dslQuery,
+            @QueryParam("limit") @DefaultValue("-1") int limit, @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("continuation") String continuation) {
         try {
             ParamChecker.notEmpty(dslQuery, "dslQuery cannot be null");
-            final String jsonResultStr = discoveryService.searchByDSL(dslQuery);
+            Page page = new Page(limit, offset, continuation);
+            final String jsonResultStr = discoveryService.searchByDSL(dslQuery, page.limit, page.offset);
 
-            JSONObject response = new DSLJSONResponseBuilder().results(jsonResultStr).query(dslQuery).build();
+            JSONObject response =
+                    new DSLJSONResponseBuilder().results(jsonResultStr).page(page).query(dslQuery).build();
 
             return Response.ok(response).build();
         } catch (DiscoveryException | IllegalArgumentException e) {
@@ -180,19 +207,27 @@ public class MetadataDiscoveryResource {
      * Search using full text search.
      *
      * @param query search query.
+     * @param limit maximum number of results to return, at most atlas.search.maxlimit, which is
+     *              also the limit if it isn't given.
+     * @param offset number of results to skip.
+     * @param continuation the continuation returned with the previous page, in place of the offset.
      * @return JSON representing the type and results.
      */
     @GET
     @Path("search/fulltext")
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public Response searchUsingFullText(@QueryParam("query") String query) {
+    public Response searchUsingFullText(@QueryParam("query") String query,
+            @QueryParam("limit") @DefaultValue("-1") int limit, @QueryParam("offset") @DefaultValue("0") int offset,
+            @QueryParam("continuation") String continuation) {
         try {
             ParamChecker.notEmpty(query, "query cannot be null or empty");
-            final String jsonResultStr = discoveryService.searchByFullText(query);
+            Page page = new Page(limit, offset, continuation);
+            final String jsonResultStr = discoveryService.searchByFullText(query, page.limit, page.offset);
             JSONArray rowsJsonArr = new JSONArray(jsonResultStr);
 
-            JSONObject response = new FullTextJSonResponseBuilder().results(rowsJsonArr).query(query).build();
+            JSONObject response =
+                    new FullTextJSonResponseBuilder().results(rowsJsonArr).page(page).query(query).build();
             return Response.ok(response).build();
         } catch (DiscoveryException | IllegalArgumentException e) {
             LOG.error("Unable to get entity list for query {}", query, e);
@@ -203,11 +238,46 @@ public class MetadataDiscoveryResource {
         }
     }
 
+    /**
+     * The page of results requested by a search. A full page may have left results out, so it is
+     * returned as truncated, with the offset of the next page as its continuation. A search that
+     * does not give a limit gets a page of atlas.search.maxlimit results.
+     */
+    private class Page {
+
+        final int limit;
+        final int offset;
+
+        Page(int limit, int offset, String continuation) {
+            if (continuation != null) {
+                try {
+                    offset = Integer.parseInt(continuation);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid continuation " + continuation);
+                }
+            }
+
+            Preconditions.checkArgument(offset >= 0, "offset cannot be negative");
+            Preconditions.checkArgument(limit <= maxLimit, "limit cannot be more than %s", maxLimit);
+            this.limit = limit > 0 ? limit : maxLimit;
+            this.offset = offset;
+        }
+
+        boolean truncated(int count) {
+            return count >= limit;
+        }
+
+        String continuation(int count) {
+            return truncated(count) ? String.valueOf(offset + count) : null;
+        }
+    }
+
     private class JsonResponseBuilder {
 
         protected int count = 0;
         protected String query;
         protected String queryType;
+        protected Page page;
         protected JSONObject response;
 
         JsonResponseBuilder() {
@@ -229,6 +299,11 @@ public class MetadataDiscoveryResource {
             return this;
         }
 
+        public JsonResponseBuilder page(Page page) {
+            this.page = page;
+            return this;
+        }
+
         protected JSONObject build() throws JSONException {
 
             Preconditions.checkNotNull(query, "Query cannot be null");
@@ -239,6 +314,12 @@ public class MetadataDiscoveryResource {
             response.put(AtlasClient.QUERY, query);
             response.put(AtlasClient.QUERY_TYPE, queryType);
             response.put(AtlasClient.COUNT, count);
+            if (page != null) {
+                response.put(AtlasClient.LIMIT, page.limit);
+                response.put(AtlasClient.OFFSET, page.offset);
+                response.put(AtlasClient.TRUNCATED, page.truncated(count));
+                response.putOpt(AtlasClient.CONTINUATION, page.continuation(count));
+            }
             return response;
         }
     }
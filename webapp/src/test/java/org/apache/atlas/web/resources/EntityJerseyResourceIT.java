@@ -96,6 +96,24 @@ public class EntityJerseyResourceIT extends BaseResourceIT {
         }
     }
 
+    @Test
+    public void testSubmitEntities() throws Exception {
+        Referenceable databaseInstance = new Referenceable(DATABASE_TYPE);
+        databaseInstance.set("name", randomString());
+        databaseInstance.set("description", "bulk database");
+
+        Referenceable otherDatabaseInstance = new Referenceable(DATABASE_TYPE);
+        otherDatabaseInstance.set("name", randomString());
+        otherDatabaseInstance.set("description", "bulk database");
+
+        List<String> guids = serviceClient.createEntities(databaseInstance, otherDatabaseInstance);
+        Assert.assertEquals(guids.size(), 2);
+        Assert.assertNotEquals(guids.get(0), guids.get(1));
+
+        Referenceable database = serviceClient.getEntity(guids.get(1));
+        Assert.assertEquals(database.get("name"), otherDatabaseInstance.get("name"));
+    }
+
     @DataProvider
     public Object[][] invalidAttrValues() {
         return new Object[][]{{null}, {""}, {" "}};
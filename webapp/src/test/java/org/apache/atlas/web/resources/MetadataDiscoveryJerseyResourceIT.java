@@ -85,6 +85,34 @@ public class MetadataDiscoveryJerseyResourceIT extends BaseResourceIT {
         int numRows = response.getInt(AtlasClient.COUNT);
         Assert.assertEquals(numRows, 1);
 
+        // a search without a limit gets a page of the max limit
+        Assert.assertEquals(response.getInt(AtlasClient.LIMIT), MetadataDiscoveryResource.MAX_LIMIT);
+        Assert.assertFalse(response.getBoolean(AtlasClient.TRUNCATED));
+        Assert.assertFalse(response.has(AtlasClient.CONTINUATION));
+    }
+
+    @Test
+    public void testSearchByDSLWithLimit() throws Exception {
+        JSONObject response = serviceClient.searchByDSL("from dsl_test_type", 1, 0);
+        Assert.assertEquals(response.getInt(AtlasClient.COUNT), 1);
+        Assert.assertEquals(response.getInt(AtlasClient.LIMIT), 1);
+        Assert.assertTrue(response.getBoolean(AtlasClient.TRUNCATED));
+        Assert.assertEquals(response.getString(AtlasClient.CONTINUATION), "1");
+
+        response = serviceClient.searchByDSL("from dsl_test_type", 1, response.getString(AtlasClient.CONTINUATION));
+        Assert.assertEquals(response.getInt(AtlasClient.COUNT), 0);
+        Assert.assertFalse(response.getBoolean(AtlasClient.TRUNCATED));
+        Assert.assertFalse(response.has(AtlasClient.CONTINUATION));
+    }
+
+    @Test
+    public void testSearchByDSLAboveMaxLimit() throws Exception {
+        WebResource resource = service.path("api/atlas/discovery/search/dsl").queryParam("query", "from dsl_test_type")
+                .queryParam("limit", String.valueOf(MetadataDiscoveryResource.MAX_LIMIT + 1));
+
+        ClientResponse clientResponse = resource.accept(Servlets.JSON_MEDIA_TYPE).type(Servlets.JSON_MEDIA_TYPE)
+                .method(HttpMethod.GET, ClientResponse.class);
+        Assert.assertEquals(clientResponse.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
     }
 
     @Test